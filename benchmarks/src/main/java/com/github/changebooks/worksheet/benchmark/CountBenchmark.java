@@ -0,0 +1,67 @@
+package com.github.changebooks.worksheet.benchmark;
+
+import com.alibaba.excel.support.ExcelTypeEnum;
+import com.github.changebooks.worksheet.ReadUtils;
+import com.github.changebooks.worksheet.Utf8Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行数、UTF-8校验
+ * 吞吐量按文件计，字节/秒 = 次/秒 * 文件大小
+ *
+ * @author changebooks
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class CountBenchmark {
+    /**
+     * 数据行数
+     */
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"ASCII", "CJK"})
+    public Fixtures.Text text;
+
+    @Param({"PLAIN", "MULTILINE"})
+    public Fixtures.Quote quote;
+
+    private File csv;
+
+    private File xlsx;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        csv = Fixtures.csv(Fixtures.Shape.WIDE, text, quote, rows);
+        xlsx = Fixtures.excel(Fixtures.Shape.WIDE, text, rows, ExcelTypeEnum.XLSX);
+    }
+
+    @Benchmark
+    public Integer lineNumCsv() throws IOException {
+        return ReadUtils.getLineNum(csv);
+    }
+
+    @Benchmark
+    public Integer lineNumXlsx() throws IOException {
+        return ReadUtils.getLineNum(xlsx);
+    }
+
+    @Benchmark
+    public boolean utf8Head() throws IOException {
+        return Utf8Utils.checkHead(csv);
+    }
+
+    @Benchmark
+    public boolean utf8Body() throws IOException {
+        return Utf8Utils.checkBody(csv, (int) Math.min(Integer.MAX_VALUE, Fixtures.size(csv)));
+    }
+
+}
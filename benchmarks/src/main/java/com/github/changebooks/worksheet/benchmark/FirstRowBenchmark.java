@@ -0,0 +1,85 @@
+package com.github.changebooks.worksheet.benchmark;
+
+import com.alibaba.excel.support.ExcelTypeEnum;
+import com.github.changebooks.worksheet.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 首行延迟
+ * 打开文件到回调第一个数据行，然后StopException终止
+ *
+ * @author changebooks
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class FirstRowBenchmark {
+    /**
+     * 数据行数
+     */
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"NARROW", "WIDE"})
+    public Fixtures.Shape shape;
+
+    private File csv;
+
+    private File xlsx;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        csv = Fixtures.csv(shape, Fixtures.Text.ASCII, Fixtures.Quote.PLAIN, rows);
+        xlsx = Fixtures.excel(shape, Fixtures.Text.ASCII, rows, ExcelTypeEnum.XLSX);
+    }
+
+    @Benchmark
+    public Object readLineXlsx() throws IOException {
+        FirstRow listener = new FirstRow();
+        ReadLine.read(xlsx, null, listener);
+        return listener.first;
+    }
+
+    @Benchmark
+    public Object readCsvOpencsv() throws IOException {
+        FirstRow listener = new FirstRow();
+        ReadCsv.readLine(csv, StandardCharsets.UTF_8, ReadCsv.Engine.OPENCSV, listener);
+        return listener.first;
+    }
+
+    @Benchmark
+    public Object readCsvTokenizer() throws IOException {
+        FirstRow listener = new FirstRow();
+        ReadCsv.readLine(csv, StandardCharsets.UTF_8, ReadCsv.Engine.TOKENIZER, listener);
+        return listener.first;
+    }
+
+    /**
+     * 取第一个数据行，终止
+     */
+    private static final class FirstRow implements ReadLine.Listener {
+
+        Map<String, String> first;
+
+        @Override
+        public void invoke(Integer rowIndex, Map<String, String> valueMap) {
+            first = valueMap;
+            throw new StopException();
+        }
+
+        @Override
+        public void onComplete(Integer rowIndex) {
+        }
+
+    }
+
+}
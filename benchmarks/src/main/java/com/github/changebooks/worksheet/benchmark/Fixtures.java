@@ -0,0 +1,214 @@
+package com.github.changebooks.worksheet.benchmark;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.support.ExcelTypeEnum;
+import com.alibaba.excel.write.metadata.WriteSheet;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试的合成文件
+ * 窄表、宽表；ASCII、中文；普通、引号、引号内换行
+ *
+ * @author changebooks
+ */
+public final class Fixtures {
+    /**
+     * 列数
+     */
+    public enum Shape {
+        // 8列
+        NARROW(8),
+
+        // 80列
+        WIDE(80),
+
+        ;
+
+        private final int columns;
+
+        Shape(int columns) {
+            this.columns = columns;
+        }
+
+        public int getColumns() {
+            return columns;
+        }
+    }
+
+    /**
+     * 字符集
+     */
+    public enum Text {
+        // 英文、数字
+        ASCII,
+
+        // 中文
+        CJK,
+
+        ;
+    }
+
+    /**
+     * 引号
+     */
+    public enum Quote {
+        // 无引号
+        PLAIN,
+
+        // 每3列1个引号字段，含分隔符和转义的引号
+        QUOTED,
+
+        // 每3列1个引号字段，含换行符
+        MULTILINE,
+
+        ;
+    }
+
+    /**
+     * 中文字符
+     */
+    private static final String CJK_CHARS = "北京上海广州深圳杭州订单金额状态地区币种类别已完成待支付";
+
+    /**
+     * 固定种子，每次生成相同的文件
+     */
+    private static final long SEED = 20211021L;
+
+    private Fixtures() {
+    }
+
+    /**
+     * csv，UTF-8
+     */
+    public static File csv(Shape shape, Text text, Quote quote, int rows) throws IOException {
+        return csv(shape, text, quote, rows, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * csv
+     */
+    public static File csv(Shape shape, Text text, Quote quote, int rows, Charset charset) throws IOException {
+        File file = tempFile(String.format("%s-%s-%s-%d-%s", shape, text, quote, rows, charset.name()), "csv");
+        if (file.exists()) {
+            return file;
+        }
+
+        Random random = new Random(SEED);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), charset), 1 << 16)) {
+            for (int c = 0; c < shape.getColumns(); c++) {
+                if (c > 0) {
+                    writer.write(',');
+                }
+
+                writer.write("col" + c);
+            }
+
+            writer.write('\n');
+
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < shape.getColumns(); c++) {
+                    if (c > 0) {
+                        writer.write(',');
+                    }
+
+                    writer.write(field(random, text, quote, c));
+                }
+
+                writer.write('\n');
+            }
+        }
+
+        return file;
+    }
+
+    /**
+     * xls、xlsx
+     */
+    public static File excel(Shape shape, Text text, int rows, ExcelTypeEnum type) {
+        File file = tempFile(String.format("%s-%s-%d", shape, text, rows), type == ExcelTypeEnum.XLS ? "xls" : "xlsx");
+        if (file.exists()) {
+            return file;
+        }
+
+        List<List<String>> head = new ArrayList<>(shape.getColumns());
+        for (int c = 0; c < shape.getColumns(); c++) {
+            List<String> name = new ArrayList<>(1);
+            name.add("col" + c);
+            head.add(name);
+        }
+
+        Random random = new Random(SEED);
+        ExcelWriter writer = EasyExcel.write(file).excelType(type).build();
+        try {
+            WriteSheet sheet = EasyExcel.writerSheet(0).head(head).build();
+
+            int batch = 10000;
+            for (int r = 0; r < rows; r += batch) {
+                List<List<Object>> data = new ArrayList<>(batch);
+
+                for (int i = r, end = Math.min(rows, r + batch); i < end; i++) {
+                    List<Object> row = new ArrayList<>(shape.getColumns());
+                    for (int c = 0; c < shape.getColumns(); c++) {
+                        row.add(field(random, text, Quote.PLAIN, c));
+                    }
+
+                    data.add(row);
+                }
+
+                writer.write(data, sheet);
+            }
+        } finally {
+            writer.finish();
+        }
+
+        return file;
+    }
+
+    /**
+     * 文件大小，字节
+     */
+    public static long size(File file) {
+        return file.length();
+    }
+
+    private static String field(Random random, Text text, Quote quote, int column) {
+        String value;
+        if (column % 2 == 0) {
+            value = Integer.toString(random.nextInt(1000000));
+        } else if (text == Text.CJK) {
+            int len = 2 + random.nextInt(6);
+            StringBuilder builder = new StringBuilder(len);
+            for (int i = 0; i < len; i++) {
+                builder.append(CJK_CHARS.charAt(random.nextInt(CJK_CHARS.length())));
+            }
+
+            value = builder.toString();
+        } else {
+            value = "v" + Long.toString(random.nextLong() & 0xFFFFFFFL, 36);
+        }
+
+        if (quote == Quote.PLAIN || column % 3 != 1) {
+            return value;
+        }
+
+        String inner = quote == Quote.MULTILINE ? value + "\n" + value : value + ",\"\"" + value;
+        return "\"" + inner + "\"";
+    }
+
+    private static File tempFile(String name, String extension) {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "worksheet-benchmarks");
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IllegalStateException("mkdirs failed, dir: " + dir);
+        }
+
+        return new File(dir, name + "." + extension);
+    }
+
+}
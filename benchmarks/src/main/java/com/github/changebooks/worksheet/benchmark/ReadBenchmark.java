@@ -0,0 +1,189 @@
+package com.github.changebooks.worksheet.benchmark;
+
+import com.alibaba.excel.support.ExcelTypeEnum;
+import com.github.changebooks.worksheet.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读的吞吐量
+ * 每次读完整个文件，rows为已读行数，行/秒 = rows / 秒
+ * 每行分配的字节数：-prof gc，gc.alloc.rate.norm / rows
+ *
+ * @author changebooks
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class ReadBenchmark {
+    /**
+     * 数据行数
+     */
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"NARROW", "WIDE"})
+    public Fixtures.Shape shape;
+
+    @Param({"ASCII", "CJK"})
+    public Fixtures.Text text;
+
+    @Param({"PLAIN", "QUOTED", "MULTILINE"})
+    public Fixtures.Quote quote;
+
+    private File csv;
+
+    private File xlsx;
+
+    private File xls;
+
+    /**
+     * 6列，偶数列为整数
+     */
+    private final ReadSchema schema = ReadSchema.builder().
+            column("col0", ColumnType.INT).column("col1", ColumnType.STRING).
+            column("col2", ColumnType.LONG).column("col4", ColumnType.DOUBLE).
+            column("col6", ColumnType.DECIMAL).column("col7", ColumnType.STRING).build();
+
+    /**
+     * 已读行数，每次迭代累加
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Rows {
+
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        csv = Fixtures.csv(shape, text, quote, rows);
+        xlsx = Fixtures.excel(shape, text, rows, ExcelTypeEnum.XLSX);
+        xls = Fixtures.excel(shape, text, Math.min(rows, 65535), ExcelTypeEnum.XLS);
+    }
+
+    @Benchmark
+    public void readLineXlsx(Rows counter, Blackhole blackhole) throws IOException {
+        ReadLine.read(xlsx, null, listener(counter, blackhole));
+    }
+
+    @Benchmark
+    public void readLineXls(Rows counter, Blackhole blackhole) throws IOException {
+        ReadLine.read(xls, null, listener(counter, blackhole));
+    }
+
+    @Benchmark
+    public void readPageXlsx(Rows counter, Blackhole blackhole) throws IOException {
+        ReadPage.create(1000).read(xlsx, pageListener(counter, blackhole));
+    }
+
+    @Benchmark
+    public void readSyncXlsx(Rows counter, Blackhole blackhole) throws IOException {
+        List<Map<String, String>> data = ReadSync.read(xlsx, null);
+        counter.rows += data.size();
+        blackhole.consume(data);
+    }
+
+    @Benchmark
+    public void readCsvOpencsv(Rows counter, Blackhole blackhole) throws IOException {
+        ReadCsv.readLine(csv, StandardCharsets.UTF_8, ReadCsv.Engine.OPENCSV, listener(counter, blackhole));
+    }
+
+    @Benchmark
+    public void readCsvTokenizer(Rows counter, Blackhole blackhole) throws IOException {
+        ReadCsv.readLine(csv, StandardCharsets.UTF_8, ReadCsv.Engine.TOKENIZER, listener(counter, blackhole));
+    }
+
+    @Benchmark
+    public void readCsvPage(Rows counter, Blackhole blackhole) throws IOException {
+        ReadCsv.create(1000, ReadCsv.Engine.TOKENIZER).readPage(csv, StandardCharsets.UTF_8, pageListener(counter, blackhole));
+    }
+
+    @Benchmark
+    public void readCsvSync(Rows counter, Blackhole blackhole) throws IOException {
+        List<Map<String, String>> data = ReadCsv.readSync(csv, StandardCharsets.UTF_8, ReadCsv.Engine.TOKENIZER);
+        counter.rows += data.size();
+        blackhole.consume(data);
+    }
+
+    @Benchmark
+    public void readCsvParallel(Rows counter, Blackhole blackhole) throws IOException {
+        ReadLine.Listener listener = listener(counter, blackhole);
+
+        // 无序回调在工作线程，计数须同步
+        ReadCsvParallel.create(false).readLine(csv, StandardCharsets.UTF_8, new ReadLine.Listener() {
+            @Override
+            public synchronized void invoke(Integer rowIndex, Map<String, String> valueMap) {
+                listener.invoke(rowIndex, valueMap);
+            }
+
+            @Override
+            public void onComplete(Integer rowIndex) {
+            }
+        });
+    }
+
+    @Benchmark
+    public void readTypedCsv(Rows counter, Blackhole blackhole) throws IOException {
+        ReadTyped.create(schema).read(csv, typedListener(counter, blackhole));
+    }
+
+    @Benchmark
+    public void readTypedXlsx(Rows counter, Blackhole blackhole) throws IOException {
+        ReadTyped.create(schema).read(xlsx, typedListener(counter, blackhole));
+    }
+
+    static ReadLine.Listener listener(Rows counter, Blackhole blackhole) {
+        return new ReadLine.Listener() {
+            @Override
+            public void invoke(Integer rowIndex, Map<String, String> valueMap) {
+                counter.rows++;
+                blackhole.consume(valueMap);
+            }
+
+            @Override
+            public void onComplete(Integer rowIndex) {
+            }
+        };
+    }
+
+    static ReadTyped.Listener typedListener(Rows counter, Blackhole blackhole) {
+        return new ReadTyped.Listener() {
+            @Override
+            public void invoke(int rowIndex, TypedRow row) {
+                counter.rows++;
+                blackhole.consume(row.getInt(0));
+                blackhole.consume(row.getLong(2));
+                blackhole.consume(row.getDouble(3));
+            }
+
+            @Override
+            public void onComplete(int rowIndex) {
+            }
+        };
+    }
+
+    static ReadPage.Listener pageListener(Rows counter, Blackhole blackhole) {
+        return (rowIndex, data) -> {
+            counter.rows += data.size();
+            blackhole.consume(data);
+        };
+    }
+
+}
@@ -0,0 +1,257 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * 识别编码
+ * 只读流的前sniffSize字节：BOM -> UTF-8校验 -> GBK/GB18030字节模式
+ * 已读的字节推回流中，解析时不再重读文件
+ *
+ * @author changebooks
+ */
+public final class CharsetDetector {
+    /**
+     * 默认读前16K字节
+     */
+    public static final int DEFAULT_SNIFF_SIZE = 16 * 1024;
+
+    /**
+     * GBK
+     */
+    public static final Charset GBK = Charset.forName("GBK");
+
+    /**
+     * GB18030，兼容GBK，多4字节编码
+     */
+    public static final Charset GB18030 = Charset.forName("GB18030");
+
+    /**
+     * UTF-8 BOM
+     */
+    private static final byte[] BOM_UTF_8 = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    /**
+     * UTF-16LE BOM
+     */
+    private static final byte[] BOM_UTF_16LE = {(byte) 0xFF, (byte) 0xFE};
+
+    /**
+     * UTF-16BE BOM
+     */
+    private static final byte[] BOM_UTF_16BE = {(byte) 0xFE, (byte) 0xFF};
+
+    /**
+     * 识别结果
+     */
+    public static final class Result {
+        /**
+         * 编码
+         */
+        private final Charset charset;
+
+        /**
+         * BOM字节数，没有BOM为0
+         */
+        private final int bomSize;
+
+        /**
+         * 跳过BOM的流，包括已读的字节
+         */
+        private final InputStream stream;
+
+        private Result(Charset charset, int bomSize, InputStream stream) {
+            this.charset = charset;
+            this.bomSize = bomSize;
+            this.stream = stream;
+        }
+
+        public Charset getCharset() {
+            return charset;
+        }
+
+        public int getBomSize() {
+            return bomSize;
+        }
+
+        public InputStream getStream() {
+            return stream;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{charset=" + charset + ", bomSize=" + bomSize + "}";
+        }
+
+    }
+
+    private CharsetDetector() {
+    }
+
+    /**
+     * 识别文件的编码
+     */
+    public static Charset detect(File file) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+
+        try (InputStream stream = new FileInputStream(file)) {
+            return detect(stream).getCharset();
+        }
+    }
+
+    /**
+     * 识别流的编码，默认读前16K字节
+     * 不能识别，返回默认编码
+     */
+    public static Result detect(InputStream stream) throws IOException {
+        return detect(stream, DEFAULT_SNIFF_SIZE, null);
+    }
+
+    /**
+     * 识别流的编码
+     *
+     * @param stream    文件流，识别后用Result.getStream()继续读
+     * @param sniffSize 读前sniffSize字节
+     * @param fallback  不能识别的编码，null ? 默认编码
+     */
+    public static Result detect(InputStream stream, int sniffSize, Charset fallback) throws IOException {
+        Preconditions.checkNotNull(stream, "stream can't be null");
+        Preconditions.checkArgument(sniffSize > 0, "sniffSize must be positive");
+
+        byte[] data = new byte[sniffSize];
+        int length = 0;
+        boolean eof = false;
+
+        while (length < sniffSize) {
+            int n = stream.read(data, length, sniffSize - length);
+            if (n < 0) {
+                eof = true;
+                break;
+            }
+
+            length += n;
+        }
+
+        Charset charset;
+        int bomSize;
+
+        if (startsWith(data, length, BOM_UTF_8)) {
+            charset = StandardCharsets.UTF_8;
+            bomSize = BOM_UTF_8.length;
+        } else if (startsWith(data, length, BOM_UTF_16LE)) {
+            charset = StandardCharsets.UTF_16LE;
+            bomSize = BOM_UTF_16LE.length;
+        } else if (startsWith(data, length, BOM_UTF_16BE)) {
+            charset = StandardCharsets.UTF_16BE;
+            bomSize = BOM_UTF_16BE.length;
+        } else {
+            charset = detect(data, length, eof, Objects.isNull(fallback) ? Charset.defaultCharset() : fallback);
+            bomSize = 0;
+        }
+
+        PushbackInputStream result = new PushbackInputStream(stream, sniffSize);
+        if (length > bomSize) {
+            result.unread(data, bomSize, length - bomSize);
+        }
+
+        return new Result(charset, bomSize, result);
+    }
+
+    /**
+     * 识别[0, length)的编码，没有BOM
+     * 合法的UTF-8，包括纯ASCII -> UTF-8
+     * 合法的GBK双字节 -> GBK；含GB18030四字节 -> GB18030
+     *
+     * @param eof 已读完？false ? 末尾截断的字符视为合法
+     */
+    static Charset detect(byte[] data, int length, boolean eof, Charset fallback) {
+        int state = Utf8Utils.validate(Utf8Utils.ACCEPT, ByteBuffer.wrap(data), 0, length);
+        if (eof ? state == Utf8Utils.ACCEPT : state != Utf8Utils.REJECT) {
+            return StandardCharsets.UTF_8;
+        }
+
+        int gb = scoreGb(data, length, eof);
+        if (gb < 0) {
+            return fallback;
+        }
+
+        return gb > 0 ? GB18030 : GBK;
+    }
+
+    /**
+     * GBK/GB18030字节模式
+     * 双字节：[81..FE][40..7E, 80..FE]
+     * 四字节：[81..FE][30..39][81..FE][30..39]
+     *
+     * @return 非法，-1；只有双字节，0；含四字节，1
+     */
+    private static int scoreGb(byte[] data, int length, boolean eof) {
+        int result = 0;
+        int i = 0;
+
+        while (i < length) {
+            int b = data[i] & 0xFF;
+            if (b < 0x80) {
+                i++;
+                continue;
+            }
+
+            if (b == 0x80 || b == 0xFF) {
+                return -1;
+            }
+
+            if (i + 1 >= length) {
+                return eof ? -1 : result;
+            }
+
+            int b1 = data[i + 1] & 0xFF;
+            if (b1 >= 0x40 && b1 <= 0xFE && b1 != 0x7F) {
+                i += 2;
+                continue;
+            }
+
+            if (b1 < 0x30 || b1 > 0x39) {
+                return -1;
+            }
+
+            if (i + 3 >= length) {
+                return eof ? -1 : result;
+            }
+
+            int b2 = data[i + 2] & 0xFF;
+            int b3 = data[i + 3] & 0xFF;
+            if (b2 < 0x81 || b2 > 0xFE || b3 < 0x30 || b3 > 0x39) {
+                return -1;
+            }
+
+            result = 1;
+            i += 4;
+        }
+
+        return result;
+    }
+
+    private static boolean startsWith(byte[] data, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Objects;
+
+/**
+ * 检查点，断点续读
+ * 之前的行都已回调返回，从rowIndex继续读
+ * csv：记录的起始字节偏移，在记录边界上，引号外；续读直接定位
+ * xls、xlsx：工作表索引，续读跳过之前的行，不转换单元格
+ * 可转为字符串保存：csv:行索引:偏移、sheet:行索引:工作表索引
+ *
+ * @author changebooks
+ */
+public final class Checkpoint {
+    /**
+     * csv前缀
+     */
+    private static final String CSV = "csv";
+
+    /**
+     * 工作表前缀
+     */
+    private static final String SHEET = "sheet";
+
+    /**
+     * 分隔符
+     */
+    private static final char SEPARATOR = ':';
+
+    /**
+     * csv？
+     */
+    private final boolean csv;
+
+    /**
+     * 继续读的行索引
+     */
+    private final int rowIndex;
+
+    /**
+     * csv，rowIndex的起始字节偏移
+     */
+    private final long offset;
+
+    /**
+     * 工作表索引，从0开始
+     */
+    private final int sheetNo;
+
+    private Checkpoint(boolean csv, int rowIndex, long offset, int sheetNo) {
+        Preconditions.checkArgument(rowIndex > 0, "rowIndex must be positive");
+        Preconditions.checkArgument(offset >= 0, "offset must be non-negative");
+        Preconditions.checkArgument(sheetNo >= 0, "sheetNo must be non-negative");
+
+        this.csv = csv;
+        this.rowIndex = rowIndex;
+        this.offset = offset;
+        this.sheetNo = sheetNo;
+    }
+
+    /**
+     * csv检查点
+     *
+     * @param rowIndex 继续读的行索引
+     * @param offset   rowIndex的起始字节偏移
+     */
+    public static Checkpoint csv(int rowIndex, long offset) {
+        return new Checkpoint(true, rowIndex, offset, 0);
+    }
+
+    /**
+     * 工作表检查点
+     *
+     * @param sheetNo  工作表索引
+     * @param rowIndex 继续读的行索引
+     */
+    public static Checkpoint sheet(int sheetNo, int rowIndex) {
+        return new Checkpoint(false, rowIndex, 0, sheetNo);
+    }
+
+    /**
+     * 字符串 -> 检查点
+     *
+     * @throws IllegalArgumentException 格式错误
+     */
+    public static Checkpoint parse(String token) {
+        Preconditions.checkNotNull(token, "token can't be null");
+
+        int first = token.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : token.indexOf(SEPARATOR, first + 1);
+        Preconditions.checkArgument(second > 0, "invalid token: " + token);
+
+        String kind = token.substring(0, first);
+        try {
+            int rowIndex = Integer.parseInt(token.substring(first + 1, second));
+            String last = token.substring(second + 1);
+
+            if (CSV.equals(kind)) {
+                return csv(rowIndex, Long.parseLong(last));
+            }
+
+            if (SHEET.equals(kind)) {
+                return sheet(Integer.parseInt(last), rowIndex);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid token: " + token, e);
+        }
+
+        throw new IllegalArgumentException("invalid token: " + token);
+    }
+
+    /**
+     * 检查点 -> 字符串
+     */
+    public String toToken() {
+        return csv ? CSV + SEPARATOR + rowIndex + SEPARATOR + offset : SHEET + SEPARATOR + rowIndex + SEPARATOR + sheetNo;
+    }
+
+    public boolean isCsv() {
+        return csv;
+    }
+
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getSheetNo() {
+        return sheetNo;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof Checkpoint)) {
+            return false;
+        }
+
+        Checkpoint that = (Checkpoint) o;
+        return csv == that.csv && rowIndex == that.rowIndex && offset == that.offset && sheetNo == that.sheetNo;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(csv, rowIndex, offset, sheetNo);
+    }
+
+    @Override
+    public String toString() {
+        return "Checkpoint{" + toToken() + "}";
+    }
+
+}
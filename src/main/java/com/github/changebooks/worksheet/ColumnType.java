@@ -0,0 +1,31 @@
+package com.github.changebooks.worksheet;
+
+/**
+ * 列的类型
+ *
+ * @author changebooks
+ */
+public enum ColumnType {
+    // String
+    STRING,
+
+    // int
+    INT,
+
+    // long
+    LONG,
+
+    // double
+    DOUBLE,
+
+    // BigDecimal
+    DECIMAL,
+
+    // boolean，true、false、1、0、yes、no、y、n、是、否
+    BOOLEAN,
+
+    // LocalDate，默认 yyyy-MM-dd、yyyy/MM/dd，可指定格式；excel日期单元格直接转换
+    LOCAL_DATE,
+
+    ;
+}
@@ -0,0 +1,92 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * 计数的字节流
+ * 每次读、跳过，把字节数交给consumer；不支持mark
+ *
+ * @author changebooks
+ */
+final class CountingInputStream extends FilterInputStream {
+    /**
+     * 每次读的字节数
+     */
+    private final LongConsumer consumer;
+
+    /**
+     * 已读的字节数
+     */
+    private long count;
+
+    CountingInputStream(InputStream in, LongConsumer consumer) {
+        super(in);
+
+        Preconditions.checkNotNull(in, "in can't be null");
+        Preconditions.checkNotNull(consumer, "consumer can't be null");
+
+        this.consumer = consumer;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            add(1);
+        }
+
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            add(n);
+        }
+
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        if (skipped > 0) {
+            add(skipped);
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * 已读的字节数
+     */
+    long getCount() {
+        return count;
+    }
+
+    private void add(long n) {
+        count += n;
+        consumer.accept(n);
+    }
+
+}
@@ -0,0 +1,239 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * csv编码，写通道
+ * 字段先写入字符缓冲区，满了按编码写字节缓冲区，再写通道；内存固定
+ * RFC4180：含逗号、引号、换行的字段加引号，引号 -> 两个引号；记录以\n结束，null写为空
+ *
+ * @author changebooks
+ */
+final class CsvEncoder implements Closeable {
+    /**
+     * 缓冲区大小，字符
+     */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final char CR = '\r';
+
+    private static final char LF = '\n';
+
+    private final WritableByteChannel channel;
+
+    private final CharsetEncoder encoder;
+
+    private final CharBuffer chars;
+
+    private final ByteBuffer bytes;
+
+    private boolean closed;
+
+    CsvEncoder(WritableByteChannel channel, Charset charset) {
+        Preconditions.checkNotNull(channel, "channel can't be null");
+        Preconditions.checkNotNull(charset, "charset can't be null");
+
+        this.channel = channel;
+        this.encoder = charset.newEncoder().
+                onMalformedInput(CodingErrorAction.REPLACE).
+                onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.chars = CharBuffer.allocate(BUFFER_SIZE);
+        this.bytes = ByteBuffer.allocate((int) Math.ceil(BUFFER_SIZE * encoder.maxBytesPerChar()));
+    }
+
+    /**
+     * 写一条记录
+     */
+    void writeRecord(String[] values) throws IOException {
+        // 只有一个空字段，写""，不是空行
+        if (values.length == 1 && (values[0] == null || values[0].isEmpty())) {
+            append(CsvRecord.QUOTE);
+            append(CsvRecord.QUOTE);
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                append(CsvRecord.SEPARATOR);
+            }
+
+            writeField(values[i]);
+        }
+
+        append(LF);
+    }
+
+    /**
+     * 写到通道，不关闭
+     */
+    void flush() throws IOException {
+        encode(false);
+    }
+
+    /**
+     * 写完并关闭通道
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        try {
+            encode(true);
+
+            while (encoder.flush(bytes).isOverflow()) {
+                drain();
+            }
+
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+
+        if (!needsQuote(value)) {
+            append(value);
+            return;
+        }
+
+        append(CsvRecord.QUOTE);
+        for (int i = 0, len = value.length(); i < len; i++) {
+            char c = value.charAt(i);
+            if (c == CsvRecord.QUOTE) {
+                append(CsvRecord.QUOTE);
+            }
+
+            append(c);
+        }
+
+        append(CsvRecord.QUOTE);
+    }
+
+    private void append(String value) throws IOException {
+        for (int from = 0, len = value.length(); from < len; ) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+
+            int n = Math.min(len - from, chars.remaining());
+            chars.put(value, from, from + n);
+            from += n;
+        }
+    }
+
+    private void append(char c) throws IOException {
+        if (!chars.hasRemaining()) {
+            encode(false);
+        }
+
+        chars.put(c);
+    }
+
+    /**
+     * 字符缓冲区 -> 字节缓冲区 -> 通道
+     * 未结束时，末尾的半个代理对留在字符缓冲区
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow()) {
+                drain();
+                continue;
+            }
+
+            if (result.isError()) {
+                result.throwException();
+            }
+
+            break;
+        }
+
+        chars.compact();
+        drain();
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+
+        bytes.clear();
+    }
+
+    /**
+     * 一条记录 -> csv文本，同writeRecord，不含换行
+     */
+    static String format(String[] values) {
+        StringBuilder builder = new StringBuilder();
+
+        if (values.length == 1 && (values[0] == null || values[0].isEmpty())) {
+            builder.append(CsvRecord.QUOTE).append(CsvRecord.QUOTE);
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(CsvRecord.SEPARATOR);
+            }
+
+            String value = values[i];
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+
+            if (!needsQuote(value)) {
+                builder.append(value);
+                continue;
+            }
+
+            builder.append(CsvRecord.QUOTE);
+            for (int j = 0, len = value.length(); j < len; j++) {
+                char c = value.charAt(j);
+                if (c == CsvRecord.QUOTE) {
+                    builder.append(CsvRecord.QUOTE);
+                }
+
+                builder.append(c);
+            }
+
+            builder.append(CsvRecord.QUOTE);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * 含逗号、引号、换行？
+     */
+    private static boolean needsQuote(String value) {
+        for (int i = 0, len = value.length(); i < len; i++) {
+            char c = value.charAt(i);
+            if (c == CsvRecord.SEPARATOR || c == CsvRecord.QUOTE || c == CR || c == LF) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+}
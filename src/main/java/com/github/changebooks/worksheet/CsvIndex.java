@@ -0,0 +1,358 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * csv行索引
+ * 记录每interval条记录的起始字节偏移，按行索引直接定位，不从文件头读
+ * 按字节扫描，不解码；编码须兼容ASCII，如：UTF-8、GBK、GB18030
+ * 可保存为旁路文件（csv文件名 + .idx），文件大小或修改时间变化即失效
+ *
+ * @author changebooks
+ */
+public final class CsvIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CsvIndex.class);
+
+    /**
+     * 默认间隔，每1000条记录一个偏移
+     */
+    public static final int DEFAULT_INTERVAL = 1000;
+
+    /**
+     * 旁路文件后缀
+     */
+    public static final String SUFFIX = ".idx";
+
+    /**
+     * 旁路文件头，"CSVI"
+     */
+    private static final int MAGIC = 0x43535649;
+
+    /**
+     * 旁路文件版本
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * 逐字节扫描的块大小
+     * 块内不跨越索引点，按8字节扫描跳过
+     */
+    private static final int BLOCK_SIZE = 4 * 1024;
+
+    /**
+     * 间隔，记录数
+     */
+    private final int interval;
+
+    /**
+     * 文件大小，字节
+     */
+    private final long fileSize;
+
+    /**
+     * 文件修改时间
+     */
+    private final long lastModified;
+
+    /**
+     * 记录数，包括标题
+     */
+    private final int rowSize;
+
+    /**
+     * 第k个偏移 = 行索引k * interval的起始字节，offsets[0] = 0
+     */
+    private final long[] offsets;
+
+    private CsvIndex(int interval, long fileSize, long lastModified, int rowSize, long[] offsets) {
+        this.interval = interval;
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+        this.rowSize = rowSize;
+        this.offsets = offsets;
+    }
+
+    /**
+     * 打开索引，默认间隔
+     */
+    public static CsvIndex open(File file) throws IOException {
+        return open(file, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * 打开索引
+     * 旁路文件有效且间隔相同，直接加载；否则扫描文件，写旁路文件
+     * 写旁路文件失败，只保留在内存
+     */
+    public static CsvIndex open(File file, int interval) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+
+        File sidecar = sidecarOf(file);
+        if (sidecar.isFile()) {
+            try {
+                CsvIndex index = load(sidecar);
+                if (index.interval == interval && index.isValid(file)) {
+                    return index;
+                }
+            } catch (IOException e) {
+                LOGGER.warn("load index failed, sidecar: {}, throwable: ", sidecar, e);
+            }
+        }
+
+        CsvIndex result = build(file, interval);
+
+        try {
+            result.save(sidecar);
+        } catch (IOException e) {
+            LOGGER.warn("save index failed, sidecar: {}, throwable: ", sidecar, e);
+        }
+
+        return result;
+    }
+
+    /**
+     * 扫描文件，默认间隔
+     */
+    public static CsvIndex build(File file) throws IOException {
+        return build(file, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * 扫描文件
+     * 引号外的换行符为记录边界，与CsvTokenizer一致
+     */
+    public static CsvIndex build(File file, int interval) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+        Preconditions.checkArgument(interval > 0, "interval must be positive");
+
+        long lastModified = file.lastModified();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(CsvScanner.BUFFER_SIZE);
+            long[] offsets = new long[16];
+            int size = 1;
+
+            boolean quoted = false;
+            long base = 0;
+            long count = 0;
+            long last = 0;
+            boolean eof = false;
+
+            while (!eof) {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        eof = true;
+                        break;
+                    }
+                }
+
+                buffer.flip();
+                int limit = buffer.limit();
+                int to = limit;
+
+                // 末尾是\r，留到下次判断\r\n
+                if (!eof && to > 0 && buffer.get(to - 1) == CsvScanner.CR) {
+                    to--;
+                }
+
+                for (int from = 0; from < to; from += BLOCK_SIZE) {
+                    int end = Math.min(from + BLOCK_SIZE, to);
+
+                    CsvScanner.Scan scan = CsvScanner.scan(buffer, from, end, base);
+                    long n = scan.count(quoted);
+
+                    if (n > 0) {
+                        last = scan.last(quoted);
+                    }
+
+                    // 块内不跨越索引点
+                    if (count % interval + n < interval) {
+                        count += n;
+                        quoted ^= scan.odd;
+                        continue;
+                    }
+
+                    for (int i = from; i < end; i++) {
+                        byte b = buffer.get(i);
+
+                        if (b == CsvScanner.QUOTE) {
+                            quoted = !quoted;
+                            continue;
+                        }
+
+                        if (quoted) {
+                            continue;
+                        }
+
+                        if (b == CsvScanner.LF || (b == CsvScanner.CR && (i + 1 >= limit || buffer.get(i + 1) != CsvScanner.LF))) {
+                            if (++count % interval == 0) {
+                                if (size == offsets.length) {
+                                    offsets = Arrays.copyOf(offsets, size << 1);
+                                }
+
+                                offsets[size++] = base + i + 1;
+                            }
+                        }
+                    }
+                }
+
+                base += to;
+
+                buffer.position(to);
+                buffer.compact();
+            }
+
+            // 最后一个换行符之后还有字节，计1条
+            long rowSize = last < base ? count + 1 : count;
+            Preconditions.checkArgument(rowSize <= Integer.MAX_VALUE, "rowSize overflow: " + rowSize);
+
+            // 文件末尾的换行符之后，没有记录
+            if (size > 1 && offsets[size - 1] >= base) {
+                size--;
+            }
+
+            return new CsvIndex(interval, base, lastModified, (int) rowSize, Arrays.copyOf(offsets, size));
+        }
+    }
+
+    /**
+     * 加载旁路文件
+     *
+     * @throws IOException 不是索引文件或版本不同
+     */
+    public static CsvIndex load(File sidecar) throws IOException {
+        Preconditions.checkNotNull(sidecar, "sidecar can't be null");
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecar)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("invalid index file: " + sidecar);
+            }
+
+            int interval = in.readInt();
+            long fileSize = in.readLong();
+            long lastModified = in.readLong();
+            int rowSize = in.readInt();
+            int size = in.readInt();
+
+            if (interval <= 0 || size <= 0) {
+                throw new IOException("invalid index file: " + sidecar);
+            }
+
+            long[] offsets = new long[size];
+            for (int i = 0; i < size; i++) {
+                offsets[i] = in.readLong();
+            }
+
+            return new CsvIndex(interval, fileSize, lastModified, rowSize, offsets);
+        }
+    }
+
+    /**
+     * 保存为旁路文件
+     * 先写临时文件再改名，读者不会读到一半
+     */
+    public void save(File sidecar) throws IOException {
+        Preconditions.checkNotNull(sidecar, "sidecar can't be null");
+
+        File temp = new File(sidecar.getPath() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(interval);
+            out.writeLong(fileSize);
+            out.writeLong(lastModified);
+            out.writeInt(rowSize);
+            out.writeInt(offsets.length);
+
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+        }
+
+        if (sidecar.exists() && !sidecar.delete()) {
+            throw new IOException("delete failed: " + sidecar);
+        }
+
+        if (!temp.renameTo(sidecar)) {
+            throw new IOException("rename failed: " + temp + " -> " + sidecar);
+        }
+    }
+
+    /**
+     * 旁路文件，csv文件名 + .idx
+     */
+    public static File sidecarOf(File file) {
+        Preconditions.checkNotNull(file, "file can't be null");
+
+        return new File(file.getPath() + SUFFIX);
+    }
+
+    /**
+     * 索引与文件一致？
+     * 文件大小、修改时间相同
+     */
+    public boolean isValid(File file) {
+        return Objects.nonNull(file) && file.length() == fileSize && file.lastModified() == lastModified;
+    }
+
+    /**
+     * 行索引 -> 不大于它的最近索引点
+     *
+     * @return 索引点的序号，getOffset(k)取偏移，k * interval为该点的行索引
+     */
+    public int floor(int rowIndex) {
+        Preconditions.checkArgument(rowIndex >= 0, "rowIndex must be non-negative");
+
+        return Math.min(rowIndex / interval, offsets.length - 1);
+    }
+
+    /**
+     * 第k个索引点的起始字节
+     */
+    public long getOffset(int k) {
+        Preconditions.checkElementIndex(k, offsets.length, "k");
+
+        return offsets[k];
+    }
+
+    /**
+     * 索引点数
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public int getRowSize() {
+        return rowSize;
+    }
+
+    @Override
+    public String toString() {
+        return "CsvIndex{interval=" + interval + ", fileSize=" + fileSize + ", lastModified=" + lastModified +
+                ", rowSize=" + rowSize + ", size=" + offsets.length + "}";
+    }
+
+}
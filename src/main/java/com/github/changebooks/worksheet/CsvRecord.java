@@ -0,0 +1,320 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * csv记录，字段视图
+ * 字段只保存偏移和长度，读取时才创建String
+ * 由CsvTokenizer复用，只在回调期间有效
+ *
+ * @author changebooks
+ */
+public final class CsvRecord {
+    /**
+     * 字段分隔符
+     */
+    public static final char SEPARATOR = ',';
+
+    /**
+     * 引号
+     */
+    public static final char QUOTE = '"';
+
+    /**
+     * 初始字段数
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 字符缓冲区
+     */
+    private char[] buffer;
+
+    /**
+     * 记录在缓冲区的起始偏移
+     */
+    private int base;
+
+    /**
+     * 记录长度，不包括换行符
+     */
+    private int length;
+
+    /**
+     * 字段数
+     */
+    private int size;
+
+    /**
+     * 字段起始，相对base
+     */
+    private int[] starts = new int[INITIAL_CAPACITY];
+
+    /**
+     * 字段结束，相对base
+     */
+    private int[] ends = new int[INITIAL_CAPACITY];
+
+    /**
+     * 字段包含引号？
+     */
+    private boolean[] quotes = new boolean[INITIAL_CAPACITY];
+
+    /**
+     * 引号未闭合？
+     */
+    private boolean malformed;
+
+    CsvRecord() {
+    }
+
+    /**
+     * 字段数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 读取字段，创建String
+     * 去掉首尾引号，"" -> "，引号内的\r\n、\r -> \n，与opencsv相同
+     */
+    public String get(int index) {
+        checkIndex(index);
+
+        int start = base + starts[index];
+        int end = base + ends[index];
+
+        if (!quotes[index]) {
+            return new String(buffer, start, end - start);
+        }
+
+        return unquote(buffer, start, end);
+    }
+
+    /**
+     * 字段的原始长度，包括引号
+     */
+    public int getLength(int index) {
+        checkIndex(index);
+
+        return ends[index] - starts[index];
+    }
+
+    /**
+     * 字段的原始偏移，相对getBuffer()
+     */
+    public int getOffset(int index) {
+        checkIndex(index);
+
+        return base + starts[index];
+    }
+
+    /**
+     * 字段包含引号？
+     * 包含，需要get(index)反转义
+     */
+    public boolean isQuoted(int index) {
+        checkIndex(index);
+
+        return quotes[index];
+    }
+
+    /**
+     * 字段的值，去掉首尾引号，相对getBuffer()的起始偏移
+     * 含转义的引号、\r，或引号不在首尾，需要get(index)反转义，返回-1
+     */
+    int getValueOffset(int index) {
+        checkIndex(index);
+
+        int start = base + starts[index];
+        if (!quotes[index]) {
+            return start;
+        }
+
+        int end = base + ends[index];
+        if (end - start < 2 || buffer[start] != QUOTE || buffer[end - 1] != QUOTE) {
+            return -1;
+        }
+
+        for (int i = start + 1; i < end - 1; i++) {
+            if (buffer[i] == QUOTE || buffer[i] == '\r') {
+                return -1;
+            }
+        }
+
+        return start + 1;
+    }
+
+    /**
+     * 字段的值的长度，去掉首尾引号，getValueOffset(index) >= 0时有效
+     */
+    int getValueLength(int index) {
+        checkIndex(index);
+
+        int len = ends[index] - starts[index];
+        return quotes[index] ? len - 2 : len;
+    }
+
+    /**
+     * 字段为空？
+     */
+    public boolean isEmpty(int index) {
+        checkIndex(index);
+
+        int len = ends[index] - starts[index];
+        if (len == 0) {
+            return true;
+        }
+
+        return quotes[index] && len == 2 && buffer[base + starts[index]] == QUOTE;
+    }
+
+    /**
+     * 字段等于value？
+     * 无引号，不创建String
+     */
+    public boolean contentEquals(int index, CharSequence value) {
+        checkIndex(index);
+
+        if (Objects.isNull(value)) {
+            return false;
+        }
+
+        if (quotes[index]) {
+            return get(index).contentEquals(value);
+        }
+
+        int start = base + starts[index];
+        int len = ends[index] - starts[index];
+        if (len != value.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < len; i++) {
+            if (buffer[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * 原始记录，不包括换行符
+     */
+    public String getRaw() {
+        return new String(buffer, base, length);
+    }
+
+    /**
+     * 引号未闭合？
+     */
+    public boolean isMalformed() {
+        return malformed;
+    }
+
+    /**
+     * 字符缓冲区，只读
+     */
+    public char[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * 全部字段 -> 数组
+     */
+    public String[] toArray() {
+        String[] result = new String[size];
+
+        for (int i = 0; i < size; i++) {
+            result[i] = get(i);
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    /**
+     * 开始新记录
+     */
+    void reset() {
+        size = 0;
+        length = 0;
+        malformed = false;
+    }
+
+    /**
+     * 追加字段，相对记录起始
+     */
+    void add(int start, int end, boolean quoted) {
+        if (size == starts.length) {
+            int capacity = size << 1;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            quotes = Arrays.copyOf(quotes, capacity);
+        }
+
+        starts[size] = start;
+        ends[size] = end;
+        quotes[size] = quoted;
+        size++;
+    }
+
+    /**
+     * 完成记录
+     */
+    void complete(char[] buffer, int base, int length, boolean malformed) {
+        this.buffer = buffer;
+        this.base = base;
+        this.length = length;
+        this.malformed = malformed;
+    }
+
+    private void checkIndex(int index) {
+        Preconditions.checkElementIndex(index, size, "index");
+    }
+
+    /**
+     * "a""b" -> a"b
+     * "a\r\nb" -> a\nb，opencsv按行读，引号内的换行都为\n
+     * 引号不在首尾，保留原文
+     */
+    static String unquote(char[] buffer, int start, int end) {
+        int len = end - start;
+        if (len < 2 || buffer[start] != QUOTE || buffer[end - 1] != QUOTE) {
+            return new String(buffer, start, len);
+        }
+
+        StringBuilder result = new StringBuilder(len - 2);
+
+        for (int i = start + 1, last = end - 1; i < last; i++) {
+            char c = buffer[i];
+            if (c == '\r') {
+                result.append('\n');
+
+                if (i + 1 < last && buffer[i + 1] == '\n') {
+                    i++;
+                }
+
+                continue;
+            }
+
+            result.append(c);
+
+            if (c == QUOTE && i + 1 < last && buffer[i + 1] == QUOTE) {
+                i++;
+            }
+        }
+
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,359 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * csv字节扫描
+ * 按字节统计引号外的换行符，不解码
+ * 换行符：\n、\r\n、\r，\r\n只计一次
+ * 区间起始的引号状态未知时，同时统计两种假设：0 - 引号外，1 - 引号内
+ * 每次处理8字节（SWAR），没有引号、换行符的8字节直接跳过
+ *
+ * @author changebooks
+ */
+final class CsvScanner {
+    /**
+     * 引号
+     */
+    static final byte QUOTE = '"';
+
+    /**
+     * 换行
+     */
+    static final byte LF = '\n';
+
+    /**
+     * 回车
+     */
+    static final byte CR = '\r';
+
+    /**
+     * 读流的缓冲区大小，字节
+     */
+    static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * 兼容ASCII，编码后的字节不变
+     */
+    private static final String ASCII_PROBE = ",\"\r\n";
+
+    /**
+     * 每字节的低7位
+     */
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    /**
+     * 每字节都是引号
+     */
+    private static final long QUOTES = 0x2222222222222222L;
+
+    /**
+     * 每字节都是\n
+     */
+    private static final long LFS = 0x0A0A0A0A0A0A0A0AL;
+
+    /**
+     * 每字节都是\r
+     */
+    private static final long CRS = 0x0D0D0D0D0D0D0D0DL;
+
+    /**
+     * 最高字节的最高位
+     */
+    private static final long LAST_BYTE = 0x8000000000000000L;
+
+    /**
+     * 扫描结果
+     */
+    static final class Scan {
+        /**
+         * 引号数为奇数？
+         */
+        boolean odd;
+
+        /**
+         * 换行符数，[假设]
+         */
+        final long[] count = new long[2];
+
+        /**
+         * 第一个换行符之后的位置，[假设]
+         * 没有，-1
+         */
+        final long[] first = {-1, -1};
+
+        /**
+         * 最后一个换行符之后的位置，[假设]
+         * 没有，-1
+         */
+        final long[] last = {-1, -1};
+
+        /**
+         * 起始引号状态 -> 换行符数
+         */
+        long count(boolean quoted) {
+            return count[quoted ? 1 : 0];
+        }
+
+        /**
+         * 起始引号状态 -> 第一个换行符之后的位置
+         */
+        long first(boolean quoted) {
+            return first[quoted ? 1 : 0];
+        }
+
+        /**
+         * 起始引号状态 -> 最后一个换行符之后的位置
+         */
+        long last(boolean quoted) {
+            return last[quoted ? 1 : 0];
+        }
+
+        /**
+         * 换行符 -> 假设h
+         */
+        private void add(int h, long position) {
+            count[h]++;
+            if (first[h] < 0) {
+                first[h] = position;
+            }
+
+            last[h] = position;
+        }
+
+        /**
+         * 8字节的换行符掩码 -> 假设h
+         */
+        private void add(int h, long mask, long position) {
+            if (mask == 0) {
+                return;
+            }
+
+            count[h] += Long.bitCount(mask);
+            if (first[h] < 0) {
+                first[h] = position + (Long.numberOfTrailingZeros(mask) >>> 3) + 1;
+            }
+
+            last[h] = position + (7 - (Long.numberOfLeadingZeros(mask) >>> 3)) + 1;
+        }
+
+    }
+
+    private CsvScanner() {
+    }
+
+    /**
+     * 扫描[from, to)
+     * to之后还有字节，buffer.limit() > to，用于判断\r\n
+     *
+     * @param buffer 字节
+     * @param from   起始位置
+     * @param to     结束位置
+     * @param base   buffer在文件中的偏移
+     */
+    static Scan scan(ByteBuffer buffer, int from, int to, long base) {
+        ByteBuffer bytes = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int limit = bytes.limit();
+
+        Scan result = new Scan();
+        int parity = 0;
+        int i = from;
+
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = bytes.getLong(i);
+
+            long quote = match(word, QUOTES);
+            long lf = match(word, LFS);
+            long cr = match(word, CRS);
+
+            if ((quote | lf | cr) == 0) {
+                continue;
+            }
+
+            // \r之后是\n，只计\n
+            long terminator = lf | (cr & ~(lf >>> 8));
+            if ((cr & LAST_BYTE) != 0 && i + Long.BYTES < limit && bytes.get(i + Long.BYTES) == LF) {
+                terminator &= ~LAST_BYTE;
+            }
+
+            long position = base + i;
+            if (quote == 0) {
+                result.add(parity, terminator, position);
+                continue;
+            }
+
+            // 前缀异或：每字节的最高位 = 该字节及之前的引号数为奇数
+            long prefix = quote;
+            prefix ^= prefix << 8;
+            prefix ^= prefix << 16;
+            prefix ^= prefix << 32;
+
+            result.add(parity, terminator & ~prefix, position);
+            result.add(parity ^ 1, terminator & prefix, position);
+
+            parity ^= Long.bitCount(quote) & 1;
+        }
+
+        for (; i < to; i++) {
+            byte b = bytes.get(i);
+
+            if (b == QUOTE) {
+                parity ^= 1;
+                continue;
+            }
+
+            if (b == LF || (b == CR && (i + 1 >= limit || bytes.get(i + 1) != LF))) {
+                // parity = 0，假设0在引号外；parity = 1，假设1在引号外
+                result.add(parity, base + i + 1);
+            }
+        }
+
+        result.odd = parity == 1;
+        return result;
+    }
+
+    /**
+     * 记录数，包括标题
+     * 最后一个换行符之后还有字节，计1条
+     */
+    static long count(ReadableByteChannel channel) throws IOException {
+        Preconditions.checkNotNull(channel, "channel can't be null");
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        boolean quoted = false;
+        long base = 0;
+        long count = 0;
+        long last = 0;
+        boolean eof = false;
+
+        while (!eof) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    eof = true;
+                    break;
+                }
+            }
+
+            buffer.flip();
+            int to = buffer.limit();
+
+            // 末尾是\r，留到下次判断\r\n
+            if (!eof && to > 0 && buffer.get(to - 1) == CR) {
+                to--;
+            }
+
+            Scan scan = scan(buffer, 0, to, base);
+            count += scan.count(quoted);
+            if (scan.last(quoted) >= 0) {
+                last = scan.last(quoted);
+            }
+
+            quoted ^= scan.odd;
+            base += to;
+
+            buffer.position(to);
+            buffer.compact();
+        }
+
+        return last < base ? count + 1 : count;
+    }
+
+    /**
+     * 记录数，包括标题
+     * 内存映射，按块并行扫描
+     */
+    static long count(FileChannel channel, ForkJoinPool pool, int chunkSize) throws IOException {
+        Preconditions.checkNotNull(channel, "channel can't be null");
+        Preconditions.checkNotNull(pool, "pool can't be null");
+        Preconditions.checkArgument(chunkSize > 0, "chunkSize must be positive");
+
+        List<Scan> scans = scan(channel, pool, chunkSize);
+
+        boolean quoted = false;
+        long count = 0;
+        long last = 0;
+
+        for (Scan scan : scans) {
+            count += scan.count(quoted);
+            if (scan.last(quoted) >= 0) {
+                last = scan.last(quoted);
+            }
+
+            quoted ^= scan.odd;
+        }
+
+        return last < channel.size() ? count + 1 : count;
+    }
+
+    /**
+     * 内存映射，按块并行扫描
+     */
+    static List<Scan> scan(FileChannel channel, ForkJoinPool pool, int chunkSize) throws IOException {
+        long size = channel.size();
+        int num = (int) ((size + chunkSize - 1) / chunkSize);
+        List<Future<Scan>> futures = new ArrayList<>(num);
+
+        for (int k = 0; k < num; k++) {
+            long from = (long) k * chunkSize;
+            long to = Math.min(from + chunkSize, size);
+
+            futures.add(pool.submit(() -> {
+                // 多映射1字节，判断\r\n
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(to + 1, size) - from);
+                return scan(buffer, 0, (int) (to - from), from);
+            }));
+        }
+
+        List<Scan> result = new ArrayList<>(num);
+        try {
+            for (Future<Scan> future : futures) {
+                result.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            throw new IOException(cause);
+        }
+
+        return result;
+    }
+
+    /**
+     * 编码兼容ASCII？
+     * 分隔符、引号、换行符编码后的字节不变，才能按字节扫描
+     */
+    static boolean isAsciiCompatible(Charset charset) {
+        return Arrays.equals(ASCII_PROBE.getBytes(charset), ASCII_PROBE.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 每字节等于pattern，该字节的最高位为1，其余位为0
+     */
+    private static long match(long word, long pattern) {
+        long x = word ^ pattern;
+        return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+    }
+
+}
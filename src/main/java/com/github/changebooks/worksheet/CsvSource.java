@@ -0,0 +1,192 @@
+package com.github.changebooks.worksheet;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvMalformedLineException;
+import com.opencsv.exceptions.CsvValidationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * csv逐行拉取
+ * 与ReadCsv逐行读相同：第一条记录为标题行，列投影、行过滤、行范围、值缓存
+ * 每次advance只解析到下一个数据行；解析失败的行按ErrorPolicy处理，一个Session到读完或关闭
+ * 引号未闭合，之后的内容都在这条记录中，默认终止；allowUnterminated()按策略处理后读完
+ *
+ * @author changebooks
+ */
+final class CsvSource implements RowIterator.Source {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CsvSource.class);
+
+    private final Reader reader;
+
+    /**
+     * 内置分词器，null ? opencsv
+     */
+    private final CsvTokenizer tokenizer;
+
+    /**
+     * opencsv，null ? 内置分词器
+     */
+    private final CSVReader csvReader;
+
+    private final ReadOptions options;
+
+    private final RowSelector selector;
+
+    private final ValueCache cache;
+
+    /**
+     * 本次读的解析失败
+     */
+    private final ErrorPolicy.Session errors;
+
+    /**
+     * 投影后的标题行，所有数据行共享
+     */
+    private WorksheetHeader header;
+
+    /**
+     * 下一条记录的行索引
+     */
+    private int next;
+
+    /**
+     * 读完了？
+     */
+    private boolean done;
+
+    /**
+     * 当前行，行索引
+     */
+    private int rowIndex = -1;
+
+    /**
+     * 当前行
+     */
+    private Map<String, String> row;
+
+    CsvSource(Reader reader, ReadCsv.Engine engine, ReadOptions options) {
+        this.reader = reader;
+        this.options = options;
+        this.selector = RowSelector.create(options);
+        this.cache = ValueCache.create(options);
+        this.errors = options.getErrorPolicy().start();
+
+        if (engine == ReadCsv.Engine.TOKENIZER) {
+            this.tokenizer = CsvTokenizer.create(reader);
+            this.csvReader = null;
+        } else {
+            this.tokenizer = null;
+            this.csvReader = new CSVReaderBuilder(reader).withCSVParser(ReadCsv.newParser()).build();
+        }
+    }
+
+    @Override
+    public boolean advance() throws IOException {
+        while (!done) {
+            int index = next;
+
+            CsvRecord record = null;
+            String[] bucket = null;
+
+            if (Objects.nonNull(tokenizer)) {
+                if (!tokenizer.next()) {
+                    done = true;
+                    break;
+                }
+
+                record = tokenizer.getRecord();
+                if (record.isMalformed()) {
+                    CsvMalformedLineException e = ReadCsv.malformed(index, record);
+                    LOGGER.error("readLine failed, rowIndex: {}, throwable: ", index, e);
+                    ReadCsv.unterminated(new RowError(index, e.getContext(), e), errors);
+                    done = true;
+                    break;
+                }
+            } else {
+                try {
+                    if ((bucket = csvReader.readNext()) == null) {
+                        done = true;
+                        break;
+                    }
+                } catch (CsvValidationException e) {
+                    LOGGER.error("readLine failed, rowIndex: {}, throwable: ", index, e);
+                    ReadCsv.fail(csvReader, index, e, errors);
+                } catch (CsvMalformedLineException e) {
+                    LOGGER.error("readLine failed, rowIndex: {}, throwable: ", index, e);
+                    ReadCsv.unterminated(new RowError(index, e.getContext(), e), errors);
+                    done = true;
+                    break;
+                }
+            }
+
+            next++;
+
+            if (index == 0) {
+                String[] keys = Objects.nonNull(record) ? record.toArray() : bucket;
+                header = ReadCsv.project(ReadUtils.asHeader(ReadUtils.asMap(keys)), options, selector);
+                if (Objects.nonNull(tokenizer)) {
+                    ReadCsv.limitFields(tokenizer, options, header, selector);
+                }
+
+                continue;
+            }
+
+            boolean selected = selector.contains(index) &&
+                    (Objects.nonNull(tokenizer) ? selector.test(record) : Objects.nonNull(bucket) && selector.test(bucket));
+
+            Map<String, String> data = null;
+            if (selected) {
+                data = Objects.nonNull(tokenizer) ?
+                        ReadUtils.combine(header, record, cache) : ReadUtils.combine(header, bucket, cache);
+                selector.accept();
+            }
+
+            if (selector.isDone(index)) {
+                done = true;
+            }
+
+            if (!selected) {
+                continue;
+            }
+
+            if (Objects.isNull(data)) {
+                LOGGER.error("read null, skip rowIndex: " + index);
+                continue;
+            }
+
+            rowIndex = index;
+            row = data;
+            return true;
+        }
+
+        row = null;
+        errors.finish();
+        return false;
+    }
+
+    @Override
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
+    @Override
+    public Map<String, String> getRow() {
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        done = true;
+        errors.finish();
+        reader.close();
+    }
+
+}
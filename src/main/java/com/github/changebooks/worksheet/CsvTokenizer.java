@@ -0,0 +1,316 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Objects;
+
+/**
+ * RFC4180分词器
+ * 复用char[]窗口，按偏移和长度输出字段视图，不创建String
+ * 引号内的分隔符、换行符，属于字段内容；"" 转义为 "
+ * 换行符：\n、\r\n、\r
+ * 引号内的换行符在窗口中原样保留；取值时CsvRecord.unquote把\r\n、\r转为\n，与opencsv相同
+ *
+ * @author changebooks
+ */
+public final class CsvTokenizer implements Closeable {
+    /**
+     * 默认缓冲区大小，字符数
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 监听记录
+     */
+    public interface Listener {
+        /**
+         * 标题行
+         *
+         * @param record 字段视图，只在回调期间有效
+         */
+        void invokeKey(CsvRecord record);
+
+        /**
+         * 数据行
+         *
+         * @param rowIndex 行索引
+         * @param record   字段视图，只在回调期间有效
+         */
+        void invokeValue(int rowIndex, CsvRecord record);
+
+        /**
+         * 完成
+         *
+         * @param rowIndex 最后一行，行索引
+         */
+        void onComplete(int rowIndex);
+
+    }
+
+    /**
+     * 字符流，null ? 固定窗口
+     */
+    private final Reader reader;
+
+    /**
+     * 字符缓冲区
+     */
+    private char[] buffer;
+
+    /**
+     * 当前位置
+     */
+    private int position;
+
+    /**
+     * 有效数据的结束位置
+     */
+    private int limit;
+
+    /**
+     * 读到流末尾？
+     */
+    private boolean eof;
+
+    /**
+     * 上一条记录以\r结束，下一个\n属于换行符
+     */
+    private boolean carriageReturn;
+
+    /**
+     * 每条记录最多保存的字段数，之后的字段只扫描引号和换行符，不保存偏移
+     */
+    private int maxFields = Integer.MAX_VALUE;
+
+    /**
+     * 当前记录
+     */
+    private final CsvRecord record = new CsvRecord();
+
+    public static CsvTokenizer create(Reader reader) {
+        return create(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public static CsvTokenizer create(Reader reader, int bufferSize) {
+        Preconditions.checkNotNull(reader, "reader can't be null");
+        Preconditions.checkArgument(bufferSize > 0, "bufferSize must be positive");
+
+        return new CsvTokenizer(reader, new char[bufferSize], 0, 0, false);
+    }
+
+    /**
+     * 固定窗口，不读流
+     */
+    public static CsvTokenizer create(char[] data, int offset, int length) {
+        Preconditions.checkNotNull(data, "data can't be null");
+        Preconditions.checkPositionIndexes(offset, offset + length, data.length);
+
+        return new CsvTokenizer(null, data, offset, offset + length, true);
+    }
+
+    private CsvTokenizer(Reader reader, char[] buffer, int position, int limit, boolean eof) {
+        this.reader = reader;
+        this.buffer = buffer;
+        this.position = position;
+        this.limit = limit;
+        this.eof = eof;
+    }
+
+    /**
+     * 逐行读
+     * 第一条记录为标题行
+     */
+    public static void read(Reader reader, Listener listener) throws IOException {
+        Preconditions.checkNotNull(reader, "reader can't be null");
+        Preconditions.checkNotNull(listener, "listener can't be null");
+
+        read(create(reader), listener);
+    }
+
+    /**
+     * 逐行读
+     * 第一条记录为标题行
+     */
+    public static void read(CsvTokenizer tokenizer, Listener listener) throws IOException {
+        Preconditions.checkNotNull(tokenizer, "tokenizer can't be null");
+        Preconditions.checkNotNull(listener, "listener can't be null");
+
+        int rowIndex = 0;
+        while (true) {
+            if (!tokenizer.next()) {
+                listener.onComplete(rowIndex - 1);
+                break;
+            }
+
+            CsvRecord current = tokenizer.getRecord();
+
+            if (rowIndex++ == 0) {
+                listener.invokeKey(current);
+                continue;
+            }
+
+            try {
+                listener.invokeValue(rowIndex - 1, current);
+            } catch (StopException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 读下一条记录
+     *
+     * @return 读到流末尾，返回false
+     */
+    public boolean next() throws IOException {
+        record.reset();
+
+        if (carriageReturn) {
+            carriageReturn = false;
+            if (position >= limit && !eof) {
+                fill(position);
+            }
+
+            if (position < limit && buffer[position] == '\n') {
+                position++;
+            }
+        }
+
+        int start = position;
+        int fieldStart = start;
+        boolean inQuote = false;
+        boolean quoted = false;
+
+        int i = start;
+        while (true) {
+            if (i >= limit) {
+                if (eof) {
+                    break;
+                }
+
+                int len = fill(start);
+                fieldStart -= start;
+                i -= start;
+                start = 0;
+                if (len < 0) {
+                    break;
+                }
+
+                continue;
+            }
+
+            char c = buffer[i];
+
+            if (c == CsvRecord.QUOTE) {
+                inQuote = !inQuote;
+                quoted = true;
+                i++;
+                continue;
+            }
+
+            if (inQuote) {
+                i++;
+                continue;
+            }
+
+            if (c == CsvRecord.SEPARATOR) {
+                if (record.size() < maxFields) {
+                    record.add(fieldStart - start, i - start, quoted);
+                }
+
+                fieldStart = ++i;
+                quoted = false;
+                continue;
+            }
+
+            if (c == '\n' || c == '\r') {
+                if (record.size() < maxFields) {
+                    record.add(fieldStart - start, i - start, quoted);
+                }
+
+                record.complete(buffer, start, i - start, false);
+
+                position = i + 1;
+                carriageReturn = c == '\r';
+                return true;
+            }
+
+            i++;
+        }
+
+        // 流末尾
+        position = limit;
+        if (i == start) {
+            return false;
+        }
+
+        if (record.size() < maxFields) {
+            record.add(fieldStart - start, i - start, quoted);
+        }
+
+        record.complete(buffer, start, i - start, inQuote);
+        return true;
+    }
+
+    /**
+     * 当前记录
+     */
+    public CsvRecord getRecord() {
+        return record;
+    }
+
+    /**
+     * 每条记录最多保存maxFields个字段，用于列投影
+     * 读完标题行再设置，之后的记录只保存前maxFields个字段
+     */
+    public void setMaxFields(int maxFields) {
+        Preconditions.checkArgument(maxFields > 0, "maxFields must be positive");
+
+        this.maxFields = maxFields;
+    }
+
+    public int getMaxFields() {
+        return maxFields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (Objects.nonNull(reader)) {
+            reader.close();
+        }
+    }
+
+    /**
+     * 读流，填充缓冲区
+     * [keep, limit) 移到缓冲区头部，缓冲区满则扩容
+     *
+     * @param keep 需保留的起始位置，调用方的偏移需减去keep
+     * @return 读到的字符数，流末尾返回-1
+     */
+    private int fill(int keep) throws IOException {
+        int remain = limit - keep;
+        if (keep > 0) {
+            System.arraycopy(buffer, keep, buffer, 0, remain);
+        } else if (remain == buffer.length) {
+            char[] grow = new char[buffer.length << 1];
+            System.arraycopy(buffer, 0, grow, 0, remain);
+            buffer = grow;
+        }
+
+        limit = remain;
+        position -= keep;
+
+        int len = reader.read(buffer, limit, buffer.length - limit);
+        if (len < 0) {
+            eof = true;
+        } else {
+            limit += len;
+        }
+
+        return len;
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * csv字节偏移跟踪
+ * 解码之前按字节统计引号外的换行符，与CsvScanner相同
+ * 只记录检查点之后那条记录的起始偏移，即记录号n，(n - 1) % interval == 0
+ * 解码器预读，跟踪总在分词器之前，取偏移时该记录已扫描过
+ *
+ * @author changebooks
+ */
+final class CsvTracker extends FilterInputStream {
+    /**
+     * 检查点间隔，行数
+     */
+    private final int interval;
+
+    /**
+     * 待取的 [记录号, 起始偏移]
+     */
+    private final Deque<long[]> offsets = new ArrayDeque<>();
+
+    /**
+     * 当前位置，字节
+     */
+    private long position;
+
+    /**
+     * 已开始的记录号
+     */
+    private long count;
+
+    /**
+     * 在引号内？
+     */
+    private boolean quoted;
+
+    /**
+     * 上一个字节是引号外的\r？
+     */
+    private boolean carriageReturn;
+
+    /**
+     * @param in       字节流，从记录边界开始
+     * @param position in在文件中的偏移
+     * @param rowIndex in的第一条记录的行索引
+     * @param interval 检查点间隔，行数
+     */
+    CsvTracker(InputStream in, long position, int rowIndex, int interval) {
+        super(in);
+
+        Preconditions.checkArgument(position >= 0, "position must be non-negative");
+        Preconditions.checkArgument(rowIndex >= 0, "rowIndex must be non-negative");
+        Preconditions.checkArgument(interval > 0, "interval must be positive");
+
+        this.interval = interval;
+        this.position = position;
+        this.count = rowIndex;
+    }
+
+    /**
+     * 记录号 -> 起始偏移
+     * 只能按递增顺序取，之前的记录丢弃
+     *
+     * @return 没有记录，返回-1
+     */
+    long offsetOf(int rowIndex) {
+        long[] head;
+        while ((head = offsets.peekFirst()) != null && head[0] < rowIndex) {
+            offsets.pollFirst();
+        }
+
+        return head != null && head[0] == rowIndex ? head[1] : -1;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            update(b);
+        }
+
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+
+        for (int i = 0; i < n; i++) {
+            update(b[off + i]);
+        }
+
+        return n;
+    }
+
+    /**
+     * 不支持跳过，按读处理
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] b = new byte[(int) Math.min(n, 8 * 1024)];
+        int read = read(b, 0, b.length);
+        return Math.max(read, 0);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int limit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private void update(int b) {
+        position++;
+
+        if (b == CsvScanner.QUOTE) {
+            quoted = !quoted;
+            carriageReturn = false;
+            return;
+        }
+
+        if (quoted) {
+            return;
+        }
+
+        if (b == CsvScanner.LF) {
+            if (carriageReturn) {
+                // \r\n只计一次，起始偏移移到\n之后
+                long[] tail = offsets.peekLast();
+                if (tail != null && tail[1] == position - 1) {
+                    tail[1] = position;
+                }
+            } else {
+                terminate();
+            }
+
+            carriageReturn = false;
+            return;
+        }
+
+        carriageReturn = b == CsvScanner.CR;
+        if (carriageReturn) {
+            terminate();
+        }
+    }
+
+    /**
+     * 记录结束，下一条记录从position开始
+     */
+    private void terminate() {
+        count++;
+
+        if ((count - 1) % interval == 0) {
+            offsets.addLast(new long[]{count, position});
+        }
+    }
+
+}
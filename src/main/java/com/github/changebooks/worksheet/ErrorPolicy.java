@@ -0,0 +1,286 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 解析失败的处理，如：CsvValidationException
+ * 失败的行不回调，监听不再收到null行；只在失败时判断，正常的行不经过
+ * 标题行失败，总是终止
+ * 引号未闭合，之后的内容都在这条记录中，默认总是终止；allowUnterminated()按策略处理，读到上一条记录
+ * 策略不可变，可放在共享的ReadOptions中；每次读新建Session计数、收集，读结束回调Listener
+ *
+ * @author changebooks
+ */
+public final class ErrorPolicy {
+    /**
+     * 默认，跳过
+     */
+    public static final ErrorPolicy DEFAULT = skip();
+
+    /**
+     * 处理方式
+     */
+    public enum Mode {
+        // 抛出RowParseException，终止读
+        FAIL_FAST,
+
+        // 跳过
+        SKIP,
+
+        // 跳过，每次读保留前capacity个失败的行
+        COLLECT,
+
+        // 跳过，失败的行交给隔离区；每次读超过maxErrors个，终止读
+        QUARANTINE,
+
+        ;
+    }
+
+    /**
+     * 隔离区，接收失败的行
+     */
+    public interface Quarantine {
+        /**
+         * 在解析线程回调
+         *
+         * @param error 失败的行
+         */
+        void accept(RowError error);
+
+    }
+
+    /**
+     * 监听一次读的结果
+     */
+    public interface Listener {
+        /**
+         * 读完、停止或失败，每次读回调一次，在解析线程
+         *
+         * @param session 本次读的失败行数、收集的失败行
+         */
+        void onFinish(Session session);
+
+    }
+
+    /**
+     * 处理方式
+     */
+    private final Mode mode;
+
+    /**
+     * COLLECT保留的个数；QUARANTINE最多的个数
+     */
+    private final int capacity;
+
+    /**
+     * 隔离区，QUARANTINE
+     */
+    private final Quarantine quarantine;
+
+    /**
+     * 监听结果，null ? 不回调
+     */
+    private final Listener listener;
+
+    /**
+     * 引号未闭合，按策略处理？false ? 总是终止
+     */
+    private final boolean allowUnterminated;
+
+    /**
+     * 抛出RowParseException
+     */
+    public static ErrorPolicy failFast() {
+        return new ErrorPolicy(Mode.FAIL_FAST, 0, null, null, false);
+    }
+
+    /**
+     * 跳过，只计数
+     */
+    public static ErrorPolicy skip() {
+        return new ErrorPolicy(Mode.SKIP, 0, null, null, false);
+    }
+
+    /**
+     * 跳过，每次读保留前capacity个失败的行，之后只计数
+     */
+    public static ErrorPolicy collect(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+
+        return new ErrorPolicy(Mode.COLLECT, capacity, null, null, false);
+    }
+
+    /**
+     * 跳过，失败的行交给隔离区
+     * 每次读第maxErrors + 1个失败，抛出RowParseException，脏文件尽早终止
+     */
+    public static ErrorPolicy quarantine(Quarantine quarantine, int maxErrors) {
+        Preconditions.checkNotNull(quarantine, "quarantine can't be null");
+        Preconditions.checkArgument(maxErrors > 0, "maxErrors must be positive");
+
+        return new ErrorPolicy(Mode.QUARANTINE, maxErrors, quarantine, null, false);
+    }
+
+    private ErrorPolicy(Mode mode, int capacity, Quarantine quarantine, Listener listener, boolean allowUnterminated) {
+        this.mode = mode;
+        this.capacity = capacity;
+        this.quarantine = quarantine;
+        this.listener = listener;
+        this.allowUnterminated = allowUnterminated;
+    }
+
+    /**
+     * 监听每次读的结果，返回新的策略，原策略不变
+     */
+    public ErrorPolicy listen(Listener listener) {
+        Preconditions.checkNotNull(listener, "listener can't be null");
+
+        return new ErrorPolicy(mode, capacity, quarantine, listener, allowUnterminated);
+    }
+
+    /**
+     * 引号未闭合，按策略处理，不终止，返回新的策略，原策略不变
+     * 之后的内容都丢弃，读完回调上一条记录；标题行未闭合，总是终止
+     */
+    public ErrorPolicy allowUnterminated() {
+        return new ErrorPolicy(mode, capacity, quarantine, listener, true);
+    }
+
+    /**
+     * 开始一次读
+     */
+    Session start() {
+        return new Session(this);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Quarantine getQuarantine() {
+        return quarantine;
+    }
+
+    public Listener getListener() {
+        return listener;
+    }
+
+    public boolean isAllowUnterminated() {
+        return allowUnterminated;
+    }
+
+    @Override
+    public String toString() {
+        return "ErrorPolicy{mode=" + mode + ", capacity=" + capacity + ", allowUnterminated=" + allowUnterminated + "}";
+    }
+
+    /**
+     * 一次读的状态，只在解析线程访问
+     */
+    public static final class Session {
+        /**
+         * 策略
+         */
+        private final ErrorPolicy policy;
+
+        /**
+         * 保留的失败行，COLLECT
+         */
+        private final List<RowError> errors;
+
+        /**
+         * 失败的行数
+         */
+        private long count;
+
+        /**
+         * 已结束？
+         */
+        private boolean finished;
+
+        private Session(ErrorPolicy policy) {
+            this.policy = policy;
+            this.errors = policy.mode == Mode.COLLECT ? new ArrayList<>() : null;
+        }
+
+        /**
+         * 处理一个失败的行
+         *
+         * @throws RowParseException FAIL_FAST，或QUARANTINE超过maxErrors
+         */
+        void handle(RowError error) throws RowParseException {
+            count++;
+
+            switch (policy.mode) {
+                case FAIL_FAST:
+                    throw new RowParseException("parse failed", error);
+
+                case COLLECT:
+                    if (errors.size() < policy.capacity) {
+                        errors.add(error);
+                    }
+                    break;
+
+                case QUARANTINE:
+                    if (count > policy.capacity) {
+                        throw new RowParseException("too many errors, maxErrors: " + policy.capacity, error);
+                    }
+
+                    policy.quarantine.accept(error);
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * 读完、停止或失败，只回调一次
+         */
+        void finish() {
+            if (finished) {
+                return;
+            }
+
+            finished = true;
+
+            if (Objects.nonNull(policy.listener)) {
+                policy.listener.onFinish(this);
+            }
+        }
+
+        public ErrorPolicy getPolicy() {
+            return policy;
+        }
+
+        /**
+         * 失败的行数
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * 保留的失败行，COLLECT，其它返回空
+         */
+        public List<RowError> getErrors() {
+            return Objects.isNull(errors) ? Collections.emptyList() : Collections.unmodifiableList(errors);
+        }
+
+        @Override
+        public String toString() {
+            return "Session{mode=" + policy.mode + ", count=" + count + "}";
+        }
+
+    }
+
+}
@@ -0,0 +1,320 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 读的指标，内存累计
+ * 线程安全，多个读可共享；读的耗时在读完时累计，速率按读完的读计算
+ * 页延迟按2的幂分桶：第k桶为 [2^(k-1), 2^k) 纳秒
+ *
+ * @author changebooks
+ */
+public final class MemoryReadMetrics implements ReadMetrics {
+    /**
+     * 页延迟的桶数
+     */
+    public static final int BUCKETS = 64;
+
+    /**
+     * 已开始的读
+     */
+    private final LongAdder starts = new LongAdder();
+
+    /**
+     * 已结束的读
+     */
+    private final LongAdder finishes = new LongAdder();
+
+    /**
+     * 失败的读
+     */
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * 已结束的读，耗时之和
+     */
+    private final LongAdder readNanos = new LongAdder();
+
+    /**
+     * 有数据行的读，首行耗时之和
+     */
+    private final LongAdder firstRowNanos = new LongAdder();
+
+    /**
+     * 有数据行的读
+     */
+    private final LongAdder firstRows = new LongAdder();
+
+    private final LongAdder rows = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * 行监听耗时之和
+     */
+    private final LongAdder listenerNanos = new LongAdder();
+
+    /**
+     * source => 解析失败数
+     */
+    private final Map<String, LongAdder> parseErrors = new ConcurrentHashMap<>();
+
+    private final LongAdder pages = new LongAdder();
+
+    /**
+     * 页监听耗时之和
+     */
+    private final LongAdder pageNanos = new LongAdder();
+
+    /**
+     * 页延迟的直方图
+     */
+    private final AtomicLongArray pageLatencies = new AtomicLongArray(BUCKETS);
+
+    public static MemoryReadMetrics create() {
+        return new MemoryReadMetrics();
+    }
+
+    private MemoryReadMetrics() {
+    }
+
+    @Override
+    public void onStart(String source) {
+        starts.increment();
+    }
+
+    @Override
+    public void onFirstRow(String source, long nanos) {
+        firstRows.increment();
+        firstRowNanos.add(nanos);
+    }
+
+    @Override
+    public void onBytes(long bytes) {
+        this.bytes.add(bytes);
+    }
+
+    @Override
+    public void onRow(long nanos) {
+        rows.increment();
+        listenerNanos.add(nanos);
+    }
+
+    @Override
+    public void onParseError(String source, int rowIndex, Throwable cause) {
+        parseErrors.computeIfAbsent(String.valueOf(source), k -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void onPage(int rows, long nanos) {
+        pages.increment();
+        pageNanos.add(nanos);
+        pageLatencies.incrementAndGet(bucketOf(nanos));
+    }
+
+    @Override
+    public void onFinish(String source, long nanos, Throwable error) {
+        finishes.increment();
+        readNanos.add(nanos);
+
+        if (Objects.nonNull(error)) {
+            failures.increment();
+        }
+    }
+
+    public long getStarts() {
+        return starts.sum();
+    }
+
+    public long getFinishes() {
+        return finishes.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * 回调的数据行数
+     */
+    public long getRows() {
+        return rows.sum();
+    }
+
+    /**
+     * 读的字节数，解码之前
+     */
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * 已结束的读，耗时之和，纳秒
+     */
+    public long getReadNanos() {
+        return readNanos.sum();
+    }
+
+    /**
+     * 行监听耗时之和，纳秒
+     */
+    public long getListenerNanos() {
+        return listenerNanos.sum();
+    }
+
+    /**
+     * 解析耗时，纳秒，读的耗时 - 监听耗时
+     * 读完之后准确
+     */
+    public long getParseNanos() {
+        return Math.max(0, getReadNanos() - getListenerNanos());
+    }
+
+    /**
+     * 平均首行耗时，纳秒，没有数据行返回0
+     */
+    public long getTimeToFirstRowNanos() {
+        long count = firstRows.sum();
+        return count == 0 ? 0 : firstRowNanos.sum() / count;
+    }
+
+    /**
+     * 行/秒，按读的耗时
+     */
+    public double getRowsPerSecond() {
+        return perSecond(getRows());
+    }
+
+    /**
+     * 字节/秒，按读的耗时
+     */
+    public double getBytesPerSecond() {
+        return perSecond(getBytes());
+    }
+
+    /**
+     * 解析失败数之和
+     */
+    public long getParseErrorCount() {
+        long result = 0;
+        for (LongAdder count : parseErrors.values()) {
+            result += count.sum();
+        }
+
+        return result;
+    }
+
+    /**
+     * source => 解析失败数，按source排序
+     */
+    public Map<String, Long> getParseErrors() {
+        Map<String, Long> result = new TreeMap<>();
+        parseErrors.forEach((source, count) -> result.put(source, count.sum()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    public long getPages() {
+        return pages.sum();
+    }
+
+    /**
+     * 页监听耗时之和，纳秒
+     */
+    public long getPageNanos() {
+        return pageNanos.sum();
+    }
+
+    /**
+     * 页延迟的直方图，第k个为 [2^(k-1), 2^k) 纳秒的页数
+     */
+    public long[] getPageLatencies() {
+        long[] result = new long[BUCKETS];
+        for (int k = 0; k < BUCKETS; k++) {
+            result[k] = pageLatencies.get(k);
+        }
+
+        return result;
+    }
+
+    /**
+     * 页延迟的分位数，纳秒，取桶的上界，没有页返回0
+     *
+     * @param quantile 如：0.5、0.99
+     */
+    public long getPageLatency(double quantile) {
+        Preconditions.checkArgument(quantile > 0 && quantile <= 1, "quantile must be in (0, 1]");
+
+        long[] histogram = getPageLatencies();
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int k = 0; k < BUCKETS; k++) {
+            seen += histogram[k];
+            if (seen >= rank) {
+                return k >= BUCKETS - 1 ? Long.MAX_VALUE : 1L << k;
+            }
+        }
+
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * 清零
+     */
+    public void reset() {
+        starts.reset();
+        finishes.reset();
+        failures.reset();
+        readNanos.reset();
+        firstRowNanos.reset();
+        firstRows.reset();
+        rows.reset();
+        bytes.reset();
+        listenerNanos.reset();
+        parseErrors.clear();
+        pages.reset();
+        pageNanos.reset();
+        for (int k = 0; k < BUCKETS; k++) {
+            pageLatencies.set(k, 0);
+        }
+    }
+
+    private double perSecond(long count) {
+        long nanos = getReadNanos();
+        return nanos == 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    /**
+     * 纳秒 -> 桶
+     */
+    private static int bucketOf(long nanos) {
+        return nanos <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryReadMetrics{starts=" + getStarts() + ", finishes=" + getFinishes() + ", failures=" + getFailures() +
+                ", rows=" + getRows() + ", bytes=" + getBytes() +
+                ", readNanos=" + getReadNanos() + ", listenerNanos=" + getListenerNanos() + ", parseNanos=" + getParseNanos() +
+                ", timeToFirstRowNanos=" + getTimeToFirstRowNanos() + ", parseErrors=" + getParseErrors() +
+                ", pages=" + getPages() + ", pageNanos=" + getPageNanos() + "}";
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 池化的页
+ * 回调返回后，读取方release；监听方需在回调之后继续持有，先retain，用完再release
+ * 引用数归零，清空并归还PagePool，之后不可再访问
+ *
+ * @author changebooks
+ */
+public final class Page extends AbstractList<Map<String, String>> implements RandomAccess {
+    /**
+     * 所属的池
+     */
+    private final PagePool pool;
+
+    /**
+     * 数据列表，清空后保留容量
+     */
+    private final ArrayList<Map<String, String>> data = new ArrayList<>();
+
+    /**
+     * 引用数
+     */
+    private final AtomicInteger refCnt = new AtomicInteger();
+
+    Page(PagePool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * 继续持有，引用数+1
+     */
+    public Page retain() {
+        int cnt;
+        do {
+            cnt = refCnt.get();
+            Preconditions.checkState(cnt > 0, "page is released");
+        } while (!refCnt.compareAndSet(cnt, cnt + 1));
+
+        return this;
+    }
+
+    /**
+     * 用完，引用数-1
+     * 归零，清空并归还池
+     */
+    public void release() {
+        int cnt = refCnt.decrementAndGet();
+        if (cnt == 0) {
+            data.clear();
+            pool.recycle(this);
+            return;
+        }
+
+        if (cnt < 0) {
+            refCnt.incrementAndGet();
+            throw new IllegalStateException("page is released");
+        }
+    }
+
+    /**
+     * 引用数
+     */
+    public int refCnt() {
+        return refCnt.get();
+    }
+
+    /**
+     * 继续持有池化的页
+     */
+    public static Page retain(List<Map<String, String>> data) {
+        Preconditions.checkArgument(data instanceof Page, "data isn't a pooled page");
+
+        return ((Page) data).retain();
+    }
+
+    /**
+     * 用完，池化的页归还池
+     *
+     * @return 不是池化的页，返回false
+     */
+    public static boolean release(List<Map<String, String>> data) {
+        if (data instanceof Page) {
+            ((Page) data).release();
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public Map<String, String> get(int index) {
+        return data.get(index);
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public Map<String, String> set(int index, Map<String, String> element) {
+        return data.set(index, element);
+    }
+
+    @Override
+    public void add(int index, Map<String, String> element) {
+        data.add(index, element);
+    }
+
+    @Override
+    public Map<String, String> remove(int index) {
+        return data.remove(index);
+    }
+
+    @Override
+    public void clear() {
+        data.clear();
+    }
+
+    /**
+     * 从池取出，引用数为1
+     */
+    void open() {
+        refCnt.set(1);
+    }
+
+}
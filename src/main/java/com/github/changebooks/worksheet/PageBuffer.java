@@ -0,0 +1,162 @@
+package com.github.changebooks.worksheet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 逐行 -> 分页
+ * 同步回调，复用同一个列表；异步分发，每页一个新列表
+ * 有页池，每页从池取出，回调返回后release
+ * 检查点：当前页不满（行过滤），先回调当前页，再回调检查点
+ *
+ * @author changebooks
+ */
+final class PageBuffer implements ReadLine.Listener {
+    /**
+     * 每页行数
+     */
+    private final int pageSize;
+
+    /**
+     * 监听页
+     */
+    private final ReadPage.Listener listener;
+
+    /**
+     * 异步分发会话，同步为null
+     */
+    private final PageDispatcher.Session session;
+
+    /**
+     * 页池，null ? 不池化
+     */
+    private final PagePool pool;
+
+    /**
+     * 当前页的首行索引
+     */
+    private Integer startRow;
+
+    /**
+     * 当前页的数据列表
+     */
+    private List<Map<String, String>> data;
+
+    PageBuffer(int pageSize, ReadPage.Listener listener, PageDispatcher dispatcher, PagePool pool) {
+        this.pageSize = pageSize;
+        this.listener = listener;
+        this.session = Objects.isNull(dispatcher) ? null : dispatcher.open(listener);
+        this.pool = pool;
+        this.data = Objects.isNull(pool) ? new ArrayList<>(pageSize) : null;
+    }
+
+    @Override
+    public void invoke(Integer rowIndex, Map<String, String> valueMap) {
+        if (Objects.isNull(startRow)) {
+            startRow = rowIndex;
+        }
+
+        if (Objects.isNull(data)) {
+            data = pool.acquire();
+        }
+
+        if (data.size() < pageSize) {
+            data.add(valueMap);
+        }
+
+        if (data.size() >= pageSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void onComplete(Integer rowIndex) {
+    }
+
+    @Override
+    public void onCheckpoint(Checkpoint checkpoint) {
+        if (Objects.nonNull(data) && data.size() > 0) {
+            flush();
+        }
+
+        if (Objects.nonNull(session)) {
+            session.checkpoint(checkpoint);
+        } else {
+            listener.onCheckpoint(checkpoint);
+        }
+    }
+
+    /**
+     * 读完，回调最后一页，等待异步分发完成
+     * 消费线程抛出异常，重新抛出
+     */
+    void finish() {
+        try {
+            if (Objects.nonNull(data) && data.size() > 0 && (Objects.isNull(session) || !session.isStopped())) {
+                flush();
+            }
+        } catch (StopException ignored) {
+            // 消费线程已终止
+        } finally {
+            discard();
+        }
+
+        if (Objects.nonNull(session)) {
+            session.close();
+        }
+    }
+
+    /**
+     * 读失败，放弃未消费的页
+     * 消费线程的异常，附加到cause
+     */
+    void abort(Throwable cause) {
+        discard();
+
+        if (Objects.isNull(session)) {
+            return;
+        }
+
+        try {
+            session.abort();
+        } catch (Throwable e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void flush() {
+        if (Objects.nonNull(session)) {
+            List<Map<String, String>> page = data;
+            data = Objects.isNull(pool) ? new ArrayList<>(pageSize) : null;
+            session.submit(startRow, page);
+        } else if (Objects.isNull(pool)) {
+            listener.invoke(startRow, data);
+            data.clear();
+        } else {
+            Page page = (Page) data;
+            data = null;
+
+            try {
+                listener.invoke(startRow, page);
+            } finally {
+                page.release();
+            }
+        }
+
+        startRow = null;
+    }
+
+    /**
+     * 未回调的页，归还池
+     */
+    private void discard() {
+        if (data instanceof Page) {
+            ((Page) data).release();
+        }
+
+        data = null;
+    }
+
+}
@@ -0,0 +1,401 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 异步分发页
+ * 解析线程把页放入有界队列，队列满则阻塞；消费线程并行回调监听
+ * 检查点等之前提交的页都回调返回后，才回调监听
+ * 支持虚拟线程的JVM，消费线程为虚拟线程
+ *
+ * @author changebooks
+ */
+public final class PageDispatcher {
+    /**
+     * 虚拟线程池，不支持为null
+     */
+    private static final Method VIRTUAL_EXECUTOR = findVirtualExecutor();
+
+    /**
+     * 消费线程数
+     */
+    private final int consumers;
+
+    /**
+     * 队列容量，页数
+     */
+    private final int capacity;
+
+    /**
+     * 保持页的顺序？
+     * true ? 只有1个消费线程
+     */
+    private final boolean ordered;
+
+    public static PageDispatcher create(int consumers, int capacity) {
+        return create(consumers, capacity, false);
+    }
+
+    public static PageDispatcher create(int consumers, int capacity, boolean ordered) {
+        return new PageDispatcher(consumers, capacity, ordered);
+    }
+
+    private PageDispatcher(int consumers, int capacity, boolean ordered) {
+        Preconditions.checkArgument(consumers > 0, "consumers must be positive");
+        Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+
+        this.consumers = ordered ? 1 : consumers;
+        this.capacity = capacity;
+        this.ordered = ordered;
+    }
+
+    /**
+     * 开始分发，每次读文件一个会话
+     */
+    public Session open(ReadPage.Listener listener) {
+        Preconditions.checkNotNull(listener, "listener can't be null");
+
+        return new Session(listener);
+    }
+
+    public int getConsumers() {
+        return consumers;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * 分发会话
+     */
+    public final class Session {
+        /**
+         * 结束标记
+         */
+        private final Task end = new Task(-1, null, null);
+
+        /**
+         * 监听页
+         */
+        private final ReadPage.Listener listener;
+
+        /**
+         * 待消费的页
+         */
+        private final BlockingQueue<Task> queue = new ArrayBlockingQueue<>(capacity);
+
+        /**
+         * 消费线程池
+         */
+        private final ExecutorService executor;
+
+        /**
+         * 运行中的消费线程数
+         */
+        private final CountDownLatch running = new CountDownLatch(consumers);
+
+        /**
+         * 第一个异常
+         */
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        /**
+         * 终止？消费线程抛出异常或StopException
+         */
+        private volatile boolean stopped;
+
+        /**
+         * 已关闭？
+         */
+        private boolean closed;
+
+        /**
+         * 已提交的页数，解析线程
+         */
+        private long submitted;
+
+        /**
+         * 检查点的锁
+         */
+        private final Object lock = new Object();
+
+        /**
+         * 序号 < watermark的页都已回调返回
+         */
+        private long watermark;
+
+        /**
+         * 已回调返回、序号 > watermark的页
+         */
+        private final Set<Long> done = new HashSet<>();
+
+        /**
+         * 待回调的检查点
+         */
+        private final Deque<Mark> checkpoints = new ArrayDeque<>();
+
+        private Session(ReadPage.Listener listener) {
+            this.listener = listener;
+            this.executor = newExecutor(consumers);
+
+            for (int i = 0; i < consumers; i++) {
+                executor.execute(this::consume);
+            }
+        }
+
+        /**
+         * 提交页，队列满则阻塞
+         * 已终止，抛StopException，终止解析
+         *
+         * @param rowIndex 当前页的首行索引
+         * @param data     当前页的数据列表，提交后归消费线程所有；池化的页，回调返回后release
+         */
+        public void submit(Integer rowIndex, List<Map<String, String>> data) {
+            Preconditions.checkState(!closed, "session is closed");
+
+            try {
+                while (!stopped) {
+                    if (queue.offer(new Task(submitted, rowIndex, data), 100, TimeUnit.MILLISECONDS)) {
+                        submitted++;
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped = true;
+            }
+
+            Page.release(data);
+            throw new StopException();
+        }
+
+        /**
+         * 提交检查点
+         * 之前提交的页都已回调返回，直接回调；否则等最后一页回调返回后，在消费线程回调
+         * 有页失败或终止，之后的检查点不回调
+         */
+        public void checkpoint(Checkpoint checkpoint) {
+            Preconditions.checkState(!closed, "session is closed");
+            Preconditions.checkNotNull(checkpoint, "checkpoint can't be null");
+
+            synchronized (lock) {
+                if (stopped) {
+                    return;
+                }
+
+                if (watermark == submitted) {
+                    listener.onCheckpoint(checkpoint);
+                } else {
+                    checkpoints.addLast(new Mark(submitted, checkpoint));
+                }
+            }
+        }
+
+        /**
+         * 等待已提交的页消费完，关闭消费线程
+         * 消费线程抛出异常，重新抛出
+         */
+        public void close() {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+
+            try {
+                for (int i = 0; i < consumers; i++) {
+                    queue.put(end);
+                }
+
+                running.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped = true;
+            } finally {
+                executor.shutdownNow();
+            }
+
+            Throwable cause = failure.get();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            if (Objects.nonNull(cause)) {
+                throw new RuntimeException(cause);
+            }
+        }
+
+        /**
+         * 放弃未消费的页，关闭消费线程
+         */
+        public void abort() {
+            stopped = true;
+
+            Task task;
+            while (Objects.nonNull(task = queue.poll())) {
+                if (task != end) {
+                    Page.release(task.data);
+                }
+            }
+
+            close();
+        }
+
+        /**
+         * 已终止？
+         */
+        public boolean isStopped() {
+            return stopped;
+        }
+
+        /**
+         * 页回调返回，推进watermark，回调已满足的检查点
+         */
+        private void complete(long seq) {
+            synchronized (lock) {
+                done.add(seq);
+                while (done.remove(watermark)) {
+                    watermark++;
+                }
+
+                Mark head;
+                while (!stopped && (head = checkpoints.peekFirst()) != null && head.submitted <= watermark) {
+                    checkpoints.pollFirst();
+                    listener.onCheckpoint(head.checkpoint);
+                }
+            }
+        }
+
+        /**
+         * 消费线程
+         * 终止后继续取队列，直到结束标记，避免解析线程阻塞
+         */
+        private void consume() {
+            try {
+                while (true) {
+                    Task task = queue.take();
+                    if (task == end) {
+                        break;
+                    }
+
+                    if (stopped) {
+                        Page.release(task.data);
+                        continue;
+                    }
+
+                    try {
+                        listener.invoke(task.rowIndex, task.data);
+                        complete(task.seq);
+                    } catch (StopException e) {
+                        stopped = true;
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                        stopped = true;
+                    } finally {
+                        Page.release(task.data);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.countDown();
+            }
+        }
+
+    }
+
+    /**
+     * 待消费的页
+     */
+    private static final class Task {
+        /**
+         * 提交序号
+         */
+        final long seq;
+
+        /**
+         * 当前页的首行索引
+         */
+        final Integer rowIndex;
+
+        /**
+         * 当前页的数据列表
+         */
+        final List<Map<String, String>> data;
+
+        Task(long seq, Integer rowIndex, List<Map<String, String>> data) {
+            this.seq = seq;
+            this.rowIndex = rowIndex;
+            this.data = data;
+        }
+
+    }
+
+    /**
+     * 待回调的检查点
+     */
+    private static final class Mark {
+        /**
+         * 之前提交的页数
+         */
+        final long submitted;
+
+        /**
+         * 检查点
+         */
+        final Checkpoint checkpoint;
+
+        Mark(long submitted, Checkpoint checkpoint) {
+            this.submitted = submitted;
+            this.checkpoint = checkpoint;
+        }
+
+    }
+
+    /**
+     * 虚拟线程池，不支持则用固定大小的守护线程池
+     */
+    private static ExecutorService newExecutor(int consumers) {
+        if (Objects.nonNull(VIRTUAL_EXECUTOR)) {
+            try {
+                return (ExecutorService) VIRTUAL_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException ignored) {
+                // fall through
+            }
+        }
+
+        AtomicInteger num = new AtomicInteger();
+        return Executors.newFixedThreadPool(consumers, r -> {
+            Thread thread = new Thread(r, "worksheet-page-" + num.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor()，JDK 21+
+     */
+    private static Method findVirtualExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 页池
+ * 最多maxPages页，全部在用则阻塞，直到有页归还
+ * 在用的页数固定，内存不随文件大小增长
+ *
+ * @author changebooks
+ */
+public final class PagePool {
+    /**
+     * 最大页数
+     */
+    private final int maxPages;
+
+    /**
+     * 空闲的页
+     */
+    private final BlockingQueue<Page> free;
+
+    /**
+     * 已创建的页数
+     */
+    private final AtomicInteger created = new AtomicInteger();
+
+    public static PagePool create(int maxPages) {
+        return new PagePool(maxPages);
+    }
+
+    private PagePool(int maxPages) {
+        Preconditions.checkArgument(maxPages > 0, "maxPages must be positive");
+
+        this.maxPages = maxPages;
+        this.free = new LinkedBlockingQueue<>(maxPages);
+    }
+
+    /**
+     * 取一页，引用数为1
+     * 全部在用，阻塞；阻塞时被中断，抛StopException，终止解析
+     */
+    public Page acquire() {
+        Page result = free.poll();
+
+        if (Objects.isNull(result)) {
+            int num;
+            while ((num = created.get()) < maxPages) {
+                if (created.compareAndSet(num, num + 1)) {
+                    result = new Page(this);
+                    break;
+                }
+            }
+        }
+
+        if (Objects.isNull(result)) {
+            try {
+                result = free.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new StopException();
+            }
+        }
+
+        result.open();
+        return result;
+    }
+
+    /**
+     * 最大页数
+     */
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    /**
+     * 在用的页数
+     */
+    public int getInUse() {
+        return created.get() - free.size();
+    }
+
+    /**
+     * 归还
+     */
+    void recycle(Page page) {
+        free.offer(page);
+    }
+
+}
@@ -0,0 +1,394 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * 页存储，堆外
+ * 按块分配直接内存，块从64KB倍增到4MB，切为页；超过内存预算，改从临时文件映射，由操作系统换页
+ * 页有两种大小：4KB、64KB，每个序列的前64KB用4KB的页，列少的值不占整页
+ * 不是线程安全的；写完后，可在多个线程读；close后不可再读
+ *
+ * @author changebooks
+ */
+final class PageStore implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PageStore.class);
+
+    /**
+     * 页大小，64KB
+     */
+    static final int PAGE_SHIFT = 16;
+
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /**
+     * 小页大小，4KB
+     */
+    static final int SMALL_PAGE_SHIFT = 12;
+
+    static final int SMALL_PAGE_SIZE = 1 << SMALL_PAGE_SHIFT;
+
+    static final int SMALL_PAGE_MASK = SMALL_PAGE_SIZE - 1;
+
+    /**
+     * 每个序列的小页数，之后是整页
+     */
+    static final int SMALL_PAGES = PAGE_SIZE / SMALL_PAGE_SIZE;
+
+    /**
+     * 块大小的上限，4MB
+     */
+    private static final int SLAB_SIZE = 64 * PAGE_SIZE;
+
+    /**
+     * 解除文件映射，不支持为null
+     */
+    private static final Consumer<ByteBuffer> UNMAPPER = newUnmapper();
+
+    /**
+     * 直接内存的预算，字节
+     */
+    private final long memoryBudget;
+
+    /**
+     * 已映射的块，close时解除映射
+     */
+    private final List<ByteBuffer> mapped = new ArrayList<>();
+
+    /**
+     * 当前块
+     */
+    private ByteBuffer slab;
+
+    /**
+     * 当前块已切出的字节
+     */
+    private int slabUsed;
+
+    /**
+     * 已分配的直接内存，字节
+     */
+    private long directBytes;
+
+    /**
+     * 已映射的临时文件，字节
+     */
+    private long spilledBytes;
+
+    /**
+     * 临时文件，超过预算才创建
+     */
+    private Path spillFile;
+
+    private FileChannel channel;
+
+    private boolean closed;
+
+    PageStore(long memoryBudget) {
+        Preconditions.checkArgument(memoryBudget >= 0, "memoryBudget must be non-negative");
+
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * 分配一页，全为0
+     *
+     * @param size 页大小，PAGE_SIZE或SMALL_PAGE_SIZE
+     * @throws UncheckedIOException 创建、映射临时文件失败
+     */
+    ByteBuffer allocate(int size) {
+        Preconditions.checkState(!closed, "store is closed");
+        Preconditions.checkArgument(size == PAGE_SIZE || size == SMALL_PAGE_SIZE, "size must be PAGE_SIZE or SMALL_PAGE_SIZE");
+
+        if (Objects.isNull(slab) || slabUsed + size > slab.capacity()) {
+            slab = newSlab();
+            slabUsed = 0;
+        }
+
+        ByteBuffer page = slab.duplicate();
+        page.position(slabUsed);
+        page.limit(slabUsed + size);
+        slabUsed += size;
+
+        return page.slice();
+    }
+
+    /**
+     * 已写临时文件？
+     */
+    boolean isSpilled() {
+        return spilledBytes > 0;
+    }
+
+    long getDirectBytes() {
+        return directBytes;
+    }
+
+    long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * 临时文件，没有写为null
+     */
+    Path getSpillFile() {
+        return spillFile;
+    }
+
+    /**
+     * 释放页的引用，解除映射，关闭并删除临时文件
+     * 直接内存由GC回收
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        slab = null;
+
+        if (Objects.isNull(channel)) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } finally {
+            // Windows下，映射未解除的文件删不掉
+            if (Objects.nonNull(UNMAPPER)) {
+                for (ByteBuffer buffer : mapped) {
+                    UNMAPPER.accept(buffer);
+                }
+            }
+
+            mapped.clear();
+
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                LOGGER.warn("delete spill file failed, file: {}, throwable: ", spillFile, e);
+            }
+        }
+    }
+
+    /**
+     * 新块，从一页倍增到SLAB_SIZE
+     */
+    private ByteBuffer newSlab() {
+        int size = (int) Math.min(SLAB_SIZE, Math.max(PAGE_SIZE, directBytes + spilledBytes));
+
+        if (directBytes + size <= memoryBudget) {
+            directBytes += size;
+            return ByteBuffer.allocateDirect(size);
+        }
+
+        try {
+            if (Objects.isNull(channel)) {
+                spillFile = Files.createTempFile("worksheet-", ".spill");
+                channel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+                LOGGER.info("memory budget exceeded, spill to: {}, memoryBudget: {}", spillFile, memoryBudget);
+            }
+
+            ByteBuffer result = channel.map(FileChannel.MapMode.READ_WRITE, spilledBytes, size);
+            mapped.add(result);
+            spilledBytes += size;
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("spill failed, file: " + spillFile, e);
+        }
+    }
+
+    /**
+     * 解除映射，Java 9+用Unsafe.invokeCleaner，Java 8用DirectBuffer.cleaner
+     * 都不支持，返回null，映射由GC回收
+     */
+    private static Consumer<ByteBuffer> newUnmapper() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Object unsafe = theUnsafe.get(null);
+
+            return buffer -> invoke(invokeCleaner, unsafe, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 8
+        }
+
+        try {
+            Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+
+            return buffer -> invoke(clean, invoke(cleaner, buffer));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("unmap unsupported, throwable: ", e);
+            return null;
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("unmap failed", e);
+        }
+    }
+
+    /**
+     * 按页增长的字节序列，只追加
+     * int、long按自身大小对齐，不跨页；字符串可跨页
+     */
+    static final class Pages {
+
+        private final PageStore store;
+
+        private final List<ByteBuffer> pages = new ArrayList<>();
+
+        /**
+         * 已写的字节
+         */
+        private long size;
+
+        Pages(PageStore store) {
+            this.store = store;
+        }
+
+        void addInt(int value) {
+            page(4).putInt(offsetOf(size), value);
+            size += 4;
+        }
+
+        void addLong(long value) {
+            page(8).putLong(offsetOf(size), value);
+            size += 8;
+        }
+
+        /**
+         * 追加字符串，UTF-8
+         *
+         * @return 字节数
+         */
+        int addString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+            int from = 0;
+            while (from < bytes.length) {
+                ByteBuffer page = page(1);
+                int offset = offsetOf(size);
+                int len = Math.min(bytes.length - from, page.capacity() - offset);
+
+                for (int i = 0; i < len; i++) {
+                    page.put(offset + i, bytes[from + i]);
+                }
+
+                from += len;
+                size += len;
+            }
+
+            return bytes.length;
+        }
+
+        /**
+         * 第index个int
+         */
+        int getInt(long index) {
+            long position = index << 2;
+            return pages.get(indexOf(position)).getInt(offsetOf(position));
+        }
+
+        /**
+         * 第index个long
+         */
+        long getLong(long index) {
+            long position = index << 3;
+            return pages.get(indexOf(position)).getLong(offsetOf(position));
+        }
+
+        /**
+         * [position, position + length) -> 字符串，UTF-8
+         */
+        String getString(long position, int length) {
+            byte[] bytes = new byte[length];
+
+            for (int i = 0; i < length; ) {
+                long p = position + i;
+                ByteBuffer page = pages.get(indexOf(p));
+                int offset = offsetOf(p);
+                int len = Math.min(length - i, page.capacity() - offset);
+
+                for (int j = 0; j < len; j++) {
+                    bytes[i + j] = page.get(offset + j);
+                }
+
+                i += len;
+            }
+
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        long size() {
+            return size;
+        }
+
+        /**
+         * 已分配的页数
+         */
+        int pageCount() {
+            return pages.size();
+        }
+
+        /**
+         * 写位置所在的页，到页边界时分配新页
+         * width整除SMALL_PAGE_SIZE，按width对齐的值不跨页
+         */
+        private ByteBuffer page(int width) {
+            Preconditions.checkState((size & (width - 1)) == 0, "unaligned write");
+
+            int index = indexOf(size);
+            if (index == pages.size()) {
+                pages.add(store.allocate(index < SMALL_PAGES ? SMALL_PAGE_SIZE : PAGE_SIZE));
+            }
+
+            return pages.get(index);
+        }
+
+        /**
+         * 位置 -> 页号，前SMALL_PAGES页是小页
+         */
+        private static int indexOf(long position) {
+            return position < PAGE_SIZE ? (int) (position >>> SMALL_PAGE_SHIFT) :
+                    (int) (position >>> PAGE_SHIFT) + SMALL_PAGES - 1;
+        }
+
+        /**
+         * 位置 -> 页内偏移
+         */
+        private static int offsetOf(long position) {
+            return (int) (position & (position < PAGE_SIZE ? SMALL_PAGE_MASK : PAGE_MASK));
+        }
+
+    }
+
+}
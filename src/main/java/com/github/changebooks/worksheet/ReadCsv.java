@@ -5,16 +5,22 @@ import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.opencsv.RFC4180Parser;
 import com.opencsv.RFC4180ParserBuilder;
+import com.opencsv.exceptions.CsvMalformedLineException;
 import com.opencsv.exceptions.CsvValidationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 /**
  * 读csv
@@ -34,8 +40,24 @@ public final class ReadCsv {
 
     /**
      * RFC4180解析器
+     * 每次读新建，解析器保存未闭合的引号内容，共享时一次读失败，之后的读都失败
      */
-    private static final RFC4180Parser RFC4180_PARSER = new RFC4180ParserBuilder().build();
+    static RFC4180Parser newParser() {
+        return new RFC4180ParserBuilder().build();
+    }
+
+    /**
+     * 解析引擎
+     */
+    public enum Engine {
+        // opencsv，RFC4180Parser
+        OPENCSV,
+
+        // 内置分词器，CsvTokenizer
+        TOKENIZER,
+
+        ;
+    }
 
     /**
      * 监听行
@@ -70,14 +92,56 @@ public final class ReadCsv {
      */
     private final int pageSize;
 
+    /**
+     * 解析引擎
+     */
+    private final Engine engine;
+
+    /**
+     * 异步分发，null ? 在解析线程回调
+     */
+    private final PageDispatcher dispatcher;
+
+    /**
+     * 页池，null ? 不池化
+     */
+    private final PagePool pool;
+
+    /**
+     * 读的选项
+     */
+    private final ReadOptions options;
+
     public static ReadCsv create(int pageSize) {
-        return new ReadCsv(pageSize);
+        return create(pageSize, Engine.OPENCSV);
+    }
+
+    public static ReadCsv create(int pageSize, Engine engine) {
+        return create(pageSize, engine, null);
+    }
+
+    public static ReadCsv create(int pageSize, Engine engine, PageDispatcher dispatcher) {
+        return create(pageSize, engine, dispatcher, null);
+    }
+
+    public static ReadCsv create(int pageSize, Engine engine, PageDispatcher dispatcher, PagePool pool) {
+        return create(pageSize, engine, dispatcher, pool, ReadOptions.DEFAULT);
+    }
+
+    public static ReadCsv create(int pageSize, Engine engine, PageDispatcher dispatcher, PagePool pool, ReadOptions options) {
+        return new ReadCsv(pageSize, engine, dispatcher, pool, options);
     }
 
-    private ReadCsv(int pageSize) {
+    private ReadCsv(int pageSize, Engine engine, PageDispatcher dispatcher, PagePool pool, ReadOptions options) {
         Preconditions.checkArgument(pageSize > 0, "pageSize must be positive");
+        Preconditions.checkNotNull(engine, "engine can't be null");
+        Preconditions.checkNotNull(options, "options can't be null");
 
         this.pageSize = pageSize;
+        this.engine = engine;
+        this.dispatcher = dispatcher;
+        this.pool = pool;
+        this.options = options;
     }
 
     /**
@@ -87,7 +151,7 @@ public final class ReadCsv {
         Preconditions.checkNotNull(file, "file can't be null");
 
         try (InputStream stream = new FileInputStream(file)) {
-            readPage(stream, charset, listener);
+            readPage(stream, file, charset, listener);
         }
     }
 
@@ -95,55 +159,114 @@ public final class ReadCsv {
      * 分页读
      */
     public void readPage(InputStream stream, Charset charset, ReadPage.Listener listener) throws IOException {
+        readPage(stream, null, charset, listener);
+    }
+
+    /**
+     * 分页读
+     *
+     * @param file 读的文件，null ? 读流
+     */
+    private void readPage(InputStream stream, File file, Charset charset, ReadPage.Listener listener) throws IOException {
         Preconditions.checkNotNull(listener, "listener can't be null");
 
-        // 当前页的首行索引
-        final Integer[] startRow = {null};
+        PageBuffer buffer = new PageBuffer(pageSize, ReadMeter.wrap(options, listener), dispatcher, pool);
+        try {
+            readLine(stream, 0, file, charset, engine, options.alignCheckpoint(pageSize), buffer);
+        } catch (Throwable e) {
+            buffer.abort(e);
+            throw e;
+        }
 
-        // 当前页的数据列表
-        List<Map<String, String>> data = new ArrayList<>();
+        buffer.finish();
+    }
 
-        readLine(stream, charset, new ReadLine.Listener() {
-            @Override
-            public void invoke(Integer rowIndex, Map<String, String> valueMap) {
-                if (Objects.isNull(startRow[0])) {
-                    startRow[0] = rowIndex;
-                }
+    /**
+     * 按行索引分页读，只读第pageNumber页
+     * 从索引点直接定位，不从文件头读
+     *
+     * @param pageNumber 页码，从1开始
+     */
+    public void readPage(File file, Charset charset, CsvIndex index, int pageNumber, ReadPage.Listener listener) throws IOException {
+        Preconditions.checkArgument(pageNumber > 0, "pageNumber must be positive");
+        Preconditions.checkNotNull(listener, "listener can't be null");
 
-                if (data.size() < pageSize) {
-                    data.add(valueMap);
-                }
+        long fromRow = (long) (pageNumber - 1) * pageSize + 1;
+        Preconditions.checkArgument(fromRow <= Integer.MAX_VALUE, "pageNumber overflow: " + pageNumber);
 
-                if (data.size() >= pageSize) {
-                    listener.invoke(startRow[0], data);
-                    startRow[0] = null;
-                    data.clear();
-                }
-            }
+        int toRow = (int) Math.min(fromRow + pageSize - 1, Integer.MAX_VALUE);
 
-            @Override
-            public void onComplete(Integer rowIndex) {
-            }
-        });
+        PageBuffer buffer = new PageBuffer(pageSize, ReadMeter.wrap(options, listener), dispatcher, pool);
+        try {
+            readRange(file, charset, index, (int) fromRow, toRow, options, buffer);
+        } catch (Throwable e) {
+            buffer.abort(e);
+            throw e;
+        }
 
-        if (data.size() > 0) {
-            listener.invoke(startRow[0], data);
-            data.clear();
+        buffer.finish();
+    }
+
+    /**
+     * 从检查点继续分页读
+     * 检查点间隔按页对齐，每页回调返回后才回调检查点
+     */
+    public void resumePage(File file, Charset charset, Checkpoint checkpoint, ReadPage.Listener listener) throws IOException {
+        Preconditions.checkNotNull(listener, "listener can't be null");
+
+        PageBuffer buffer = new PageBuffer(pageSize, ReadMeter.wrap(options, listener), dispatcher, pool);
+        try {
+            resumeLine(file, charset, engine, options.alignCheckpoint(pageSize), checkpoint, buffer);
+        } catch (Throwable e) {
+            buffer.abort(e);
+            throw e;
         }
+
+        buffer.finish();
     }
 
     public int getPageSize() {
         return pageSize;
     }
 
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public PageDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public PagePool getPool() {
+        return pool;
+    }
+
+    public ReadOptions getOptions() {
+        return options;
+    }
+
     /**
      * 同步读
      */
     public static List<Map<String, String>> readSync(File file, Charset charset) throws IOException {
+        return readSync(file, charset, Engine.OPENCSV);
+    }
+
+    /**
+     * 同步读
+     */
+    public static List<Map<String, String>> readSync(File file, Charset charset, Engine engine) throws IOException {
+        return readSync(file, charset, engine, ReadOptions.DEFAULT);
+    }
+
+    /**
+     * 同步读
+     */
+    public static List<Map<String, String>> readSync(File file, Charset charset, Engine engine, ReadOptions options) throws IOException {
         Preconditions.checkNotNull(file, "file can't be null");
 
         try (InputStream stream = new FileInputStream(file)) {
-            return readSync(stream, charset);
+            return readSync(stream, file, charset, engine, options);
         }
     }
 
@@ -151,9 +274,33 @@ public final class ReadCsv {
      * 同步读
      */
     public static List<Map<String, String>> readSync(InputStream stream, Charset charset) throws IOException {
+        return readSync(stream, charset, Engine.OPENCSV);
+    }
+
+    /**
+     * 同步读
+     */
+    public static List<Map<String, String>> readSync(InputStream stream, Charset charset, Engine engine) throws IOException {
+        return readSync(stream, charset, engine, ReadOptions.DEFAULT);
+    }
+
+    /**
+     * 同步读
+     */
+    public static List<Map<String, String>> readSync(InputStream stream, Charset charset, Engine engine, ReadOptions options) throws IOException {
+        return readSync(stream, null, charset, engine, options);
+    }
+
+    /**
+     * 同步读
+     *
+     * @param file 读的文件，null ? 读流
+     */
+    private static List<Map<String, String>> readSync(InputStream stream, File file, Charset charset, Engine engine,
+                                                      ReadOptions options) throws IOException {
         List<Map<String, String>> result = new ArrayList<>();
 
-        readLine(stream, charset, new ReadLine.Listener() {
+        readLine(stream, 0, file, charset, engine, options, new ReadLine.Listener() {
             @Override
             public void invoke(Integer rowIndex, Map<String, String> valueMap) {
                 if (Objects.isNull(valueMap)) {
@@ -171,14 +318,130 @@ public final class ReadCsv {
         return result;
     }
 
+    /**
+     * 同步读，紧凑存储
+     * 按列字典编码，存堆外，超过内存预算写临时文件；用完须close
+     *
+     * @param memoryBudget 直接内存的预算，字节
+     */
+    public static RowList readCompact(File file, Charset charset, Engine engine, ReadOptions options, long memoryBudget) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+
+        try (InputStream stream = new FileInputStream(file)) {
+            return readCompact(stream, file, charset, engine, options, memoryBudget);
+        }
+    }
+
+    /**
+     * 同步读，紧凑存储
+     * 读失败，关闭已读的结果
+     */
+    public static RowList readCompact(InputStream stream, Charset charset, Engine engine, ReadOptions options, long memoryBudget) throws IOException {
+        return readCompact(stream, null, charset, engine, options, memoryBudget);
+    }
+
+    /**
+     * 同步读，紧凑存储
+     *
+     * @param file 读的文件，null ? 读流
+     */
+    private static RowList readCompact(InputStream stream, File file, Charset charset, Engine engine,
+                                       ReadOptions options, long memoryBudget) throws IOException {
+        RowList result = RowList.create(memoryBudget);
+
+        try {
+            readLine(stream, 0, file, charset, engine, options, new ReadLine.Listener() {
+                @Override
+                public void invoke(Integer rowIndex, Map<String, String> valueMap) {
+                    if (Objects.isNull(valueMap)) {
+                        LOGGER.error("read null, skip rowIndex: " + rowIndex);
+                    } else {
+                        result.add(valueMap);
+                    }
+                }
+
+                @Override
+                public void onComplete(Integer rowIndex) {
+                }
+            });
+        } catch (IOException | RuntimeException | Error e) {
+            try {
+                result.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+
+            throw e;
+        }
+
+        return result;
+    }
+
+    /**
+     * 逐行拉取
+     * hasNext才解析下一行；读完自动关闭文件，提前结束须close
+     * charset = null ? 识别编码；没有字节偏移，不回调检查点
+     */
+    public static RowIterator iterator(File file, Charset charset, Engine engine, ReadOptions options) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+
+        InputStream stream = new FileInputStream(file);
+        try {
+            return iterator(stream, charset, engine, options);
+        } catch (IOException | RuntimeException e) {
+            stream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 逐行拉取
+     * 关闭迭代器即关闭stream
+     */
+    public static RowIterator iterator(InputStream stream, Charset charset, Engine engine, ReadOptions options) throws IOException {
+        Preconditions.checkNotNull(stream, "stream can't be null");
+        Preconditions.checkNotNull(engine, "engine can't be null");
+        Preconditions.checkNotNull(options, "options can't be null");
+
+        if (Objects.isNull(charset)) {
+            CharsetDetector.Result detected = CharsetDetector.detect(stream);
+            stream = detected.getStream();
+            charset = detected.getCharset();
+        }
+
+        return RowIterator.create(new CsvSource(new InputStreamReader(stream, charset), engine, options));
+    }
+
+    /**
+     * 逐行拉取，流
+     * 须关闭，用try-with-resources
+     */
+    public static Stream<Map<String, String>> stream(File file, Charset charset, Engine engine, ReadOptions options) throws IOException {
+        return iterator(file, charset, engine, options).stream();
+    }
+
     /**
      * 逐行读
      */
     public static void readLine(File file, Charset charset, ReadLine.Listener listener) throws IOException {
+        readLine(file, charset, Engine.OPENCSV, listener);
+    }
+
+    /**
+     * 逐行读
+     */
+    public static void readLine(File file, Charset charset, Engine engine, ReadLine.Listener listener) throws IOException {
+        readLine(file, charset, engine, ReadOptions.DEFAULT, listener);
+    }
+
+    /**
+     * 逐行读
+     */
+    public static void readLine(File file, Charset charset, Engine engine, ReadOptions options, ReadLine.Listener listener) throws IOException {
         Preconditions.checkNotNull(file, "file can't be null");
 
         try (InputStream stream = new FileInputStream(file)) {
-            readLine(stream, charset, listener);
+            readLine(stream, 0, file, charset, engine, options, listener);
         }
     }
 
@@ -186,12 +449,71 @@ public final class ReadCsv {
      * 逐行读
      */
     public static void readLine(InputStream stream, Charset charset, ReadLine.Listener listener) throws IOException {
+        readLine(stream, charset, Engine.OPENCSV, listener);
+    }
+
+    /**
+     * 逐行读
+     * charset = null ? 识别编码
+     */
+    public static void readLine(InputStream stream, Charset charset, Engine engine, ReadLine.Listener listener) throws IOException {
+        readLine(stream, charset, engine, ReadOptions.DEFAULT, listener);
+    }
+
+    /**
+     * 逐行读
+     * charset = null ? 识别编码
+     * 有检查点间隔，按字节跟踪记录的起始偏移，回调csv检查点；编码须兼容ASCII
+     */
+    public static void readLine(InputStream stream, Charset charset, Engine engine, ReadOptions options, ReadLine.Listener listener) throws IOException {
+        readLine(stream, 0, null, charset, engine, options, listener);
+    }
+
+    /**
+     * 逐行读
+     *
+     * @param position stream在文件中的偏移，如：已跳过的BOM
+     * @param file     读的文件，null ? 读流
+     */
+    static void readLine(InputStream stream, long position, File file, Charset charset, Engine engine, ReadOptions options,
+                         ReadLine.Listener listener) throws IOException {
         Preconditions.checkNotNull(stream, "stream can't be null");
+        Preconditions.checkNotNull(engine, "engine can't be null");
+        Preconditions.checkNotNull(options, "options can't be null");
         Preconditions.checkNotNull(listener, "listener can't be null");
 
-        try (InputStreamReader reader = Objects.isNull(charset) ?
-                new InputStreamReader(stream) : new InputStreamReader(stream, charset)) {
-            readLine(reader, listener);
+        ReadMeter meter = ReadMeter.start(options, file);
+        Throwable error = null;
+        try {
+            readLine(meter.wrap(stream, position), position, charset, engine, options, meter, meter.wrap(listener));
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            meter.finish(error);
+        }
+    }
+
+    private static void readLine(InputStream stream, long position, Charset charset, Engine engine, ReadOptions options,
+                                 ReadMeter meter, ReadLine.Listener listener) throws IOException {
+
+        if (Objects.isNull(charset)) {
+            CharsetDetector.Result detected = CharsetDetector.detect(stream);
+            stream = detected.getStream();
+            charset = detected.getCharset();
+            position += detected.getBomSize();
+        }
+
+        CsvTracker tracker = null;
+        if (options.getCheckpointInterval() > 0) {
+            Preconditions.checkArgument(CsvScanner.isAsciiCompatible(charset), "charset must be ascii compatible, charset: " + charset);
+
+            tracker = new CsvTracker(stream, position, 0, options.getCheckpointInterval());
+            stream = tracker;
+        }
+
+        try (InputStreamReader reader = new InputStreamReader(stream, charset)) {
+            read(reader, engine, null, 0, options, RowSelector.create(options), tracker, meter, listener);
         }
     }
 
@@ -199,44 +521,355 @@ public final class ReadCsv {
      * 逐行读
      */
     public static void readLine(InputStreamReader stream, ReadLine.Listener listener) throws IOException {
+        readLine(stream, ReadOptions.DEFAULT, listener);
+    }
+
+    /**
+     * 逐行读
+     * 没有字节偏移，不回调检查点
+     */
+    public static void readLine(InputStreamReader stream, ReadOptions options, ReadLine.Listener listener) throws IOException {
         Preconditions.checkNotNull(stream, "stream can't be null");
+        Preconditions.checkNotNull(options, "options can't be null");
         Preconditions.checkNotNull(listener, "listener can't be null");
 
-        CSVReaderBuilder builder = new CSVReaderBuilder(stream).withCSVParser(RFC4180_PARSER);
-        try (CSVReader reader = builder.build()) {
-            readLine(reader, new Listener() {
-                /**
-                 * columnIndex => keyName
-                 */
-                private Map<Integer, String> keys;
+        ReadMeter meter = ReadMeter.start(options, ReadMetrics.READER, -1);
+        Throwable error = null;
+        try {
+            read(stream, Engine.OPENCSV, null, 0, options, RowSelector.create(options), null, meter, meter.wrap(listener));
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            meter.finish(error);
+        }
+    }
 
-                @Override
-                public void invokeKey(Map<Integer, String> keyMap) {
-                    keys = ReadUtils.asKey(keyMap);
+    /**
+     * 逐行读
+     */
+    public static void readLine(CSVReader reader, Listener listener) throws IOException {
+        readLine(reader, ErrorPolicy.DEFAULT, listener);
+    }
+
+    /**
+     * 逐行读
+     * 校验失败的行，如：RowValidator，按policy处理，不回调
+     */
+    public static void readLine(CSVReader reader, ErrorPolicy policy, Listener listener) throws IOException {
+        Preconditions.checkNotNull(reader, "reader can't be null");
+        Preconditions.checkNotNull(policy, "policy can't be null");
+        Preconditions.checkNotNull(listener, "listener can't be null");
+
+        ErrorPolicy.Session errors = policy.start();
+        try {
+            readLine(reader, errors, listener);
+        } finally {
+            errors.finish();
+        }
+    }
+
+    private static void readLine(CSVReader reader, ErrorPolicy.Session errors, Listener listener) throws IOException {
+        int rowIndex = 0;
+        while (true) {
+            String[] bucket;
+            try {
+                if ((bucket = reader.readNext()) == null) {
+                    listener.onComplete(rowIndex - 1);
+                    break;
                 }
+            } catch (CsvValidationException e) {
+                LOGGER.error("readLine failed, rowIndex: {}, throwable: ", rowIndex, e);
+                fail(reader, rowIndex++, e, errors);
+                continue;
+            } catch (CsvMalformedLineException e) {
+                LOGGER.error("readLine failed, rowIndex: {}, throwable: ", rowIndex, e);
+                unterminated(new RowError(rowIndex, e.getContext(), e), errors);
+                listener.onComplete(rowIndex - 1);
+                break;
+            }
 
-                @Override
-                public void invokeValue(int rowIndex, Map<Integer, String> valueMap) {
-                    Map<String, String> data = ReadUtils.combine(keys, valueMap);
+            Map<Integer, String> valueMap = ReadUtils.asMap(bucket);
+
+            if (rowIndex++ == 0) {
+                listener.invokeKey(valueMap);
+                continue;
+            }
+
+            try {
+                listener.invokeValue(rowIndex - 1, valueMap);
+            } catch (StopException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 逐行读，内置分词器
+     */
+    public static void readToken(Reader reader, ReadLine.Listener listener) throws IOException {
+        readToken(reader, ReadOptions.DEFAULT, listener);
+    }
+
+    /**
+     * 逐行读，内置分词器
+     * 列投影，最后一个投影列、过滤列之后的字段不保存
+     * 行过滤，按字段的字符区间判断，不匹配的行不创建String
+     * 没有字节偏移，不回调检查点
+     */
+    public static void readToken(Reader reader, ReadOptions options, ReadLine.Listener listener) throws IOException {
+        Preconditions.checkNotNull(reader, "reader can't be null");
+        Preconditions.checkNotNull(options, "options can't be null");
+        Preconditions.checkNotNull(listener, "listener can't be null");
+
+        ReadMeter meter = ReadMeter.start(options, ReadMetrics.READER, -1);
+        Throwable error = null;
+        try {
+            readTokens(CsvTokenizer.create(reader), null, 0, options, RowSelector.create(options), null, meter, meter.wrap(listener));
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            meter.finish(error);
+        }
+    }
+
+    /**
+     * 按行索引读[fromRow, toRow]
+     */
+    public static void readRange(File file, Charset charset, CsvIndex index, int fromRow, int toRow,
+                                 ReadLine.Listener listener) throws IOException {
+        readRange(file, charset, index, fromRow, toRow, ReadOptions.DEFAULT, listener);
+    }
+
+    /**
+     * 按行索引读[fromRow, toRow]
+     * 先读标题行，再定位到不大于fromRow的索引点，内置分词器读到toRow即停止
+     * 行范围取fromRow、toRow，忽略options的skip、take
+     * charset = null ? 识别编码；编码须兼容ASCII
+     *
+     * @throws IllegalArgumentException 索引与文件不一致
+     */
+    public static void readRange(File file, Charset charset, CsvIndex index, int fromRow, int toRow,
+                                 ReadOptions options, ReadLine.Listener listener) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+        Preconditions.checkNotNull(index, "index can't be null");
+        Preconditions.checkNotNull(options, "options can't be null");
+        Preconditions.checkNotNull(listener, "listener can't be null");
+        Preconditions.checkArgument(index.isValid(file), "index is stale, file: " + file);
+
+        RowSelector selector = RowSelector.create(options, fromRow, toRow);
+
+        ReadMeter meter = ReadMeter.start(options, file);
+        Throwable error = null;
+        try {
+            readRange(file, charset, index, fromRow, options, selector, meter, meter.wrap(listener));
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            meter.finish(error);
+        }
+    }
+
+    private static void readRange(File file, Charset charset, CsvIndex index, int fromRow, ReadOptions options,
+                                  RowSelector selector, ReadMeter meter, ReadLine.Listener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // 标题行，跳过BOM
+            CharsetDetector.Result detected = CharsetDetector.detect(Channels.newInputStream(channel));
+            Charset cs = Objects.isNull(charset) ? detected.getCharset() : charset;
+            Preconditions.checkArgument(CsvScanner.isAsciiCompatible(cs), "charset must be ascii compatible, charset: " + cs);
+
+            WorksheetHeader header = readHeader(detected.getStream(), cs);
+            if (Objects.isNull(header)) {
+                listener.onComplete(-1);
+                return;
+            }
+
+            // 定位到索引点
+            int k = index.floor(fromRow);
+            channel.position(index.getOffset(k));
+
+            InputStream stream = meter.wrap(Channels.newInputStream(channel), index.getOffset(k));
+            CsvTokenizer tokenizer = CsvTokenizer.create(new InputStreamReader(stream, cs));
+            readTokens(tokenizer, header, k * index.getInterval(), options, selector, null, meter, listener);
+        }
+    }
+
+    /**
+     * 从检查点继续逐行读
+     */
+    public static void resumeLine(File file, Charset charset, Checkpoint checkpoint, ReadLine.Listener listener) throws IOException {
+        resumeLine(file, charset, Engine.OPENCSV, ReadOptions.DEFAULT, checkpoint, listener);
+    }
+
+    /**
+     * 从检查点继续逐行读
+     * 先读标题行，再定位到检查点的字节偏移，行索引从检查点继续
+     * charset = null ? 识别编码；编码须兼容ASCII
+     *
+     * @throws IllegalArgumentException 不是csv检查点，或偏移超出文件
+     */
+    public static void resumeLine(File file, Charset charset, Engine engine, ReadOptions options,
+                                  Checkpoint checkpoint, ReadLine.Listener listener) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+        Preconditions.checkNotNull(engine, "engine can't be null");
+        Preconditions.checkNotNull(options, "options can't be null");
+        Preconditions.checkNotNull(checkpoint, "checkpoint can't be null");
+        Preconditions.checkNotNull(listener, "listener can't be null");
+        Preconditions.checkArgument(checkpoint.isCsv(), "checkpoint must be csv, checkpoint: " + checkpoint);
+
+        RowSelector selector = RowSelector.create(options);
+        selector.resumeAt(checkpoint.getRowIndex());
+
+        ReadMeter meter = ReadMeter.start(options, file);
+        Throwable error = null;
+        try {
+            resumeLine(file, charset, engine, options, checkpoint, selector, meter, meter.wrap(listener));
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            meter.finish(error);
+        }
+    }
+
+    private static void resumeLine(File file, Charset charset, Engine engine, ReadOptions options, Checkpoint checkpoint,
+                                   RowSelector selector, ReadMeter meter, ReadLine.Listener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Preconditions.checkArgument(checkpoint.getOffset() <= channel.size(), "checkpoint out of file, checkpoint: " + checkpoint);
+
+            // 标题行，跳过BOM
+            CharsetDetector.Result detected = CharsetDetector.detect(Channels.newInputStream(channel));
+            Charset cs = Objects.isNull(charset) ? detected.getCharset() : charset;
+            Preconditions.checkArgument(CsvScanner.isAsciiCompatible(cs), "charset must be ascii compatible, charset: " + cs);
+
+            WorksheetHeader header = readHeader(detected.getStream(), cs);
+            if (Objects.isNull(header)) {
+                listener.onComplete(-1);
+                return;
+            }
+
+            long offset = alignOffset(channel, checkpoint.getOffset());
+            channel.position(offset);
+
+            InputStream stream = meter.wrap(Channels.newInputStream(channel), offset);
+            CsvTracker tracker = null;
+            if (options.getCheckpointInterval() > 0) {
+                tracker = new CsvTracker(stream, offset, checkpoint.getRowIndex(), options.getCheckpointInterval());
+                stream = tracker;
+            }
+
+            read(new InputStreamReader(stream, cs), engine, header, checkpoint.getRowIndex(), options, selector, tracker, meter, listener);
+        }
+    }
+
+    /**
+     * 按引擎读
+     *
+     * @param header   全部列的标题行，null ? 第一条记录为标题行
+     * @param rowIndex 第一条记录的行索引，0为标题行
+     */
+    private static void read(Reader reader, Engine engine, WorksheetHeader header, int rowIndex, ReadOptions options,
+                             RowSelector selector, CsvTracker tracker, ReadMeter meter, ReadLine.Listener listener) throws IOException {
+        if (engine == Engine.TOKENIZER) {
+            readTokens(CsvTokenizer.create(reader), header, rowIndex, options, selector, tracker, meter, listener);
+            return;
+        }
+
+        CSVReaderBuilder builder = new CSVReaderBuilder(reader).withCSVParser(newParser());
+        ErrorPolicy.Session errors = options.getErrorPolicy().start();
+        try (CSVReader csvReader = builder.build()) {
+            readRow(csvReader, header, rowIndex, options, selector, tracker, meter, errors, listener);
+        } finally {
+            errors.finish();
+        }
+    }
+
+    /**
+     * 内置分词器，读到末尾，或行范围读完
+     *
+     * @param header   全部列的标题行，null ? 第一条记录为标题行
+     * @param rowIndex 第一条记录的行索引，0为标题行
+     */
+    private static void readTokens(CsvTokenizer tokenizer, WorksheetHeader header, int rowIndex, ReadOptions options,
+                                   RowSelector selector, CsvTracker tracker, ReadMeter meter, ReadLine.Listener listener) throws IOException {
+        ErrorPolicy.Session errors = options.getErrorPolicy().start();
+        try {
+            readTokens(tokenizer, header, rowIndex, options, selector, tracker, meter, errors, listener);
+        } finally {
+            errors.finish();
+        }
+    }
+
+    private static void readTokens(CsvTokenizer tokenizer, WorksheetHeader header, int rowIndex, ReadOptions options, RowSelector selector,
+                                   CsvTracker tracker, ReadMeter meter, ErrorPolicy.Session errors, ReadLine.Listener listener) throws IOException {
+        ValueCache cache = ValueCache.create(options);
+
+        // 投影后的标题行，所有数据行共享
+        WorksheetHeader projected = null;
+        if (Objects.nonNull(header)) {
+            projected = project(header, options, selector);
+            limitFields(tokenizer, options, projected, selector);
+        }
+
+        for (; tokenizer.next(); rowIndex++) {
+            CsvRecord record = tokenizer.getRecord();
+
+            if (record.isMalformed()) {
+                CsvMalformedLineException e = malformed(rowIndex, record);
+                LOGGER.error("readLine failed, rowIndex: {}, throwable: ", rowIndex, e);
+                meter.parseError(rowIndex, e);
+                unterminated(new RowError(rowIndex, e.getContext(), e), errors);
+                listener.onComplete(rowIndex - 1);
+                return;
+            }
+
+            if (rowIndex == 0) {
+                if (Objects.isNull(projected)) {
+                    projected = project(ReadUtils.asHeader(ReadUtils.asMap(record.toArray())), options, selector);
+                    limitFields(tokenizer, options, projected, selector);
+                }
+
+                continue;
+            }
+
+            try {
+                if (selector.contains(rowIndex) && selector.test(record)) {
+                    Map<String, String> data = ReadUtils.combine(projected, record, cache);
                     listener.invoke(rowIndex, data);
+                    selector.accept();
                 }
 
-                @Override
-                public void onComplete(int rowIndex) {
+                if (selector.isDone(rowIndex)) {
                     listener.onComplete(rowIndex);
+                    return;
                 }
-            });
+
+                checkpoint(rowIndex, selector, tracker, listener);
+            } catch (StopException e) {
+                return;
+            }
         }
+
+        listener.onComplete(rowIndex - 1);
     }
 
     /**
      * 逐行读
+     * 数组直接合并为数据行，不经过 {columnIndex => value}
+     * 行过滤，按数组判断，不匹配的行不合并
+     *
+     * @param header   全部列的标题行，null ? 第一条记录为标题行
+     * @param rowIndex 第一条记录的行索引，0为标题行
      */
-    public static void readLine(CSVReader reader, Listener listener) throws IOException {
-        Preconditions.checkNotNull(reader, "reader can't be null");
-        Preconditions.checkNotNull(listener, "listener can't be null");
+    private static void readRow(CSVReader reader, WorksheetHeader header, int rowIndex, ReadOptions options, RowSelector selector,
+                                CsvTracker tracker, ReadMeter meter, ErrorPolicy.Session errors, ReadLine.Listener listener) throws IOException {
+        ValueCache cache = ValueCache.create(options);
+
+        // 投影后的标题行，所有数据行共享
+        WorksheetHeader projected = Objects.isNull(header) ? null : project(header, options, selector);
 
-        int rowIndex = 0;
         while (true) {
             String[] bucket;
             try {
@@ -246,22 +879,155 @@ public final class ReadCsv {
                 }
             } catch (CsvValidationException e) {
                 LOGGER.error("readLine failed, rowIndex: {}, throwable: ", rowIndex, e);
+                meter.parseError(rowIndex, e);
+                fail(reader, rowIndex, e, errors);
                 bucket = null;
+            } catch (CsvMalformedLineException e) {
+                LOGGER.error("readLine failed, rowIndex: {}, throwable: ", rowIndex, e);
+                meter.parseError(rowIndex, e);
+                unterminated(new RowError(rowIndex, e.getContext(), e), errors);
+                listener.onComplete(rowIndex - 1);
+                break;
             }
 
-            Map<Integer, String> valueMap = ReadUtils.asMap(bucket);
-
             if (rowIndex++ == 0) {
-                listener.invokeKey(valueMap);
+                if (Objects.isNull(projected)) {
+                    projected = project(ReadUtils.asHeader(ReadUtils.asMap(bucket)), options, selector);
+                }
+
                 continue;
             }
 
             try {
-                listener.invokeValue(rowIndex - 1, valueMap);
+                if (selector.contains(rowIndex - 1) && Objects.nonNull(bucket) && selector.test(bucket)) {
+                    Map<String, String> data = ReadUtils.combine(projected, bucket, cache);
+                    listener.invoke(rowIndex - 1, data);
+                    selector.accept();
+                }
+
+                if (selector.isDone(rowIndex - 1)) {
+                    listener.onComplete(rowIndex - 1);
+                    break;
+                }
+
+                checkpoint(rowIndex - 1, selector, tracker, listener);
             } catch (StopException e) {
                 break;
             }
         }
     }
 
+    /**
+     * 校验失败，跳过失败的记录，按ErrorPolicy处理
+     * opencsv校验失败不消费记录，再readNext仍失败，readNextSilently不校验，读出并跳过
+     * 标题行失败，总是终止
+     *
+     * @throws RowParseException 终止读
+     */
+    static void fail(CSVReader reader, int rowIndex, CsvValidationException e, ErrorPolicy.Session errors) throws IOException {
+        fail(RowError.of(rowIndex, reader.readNextSilently(), e), errors);
+    }
+
+    /**
+     * 解析失败，按ErrorPolicy处理
+     * 标题行失败，总是终止
+     *
+     * @throws RowParseException 终止读
+     */
+    static void fail(RowError error, ErrorPolicy.Session errors) throws RowParseException {
+        if (error.getRowIndex() == 0) {
+            throw new RowParseException("parse header failed", error);
+        }
+
+        errors.handle(error);
+    }
+
+    /**
+     * 引号未闭合，之后的内容都在这条记录中，不能按一行跳过
+     * 默认抛出RowParseException；policy.allowUnterminated() ? 按ErrorPolicy处理，调用方不再继续读
+     * 标题行未闭合，总是终止
+     *
+     * @throws RowParseException 终止读
+     */
+    static void unterminated(RowError error, ErrorPolicy.Session errors) throws RowParseException {
+        if (error.getRowIndex() == 0 || !errors.getPolicy().isAllowUnterminated()) {
+            throw new RowParseException("unterminated quote", error);
+        }
+
+        errors.handle(error);
+    }
+
+    /**
+     * 内置分词器，引号未闭合
+     * 与opencsv相同，之后的内容都合并到这条记录
+     */
+    static CsvMalformedLineException malformed(int rowIndex, CsvRecord record) {
+        return new CsvMalformedLineException("Unterminated quoted field at end of CSV", rowIndex, record.getRaw());
+    }
+
+    /**
+     * 全部列的标题行 -> 投影后的标题行
+     * 过滤条件按全部列确定列号
+     */
+    static WorksheetHeader project(WorksheetHeader header, ReadOptions options, RowSelector selector) {
+        selector.resolve(header);
+        return options.project(header);
+    }
+
+    /**
+     * 列投影，最后一个投影列、过滤列之后的字段不保存
+     */
+    static void limitFields(CsvTokenizer tokenizer, ReadOptions options, WorksheetHeader header, RowSelector selector) {
+        if (!options.isProjected()) {
+            return;
+        }
+
+        int maxColumn = Math.max(header.size() > 0 ? header.getMaxColumn() : -1, selector.getMaxColumn());
+        if (maxColumn >= 0) {
+            tokenizer.setMaxFields(maxColumn + 1);
+        }
+    }
+
+    /**
+     * 跨过检查点间隔，回调csv检查点
+     * 没有字节偏移，不回调
+     */
+    private static void checkpoint(int rowIndex, RowSelector selector, CsvTracker tracker, ReadLine.Listener listener) {
+        if (Objects.isNull(tracker) || !selector.isCheckpoint(rowIndex)) {
+            return;
+        }
+
+        long offset = tracker.offsetOf(rowIndex + 1);
+        if (offset >= 0) {
+            listener.onCheckpoint(Checkpoint.csv(rowIndex + 1, offset));
+        }
+    }
+
+    /**
+     * 读标题行，内置分词器
+     *
+     * @return 空文件，返回null
+     */
+    private static WorksheetHeader readHeader(InputStream stream, Charset charset) throws IOException {
+        CsvTokenizer tokenizer = CsvTokenizer.create(new InputStreamReader(stream, charset), 8 * 1024);
+        return tokenizer.next() ? ReadUtils.asHeader(ReadUtils.asMap(tokenizer.getRecord().toArray())) : null;
+    }
+
+    /**
+     * 偏移在\r\n之间 -> \n之后
+     * \r\n是一个换行符，记录不从\n开始
+     */
+    private static long alignOffset(FileChannel channel, long offset) throws IOException {
+        if (offset <= 0 || offset >= channel.size()) {
+            return offset;
+        }
+
+        ByteBuffer bytes = ByteBuffer.allocate(2);
+        while (bytes.hasRemaining() && channel.read(bytes, offset - 1 + bytes.position()) > 0) {
+            // 读满2字节
+        }
+
+        return bytes.position() == 2 && bytes.get(0) == CsvScanner.CR && bytes.get(1) == CsvScanner.LF ? offset + 1 : offset;
+    }
+
 }
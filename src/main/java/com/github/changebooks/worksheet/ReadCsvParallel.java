@@ -0,0 +1,460 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+import com.opencsv.exceptions.CsvMalformedLineException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 并行读csv
+ * 内存映射文件，按字节切块，在引号外的换行符处对齐记录边界，ForkJoinPool并行解析
+ * 编码须兼容ASCII，如：UTF-8、GBK、GB18030；与ReadCsv相同，识别编码，跳过BOM
+ *
+ * @author changebooks
+ */
+public final class ReadCsvParallel {
+    /**
+     * 默认块大小，字节
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 32 * 1024 * 1024;
+
+    /**
+     * 线程池
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * 块大小，字节
+     */
+    private final int chunkSize;
+
+    /**
+     * 保持原始顺序？
+     * true ? 在调用线程按行索引顺序回调，工作线程按块缓存数据行
+     * 最多缓存parallelism * 2块，约parallelism * 2 * chunkSize字节的数据行，内存紧张时减小chunkSize
+     * false ? 在工作线程回调，listener须线程安全
+     */
+    private final boolean ordered;
+
+    public static ReadCsvParallel create(boolean ordered) {
+        return create(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, ordered);
+    }
+
+    public static ReadCsvParallel create(ForkJoinPool pool, int chunkSize, boolean ordered) {
+        return new ReadCsvParallel(pool, chunkSize, ordered);
+    }
+
+    private ReadCsvParallel(ForkJoinPool pool, int chunkSize, boolean ordered) {
+        Preconditions.checkNotNull(pool, "pool can't be null");
+        Preconditions.checkArgument(chunkSize > 0, "chunkSize must be positive");
+
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.ordered = ordered;
+    }
+
+    /**
+     * 逐行读
+     */
+    public void readLine(File file, Charset charset, ReadLine.Listener listener) throws IOException {
+        readLine(file, charset, ErrorPolicy.DEFAULT, listener);
+    }
+
+    /**
+     * 逐行读
+     * charset = null ? 识别编码；总是跳过BOM
+     * 内置分词器只有引号未闭合一种失败，在最后一块，按policy处理，见ErrorPolicy.allowUnterminated()
+     */
+    public void readLine(File file, Charset charset, ErrorPolicy policy, ReadLine.Listener listener) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+        Preconditions.checkNotNull(policy, "policy can't be null");
+        Preconditions.checkNotNull(listener, "listener can't be null");
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            CharsetDetector.Result detected = CharsetDetector.detect(new ChannelInputStream(channel, 0));
+            Charset cs = Objects.isNull(charset) ? detected.getCharset() : charset;
+            Preconditions.checkArgument(CsvScanner.isAsciiCompatible(cs), "charset must be ascii compatible, charset: " + cs);
+
+            int bomSize = detected.getBomSize();
+            List<Segment> segments = split(channel, bomSize);
+            if (segments.isEmpty()) {
+                listener.onComplete(-1);
+                return;
+            }
+
+            ErrorPolicy.Session errors = policy.start();
+            try {
+                WorksheetHeader header = readHeader(channel, bomSize, cs, errors);
+                if (ordered) {
+                    readOrdered(channel, cs, header, segments, errors, listener);
+                } else {
+                    readUnordered(channel, cs, header, segments, errors, listener);
+                }
+            } finally {
+                errors.finish();
+            }
+        }
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * 按记录边界切块
+     * 并行扫描每块的引号数和换行符数，再顺序推导每块起始的引号状态
+     * BOM不含引号、换行符，不影响扫描，第0块从BOM之后开始
+     */
+    private List<Segment> split(FileChannel channel, int bomSize) throws IOException {
+        long size = channel.size();
+        if (size <= bomSize) {
+            return Collections.emptyList();
+        }
+
+        List<CsvScanner.Scan> scans = CsvScanner.scan(channel, pool, chunkSize);
+
+        List<Segment> result = new ArrayList<>();
+        boolean quoted = false;
+        long rowIndex = 0;
+
+        for (int k = 0, num = scans.size(); k < num; k++) {
+            CsvScanner.Scan scan = scans.get(k);
+
+            long start = k == 0 ? bomSize : scan.first(quoted);
+            if (start >= 0 && start < size) {
+                if (!result.isEmpty()) {
+                    result.get(result.size() - 1).end = start;
+                }
+
+                // 第0块从BOM之后开始，之后从第一个换行符之后开始
+                result.add(new Segment(start, size, k == 0 ? 0 : rowIndex + 1));
+            }
+
+            rowIndex += scan.count(quoted);
+            quoted ^= scan.odd;
+        }
+
+        return result;
+    }
+
+    /**
+     * 读标题行，跳过BOM
+     */
+    private static WorksheetHeader readHeader(FileChannel channel, int bomSize, Charset charset,
+                                              ErrorPolicy.Session errors) throws IOException {
+        Reader reader = new InputStreamReader(new ChannelInputStream(channel, bomSize), charset);
+        CsvTokenizer tokenizer = CsvTokenizer.create(reader, 8 * 1024);
+
+        Preconditions.checkArgument(tokenizer.next(), "header can't be empty");
+
+        CsvRecord record = tokenizer.getRecord();
+        if (record.isMalformed()) {
+            CsvMalformedLineException e = ReadCsv.malformed(0, record);
+            ReadCsv.unterminated(new RowError(0, e.getContext(), e), errors);
+        }
+
+        return ReadUtils.asHeader(ReadUtils.asMap(record.toArray()));
+    }
+
+    /**
+     * 工作线程回调
+     * 停止或失败后，已在运行的块每行回调前检查stopped，不再回调listener
+     */
+    private void readUnordered(FileChannel channel, Charset charset, WorksheetHeader header, List<Segment> segments,
+                               ErrorPolicy.Session errors, ReadLine.Listener listener) throws IOException {
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        Deque<Future<Integer>> window = new ArrayDeque<>();
+        int windowSize = Math.max(1, pool.getParallelism() * 2);
+        int last = -1;
+        boolean completed = false;
+
+        try {
+            for (Segment segment : segments) {
+                if (window.size() >= windowSize) {
+                    last = Math.max(last, get(window.poll()));
+                }
+
+                if (stopped.get()) {
+                    break;
+                }
+
+                window.add(pool.submit(() -> parse(channel, charset, header, segment, errors, (rowIndex, data) -> {
+                    if (stopped.get()) {
+                        throw new StopException();
+                    }
+
+                    try {
+                        listener.invoke(rowIndex, data);
+                    } catch (StopException e) {
+                        stopped.set(true);
+                        throw e;
+                    }
+                })));
+            }
+
+            while (!window.isEmpty()) {
+                last = Math.max(last, get(window.poll()));
+            }
+
+            completed = true;
+        } finally {
+            cancel(window, completed, stopped);
+        }
+
+        if (!stopped.get()) {
+            listener.onComplete(last);
+        }
+    }
+
+    /**
+     * 调用线程按顺序回调
+     * 工作线程只解析，按块缓存数据行，停止或失败后不再解析
+     */
+    private void readOrdered(FileChannel channel, Charset charset, WorksheetHeader header, List<Segment> segments,
+                             ErrorPolicy.Session errors, ReadLine.Listener listener) throws IOException {
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        Deque<Future<Block>> window = new ArrayDeque<>();
+        int windowSize = Math.max(1, pool.getParallelism() * 2);
+        Iterator<Segment> iterator = segments.iterator();
+        int last = -1;
+        boolean completed = false;
+
+        try {
+            while (iterator.hasNext() || !window.isEmpty()) {
+                while (iterator.hasNext() && window.size() < windowSize) {
+                    Segment segment = iterator.next();
+
+                    window.add(pool.submit(() -> {
+                        Block block = new Block();
+                        block.last = parse(channel, charset, header, segment, errors, (rowIndex, data) -> {
+                            if (stopped.get()) {
+                                throw new StopException();
+                            }
+
+                            if (block.data.isEmpty()) {
+                                block.first = rowIndex;
+                            }
+
+                            block.data.add(data);
+                        });
+                        return block;
+                    }));
+                }
+
+                Block block = get(window.poll());
+                for (int i = 0, size = block.data.size(); i < size; i++) {
+                    try {
+                        listener.invoke(block.first + i, block.data.get(i));
+                    } catch (StopException e) {
+                        stopped.set(true);
+                        return;
+                    }
+                }
+
+                last = Math.max(last, block.last);
+            }
+
+            completed = true;
+        } finally {
+            cancel(window, completed, stopped);
+        }
+
+        listener.onComplete(last);
+    }
+
+    /**
+     * 解析一块
+     * 引号未闭合的记录延续到文件末尾，只在最后一块，只一个工作线程访问errors
+     *
+     * @return 最后一行，行索引
+     */
+    private static int parse(FileChannel channel, Charset charset, WorksheetHeader header, Segment segment,
+                             ErrorPolicy.Session errors, RowConsumer consumer) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, segment.start, segment.end - segment.start);
+
+        CharsetDecoder decoder = charset.newDecoder().
+                onMalformedInput(CodingErrorAction.REPLACE).
+                onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = decoder.decode(buffer);
+
+        CsvTokenizer tokenizer = CsvTokenizer.create(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+
+        int rowIndex = (int) segment.rowIndex;
+        if (rowIndex == 0) {
+            // 跳过标题行
+            tokenizer.next();
+            rowIndex++;
+        }
+
+        try {
+            for (; tokenizer.next(); rowIndex++) {
+                CsvRecord record = tokenizer.getRecord();
+                if (record.isMalformed()) {
+                    CsvMalformedLineException e = ReadCsv.malformed(rowIndex, record);
+                    ReadCsv.unterminated(new RowError(rowIndex, e.getContext(), e), errors);
+                    return rowIndex - 1;
+                }
+
+                consumer.accept(rowIndex, ReadUtils.combine(header, record));
+            }
+        } catch (StopException e) {
+            return rowIndex;
+        }
+
+        return rowIndex - 1;
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            // submit(Callable)把受检异常包装为RuntimeException，get()再包装一层
+            Throwable cause = e.getCause();
+            while (cause.getClass() == RuntimeException.class && Objects.nonNull(cause.getCause())) {
+                cause = cause.getCause();
+            }
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 取消未完成的块
+     * 不中断工作线程，中断会关闭共享的FileChannel；失败时置stopped，运行中的块在下一行退出
+     */
+    private static void cancel(Deque<? extends Future<?>> window, boolean completed, AtomicBoolean stopped) {
+        if (!completed) {
+            stopped.set(true);
+        }
+
+        for (Future<?> future : window) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * 数据行回调
+     */
+    private interface RowConsumer {
+
+        void accept(int rowIndex, Map<String, String> data);
+
+    }
+
+    /**
+     * 块，[start, end)
+     */
+    private static final class Segment {
+        /**
+         * 起始位置，字节
+         */
+        final long start;
+
+        /**
+         * 结束位置，字节
+         */
+        long end;
+
+        /**
+         * 首条记录的行索引
+         */
+        final long rowIndex;
+
+        Segment(long start, long end, long rowIndex) {
+            this.start = start;
+            this.end = end;
+            this.rowIndex = rowIndex;
+        }
+
+    }
+
+    /**
+     * 一块的数据行
+     */
+    private static final class Block {
+        /**
+         * 首行索引
+         */
+        int first;
+
+        /**
+         * 最后一行，行索引
+         */
+        int last;
+
+        /**
+         * 数据行
+         */
+        final List<Map<String, String>> data = new ArrayList<>();
+
+    }
+
+    /**
+     * 从position读，不移动channel的位置
+     */
+    private static final class ChannelInputStream extends InputStream {
+
+        private final FileChannel channel;
+
+        private long position;
+
+        ChannelInputStream(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = channel.read(ByteBuffer.wrap(b, off, len), position);
+            if (n > 0) {
+                position += n;
+            }
+
+            return n;
+        }
+
+    }
+
+}
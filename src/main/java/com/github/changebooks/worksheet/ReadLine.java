@@ -4,22 +4,32 @@ import com.alibaba.excel.EasyExcel;
 import com.alibaba.excel.ExcelReader;
 import com.alibaba.excel.context.AnalysisContext;
 import com.alibaba.excel.event.AnalysisEventListener;
+import com.alibaba.excel.exception.ExcelAnalysisException;
 import com.alibaba.excel.exception.ExcelAnalysisStopException;
+import com.alibaba.excel.metadata.data.ReadCellData;
 import com.alibaba.excel.read.builder.ExcelReaderBuilder;
 import com.alibaba.excel.read.metadata.ReadSheet;
-import com.alibaba.excel.support.ExcelTypeEnum;
 import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 /**
  * 逐行读
  * 读csv、xls和xlsx
+ * csv先识别编码，不是默认编码，如：GBK，用ReadCsv读
+ * 列投影、行过滤，取easyexcel的原始单元格，先按过滤列判断，匹配的行只转换投影列
+ * 行范围，读够即停止
+ * 检查点，csv用ReadCsv读，记录字节偏移；xls、xlsx记录工作表和行索引，续读跳过之前的行，不转换单元格
  *
  * <pre>
  * <dependency>
@@ -31,6 +41,9 @@ import java.util.Objects;
  * @author changebooks
  */
 public final class ReadLine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadLine.class);
+
     /**
      * 监听行
      */
@@ -51,6 +64,15 @@ public final class ReadLine {
          */
         void onComplete(Integer rowIndex);
 
+        /**
+         * 检查点，之前的行都已回调返回
+         * 读的选项指定了检查点间隔才回调；保存后用resume继续读
+         *
+         * @param checkpoint 检查点
+         */
+        default void onCheckpoint(Checkpoint checkpoint) {
+        }
+
     }
 
     /**
@@ -58,45 +80,97 @@ public final class ReadLine {
      */
     private final ReadSheet sheet;
 
+    /**
+     * 读的选项
+     */
+    private final ReadOptions options;
+
     public static ReadLine create() {
         return create(null);
     }
 
     public static ReadLine create(ReadSheet sheet) {
-        return new ReadLine(sheet);
+        return create(sheet, ReadOptions.DEFAULT);
+    }
+
+    public static ReadLine create(ReadSheet sheet, ReadOptions options) {
+        return new ReadLine(sheet, options);
     }
 
-    private ReadLine(ReadSheet sheet) {
+    private ReadLine(ReadSheet sheet, ReadOptions options) {
+        Preconditions.checkNotNull(options, "options can't be null");
+
         this.sheet = sheet;
+        this.options = options;
     }
 
     /**
      * 读文件
      */
     public void read(File file, Listener listener) throws IOException {
-        read(file, sheet, listener);
+        read(file, sheet, options, listener);
     }
 
     /**
      * 读文件流
      */
     public void read(WorksheetType type, InputStream stream, Listener listener) {
-        read(type, stream, sheet, listener);
+        read(type, stream, sheet, options, listener);
+    }
+
+    /**
+     * 从检查点继续读
+     * 工作表取检查点的，不取sheet
+     */
+    public void resume(File file, Checkpoint checkpoint, Listener listener) throws IOException {
+        resume(file, options, checkpoint, listener);
+    }
+
+    /**
+     * 逐行拉取
+     */
+    public RowIterator iterator(File file) {
+        return iterator(file, sheet, options);
+    }
+
+    /**
+     * 逐行拉取，流
+     */
+    public Stream<Map<String, String>> stream(File file) {
+        return stream(file, sheet, options);
+    }
+
+    /**
+     * 按需发布
+     */
+    public WorksheetPublisher<Map<String, String>> publisher(File file) {
+        return publisher(file, sheet, options, WorksheetPublisher.DEFAULT_EXECUTOR);
     }
 
     public ReadSheet getSheet() {
         return sheet;
     }
 
+    public ReadOptions getOptions() {
+        return options;
+    }
+
     /**
      * 读文件
      */
     public static void read(File file, ReadSheet sheet, Listener listener) throws IOException {
+        read(file, sheet, ReadOptions.DEFAULT, listener);
+    }
+
+    /**
+     * 读文件
+     */
+    public static void read(File file, ReadSheet sheet, ReadOptions options, Listener listener) throws IOException {
         Preconditions.checkNotNull(file, "file can't be null");
 
         WorksheetType type = WorksheetType.fromFile(file);
         try (InputStream stream = new FileInputStream(file)) {
-            read(type, stream, sheet, listener);
+            read(type, stream, sheet, options, 0, file, listener);
         }
     }
 
@@ -104,21 +178,193 @@ public final class ReadLine {
      * 读文件流
      */
     public static void read(WorksheetType type, InputStream stream, ReadSheet sheet, Listener listener) {
+        read(type, stream, sheet, ReadOptions.DEFAULT, listener);
+    }
+
+    /**
+     * 读文件流
+     */
+    public static void read(WorksheetType type, InputStream stream, ReadSheet sheet, ReadOptions options, Listener listener) {
+        read(type, stream, sheet, options, 0, null, listener);
+    }
+
+    /**
+     * 逐行拉取
+     * csv在调用线程解析，同ReadCsv.iterator，识别编码，按options的引擎读
+     * xls、xlsx后台线程逐行读，有界交接，只比消费者多解析1024行；结果与read相同
+     * 读完自动关闭，提前结束须close，后台线程在下一行停止
+     *
+     * @throws UncheckedIOException 打开csv失败
+     */
+    public static RowIterator iterator(File file, ReadSheet sheet, ReadOptions options) {
+        Preconditions.checkNotNull(file, "file can't be null");
+        Preconditions.checkNotNull(options, "options can't be null");
+
+        WorksheetType type = WorksheetType.fromFile(file);
+        WorksheetType.checkSupport(type);
+
+        if (WorksheetType.isCsv(type)) {
+            try {
+                return ReadCsv.iterator(file, null, options.getEngine(), options);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return RowIterator.create(RowHandOff.start(listener -> read(file, sheet, options, listener), RowHandOff.DEFAULT_CAPACITY));
+    }
+
+    /**
+     * 逐行拉取，流
+     * 须关闭，用try-with-resources
+     */
+    public static Stream<Map<String, String>> stream(File file, ReadSheet sheet, ReadOptions options) {
+        return iterator(file, sheet, options).stream();
+    }
+
+    /**
+     * 按需发布
+     * 每次订阅，在executor从头读；需求为0，解析暂停；取消即StopException
+     */
+    public static WorksheetPublisher<Map<String, String>> publisher(File file, ReadSheet sheet, ReadOptions options, Executor executor) {
+        Preconditions.checkNotNull(file, "file can't be null");
+        Preconditions.checkNotNull(options, "options can't be null");
+        WorksheetType.checkSupport(WorksheetType.fromFile(file));
+
+        return WorksheetPublisher.create(emitter -> read(file, sheet, options, new Listener() {
+            @Override
+            public void invoke(Integer rowIndex, Map<String, String> data) {
+                if (Objects.isNull(data)) {
+                    LOGGER.error("read null, skip rowIndex: " + rowIndex);
+                } else {
+                    emitter.accept(data);
+                }
+            }
+
+            @Override
+            public void onComplete(Integer rowIndex) {
+            }
+        }), executor);
+    }
+
+    /**
+     * 从检查点继续读
+     * csv按字节偏移定位，按options的引擎读；xls、xlsx从头解析，跳过检查点之前的行，不转换单元格
+     *
+     * @throws IllegalArgumentException 检查点与文件类型不一致
+     */
+    public static void resume(File file, ReadOptions options, Checkpoint checkpoint, Listener listener) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+        Preconditions.checkNotNull(options, "options can't be null");
+        Preconditions.checkNotNull(checkpoint, "checkpoint can't be null");
+
+        WorksheetType type = WorksheetType.fromFile(file);
+        WorksheetType.checkSupport(type);
+
+        if (WorksheetType.isCsv(type)) {
+            ReadCsv.resumeLine(file, null, options.getEngine(), options, checkpoint, listener);
+            return;
+        }
+
+        Preconditions.checkArgument(!checkpoint.isCsv(), "checkpoint must be sheet, checkpoint: " + checkpoint);
+
+        try (InputStream stream = new FileInputStream(file)) {
+            read(type, stream, EasyExcel.readSheet(checkpoint.getSheetNo()).build(), options, checkpoint.getRowIndex(), file, listener);
+        }
+    }
+
+    /**
+     * 读文件流
+     *
+     * @param resumeRow 续读的行索引，0 ? 从头读
+     * @param file      读的文件，null ? 读流
+     */
+    private static void read(WorksheetType type, InputStream stream, ReadSheet sheet, ReadOptions options,
+                             int resumeRow, File file, Listener listener) {
         WorksheetType.checkSupport(type);
         Preconditions.checkNotNull(stream, "stream can't be null");
+        Preconditions.checkNotNull(options, "options can't be null");
         Preconditions.checkNotNull(listener, "listener can't be null");
 
-        ExcelReaderBuilder builder = EasyExcel.read(stream, new AnalysisEventListener<Map<Integer, String>>() {
+        if (WorksheetType.isCsv(type)) {
+            CharsetDetector.Result detected;
+            try {
+                detected = CharsetDetector.detect(stream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            // csv总是按options的引擎读，不随默认编码切换解析器；easyexcel读csv只支持默认编码，也没有字节偏移
+            try {
+                ReadCsv.readLine(detected.getStream(), detected.getBomSize(), file, detected.getCharset(),
+                        options.getEngine(), options, listener);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return;
+        }
+
+        ReadMeter meter = Objects.isNull(sheet) ? ReadMeter.startSheet(options, file, 0, null, resumeRow) :
+                ReadMeter.startSheet(options, file, sheet.getSheetNo(), sheet.getSheetName(), resumeRow);
+        Throwable error = null;
+        try {
+            read(meter.wrap(stream), sheet, options, resumeRow, meter.wrap(listener));
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            meter.finish(error);
+        }
+    }
+
+    /**
+     * easyexcel读，xls、xlsx
+     */
+    private static void read(InputStream stream, ReadSheet sheet, ReadOptions options, int resumeRow, Listener listener) {
+        RowSelector selector = RowSelector.create(options);
+        if (resumeRow > 0) {
+            selector.resumeAt(resumeRow);
+        }
+
+        // 续读，跳过的行不转换
+        ExcelReaderBuilder builder = options.isProjected() || options.isFiltered() || resumeRow > 0 ?
+                EasyExcel.read(stream, newCellListener(options, selector, listener)).useDefaultListener(false) :
+                EasyExcel.read(stream, newListener(options, selector, listener));
+
+        ExcelReader reader = builder.build();
+        if (Objects.isNull(reader)) {
+            return;
+        }
+
+        if (Objects.isNull(sheet)) {
+            sheet = EasyExcel.readSheet(0).build();
+        }
+
+        try {
+            reader.read(sheet);
+        } finally {
+            reader.finish();
+        }
+    }
+
+    /**
+     * 全部列，easyexcel默认监听转为String
+     */
+    private static AnalysisEventListener<Map<Integer, String>> newListener(ReadOptions options, RowSelector selector, Listener listener) {
+        ValueCache cache = ValueCache.create(options);
+
+        return new AnalysisEventListener<Map<Integer, String>>() {
             /**
-             * columnIndex => keyName
+             * 标题行，所有数据行共享
              */
-            private Map<Integer, String> keys;
+            private WorksheetHeader header;
 
             @Override
             public void invokeHeadMap(Map<Integer, String> headMap, AnalysisContext context) {
                 super.invokeHeadMap(headMap, context);
 
-                keys = ReadUtils.asKey(headMap);
+                header = ReadUtils.asHeader(headMap);
             }
 
             @Override
@@ -126,11 +372,21 @@ public final class ReadLine {
                 Integer rowIndex = ReadUtils.getRowIndex(context);
 
                 try {
-                    Map<String, String> data = ReadUtils.combine(keys, valueMap);
-                    listener.invoke(rowIndex, data);
+                    if (selector.contains(rowIndex)) {
+                        Map<String, String> data = ReadUtils.combine(header, valueMap, cache);
+                        listener.invoke(rowIndex, data);
+                        selector.accept();
+                    }
                 } catch (StopException e) {
                     throw new ExcelAnalysisStopException();
                 }
+
+                if (selector.isDone(rowIndex)) {
+                    listener.onComplete(rowIndex);
+                    throw new ExcelAnalysisStopException();
+                }
+
+                checkpoint(rowIndex, context, selector, listener);
             }
 
             @Override
@@ -138,25 +394,103 @@ public final class ReadLine {
                 Integer rowIndex = ReadUtils.getRowIndex(context);
                 listener.onComplete(rowIndex);
             }
-        });
+        };
+    }
 
-        if (WorksheetType.isCsv(type)) {
-            builder.excelType(ExcelTypeEnum.CSV);
-        }
+    /**
+     * 列投影、行过滤，原始单元格
+     * 先按过滤列判断，匹配的行只把投影列转为String，其余列不转换
+     */
+    private static AnalysisEventListener<Map<Integer, ReadCellData<?>>> newCellListener(ReadOptions options, RowSelector selector,
+                                                                                         Listener listener) {
+        ValueCache cache = ValueCache.create(options);
 
-        ExcelReader reader = builder.build();
-        if (Objects.isNull(reader)) {
-            return;
-        }
+        return new AnalysisEventListener<Map<Integer, ReadCellData<?>>>() {
+            /**
+             * 投影后的标题行，所有数据行共享
+             */
+            private WorksheetHeader header;
 
-        if (Objects.isNull(sheet)) {
-            sheet = EasyExcel.readSheet(0).build();
+            /**
+             * 位置 -> 列号
+             */
+            private Integer[] columns;
+
+            @Override
+            public void invokeHeadMap(Map<Integer, String> headMap, AnalysisContext context) {
+                super.invokeHeadMap(headMap, context);
+
+                WorksheetHeader full = ReadUtils.asHeader(headMap);
+                selector.resolve(full);
+                header = options.project(full);
+
+                columns = new Integer[header.size()];
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = header.getColumn(i);
+                }
+            }
+
+            @Override
+            public void invoke(Map<Integer, ReadCellData<?>> cellMap, AnalysisContext context) {
+                Integer rowIndex = ReadUtils.getRowIndex(context);
+
+                if (selector.contains(rowIndex)) {
+                    invokeSelected(rowIndex, cellMap, context);
+                }
+
+                if (selector.isDone(rowIndex)) {
+                    listener.onComplete(rowIndex);
+                    throw new ExcelAnalysisStopException();
+                }
+
+                checkpoint(rowIndex, context, selector, listener);
+            }
+
+            private void invokeSelected(Integer rowIndex, Map<Integer, ReadCellData<?>> cellMap, AnalysisContext context) {
+                Map<String, String> data;
+                try {
+                    if (!selector.test(cellMap, context)) {
+                        return;
+                    }
+
+                    String[] values = new String[columns.length];
+                    for (int i = 0; i < columns.length; i++) {
+                        values[i] = cache.intern(i, TypedConverter.asString(cellMap.get(columns[i]), context));
+                    }
+
+                    data = WorksheetRow.create(header, values);
+                } catch (Exception e) {
+                    throw new ExcelAnalysisException("convert failed, rowIndex: " + rowIndex, e);
+                }
+
+                try {
+                    listener.invoke(rowIndex, data);
+                    selector.accept();
+                } catch (StopException e) {
+                    throw new ExcelAnalysisStopException();
+                }
+            }
+
+            @Override
+            public void doAfterAllAnalysed(AnalysisContext context) {
+                Integer rowIndex = ReadUtils.getRowIndex(context);
+                listener.onComplete(rowIndex);
+            }
+        };
+    }
+
+    /**
+     * 跨过检查点间隔，回调工作表检查点
+     */
+    private static void checkpoint(Integer rowIndex, AnalysisContext context, RowSelector selector, Listener listener) {
+        if (!selector.isCheckpoint(rowIndex)) {
+            return;
         }
 
         try {
-            reader.read(sheet);
-        } finally {
-            reader.finish();
+            listener.onCheckpoint(Checkpoint.sheet(context.readSheetHolder().getSheetNo(), rowIndex + 1));
+        } catch (StopException e) {
+            throw new ExcelAnalysisStopException();
         }
     }
 
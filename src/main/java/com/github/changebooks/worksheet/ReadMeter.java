@@ -0,0 +1,341 @@
+package com.github.changebooks.worksheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次读的计量
+ * 包装字节流和监听，把字节数、行的监听耗时、首行耗时、解析失败交给ReadMetrics
+ * 每隔指定的行数或时间回调进度，读完再回调一次
+ * csv按字节偏移报进度；xls、xlsx由easyexcel先读完整个流再解析，字节数不反映解析位置，按行号报进度
+ * 指标为NOOP、没有进度监听，不计时，原样返回字节流和监听
+ *
+ * @author changebooks
+ */
+final class ReadMeter {
+    /**
+     * 不计量
+     */
+    private static final ReadMeter DISABLED = new ReadMeter(ReadOptions.DEFAULT, null, -1, 0);
+
+    private final ReadMetrics metrics;
+
+    /**
+     * 监听进度，null ? 不回调
+     */
+    private final ReadProgress.Listener progress;
+
+    /**
+     * 进度间隔，行数，0 ? 不按行数
+     */
+    private final int intervalRows;
+
+    /**
+     * 进度间隔，纳秒，0 ? 不按时间
+     */
+    private final long intervalNanos;
+
+    /**
+     * 文件路径，或STREAM、READER
+     */
+    private final String source;
+
+    /**
+     * 文件大小，字节，-1 ? 未知
+     */
+    private final long total;
+
+    /**
+     * 开始读，纳秒
+     */
+    private final long start;
+
+    /**
+     * 计数的字节流，null ? 不读字节
+     */
+    private CountingInputStream counter;
+
+    /**
+     * 本次读的起始位置，字节流在文件中的偏移，或续读的行号
+     */
+    private long base;
+
+    /**
+     * 按行号报进度？xls、xlsx
+     */
+    private boolean byRow;
+
+    /**
+     * 已回调的最后一行的行号，按行号报进度时
+     */
+    private long rowNumber;
+
+    /**
+     * 已回调的数据行数
+     */
+    private long rows;
+
+    /**
+     * 下次回调进度的行数
+     */
+    private long nextRows;
+
+    /**
+     * 下次回调进度的时间，纳秒
+     */
+    private long nextNanos;
+
+    /**
+     * 已回调第一个数据行？
+     */
+    private boolean started;
+
+    /**
+     * 已结束？
+     */
+    private boolean finished;
+
+    /**
+     * 开始读文件，null ? 读流
+     */
+    static ReadMeter start(ReadOptions options, File file) {
+        if (isDisabled(options)) {
+            return DISABLED;
+        }
+
+        return Objects.isNull(file) ? start(options, ReadMetrics.STREAM, -1) : start(options, file.getPath(), file.length());
+    }
+
+    /**
+     * 开始读
+     *
+     * @param source 文件路径，或STREAM、READER
+     * @param total  文件大小，字节，-1 ? 未知
+     */
+    static ReadMeter start(ReadOptions options, String source, long total) {
+        if (isDisabled(options)) {
+            return DISABLED;
+        }
+
+        options.getMetrics().onStart(source);
+        return new ReadMeter(options, source, total, System.nanoTime());
+    }
+
+    /**
+     * 开始读工作表，xls、xlsx，按行号报进度
+     * xlsx文件，总数取该工作表dimension的最后行号；xls、读流，总数未知
+     *
+     * @param file      读的文件，null ? 读流
+     * @param sheetNo   工作表索引，null为0
+     * @param sheetName 工作表名，不为空按名称
+     * @param resumeRow 续读的行索引，0 ? 从头读
+     */
+    static ReadMeter startSheet(ReadOptions options, File file, Integer sheetNo, String sheetName, int resumeRow) {
+        if (isDisabled(options)) {
+            return DISABLED;
+        }
+
+        long total = -1;
+        if (Objects.nonNull(file) && Objects.nonNull(options.getProgressListener()) &&
+                WorksheetType.EXTENSION_XLSX.equalsIgnoreCase(WorksheetType.getExtension(file.getName()))) {
+            try {
+                XlsxMetadata.Sheet sheet = XlsxMetadata.read(file, sheetNo, sheetName);
+                total = Objects.isNull(sheet) ? -1 : sheet.getRowSize();
+            } catch (IOException e) {
+                // 只影响进度，总数未知
+                total = -1;
+            }
+        }
+
+        ReadMeter result = start(options, Objects.isNull(file) ? ReadMetrics.STREAM : file.getPath(), total);
+        result.byRow = true;
+        result.base = resumeRow;
+        result.rowNumber = resumeRow;
+        return result;
+    }
+
+    private static boolean isDisabled(ReadOptions options) {
+        return options.getMetrics() == ReadMetrics.NOOP && Objects.isNull(options.getProgressListener());
+    }
+
+    private ReadMeter(ReadOptions options, String source, long total, long start) {
+        this.metrics = options.getMetrics();
+        this.progress = options.getProgressListener();
+        this.intervalRows = options.getProgressRows();
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(options.getProgressMillis());
+        this.source = source;
+        this.total = total;
+        this.start = start;
+        this.nextRows = intervalRows > 0 ? intervalRows : Long.MAX_VALUE;
+        this.nextNanos = intervalNanos > 0 ? start + intervalNanos : Long.MAX_VALUE;
+    }
+
+    /**
+     * 字节流 -> 计数的字节流
+     */
+    InputStream wrap(InputStream stream) {
+        return wrap(stream, 0);
+    }
+
+    /**
+     * 字节流 -> 计数的字节流
+     *
+     * @param position stream在文件中的偏移
+     */
+    InputStream wrap(InputStream stream, long position) {
+        if (this == DISABLED) {
+            return stream;
+        }
+
+        if (!byRow) {
+            base = position;
+        }
+
+        counter = new CountingInputStream(stream, metrics::onBytes);
+        return counter;
+    }
+
+    /**
+     * 监听 -> 计时的监听
+     */
+    ReadLine.Listener wrap(ReadLine.Listener listener) {
+        if (this == DISABLED) {
+            return listener;
+        }
+
+        return new ReadLine.Listener() {
+            @Override
+            public void invoke(Integer rowIndex, Map<String, String> data) {
+                if (byRow && Objects.nonNull(rowIndex)) {
+                    rowNumber = rowIndex + 1;
+                }
+
+                long begin = begin();
+                try {
+                    listener.invoke(rowIndex, data);
+                } finally {
+                    row(begin);
+                }
+            }
+
+            @Override
+            public void onComplete(Integer rowIndex) {
+                listener.onComplete(rowIndex);
+            }
+
+            @Override
+            public void onCheckpoint(Checkpoint checkpoint) {
+                listener.onCheckpoint(checkpoint);
+            }
+        };
+    }
+
+    /**
+     * 一行回调之前
+     *
+     * @return 开始回调，纳秒；不计量返回0
+     */
+    long begin() {
+        if (this == DISABLED) {
+            return 0;
+        }
+
+        long now = System.nanoTime();
+        if (!started) {
+            started = true;
+            metrics.onFirstRow(source, now - start);
+        }
+
+        return now;
+    }
+
+    /**
+     * 一行回调返回
+     * 跨过进度间隔，回调进度
+     *
+     * @param begin 开始回调，begin()的返回值
+     */
+    void row(long begin) {
+        if (this == DISABLED) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        metrics.onRow(now - begin);
+        rows++;
+
+        if (Objects.nonNull(progress) && (rows >= nextRows || now >= nextNanos)) {
+            nextRows = intervalRows > 0 ? rows + intervalRows : Long.MAX_VALUE;
+            nextNanos = intervalNanos > 0 ? now + intervalNanos : Long.MAX_VALUE;
+            progress.onProgress(snapshot(now, false));
+        }
+    }
+
+    /**
+     * 解析失败
+     */
+    void parseError(int rowIndex, Throwable cause) {
+        metrics.onParseError(source, rowIndex, cause);
+    }
+
+    /**
+     * 读完、停止或失败，只一次
+     * 读完或停止，再回调一次进度
+     *
+     * @param error 失败的异常，null ? 读完或停止
+     */
+    void finish(Throwable error) {
+        if (this == DISABLED || finished) {
+            return;
+        }
+
+        finished = true;
+
+        long now = System.nanoTime();
+        metrics.onFinish(source, now - start, error);
+
+        if (Objects.nonNull(progress) && Objects.isNull(error)) {
+            progress.onProgress(snapshot(now, true));
+        }
+    }
+
+    private ReadProgress snapshot(long now, boolean done) {
+        long position = byRow ? rowNumber : base + (Objects.isNull(counter) ? 0 : counter.getCount());
+        return new ReadProgress(source, base, position, total, rows, now - start, done);
+    }
+
+    /**
+     * 页监听 -> 计时的页监听
+     * 在回调页的线程计时，异步分发为消费线程
+     */
+    static ReadPage.Listener wrap(ReadOptions options, ReadPage.Listener listener) {
+        ReadMetrics metrics = options.getMetrics();
+        if (metrics == ReadMetrics.NOOP || Objects.isNull(listener)) {
+            return listener;
+        }
+
+        return new ReadPage.Listener() {
+            @Override
+            public void invoke(Integer rowIndex, List<Map<String, String>> data) {
+                int rows = data.size();
+                long begin = System.nanoTime();
+                try {
+                    listener.invoke(rowIndex, data);
+                } finally {
+                    metrics.onPage(rows, System.nanoTime() - begin);
+                }
+            }
+
+            @Override
+            public void onCheckpoint(Checkpoint checkpoint) {
+                listener.onCheckpoint(checkpoint);
+            }
+        };
+    }
+
+}
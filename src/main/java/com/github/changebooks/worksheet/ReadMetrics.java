@@ -0,0 +1,84 @@
+package com.github.changebooks.worksheet;
+
+/**
+ * 读的指标
+ * 用ReadOptions.metrics指定，每次读回调；默认NOOP，不计时、不包装流和监听
+ * 多个读可共享一个实例，并行读在多个线程回调，实现须线程安全
+ * 解析耗时 = 读的耗时 - 监听耗时
+ *
+ * @author changebooks
+ */
+public interface ReadMetrics {
+    /**
+     * 读流的source
+     */
+    String STREAM = "<stream>";
+
+    /**
+     * 读Reader的source
+     */
+    String READER = "<reader>";
+
+    /**
+     * 不记录
+     */
+    ReadMetrics NOOP = new ReadMetrics() {
+    };
+
+    /**
+     * 开始读
+     *
+     * @param source 文件路径，或STREAM、READER
+     */
+    default void onStart(String source) {
+    }
+
+    /**
+     * 第一个数据行回调之前
+     *
+     * @param nanos 从开始读，纳秒
+     */
+    default void onFirstRow(String source, long nanos) {
+    }
+
+    /**
+     * 读了bytes个字节，解码之前
+     */
+    default void onBytes(long bytes) {
+    }
+
+    /**
+     * 一行回调返回
+     *
+     * @param nanos 监听耗时，纳秒
+     */
+    default void onRow(long nanos) {
+    }
+
+    /**
+     * 解析失败，如：CsvValidationException
+     *
+     * @param rowIndex 行索引
+     */
+    default void onParseError(String source, int rowIndex, Throwable cause) {
+    }
+
+    /**
+     * 一页回调返回，异步分发在消费线程
+     *
+     * @param rows  页的行数
+     * @param nanos 页监听耗时，纳秒
+     */
+    default void onPage(int rows, long nanos) {
+    }
+
+    /**
+     * 读完、停止或失败
+     *
+     * @param nanos 从开始读，纳秒
+     * @param error 失败的异常，null ? 读完或停止
+     */
+    default void onFinish(String source, long nanos, Throwable error) {
+    }
+
+}
@@ -0,0 +1,449 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.util.*;
+
+/**
+ * 读的选项
+ * 列投影：只读指定的标题名或列号，其余列不创建String、不放入数据行
+ * 行过滤：创建数据行之前按原始字段判断，多个条件同时满足
+ * 行范围：跳过前skip行，最多读take行，最多回调limit行，读够即停止，不再解析之后的行
+ * 检查点：每checkpoint行回调一次Listener.onCheckpoint，用于断点续读
+ * 值缓存：每列缓存最近常用的值，重复的值返回同一个String，降低结果的堆占用
+ * 指标：每次读回调ReadMetrics，行数、字节数、解析与监听耗时、解析失败、页延迟、首行耗时
+ * 进度：每隔指定的行数或时间回调ReadProgress.Listener，按字节偏移估算剩余耗时，不用另读一遍数行数
+ * csv引擎：ReadLine、ReadPage、ReadSync读csv用的解析器，显式指定，不随默认编码切换
+ * 解析失败：按ErrorPolicy终止、跳过、收集或隔离，失败的行不回调，csv
+ *
+ * @author changebooks
+ */
+public final class ReadOptions {
+    /**
+     * 默认，读全部列
+     */
+    public static final ReadOptions DEFAULT = builder().build();
+
+    /**
+     * 指定的标题名，空 ? 不按标题名
+     */
+    private final Set<String> names;
+
+    /**
+     * 指定的列号，从0开始，空 ? 不按列号
+     */
+    private final Set<Integer> columns;
+
+    /**
+     * 行过滤条件，同时满足
+     */
+    private final List<RowFilter> filters;
+
+    /**
+     * 跳过的数据行数，即行索引 <= skip的行
+     */
+    private final int skip;
+
+    /**
+     * 跳过之后，最多读的数据行数，0 ? 不限
+     */
+    private final int take;
+
+    /**
+     * 最多回调的数据行数，过滤之后，0 ? 不限
+     */
+    private final int limit;
+
+    /**
+     * 检查点间隔，行数，0 ? 不产生检查点
+     */
+    private final int checkpointInterval;
+
+    /**
+     * 每列值缓存的容量，0 ? 不缓存
+     */
+    private final int internCapacity;
+
+    /**
+     * 读的指标，NOOP ? 不记录
+     */
+    private final ReadMetrics metrics;
+
+    /**
+     * 监听进度，null ? 不回调
+     */
+    private final ReadProgress.Listener progressListener;
+
+    /**
+     * 进度间隔，行数，0 ? 不按行数
+     */
+    private final int progressRows;
+
+    /**
+     * 进度间隔，毫秒，0 ? 不按时间
+     */
+    private final long progressMillis;
+
+    /**
+     * csv引擎
+     */
+    private final ReadCsv.Engine engine;
+
+    /**
+     * 解析失败的处理
+     */
+    private final ErrorPolicy errorPolicy;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private ReadOptions(Builder builder) {
+        this.names = Collections.unmodifiableSet(new LinkedHashSet<>(builder.names));
+        this.columns = Collections.unmodifiableSet(new TreeSet<>(builder.columns));
+        this.filters = Collections.unmodifiableList(new ArrayList<>(builder.filters));
+        this.skip = builder.skip;
+        this.take = builder.take;
+        this.limit = builder.limit;
+        this.checkpointInterval = builder.checkpointInterval;
+        this.internCapacity = builder.internCapacity;
+        this.metrics = builder.metrics;
+        this.progressListener = builder.progressListener;
+        this.progressRows = builder.progressRows;
+        this.progressMillis = builder.progressMillis;
+        this.engine = builder.engine;
+        this.errorPolicy = builder.errorPolicy;
+    }
+
+    private ReadOptions(ReadOptions source, int checkpointInterval) {
+        this.names = source.names;
+        this.columns = source.columns;
+        this.filters = source.filters;
+        this.skip = source.skip;
+        this.take = source.take;
+        this.limit = source.limit;
+        this.checkpointInterval = checkpointInterval;
+        this.internCapacity = source.internCapacity;
+        this.metrics = source.metrics;
+        this.progressListener = source.progressListener;
+        this.progressRows = source.progressRows;
+        this.progressMillis = source.progressMillis;
+        this.engine = source.engine;
+        this.errorPolicy = source.errorPolicy;
+    }
+
+    /**
+     * 列投影？
+     */
+    public boolean isProjected() {
+        return !names.isEmpty() || !columns.isEmpty();
+    }
+
+    /**
+     * 行过滤？
+     */
+    public boolean isFiltered() {
+        return !filters.isEmpty();
+    }
+
+    /**
+     * 限制行范围？
+     */
+    public boolean isBounded() {
+        return skip > 0 || take > 0 || limit > 0;
+    }
+
+    public Set<String> getNames() {
+        return names;
+    }
+
+    public Set<Integer> getColumns() {
+        return columns;
+    }
+
+    public List<RowFilter> getFilters() {
+        return filters;
+    }
+
+    public int getSkip() {
+        return skip;
+    }
+
+    public int getTake() {
+        return take;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public int getInternCapacity() {
+        return internCapacity;
+    }
+
+    public ReadMetrics getMetrics() {
+        return metrics;
+    }
+
+    public ReadProgress.Listener getProgressListener() {
+        return progressListener;
+    }
+
+    public int getProgressRows() {
+        return progressRows;
+    }
+
+    public long getProgressMillis() {
+        return progressMillis;
+    }
+
+    public ReadCsv.Engine getEngine() {
+        return engine;
+    }
+
+    public ErrorPolicy getErrorPolicy() {
+        return errorPolicy;
+    }
+
+    /**
+     * 分页读，检查点间隔向上取整为pageSize的整数倍
+     * 检查点落在页尾，页回调返回后才产生
+     */
+    ReadOptions alignCheckpoint(int pageSize) {
+        if (checkpointInterval == 0 || checkpointInterval % pageSize == 0) {
+            return this;
+        }
+
+        long aligned = ((long) checkpointInterval + pageSize - 1) / pageSize * pageSize;
+        return new ReadOptions(this, (int) Math.min(aligned, Integer.MAX_VALUE / pageSize * pageSize));
+    }
+
+    /**
+     * 标题行 -> 投影后的标题行
+     * 在标题行回调中调用一次，所有数据行共享
+     *
+     * @throws IllegalArgumentException 标题行中没有指定的标题名
+     */
+    WorksheetHeader project(WorksheetHeader header) {
+        if (!isProjected() || Objects.isNull(header)) {
+            return header;
+        }
+
+        for (String name : names) {
+            Preconditions.checkArgument(header.indexOf(name) >= 0, "column not found, name: " + name);
+        }
+
+        Map<Integer, String> result = new HashMap<>(names.size() + columns.size());
+
+        for (int i = 0, size = header.size(); i < size; i++) {
+            String key = header.getKey(i);
+            int column = header.getColumn(i);
+
+            if (names.contains(key) || columns.contains(column)) {
+                result.put(column, key);
+            }
+        }
+
+        return WorksheetHeader.create(result);
+    }
+
+    @Override
+    public String toString() {
+        return "ReadOptions{names=" + names + ", columns=" + columns + ", filters=" + filters +
+                ", skip=" + skip + ", take=" + take + ", limit=" + limit +
+                ", checkpointInterval=" + checkpointInterval + ", internCapacity=" + internCapacity + ", metrics=" + metrics +
+                ", progressRows=" + progressRows + ", progressMillis=" + progressMillis + ", engine=" + engine + ", errorPolicy=" + errorPolicy + "}";
+    }
+
+    public static final class Builder {
+
+        private final Set<String> names = new LinkedHashSet<>();
+
+        private final Set<Integer> columns = new TreeSet<>();
+
+        private final List<RowFilter> filters = new ArrayList<>();
+
+        private int skip;
+
+        private int take;
+
+        private int limit;
+
+        private int checkpointInterval;
+
+        private int internCapacity;
+
+        private ReadMetrics metrics = ReadMetrics.NOOP;
+
+        private ReadProgress.Listener progressListener;
+
+        private int progressRows;
+
+        private long progressMillis;
+
+        private ReadCsv.Engine engine = ReadCsv.Engine.OPENCSV;
+
+        private ErrorPolicy errorPolicy = ErrorPolicy.DEFAULT;
+
+        private Builder() {
+        }
+
+        /**
+         * 只读指定的标题名
+         */
+        public Builder columns(String... names) {
+            Preconditions.checkNotNull(names, "names can't be null");
+
+            for (String name : names) {
+                Preconditions.checkNotNull(name, "name can't be null");
+                this.names.add(name);
+            }
+
+            return this;
+        }
+
+        /**
+         * 只读指定的列号，从0开始
+         */
+        public Builder columns(int... columns) {
+            Preconditions.checkNotNull(columns, "columns can't be null");
+
+            for (int column : columns) {
+                Preconditions.checkArgument(column >= 0, "column must be non-negative");
+                this.columns.add(column);
+            }
+
+            return this;
+        }
+
+        /**
+         * 行过滤条件，多次调用，同时满足
+         */
+        public Builder filter(RowFilter... filters) {
+            Preconditions.checkNotNull(filters, "filters can't be null");
+
+            for (RowFilter filter : filters) {
+                Preconditions.checkNotNull(filter, "filter can't be null");
+                this.filters.add(filter);
+            }
+
+            return this;
+        }
+
+        /**
+         * 跳过前skip个数据行
+         */
+        public Builder skip(int skip) {
+            Preconditions.checkArgument(skip >= 0, "skip must be non-negative");
+
+            this.skip = skip;
+            return this;
+        }
+
+        /**
+         * 跳过之后，最多读take个数据行，包括被过滤的行
+         */
+        public Builder take(int take) {
+            Preconditions.checkArgument(take > 0, "take must be positive");
+
+            this.take = take;
+            return this;
+        }
+
+        /**
+         * 最多回调limit个数据行，不包括被过滤的行
+         */
+        public Builder limit(int limit) {
+            Preconditions.checkArgument(limit > 0, "limit must be positive");
+
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * 每interval行一个检查点
+         */
+        public Builder checkpoint(int interval) {
+            Preconditions.checkArgument(interval > 0, "interval must be positive");
+
+            this.checkpointInterval = interval;
+            return this;
+        }
+
+        /**
+         * 每列缓存capacity个值，低频的值先淘汰
+         * 适合取值少的列，如状态、地区、币种
+         */
+        public Builder intern(int capacity) {
+            Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+
+            this.internCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * 读的指标，如：MemoryReadMetrics
+         */
+        public Builder metrics(ReadMetrics metrics) {
+            Preconditions.checkNotNull(metrics, "metrics can't be null");
+
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * 监听进度，每10000行或每秒一次
+         */
+        public Builder progress(ReadProgress.Listener listener) {
+            return progress(listener, ReadProgress.DEFAULT_INTERVAL_ROWS, ReadProgress.DEFAULT_INTERVAL_MILLIS);
+        }
+
+        /**
+         * 监听进度，每rows行或每millis毫秒一次，先到者
+         *
+         * @param rows   间隔行数，0 ? 不按行数
+         * @param millis 间隔毫秒，0 ? 不按时间
+         */
+        public Builder progress(ReadProgress.Listener listener, int rows, long millis) {
+            Preconditions.checkNotNull(listener, "listener can't be null");
+            Preconditions.checkArgument(rows >= 0, "rows must be non-negative");
+            Preconditions.checkArgument(millis >= 0, "millis must be non-negative");
+            Preconditions.checkArgument(rows > 0 || millis > 0, "rows or millis must be positive");
+
+            this.progressListener = listener;
+            this.progressRows = rows;
+            this.progressMillis = millis;
+            return this;
+        }
+
+        /**
+         * ReadLine、ReadPage、ReadSync读csv的引擎，默认OPENCSV
+         */
+        public Builder engine(ReadCsv.Engine engine) {
+            Preconditions.checkNotNull(engine, "engine can't be null");
+
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * 解析失败的处理，默认跳过
+         */
+        public Builder onError(ErrorPolicy policy) {
+            Preconditions.checkNotNull(policy, "policy can't be null");
+
+            this.errorPolicy = policy;
+            return this;
+        }
+
+        public ReadOptions build() {
+            return new ReadOptions(this);
+        }
+
+    }
+
+}
@@ -4,17 +4,17 @@ import com.alibaba.excel.read.metadata.ReadSheet;
 import com.google.common.base.Preconditions;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.Executor;
 
 /**
  * 分页读
  * 读csv、xls和xlsx
+ * 检查点间隔按页对齐，检查点总在页边界上
  *
  * <pre>
  * <dependency>
@@ -38,6 +38,15 @@ public final class ReadPage {
          */
         void invoke(Integer rowIndex, List<Map<String, String>> data);
 
+        /**
+         * 检查点，之前的页都已回调返回
+         * 读的选项指定了检查点间隔才回调；异步分发，在消费线程回调
+         *
+         * @param checkpoint 检查点
+         */
+        default void onCheckpoint(Checkpoint checkpoint) {
+        }
+
     }
 
     /**
@@ -50,19 +59,50 @@ public final class ReadPage {
      */
     private final ReadSheet sheet;
 
+    /**
+     * 异步分发，null ? 在解析线程回调
+     */
+    private final PageDispatcher dispatcher;
+
+    /**
+     * 页池，null ? 不池化
+     */
+    private final PagePool pool;
+
+    /**
+     * 读的选项
+     */
+    private final ReadOptions options;
+
     public static ReadPage create(int pageSize) {
         return create(pageSize, null);
     }
 
     public static ReadPage create(int pageSize, ReadSheet sheet) {
-        return new ReadPage(pageSize, sheet);
+        return create(pageSize, sheet, null);
+    }
+
+    public static ReadPage create(int pageSize, ReadSheet sheet, PageDispatcher dispatcher) {
+        return create(pageSize, sheet, dispatcher, null);
+    }
+
+    public static ReadPage create(int pageSize, ReadSheet sheet, PageDispatcher dispatcher, PagePool pool) {
+        return create(pageSize, sheet, dispatcher, pool, ReadOptions.DEFAULT);
     }
 
-    private ReadPage(int pageSize, ReadSheet sheet) {
+    public static ReadPage create(int pageSize, ReadSheet sheet, PageDispatcher dispatcher, PagePool pool, ReadOptions options) {
+        return new ReadPage(pageSize, sheet, dispatcher, pool, options);
+    }
+
+    private ReadPage(int pageSize, ReadSheet sheet, PageDispatcher dispatcher, PagePool pool, ReadOptions options) {
         Preconditions.checkArgument(pageSize > 0, "pageSize must be positive");
+        Preconditions.checkNotNull(options, "options can't be null");
 
         this.pageSize = pageSize;
         this.sheet = sheet;
+        this.dispatcher = dispatcher;
+        this.pool = pool;
+        this.options = options.alignCheckpoint(pageSize);
     }
 
     /**
@@ -85,10 +125,17 @@ public final class ReadPage {
     public void read(File file, ReadSheet sheet, Listener listener) throws IOException {
         Preconditions.checkNotNull(file, "file can't be null");
 
-        WorksheetType type = WorksheetType.fromFile(file);
-        try (InputStream stream = new FileInputStream(file)) {
-            read(type, stream, sheet, listener);
+        Preconditions.checkNotNull(listener, "listener can't be null");
+
+        PageBuffer buffer = new PageBuffer(pageSize, ReadMeter.wrap(options, listener), dispatcher, pool);
+        try {
+            ReadLine.read(file, sheet, options, buffer);
+        } catch (Throwable e) {
+            buffer.abort(e);
+            throw e;
         }
+
+        buffer.finish();
     }
 
     /**
@@ -97,39 +144,52 @@ public final class ReadPage {
     public void read(WorksheetType type, InputStream stream, ReadSheet sheet, Listener listener) {
         Preconditions.checkNotNull(listener, "listener can't be null");
 
-        // 当前页的首行索引
-        final Integer[] startRow = {null};
-
-        // 当前页的数据列表
-        List<Map<String, String>> data = new ArrayList<>();
-
-        ReadLine.read(type, stream, sheet, new ReadLine.Listener() {
-            @Override
-            public void invoke(Integer rowIndex, Map<String, String> valueMap) {
-                if (Objects.isNull(startRow[0])) {
-                    startRow[0] = rowIndex;
-                }
-
-                if (data.size() < pageSize) {
-                    data.add(valueMap);
-                }
-
-                if (data.size() >= pageSize) {
-                    listener.invoke(startRow[0], data);
-                    startRow[0] = null;
-                    data.clear();
-                }
-            }
-
-            @Override
-            public void onComplete(Integer rowIndex) {
-            }
-        });
-
-        if (data.size() > 0) {
-            listener.invoke(startRow[0], data);
-            data.clear();
+        PageBuffer buffer = new PageBuffer(pageSize, ReadMeter.wrap(options, listener), dispatcher, pool);
+        try {
+            ReadLine.read(type, stream, sheet, options, buffer);
+        } catch (Throwable e) {
+            buffer.abort(e);
+            throw e;
+        }
+
+        buffer.finish();
+    }
+
+    /**
+     * 从检查点继续读
+     * 工作表取检查点的，不取sheet
+     */
+    public void resume(File file, Checkpoint checkpoint, Listener listener) throws IOException {
+        Preconditions.checkNotNull(listener, "listener can't be null");
+
+        PageBuffer buffer = new PageBuffer(pageSize, ReadMeter.wrap(options, listener), dispatcher, pool);
+        try {
+            ReadLine.resume(file, options, checkpoint, buffer);
+        } catch (Throwable e) {
+            buffer.abort(e);
+            throw e;
         }
+
+        buffer.finish();
+    }
+
+    /**
+     * 按需发布，每页一项
+     */
+    public WorksheetPublisher<List<Map<String, String>>> publisher(File file) {
+        return publisher(file, WorksheetPublisher.DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * 按需发布，每页一项
+     * 每次订阅，在executor从头读；需求为0，解析暂停；取消即StopException
+     * 读取方的页在回调返回后即清空或复用，每页复制为新的列表再发布，订阅方可以排队、异步处理
+     */
+    public WorksheetPublisher<List<Map<String, String>>> publisher(File file, Executor executor) {
+        Preconditions.checkNotNull(file, "file can't be null");
+        WorksheetType.checkSupport(WorksheetType.fromFile(file));
+
+        return WorksheetPublisher.create(emitter -> read(file, (rowIndex, data) -> emitter.accept(new ArrayList<>(data))), executor);
     }
 
     public int getPageSize() {
@@ -140,4 +200,16 @@ public final class ReadPage {
         return sheet;
     }
 
+    public PageDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public PagePool getPool() {
+        return pool;
+    }
+
+    public ReadOptions getOptions() {
+        return options;
+    }
+
 }
@@ -0,0 +1,160 @@
+package com.github.changebooks.worksheet;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读的进度
+ * 按字节偏移估算：已读到的位置 / 文件大小，剩余耗时 = 已用耗时 * 剩余字节 / 本次已读字节
+ * 续读、按范围读从startPosition开始，本次已读字节 = position - startPosition
+ * 字节在解码之前计数，含解码器的预读，略超前于回调的行
+ * xls、xlsx由easyexcel先读完整个流再解析，不按字节：position为已回调的最后一行的行号，total为xlsx工作表dimension的最后行号
+ * 读流、xls不知道总数，比例和剩余耗时为-1
+ *
+ * @author changebooks
+ */
+public final class ReadProgress {
+    /**
+     * 默认间隔，行数
+     */
+    public static final int DEFAULT_INTERVAL_ROWS = 10000;
+
+    /**
+     * 默认间隔，毫秒
+     */
+    public static final long DEFAULT_INTERVAL_MILLIS = 1000;
+
+    /**
+     * 监听进度
+     */
+    public interface Listener {
+        /**
+         * 在解析线程回调，每隔指定的行数或时间一次，读完再回调一次
+         * 抛出StopException，停止读
+         *
+         * @param progress 进度
+         */
+        void onProgress(ReadProgress progress);
+
+    }
+
+    /**
+     * 文件路径，或ReadMetrics.STREAM、READER
+     */
+    private final String source;
+
+    /**
+     * 本次读的起始位置，字节，续读、按范围读为seek的偏移；xls、xlsx为续读的行号
+     */
+    private final long startPosition;
+
+    /**
+     * 已读到的位置，字节；xls、xlsx为行号
+     */
+    private final long position;
+
+    /**
+     * 文件大小，字节；xlsx为最后一行的行号；-1 ? 未知
+     */
+    private final long total;
+
+    /**
+     * 已回调的数据行数
+     */
+    private final long rows;
+
+    /**
+     * 已用耗时，纳秒
+     */
+    private final long elapsedNanos;
+
+    /**
+     * 读完了？
+     */
+    private final boolean done;
+
+    ReadProgress(String source, long startPosition, long position, long total, long rows, long elapsedNanos, boolean done) {
+        this.source = source;
+        this.startPosition = startPosition;
+        this.position = position;
+        this.total = total;
+        this.rows = rows;
+        this.elapsedNanos = elapsedNanos;
+        this.done = done;
+    }
+
+    /**
+     * 已读的比例，[0, 1]，大小未知返回-1
+     */
+    public double getFraction() {
+        if (done) {
+            return 1;
+        }
+
+        if (total < 0) {
+            return -1;
+        }
+
+        return total == 0 ? 1 : Math.min(1, (double) position / total);
+    }
+
+    /**
+     * 估算的剩余耗时，纳秒，未知返回-1
+     * 按本次读的速度，不含startPosition之前的字节
+     */
+    public long getRemainingNanos() {
+        if (done) {
+            return 0;
+        }
+
+        long read = position - startPosition;
+        if (total < 0 || read <= 0) {
+            return -1;
+        }
+
+        long remaining = Math.max(0, total - position);
+        return (long) (elapsedNanos * ((double) remaining / read));
+    }
+
+    /**
+     * 估算的剩余耗时，毫秒，未知返回-1
+     */
+    public long getRemainingMillis() {
+        long nanos = getRemainingNanos();
+        return nanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getStartPosition() {
+        return startPosition;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public String toString() {
+        return "ReadProgress{source=" + source + ", startPosition=" + startPosition + ", position=" + position + ", total=" + total + ", rows=" + rows +
+                ", elapsedNanos=" + elapsedNanos + ", done=" + done + "}";
+    }
+
+}
@@ -0,0 +1,203 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * 读的列定义
+ * 只读声明的列，按类型转换，其余列不转换
+ * 列按标题名匹配，或按列号匹配
+ *
+ * @author changebooks
+ */
+public final class ReadSchema {
+    /**
+     * 列名，按列号匹配为null
+     */
+    private final String[] names;
+
+    /**
+     * 列号，从0开始，按标题名匹配为-1
+     */
+    private final int[] columns;
+
+    /**
+     * 类型
+     */
+    private final ColumnType[] types;
+
+    /**
+     * 日期格式，默认为null
+     */
+    private final DateTimeFormatter[] formatters;
+
+    /**
+     * 列名 => 位置
+     */
+    private final Map<String, Integer> positions;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private ReadSchema(Builder builder) {
+        int size = builder.types.size();
+        Preconditions.checkArgument(size > 0, "columns can't be empty");
+
+        this.names = builder.names.toArray(new String[0]);
+        this.columns = new int[size];
+        this.types = builder.types.toArray(new ColumnType[0]);
+        this.formatters = builder.formatters.toArray(new DateTimeFormatter[0]);
+
+        Map<String, Integer> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            this.columns[i] = builder.columns.get(i);
+
+            if (Objects.nonNull(names[i])) {
+                Preconditions.checkArgument(Objects.isNull(map.put(names[i], i)), "column is duplicate, name: " + names[i]);
+            }
+        }
+
+        this.positions = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * 列数
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * 列名 -> 位置
+     *
+     * @return 不存在，返回-1
+     */
+    public int indexOf(String name) {
+        Integer result = positions.get(name);
+        return Objects.isNull(result) ? -1 : result;
+    }
+
+    public String getName(int position) {
+        return names[position];
+    }
+
+    public int getColumn(int position) {
+        return columns[position];
+    }
+
+    public ColumnType getType(int position) {
+        return types[position];
+    }
+
+    public DateTimeFormatter getFormatter(int position) {
+        return formatters[position];
+    }
+
+    /**
+     * 按标题行匹配，位置 -> 列号
+     *
+     * @throws IllegalArgumentException 标题行中没有声明的列
+     */
+    int[] resolve(WorksheetHeader header) {
+        int[] result = new int[names.length];
+
+        for (int i = 0; i < names.length; i++) {
+            if (Objects.isNull(names[i])) {
+                result[i] = columns[i];
+                continue;
+            }
+
+            int index = Objects.isNull(header) ? -1 : header.indexOf(names[i]);
+            Preconditions.checkArgument(index >= 0, "column not found, name: " + names[i]);
+
+            result[i] = header.getColumn(index);
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("ReadSchema{");
+
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+
+            result.append(Objects.isNull(names[i]) ? "#" + columns[i] : names[i]).append(':').append(types[i]);
+        }
+
+        return result.append('}').toString();
+    }
+
+    /**
+     * 按声明顺序添加列
+     */
+    public static final class Builder {
+
+        private final List<String> names = new ArrayList<>();
+
+        private final List<Integer> columns = new ArrayList<>();
+
+        private final List<ColumnType> types = new ArrayList<>();
+
+        private final List<DateTimeFormatter> formatters = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * 按标题名
+         */
+        public Builder column(String name, ColumnType type) {
+            return column(name, type, null);
+        }
+
+        /**
+         * 按标题名，日期格式，如：yyyyMMdd
+         */
+        public Builder column(String name, ColumnType type, String pattern) {
+            Preconditions.checkNotNull(name, "name can't be null");
+
+            return add(name, -1, type, pattern);
+        }
+
+        /**
+         * 按列号，从0开始
+         */
+        public Builder column(int column, ColumnType type) {
+            return column(column, type, null);
+        }
+
+        /**
+         * 按列号，日期格式，如：yyyyMMdd
+         */
+        public Builder column(int column, ColumnType type, String pattern) {
+            Preconditions.checkArgument(column >= 0, "column must be non-negative");
+
+            return add(null, column, type, pattern);
+        }
+
+        public ReadSchema build() {
+            return new ReadSchema(this);
+        }
+
+        private Builder add(String name, int column, ColumnType type, String pattern) {
+            Preconditions.checkNotNull(type, "type can't be null");
+            Preconditions.checkArgument(Objects.isNull(pattern) || type == ColumnType.LOCAL_DATE,
+                    "pattern only for LOCAL_DATE, type: " + type);
+
+            names.add(name);
+            columns.add(column);
+            types.add(type);
+            formatters.add(Objects.isNull(pattern) ? null : DateTimeFormatter.ofPattern(pattern));
+            return this;
+        }
+
+    }
+
+}
@@ -6,7 +6,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -36,55 +35,161 @@ public final class ReadSync {
      */
     private final ReadSheet sheet;
 
+    /**
+     * 读的选项
+     */
+    private final ReadOptions options;
+
     public static ReadSync create() {
         return create(null);
     }
 
     public static ReadSync create(ReadSheet sheet) {
-        return new ReadSync(sheet);
+        return create(sheet, ReadOptions.DEFAULT);
+    }
+
+    public static ReadSync create(ReadSheet sheet, ReadOptions options) {
+        return new ReadSync(sheet, options);
     }
 
-    private ReadSync(ReadSheet sheet) {
+    private ReadSync(ReadSheet sheet, ReadOptions options) {
+        Preconditions.checkNotNull(options, "options can't be null");
+
         this.sheet = sheet;
+        this.options = options;
     }
 
     /**
      * 读文件
      */
     public List<Map<String, String>> read(File file) throws IOException {
-        return read(file, sheet);
+        return read(file, sheet, options);
     }
 
     /**
      * 读文件流
      */
     public List<Map<String, String>> read(WorksheetType type, InputStream stream) {
-        return read(type, stream, sheet);
+        return read(type, stream, sheet, options);
+    }
+
+    /**
+     * 读文件，紧凑存储
+     */
+    public RowList readCompact(File file, long memoryBudget) throws IOException {
+        return readCompact(file, sheet, options, memoryBudget);
     }
 
     public ReadSheet getSheet() {
         return sheet;
     }
 
+    public ReadOptions getOptions() {
+        return options;
+    }
+
     /**
      * 读文件
      */
     public static List<Map<String, String>> read(File file, ReadSheet sheet) throws IOException {
-        Preconditions.checkNotNull(file, "file can't be null");
+        return read(file, sheet, ReadOptions.DEFAULT);
+    }
 
-        WorksheetType type = WorksheetType.fromFile(file);
-        try (InputStream stream = new FileInputStream(file)) {
-            return read(type, stream, sheet);
-        }
+    /**
+     * 读文件
+     */
+    public static List<Map<String, String>> read(File file, ReadSheet sheet, ReadOptions options) throws IOException {
+        List<Map<String, String>> result = new ArrayList<>();
+
+        ReadLine.read(file, sheet, options, collect(result));
+
+        return result;
     }
 
     /**
      * 读文件流
      */
     public static List<Map<String, String>> read(WorksheetType type, InputStream stream, ReadSheet sheet) {
+        return read(type, stream, sheet, ReadOptions.DEFAULT);
+    }
+
+    /**
+     * 读文件流
+     */
+    public static List<Map<String, String>> read(WorksheetType type, InputStream stream, ReadSheet sheet, ReadOptions options) {
         List<Map<String, String>> result = new ArrayList<>();
 
-        ReadLine.read(type, stream, sheet, new ReadLine.Listener() {
+        ReadLine.read(type, stream, sheet, options, collect(result));
+
+        return result;
+    }
+
+    /**
+     * 读文件，紧凑存储
+     * 按列字典编码，存堆外，超过内存预算写临时文件；用完须close
+     *
+     * @param memoryBudget 直接内存的预算，字节
+     */
+    public static RowList readCompact(File file, ReadSheet sheet, long memoryBudget) throws IOException {
+        return readCompact(file, sheet, ReadOptions.DEFAULT, memoryBudget);
+    }
+
+    /**
+     * 读文件，紧凑存储
+     * 读失败，关闭已读的结果
+     */
+    public static RowList readCompact(File file, ReadSheet sheet, ReadOptions options, long memoryBudget) throws IOException {
+        RowList result = RowList.create(memoryBudget);
+
+        try {
+            ReadLine.read(file, sheet, options, collect(result));
+        } catch (IOException | RuntimeException | Error e) {
+            try {
+                result.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+
+            throw e;
+        }
+
+        return result;
+    }
+
+    /**
+     * 读文件流，紧凑存储
+     */
+    public static RowList readCompact(WorksheetType type, InputStream stream, ReadSheet sheet, long memoryBudget) {
+        return readCompact(type, stream, sheet, ReadOptions.DEFAULT, memoryBudget);
+    }
+
+    /**
+     * 读文件流，紧凑存储
+     * 读失败，关闭已读的结果
+     */
+    public static RowList readCompact(WorksheetType type, InputStream stream, ReadSheet sheet, ReadOptions options, long memoryBudget) {
+        RowList result = RowList.create(memoryBudget);
+
+        try {
+            ReadLine.read(type, stream, sheet, options, collect(result));
+        } catch (RuntimeException | Error e) {
+            try {
+                result.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+
+            throw e;
+        }
+
+        return result;
+    }
+
+    /**
+     * 数据行放入result，跳过null
+     */
+    private static ReadLine.Listener collect(List<Map<String, String>> result) {
+        return new ReadLine.Listener() {
             @Override
             public void invoke(Integer rowIndex, Map<String, String> valueMap) {
                 if (Objects.isNull(valueMap)) {
@@ -97,9 +202,7 @@ public final class ReadSync {
             @Override
             public void onComplete(Integer rowIndex) {
             }
-        });
-
-        return result;
+        };
     }
 
 }
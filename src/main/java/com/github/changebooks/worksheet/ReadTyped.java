@@ -0,0 +1,278 @@
+package com.github.changebooks.worksheet;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelReader;
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.event.AnalysisEventListener;
+import com.alibaba.excel.exception.ExcelAnalysisStopException;
+import com.alibaba.excel.metadata.data.ReadCellData;
+import com.alibaba.excel.read.metadata.ReadSheet;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 按列定义读，逐行回调
+ * 只转换声明的列，数值、日期不经过 Map<String, String>
+ * csv用内置分词器，字段直接从字符缓冲区解析；xls、xlsx取easyexcel的原始单元格，不转为String
+ * 转换失败，记录日志，该列为空值
+ *
+ * @author changebooks
+ */
+public final class ReadTyped {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadTyped.class);
+
+    /**
+     * 监听行
+     */
+    public interface Listener {
+        /**
+         * 回调监听
+         *
+         * @param rowIndex 行索引
+         * @param row      行数据，只在回调期间有效
+         */
+        void invoke(int rowIndex, TypedRow row);
+
+        /**
+         * 完成
+         * 终止任务-StopException，不执行该方法
+         *
+         * @param rowIndex 最后一行，行索引
+         */
+        void onComplete(int rowIndex);
+
+    }
+
+    /**
+     * 列定义
+     */
+    private final ReadSchema schema;
+
+    /**
+     * 工作表
+     */
+    private final ReadSheet sheet;
+
+    public static ReadTyped create(ReadSchema schema) {
+        return create(schema, null);
+    }
+
+    public static ReadTyped create(ReadSchema schema, ReadSheet sheet) {
+        return new ReadTyped(schema, sheet);
+    }
+
+    private ReadTyped(ReadSchema schema, ReadSheet sheet) {
+        Preconditions.checkNotNull(schema, "schema can't be null");
+
+        this.schema = schema;
+        this.sheet = sheet;
+    }
+
+    /**
+     * 读文件
+     */
+    public void read(File file, Listener listener) throws IOException {
+        read(file, schema, sheet, listener);
+    }
+
+    /**
+     * 读文件流
+     */
+    public void read(WorksheetType type, InputStream stream, Listener listener) throws IOException {
+        read(type, stream, schema, sheet, listener);
+    }
+
+    public ReadSchema getSchema() {
+        return schema;
+    }
+
+    public ReadSheet getSheet() {
+        return sheet;
+    }
+
+    /**
+     * 读文件
+     */
+    public static void read(File file, ReadSchema schema, ReadSheet sheet, Listener listener) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+
+        WorksheetType type = WorksheetType.fromFile(file);
+        try (InputStream stream = new FileInputStream(file)) {
+            read(type, stream, schema, sheet, listener);
+        }
+    }
+
+    /**
+     * 读文件流
+     * csv识别编码
+     */
+    public static void read(WorksheetType type, InputStream stream, ReadSchema schema, ReadSheet sheet, Listener listener) throws IOException {
+        WorksheetType.checkSupport(type);
+        Preconditions.checkNotNull(stream, "stream can't be null");
+        Preconditions.checkNotNull(schema, "schema can't be null");
+        Preconditions.checkNotNull(listener, "listener can't be null");
+
+        if (WorksheetType.isCsv(type)) {
+            readCsv(stream, null, schema, listener);
+            return;
+        }
+
+        TypedRow row = new TypedRow(schema);
+
+        ExcelReader reader = EasyExcel.read(stream, new AnalysisEventListener<Map<Integer, ReadCellData<?>>>() {
+            /**
+             * 标题行
+             */
+            private WorksheetHeader header;
+
+            /**
+             * 位置 -> 列号
+             */
+            private Integer[] columns;
+
+            @Override
+            public void invokeHeadMap(Map<Integer, String> headMap, AnalysisContext context) {
+                super.invokeHeadMap(headMap, context);
+
+                header = ReadUtils.asHeader(headMap);
+            }
+
+            @Override
+            public void invoke(Map<Integer, ReadCellData<?>> cellMap, AnalysisContext context) {
+                if (Objects.isNull(columns)) {
+                    columns = box(schema.resolve(header));
+                }
+
+                Integer rowIndex = ReadUtils.getRowIndex(context);
+                row.reset();
+
+                for (int i = 0; i < columns.length; i++) {
+                    try {
+                        TypedConverter.convert(row, i, cellMap.get(columns[i]), context);
+                    } catch (Exception e) {
+                        LOGGER.error("convert failed, rowIndex: {}, column: {}, throwable: ", rowIndex, columns[i], e);
+                    }
+                }
+
+                try {
+                    listener.invoke(rowIndex, row);
+                } catch (StopException e) {
+                    throw new ExcelAnalysisStopException();
+                }
+            }
+
+            @Override
+            public void doAfterAllAnalysed(AnalysisContext context) {
+                Integer rowIndex = ReadUtils.getRowIndex(context);
+                listener.onComplete(rowIndex);
+            }
+        }).useDefaultListener(false).build();
+
+        if (Objects.isNull(reader)) {
+            return;
+        }
+
+        if (Objects.isNull(sheet)) {
+            sheet = EasyExcel.readSheet(0).build();
+        }
+
+        try {
+            reader.read(sheet);
+        } finally {
+            reader.finish();
+        }
+    }
+
+    /**
+     * 读csv
+     * charset = null ? 识别编码
+     */
+    public static void readCsv(InputStream stream, Charset charset, ReadSchema schema, Listener listener) throws IOException {
+        Preconditions.checkNotNull(stream, "stream can't be null");
+
+        if (Objects.isNull(charset)) {
+            CharsetDetector.Result detected = CharsetDetector.detect(stream);
+            stream = detected.getStream();
+            charset = detected.getCharset();
+        }
+
+        try (Reader reader = new InputStreamReader(stream, charset)) {
+            readCsv(reader, schema, listener);
+        }
+    }
+
+    /**
+     * 读csv，内置分词器
+     */
+    public static void readCsv(Reader reader, ReadSchema schema, Listener listener) throws IOException {
+        Preconditions.checkNotNull(reader, "reader can't be null");
+        Preconditions.checkNotNull(schema, "schema can't be null");
+        Preconditions.checkNotNull(listener, "listener can't be null");
+
+        TypedRow row = new TypedRow(schema);
+
+        CsvTokenizer tokenizer = CsvTokenizer.create(reader);
+
+        CsvTokenizer.read(tokenizer, new CsvTokenizer.Listener() {
+            /**
+             * 位置 -> 列号
+             */
+            private int[] columns;
+
+            @Override
+            public void invokeKey(CsvRecord record) {
+                columns = schema.resolve(ReadUtils.asHeader(ReadUtils.asMap(record.toArray())));
+
+                // 最后一个声明的列之后，不保存字段
+                int max = 0;
+                for (int column : columns) {
+                    max = Math.max(max, column);
+                }
+
+                tokenizer.setMaxFields(max + 1);
+            }
+
+            @Override
+            public void invokeValue(int rowIndex, CsvRecord record) {
+                row.reset();
+
+                for (int i = 0; i < columns.length; i++) {
+                    if (columns[i] >= record.size()) {
+                        continue;
+                    }
+
+                    try {
+                        TypedConverter.convert(row, i, record, columns[i]);
+                    } catch (RuntimeException e) {
+                        LOGGER.error("convert failed, rowIndex: {}, column: {}, throwable: ", rowIndex, columns[i], e);
+                    }
+                }
+
+                listener.invoke(rowIndex, row);
+            }
+
+            @Override
+            public void onComplete(int rowIndex) {
+                listener.onComplete(rowIndex);
+            }
+        });
+    }
+
+    private static Integer[] box(int[] values) {
+        Integer[] result = new Integer[values.length];
+
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i];
+        }
+
+        return result;
+    }
+
+}
@@ -11,9 +11,14 @@ import com.alibaba.excel.read.metadata.holder.ReadSheetHolder;
 import com.google.common.base.Preconditions;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * 读csv、xls和xlsx
@@ -28,7 +33,8 @@ public final class ReadUtils {
     /**
      * 行数，包括标题
      * csv，精确值
-     * xls、xlsx，近似值
+     * xlsx，最后一行的行号，含空行
+     * xls，近似值
      */
     public static Integer getLineNum(File file) throws IOException {
         return getLineNum(file, null);
@@ -37,12 +43,21 @@ public final class ReadUtils {
     /**
      * 行数，包括标题
      * csv，精确值
-     * xls、xlsx，近似值
+     * xlsx，最后一行的行号，含空行
+     * xls，近似值
      */
     public static Integer getLineNum(File file, ReadSheet sheet) throws IOException {
         Preconditions.checkNotNull(file, "file can't be null");
 
         WorksheetType type = WorksheetType.fromFile(file);
+        if (WorksheetType.isCsv(type)) {
+            return getCsvRowSize(file);
+        }
+
+        if (WorksheetType.EXTENSION_XLSX.equalsIgnoreCase(WorksheetType.getExtension(file.getName()))) {
+            return getXlsxRowSize(file, sheet);
+        }
+
         try (InputStream stream = new FileInputStream(file)) {
             return getLineNum(type, stream, sheet);
         }
@@ -69,20 +84,58 @@ public final class ReadUtils {
 
     /**
      * csv，精确行数
+     * 按字节扫描，引号内的换行符不计
      */
     public static Integer getCsvRowSize(InputStream stream) throws IOException {
         if (Objects.isNull(stream)) {
             return null;
         }
 
-        try (Reader reader = new InputStreamReader(stream)) {
-            try (LineNumberReader lineNumReader = new LineNumberReader(reader)) {
-                long n = lineNumReader.skip(Long.MAX_VALUE);
-                return lineNumReader.getLineNumber();
-            }
+        try (ReadableByteChannel channel = Channels.newChannel(stream)) {
+            return Math.toIntExact(CsvScanner.count(channel));
+        }
+    }
+
+    /**
+     * csv，精确行数
+     * 按字节扫描，引号内的换行符不计
+     */
+    public static Integer getCsvRowSize(File file) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return Math.toIntExact(CsvScanner.count(channel));
+        }
+    }
+
+    /**
+     * csv，精确行数
+     * 内存映射，按块并行扫描
+     */
+    public static Integer getCsvRowSize(File file, ForkJoinPool pool) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+        Preconditions.checkNotNull(pool, "pool can't be null");
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return Math.toIntExact(CsvScanner.count(channel, pool, ReadCsvParallel.DEFAULT_CHUNK_SIZE));
         }
     }
 
+    /**
+     * xlsx，最后一行的行号，包括标题，中间的空行也计入
+     * 只读指定工作表的 dimension ref，不解析单元格，不读其它工作表
+     *
+     * @return 工作表不存在，返回null
+     */
+    public static Integer getXlsxRowSize(File file, ReadSheet sheet) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+
+        XlsxMetadata.Sheet result = Objects.isNull(sheet) ? XlsxMetadata.read(file, 0, null) :
+                XlsxMetadata.read(file, sheet.getSheetNo(), sheet.getSheetName());
+
+        return Objects.isNull(result) ? null : result.getRowSize();
+    }
+
     /**
      * xls、xlsx，近似行数
      */
@@ -179,6 +232,153 @@ public final class ReadUtils {
         return result;
     }
 
+    /**
+     * combine header and values
+     * header and {index => value} -> {key => value}
+     */
+    public static WorksheetRow combine(WorksheetHeader header, Map<Integer, String> values) {
+        if (Objects.isNull(values)) {
+            return null;
+        }
+
+        Preconditions.checkNotNull(header, "header can't be null");
+
+        int size = header.size();
+        Preconditions.checkArgument(size > 0, "keys can't be empty");
+
+        String[] result = new String[size];
+
+        for (int i = 0; i < size; i++) {
+            result[i] = values.get(header.getColumn(i));
+        }
+
+        return WorksheetRow.create(header, result);
+    }
+
+    /**
+     * combine header and values
+     * header and [value] -> {key => value}
+     */
+    public static WorksheetRow combine(WorksheetHeader header, String[] values) {
+        if (Objects.isNull(values)) {
+            return null;
+        }
+
+        Preconditions.checkNotNull(header, "header can't be null");
+
+        int size = header.size();
+        Preconditions.checkArgument(size > 0, "keys can't be empty");
+
+        int len = values.length;
+        String[] result = new String[size];
+
+        for (int i = 0; i < size; i++) {
+            int columnIndex = header.getColumn(i);
+            result[i] = columnIndex < len ? values[columnIndex] : null;
+        }
+
+        return WorksheetRow.create(header, result);
+    }
+
+    /**
+     * combine header and record
+     * header and record -> {key => value}
+     * 只为标题列创建String
+     */
+    public static WorksheetRow combine(WorksheetHeader header, CsvRecord record) {
+        if (Objects.isNull(record)) {
+            return null;
+        }
+
+        Preconditions.checkNotNull(header, "header can't be null");
+
+        int size = header.size();
+        Preconditions.checkArgument(size > 0, "keys can't be empty");
+
+        int len = record.size();
+        String[] result = new String[size];
+
+        for (int i = 0; i < size; i++) {
+            int columnIndex = header.getColumn(i);
+            result[i] = columnIndex < len ? record.get(columnIndex) : null;
+        }
+
+        return WorksheetRow.create(header, result);
+    }
+
+    /**
+     * combine header and values，重复的值取缓存
+     */
+    static WorksheetRow combine(WorksheetHeader header, Map<Integer, String> values, ValueCache cache) {
+        if (Objects.isNull(values) || !cache.isEnabled()) {
+            return combine(header, values);
+        }
+
+        Preconditions.checkNotNull(header, "header can't be null");
+        Preconditions.checkArgument(header.size() > 0, "keys can't be empty");
+
+        String[] result = new String[header.size()];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = cache.intern(i, values.get(header.getColumn(i)));
+        }
+
+        return WorksheetRow.create(header, result);
+    }
+
+    /**
+     * combine header and values，重复的值取缓存
+     */
+    static WorksheetRow combine(WorksheetHeader header, String[] values, ValueCache cache) {
+        if (Objects.isNull(values) || !cache.isEnabled()) {
+            return combine(header, values);
+        }
+
+        Preconditions.checkNotNull(header, "header can't be null");
+        Preconditions.checkArgument(header.size() > 0, "keys can't be empty");
+
+        int len = values.length;
+        String[] result = new String[header.size()];
+
+        for (int i = 0; i < result.length; i++) {
+            int columnIndex = header.getColumn(i);
+            result[i] = columnIndex < len ? cache.intern(i, values[columnIndex]) : null;
+        }
+
+        return WorksheetRow.create(header, result);
+    }
+
+    /**
+     * combine header and record，重复的值取缓存
+     * 无引号或引号内没有转义，按字符区间查找，命中不创建String
+     */
+    static WorksheetRow combine(WorksheetHeader header, CsvRecord record, ValueCache cache) {
+        if (Objects.isNull(record) || !cache.isEnabled()) {
+            return combine(header, record);
+        }
+
+        Preconditions.checkNotNull(header, "header can't be null");
+        Preconditions.checkArgument(header.size() > 0, "keys can't be empty");
+
+        int len = record.size();
+        String[] result = new String[header.size()];
+
+        for (int i = 0; i < result.length; i++) {
+            int columnIndex = header.getColumn(i);
+            result[i] = columnIndex < len ? intern(record, columnIndex, i, cache) : null;
+        }
+
+        return WorksheetRow.create(header, result);
+    }
+
+    /**
+     * values -> header
+     * 只构建一次，所有数据行共享
+     */
+    public static WorksheetHeader asHeader(Map<Integer, String> values) {
+        return WorksheetHeader.create(asKey(values));
+    }
+
     /**
      * values -> keys
      * if empty, ignore column
@@ -234,4 +434,16 @@ public final class ReadUtils {
         return result;
     }
 
+    /**
+     * 字段 -> 缓存的值
+     */
+    private static String intern(CsvRecord record, int index, int position, ValueCache cache) {
+        int start = record.getValueOffset(index);
+        if (start < 0) {
+            return cache.intern(position, record.get(index));
+        }
+
+        return cache.intern(position, record.getBuffer(), start, start + record.getValueLength(index));
+    }
+
 }
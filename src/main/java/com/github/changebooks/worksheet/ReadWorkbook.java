@@ -0,0 +1,276 @@
+package com.github.changebooks.worksheet;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.read.metadata.ReadSheet;
+import com.alibaba.excel.util.NumberDataFormatterUtils;
+import com.google.common.base.Preconditions;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * 多工作表并行读，只读xlsx
+ * 只打开一次，共享字符串表、单元格格式只解析一次；每个工作表一个任务，ForkJoinPool并行解析
+ * 总耗时接近最大的工作表，而不是所有工作表之和
+ * 同一工作表按行顺序回调；不同工作表在不同的工作线程回调，listener须线程安全
+ * 单元格转String与ReadLine相同；读的选项按工作表分别生效，指标每个工作表一次读，source为 文件路径!工作表名
+ *
+ * @author changebooks
+ */
+public final class ReadWorkbook {
+    /**
+     * 监听行
+     */
+    public interface Listener {
+        /**
+         * 回调监听
+         *
+         * @param sheet    工作表，索引和名称
+         * @param rowIndex 行索引
+         * @param data     行数据，key => value
+         */
+        void invoke(ReadSheet sheet, Integer rowIndex, Map<String, String> data);
+
+        /**
+         * 工作表完成
+         * 终止该工作表-StopException，不执行该方法
+         *
+         * @param sheet    工作表，索引和名称
+         * @param rowIndex 最后一行，行索引
+         */
+        void onComplete(ReadSheet sheet, Integer rowIndex);
+
+    }
+
+    /**
+     * 线程池
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * 读的选项
+     */
+    private final ReadOptions options;
+
+    public static ReadWorkbook create() {
+        return create(ForkJoinPool.commonPool());
+    }
+
+    public static ReadWorkbook create(ForkJoinPool pool) {
+        return create(pool, ReadOptions.DEFAULT);
+    }
+
+    public static ReadWorkbook create(ForkJoinPool pool, ReadOptions options) {
+        return new ReadWorkbook(pool, options);
+    }
+
+    private ReadWorkbook(ForkJoinPool pool, ReadOptions options) {
+        Preconditions.checkNotNull(pool, "pool can't be null");
+        Preconditions.checkNotNull(options, "options can't be null");
+
+        this.pool = pool;
+        this.options = options;
+    }
+
+    /**
+     * 读全部工作表
+     */
+    public void read(File file, Listener listener) throws IOException {
+        read(file, sheet -> true, listener);
+    }
+
+    /**
+     * 读选中的工作表
+     * 一个工作表失败，其余工作表停止，抛出第一个异常
+     *
+     * @param selector 按工作表索引、名称选择
+     */
+    public void read(File file, Predicate<ReadSheet> selector, Listener listener) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+        Preconditions.checkNotNull(selector, "selector can't be null");
+        Preconditions.checkNotNull(listener, "listener can't be null");
+        Preconditions.checkArgument(WorksheetType.EXTENSION_XLSX.equalsIgnoreCase(WorksheetType.getExtension(file.getName())),
+                "file must be xlsx, file: " + file);
+
+        try (XlsxWorkbook workbook = XlsxWorkbook.open(file)) {
+            // 第一个异常，其余工作表见到即停止
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+            for (int i = 0, size = workbook.size(); i < size; i++) {
+                ReadSheet sheet = EasyExcel.readSheet(i, workbook.getSheetName(i)).build();
+                if (!selector.test(sheet)) {
+                    continue;
+                }
+
+                tasks.add(pool.submit(() -> {
+                    try {
+                        readSheet(workbook, sheet, file.getPath() + "!" + sheet.getSheetName(), error, listener);
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                    } finally {
+                        NumberDataFormatterUtils.removeThreadLocalCache();
+                    }
+                }));
+            }
+
+            // 等所有任务结束，再关闭zip
+            for (ForkJoinTask<?> task : tasks) {
+                task.quietlyJoin();
+            }
+
+            if (Objects.nonNull(error.get())) {
+                rethrow(error.get());
+            }
+        }
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public ReadOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * 读一个工作表，在工作线程
+     * 列投影、行过滤，先按过滤列判断，匹配的行只转换投影列
+     */
+    private void readSheet(XlsxWorkbook workbook, ReadSheet sheet, String source, AtomicReference<Throwable> error,
+                           Listener listener) throws IOException {
+        ReadMeter meter = ReadMeter.start(options, source, -1);
+        Throwable failure = null;
+        try {
+            readSheet(workbook, sheet, meter, error, listener);
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            meter.finish(failure);
+        }
+    }
+
+    private void readSheet(XlsxWorkbook workbook, ReadSheet sheet, ReadMeter meter, AtomicReference<Throwable> error,
+                           Listener listener) throws IOException {
+        RowSelector selector = RowSelector.create(options);
+        ValueCache cache = ValueCache.create(options);
+
+        // [最后一行的行索引]
+        int[] last = {-1};
+
+        try {
+            workbook.read(sheet.getSheetNo(), new XlsxWorkbook.Handler() {
+                /**
+                 * 投影后的标题行，所有数据行共享
+                 */
+                private WorksheetHeader header;
+
+                /**
+                 * 位置 -> 列号
+                 */
+                private int[] columns;
+
+                @Override
+                public void invoke(XlsxRow row) {
+                    if (Objects.nonNull(error.get())) {
+                        throw new StopException();
+                    }
+
+                    int rowIndex = row.getRowIndex();
+                    last[0] = rowIndex;
+
+                    // 空行，与easyexcel相同，不回调
+                    if (row.isEmpty()) {
+                        return;
+                    }
+
+                    if (rowIndex == 0) {
+                        invokeHead(row);
+                        return;
+                    }
+
+                    if (Objects.isNull(header)) {
+                        invokeHead(null);
+                    }
+
+                    if (selector.contains(rowIndex) && selector.test(row)) {
+                        String[] values = new String[columns.length];
+                        for (int i = 0; i < columns.length; i++) {
+                            values[i] = cache.intern(i, row.getString(columns[i]));
+                        }
+
+                        WorksheetRow data = WorksheetRow.create(header, values);
+                        long begin = meter.begin();
+                        try {
+                            listener.invoke(sheet, rowIndex, data);
+                        } finally {
+                            meter.row(begin);
+                        }
+
+                        selector.accept();
+                    }
+
+                    if (selector.isDone(rowIndex)) {
+                        listener.onComplete(sheet, rowIndex);
+                        throw new StopException();
+                    }
+                }
+
+                /**
+                 * 标题行
+                 * 没有标题行，所有列都不取
+                 */
+                private void invokeHead(XlsxRow row) {
+                    Map<Integer, String> headMap = new HashMap<>();
+                    if (Objects.nonNull(row)) {
+                        for (int i = 0, size = row.size(); i < size; i++) {
+                            headMap.put(i, row.getString(i));
+                        }
+                    }
+
+                    WorksheetHeader full = headMap.isEmpty() ?
+                            WorksheetHeader.create(Collections.emptyMap()) : ReadUtils.asHeader(headMap);
+                    selector.resolve(full);
+                    header = options.project(full);
+
+                    columns = new int[header.size()];
+                    for (int i = 0; i < columns.length; i++) {
+                        columns[i] = header.getColumn(i);
+                    }
+                }
+            });
+        } catch (StopException e) {
+            return;
+        }
+
+        listener.onComplete(sheet, last[0]);
+    }
+
+    private static void rethrow(Throwable e) throws IOException {
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        }
+
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+
+        throw new IOException(e);
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.github.changebooks.worksheet;
+
+import com.opencsv.exceptions.CsvException;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * 解析失败的行
+ * 行索引、原始文本、异常
+ *
+ * @author changebooks
+ */
+public final class RowError implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 行索引
+     */
+    private final int rowIndex;
+
+    /**
+     * 原始文本，按csv格式还原，不含换行，null ? 未知
+     * 引号未闭合，未闭合之后到文件末尾的内容，含换行
+     */
+    private final String raw;
+
+    /**
+     * 异常
+     */
+    private final Throwable cause;
+
+    public RowError(int rowIndex, String raw, Throwable cause) {
+        this.rowIndex = rowIndex;
+        this.raw = raw;
+        this.cause = cause;
+    }
+
+    /**
+     * opencsv的异常，原始文本按字段还原
+     *
+     * @param line 失败的记录，null ? 取异常中的记录
+     */
+    static RowError of(int rowIndex, String[] line, CsvException e) {
+        String[] values = Objects.nonNull(line) ? line : e.getLine();
+        return new RowError(rowIndex, Objects.isNull(values) ? null : CsvEncoder.format(values), e);
+    }
+
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
+    public String getRaw() {
+        return raw;
+    }
+
+    public Throwable getCause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        return "RowError{rowIndex=" + rowIndex + ", raw=" + raw + ", cause=" + cause + "}";
+    }
+
+}
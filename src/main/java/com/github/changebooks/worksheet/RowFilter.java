@@ -0,0 +1,400 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 行过滤条件
+ * 在创建数据行之前，按原始字段判断，不匹配的行不创建String、不回调
+ * 没有该字段或字段为空，按空字符串判断
+ *
+ * @author changebooks
+ */
+public final class RowFilter {
+    /**
+     * 空字段
+     */
+    private static final String EMPTY = "";
+
+    /**
+     * 比较方式
+     */
+    public enum Operator {
+        // 等于
+        EQ,
+
+        // 等于其中之一
+        IN,
+
+        // 前缀
+        PREFIX,
+
+        // 字典序闭区间
+        RANGE,
+
+        // 数值闭区间
+        NUMBER_RANGE,
+
+        ;
+    }
+
+    /**
+     * 标题名，null ? 按列号
+     */
+    private final String name;
+
+    /**
+     * 列号，从0开始，-1 ? 按标题名
+     */
+    private final int column;
+
+    /**
+     * 比较方式
+     */
+    private final Operator operator;
+
+    /**
+     * EQ、PREFIX -> [value]
+     * IN -> 排序后的值
+     * RANGE -> [min, max]，null ? 不限
+     */
+    private final String[] values;
+
+    /**
+     * NUMBER_RANGE的下限
+     */
+    private final double min;
+
+    /**
+     * NUMBER_RANGE的上限
+     */
+    private final double max;
+
+    /**
+     * 标题名等于value
+     */
+    public static RowFilter eq(String name, String value) {
+        Preconditions.checkNotNull(value, "value can't be null");
+
+        return new RowFilter(checkName(name), -1, Operator.EQ, new String[]{value}, 0, 0);
+    }
+
+    /**
+     * 列号等于value
+     */
+    public static RowFilter eq(int column, String value) {
+        Preconditions.checkNotNull(value, "value can't be null");
+
+        return new RowFilter(null, checkColumn(column), Operator.EQ, new String[]{value}, 0, 0);
+    }
+
+    /**
+     * 标题名等于values之一
+     */
+    public static RowFilter in(String name, String... values) {
+        return new RowFilter(checkName(name), -1, Operator.IN, sort(values), 0, 0);
+    }
+
+    /**
+     * 列号等于values之一
+     */
+    public static RowFilter in(int column, String... values) {
+        return new RowFilter(null, checkColumn(column), Operator.IN, sort(values), 0, 0);
+    }
+
+    /**
+     * 标题名以prefix开头
+     */
+    public static RowFilter prefix(String name, String prefix) {
+        Preconditions.checkNotNull(prefix, "prefix can't be null");
+
+        return new RowFilter(checkName(name), -1, Operator.PREFIX, new String[]{prefix}, 0, 0);
+    }
+
+    /**
+     * 列号以prefix开头
+     */
+    public static RowFilter prefix(int column, String prefix) {
+        Preconditions.checkNotNull(prefix, "prefix can't be null");
+
+        return new RowFilter(null, checkColumn(column), Operator.PREFIX, new String[]{prefix}, 0, 0);
+    }
+
+    /**
+     * 标题名在[min, max]之间，字典序，如：yyyy-MM-dd
+     * min或max = null ? 不限
+     */
+    public static RowFilter range(String name, String min, String max) {
+        return new RowFilter(checkName(name), -1, Operator.RANGE, new String[]{min, max}, 0, 0);
+    }
+
+    /**
+     * 列号在[min, max]之间，字典序
+     * min或max = null ? 不限
+     */
+    public static RowFilter range(int column, String min, String max) {
+        return new RowFilter(null, checkColumn(column), Operator.RANGE, new String[]{min, max}, 0, 0);
+    }
+
+    /**
+     * 标题名在[min, max]之间，按数值
+     * 不是数值，不匹配；不限，用Double.NEGATIVE_INFINITY、Double.POSITIVE_INFINITY
+     */
+    public static RowFilter range(String name, double min, double max) {
+        return new RowFilter(checkName(name), -1, Operator.NUMBER_RANGE, new String[0], min, max);
+    }
+
+    /**
+     * 列号在[min, max]之间，按数值
+     */
+    public static RowFilter range(int column, double min, double max) {
+        return new RowFilter(null, checkColumn(column), Operator.NUMBER_RANGE, new String[0], min, max);
+    }
+
+    private RowFilter(String name, int column, Operator operator, String[] values, double min, double max) {
+        Preconditions.checkArgument(!Double.isNaN(min) && !Double.isNaN(max), "min and max can't be NaN");
+        Preconditions.checkArgument(min <= max, "min can't be greater than max");
+
+        this.name = name;
+        this.column = column;
+        this.operator = operator;
+        this.values = values;
+        this.min = min;
+        this.max = max;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    /**
+     * 标题行 -> 列号
+     *
+     * @throws IllegalArgumentException 标题行中没有该标题名
+     */
+    int resolve(WorksheetHeader header) {
+        if (Objects.isNull(name)) {
+            return column;
+        }
+
+        int index = Objects.isNull(header) ? -1 : header.indexOf(name);
+        Preconditions.checkArgument(index >= 0, "column not found, name: " + name);
+
+        return header.getColumn(index);
+    }
+
+    /**
+     * 字段匹配？
+     *
+     * @param value 字段，null ? 空字符串
+     */
+    boolean test(CharSequence value) {
+        CharSequence v = Objects.isNull(value) ? EMPTY : value;
+
+        switch (operator) {
+            case EQ:
+                return values[0].contentEquals(v);
+            case IN:
+                return search(values, v);
+            case PREFIX:
+                return startsWith(v, values[0]);
+            case RANGE:
+                return (Objects.isNull(values[0]) || compare(v, values[0]) >= 0) &&
+                        (Objects.isNull(values[1]) || compare(v, values[1]) <= 0);
+            case NUMBER_RANGE:
+                return testNumber(v);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 数值字段匹配？
+     * 只用于NUMBER_RANGE
+     */
+    boolean test(double value) {
+        return value >= min && value <= max;
+    }
+
+    /**
+     * 按数值比较？
+     */
+    boolean isNumeric() {
+        return operator == Operator.NUMBER_RANGE;
+    }
+
+    private boolean testNumber(CharSequence value) {
+        double number;
+        try {
+            if (value instanceof CharRange) {
+                CharRange range = (CharRange) value;
+
+                int start = range.start;
+                int end = range.end;
+                while (start < end && range.buffer[start] <= ' ') {
+                    start++;
+                }
+
+                while (end > start && range.buffer[end - 1] <= ' ') {
+                    end--;
+                }
+
+                if (start == end) {
+                    return false;
+                }
+
+                number = TypedConverter.parseDouble(range.buffer, start, end);
+            } else {
+                String s = value.toString().trim();
+                if (s.isEmpty()) {
+                    return false;
+                }
+
+                number = Double.parseDouble(s);
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+
+        return test(number);
+    }
+
+    @Override
+    public String toString() {
+        return "RowFilter{" + (Objects.isNull(name) ? "column=" + column : "name=" + name) +
+                ", operator=" + operator +
+                (operator == Operator.NUMBER_RANGE ? ", min=" + min + ", max=" + max : ", values=" + Arrays.toString(values)) +
+                "}";
+    }
+
+    private static String checkName(String name) {
+        Preconditions.checkNotNull(name, "name can't be null");
+        return name;
+    }
+
+    private static int checkColumn(int column) {
+        Preconditions.checkArgument(column >= 0, "column must be non-negative");
+        return column;
+    }
+
+    private static String[] sort(String[] values) {
+        Preconditions.checkNotNull(values, "values can't be null");
+
+        String[] result = values.clone();
+        for (String value : result) {
+            Preconditions.checkNotNull(value, "value can't be null");
+        }
+
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * 二分查找，不创建String
+     */
+    private static boolean search(String[] sorted, CharSequence value) {
+        int low = 0;
+        int high = sorted.length - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = compare(value, sorted[mid]);
+
+            if (c == 0) {
+                return true;
+            }
+
+            if (c > 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * 字典序，与String.compareTo相同
+     */
+    private static int compare(CharSequence a, String b) {
+        int len1 = a.length();
+        int len2 = b.length();
+
+        for (int i = 0, len = Math.min(len1, len2); i < len; i++) {
+            char c1 = a.charAt(i);
+            char c2 = b.charAt(i);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+
+        return len1 - len2;
+    }
+
+    private static boolean startsWith(CharSequence value, String prefix) {
+        int len = prefix.length();
+        if (value.length() < len) {
+            return false;
+        }
+
+        for (int i = 0; i < len; i++) {
+            if (value.charAt(i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * 字符缓冲区的区间[start, end)，复用，不复制
+     */
+    static final class CharRange implements CharSequence {
+
+        private char[] buffer;
+
+        private int start;
+
+        private int end;
+
+        CharRange set(char[] buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return buffer[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(buffer, start + from, to - from);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buffer, start, end - start);
+        }
+
+    }
+
+}
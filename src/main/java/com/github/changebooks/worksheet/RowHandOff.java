@@ -0,0 +1,244 @@
+package com.github.changebooks.worksheet;
+
+import com.alibaba.excel.util.NumberDataFormatterUtils;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 推转拉，有界交接
+ * 后台线程逐行读，队列满即阻塞，只比消费者多解析capacity行
+ * 关闭后，后台线程在下一行抛出StopException停止
+ *
+ * @author changebooks
+ */
+final class RowHandOff implements RowIterator.Source {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RowHandOff.class);
+
+    /**
+     * 默认队列容量，行数
+     */
+    static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * 放入队列的等待间隔，毫秒，期间检查是否已关闭
+     */
+    private static final long OFFER_MILLIS = 100;
+
+    /**
+     * 读完的标记
+     */
+    private static final Item END = new Item(-1, null, null);
+
+    /**
+     * 逐行读的任务
+     */
+    interface Task {
+        /**
+         * 在后台线程执行
+         */
+        void run(ReadLine.Listener listener) throws IOException;
+
+    }
+
+    /**
+     * 待取的行
+     */
+    private final BlockingQueue<Item> queue;
+
+    /**
+     * 后台线程
+     */
+    private final Thread thread;
+
+    /**
+     * 已关闭？
+     */
+    private volatile boolean closed;
+
+    /**
+     * 当前行
+     */
+    private Item current;
+
+    /**
+     * 读完了？
+     */
+    private boolean done;
+
+    static RowHandOff start(Task task, int capacity) {
+        Preconditions.checkNotNull(task, "task can't be null");
+        Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+
+        RowHandOff result = new RowHandOff(task, capacity);
+        result.thread.start();
+        return result;
+    }
+
+    private RowHandOff(Task task, int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(() -> produce(task), "worksheet-handoff");
+        this.thread.setDaemon(true);
+    }
+
+    @Override
+    public boolean advance() throws IOException {
+        if (done) {
+            return false;
+        }
+
+        Item item;
+        try {
+            item = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+
+        if (item == END || Objects.nonNull(item.error)) {
+            done = true;
+            current = null;
+
+            if (Objects.nonNull(item.error)) {
+                rethrow(item.error);
+            }
+
+            return false;
+        }
+
+        current = item;
+        return true;
+    }
+
+    @Override
+    public int getRowIndex() {
+        return Objects.isNull(current) ? -1 : current.rowIndex;
+    }
+
+    @Override
+    public Map<String, String> getRow() {
+        return Objects.isNull(current) ? null : current.data;
+    }
+
+    /**
+     * 停止后台线程，等它关闭文件
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        done = true;
+        queue.clear();
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    /**
+     * 后台线程
+     */
+    private void produce(Task task) {
+        try {
+            task.run(new ReadLine.Listener() {
+                @Override
+                public void invoke(Integer rowIndex, Map<String, String> data) {
+                    if (Objects.isNull(data)) {
+                        LOGGER.error("read null, skip rowIndex: " + rowIndex);
+                        return;
+                    }
+
+                    put(new Item(rowIndex, data, null));
+                }
+
+                @Override
+                public void onComplete(Integer rowIndex) {
+                }
+            });
+
+            put(END);
+        } catch (StopException e) {
+            // 已关闭
+        } catch (Throwable e) {
+            if (!closed) {
+                try {
+                    put(new Item(-1, null, e));
+                } catch (StopException ignored) {
+                    // 已关闭
+                }
+            }
+        } finally {
+            NumberDataFormatterUtils.removeThreadLocalCache();
+        }
+    }
+
+    /**
+     * 放入队列，队列满等待
+     *
+     * @throws StopException 已关闭
+     */
+    private void put(Item item) {
+        try {
+            while (!closed) {
+                if (queue.offer(item, OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        throw new StopException();
+    }
+
+    private static void rethrow(Throwable e) throws IOException {
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        }
+
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+
+        throw new IOException(e);
+    }
+
+    /**
+     * 行索引、行数据，或异常
+     */
+    private static final class Item {
+
+        private final int rowIndex;
+
+        private final Map<String, String> data;
+
+        private final Throwable error;
+
+        Item(int rowIndex, Map<String, String> data, Throwable error) {
+            this.rowIndex = rowIndex;
+            this.data = data;
+            this.error = error;
+        }
+
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 逐行拉取
+ * hasNext才解析下一行，不预读整个文件；读完自动关闭，提前结束须close
+ * 不是线程安全的；stream().parallel()按批拆分，在拆分时拉取
+ *
+ * @author changebooks
+ */
+public final class RowIterator implements Iterator<Map<String, String>>, Closeable {
+    /**
+     * 行的来源
+     */
+    interface Source extends Closeable {
+        /**
+         * 解析到下一个数据行
+         *
+         * @return 没有了，返回false
+         */
+        boolean advance() throws IOException;
+
+        /**
+         * 当前行，行索引
+         */
+        int getRowIndex();
+
+        /**
+         * 当前行，key => value
+         */
+        Map<String, String> getRow();
+
+    }
+
+    /**
+     * 行的来源
+     */
+    private final Source source;
+
+    /**
+     * 已解析下一行？null ? 未解析
+     */
+    private Boolean ready;
+
+    /**
+     * 最后返回的行，行索引
+     */
+    private int rowIndex = -1;
+
+    private boolean closed;
+
+    static RowIterator create(Source source) {
+        Preconditions.checkNotNull(source, "source can't be null");
+
+        return new RowIterator(source);
+    }
+
+    private RowIterator(Source source) {
+        this.source = source;
+    }
+
+    /**
+     * @throws UncheckedIOException 读失败
+     */
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+
+        if (Objects.isNull(ready)) {
+            try {
+                ready = source.advance();
+            } catch (IOException e) {
+                closeQuietly();
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException | Error e) {
+                closeQuietly();
+                throw e;
+            }
+
+            if (!ready) {
+                closeQuietly();
+            }
+        }
+
+        return ready;
+    }
+
+    @Override
+    public Map<String, String> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        ready = null;
+        rowIndex = source.getRowIndex();
+        return source.getRow();
+    }
+
+    /**
+     * 最后返回的行，行索引
+     * 还没有返回，-1
+     */
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
+    /**
+     * 转为流，关闭流即关闭迭代器
+     * 有序、非null；parallel()按批拆分，每批在拆分的线程拉取
+     */
+    public Stream<Map<String, String>> stream() {
+        Spliterator<Map<String, String>> spliterator = Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        ready = false;
+        source.close();
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ignored) {
+            // 读完或已失败，关闭的异常不再抛出
+        }
+    }
+
+}
@@ -0,0 +1,294 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * 紧凑的读结果，按列存储
+ * 每个单元格在堆外存一个int编码，值按列字典编码，重复的值只存一份
+ * 列的不同值超过dictionaryLimit，转为堆外值表，UTF-8，不再去重
+ * 堆外超过memoryBudget，写临时文件，由操作系统换页
+ * 只追加；get返回新建的数据行，修改不写回；用完须close，删除临时文件
+ *
+ * @author changebooks
+ */
+public final class RowList extends AbstractList<Map<String, String>> implements RandomAccess, Closeable {
+    /**
+     * 默认的内存预算，64MB
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+    /**
+     * 默认的字典上限，每列不同值的个数
+     */
+    public static final int DEFAULT_DICTIONARY_LIMIT = 4096;
+
+    /**
+     * 页存储
+     */
+    private final PageStore store;
+
+    /**
+     * 每列字典的上限
+     */
+    private final int dictionaryLimit;
+
+    /**
+     * 标题行，第一行确定
+     */
+    private WorksheetHeader header;
+
+    /**
+     * position => 列
+     */
+    private Column[] columns;
+
+    /**
+     * 行数
+     */
+    private int size;
+
+    private boolean closed;
+
+    public static RowList create() {
+        return create(DEFAULT_MEMORY_BUDGET);
+    }
+
+    public static RowList create(long memoryBudget) {
+        return create(memoryBudget, DEFAULT_DICTIONARY_LIMIT);
+    }
+
+    /**
+     * @param memoryBudget    直接内存的预算，字节；超过写临时文件
+     * @param dictionaryLimit 每列字典的上限，0 ? 不用字典
+     */
+    public static RowList create(long memoryBudget, int dictionaryLimit) {
+        Preconditions.checkArgument(dictionaryLimit >= 0, "dictionaryLimit must be non-negative");
+
+        return new RowList(new PageStore(memoryBudget), dictionaryLimit);
+    }
+
+    private RowList(PageStore store, int dictionaryLimit) {
+        this.store = store;
+        this.dictionaryLimit = dictionaryLimit;
+    }
+
+    /**
+     * 追加一行
+     * 第一行确定标题行，之后只存标题行的列
+     *
+     * @throws java.io.UncheckedIOException 写临时文件失败
+     */
+    @Override
+    public boolean add(Map<String, String> row) {
+        Preconditions.checkNotNull(row, "row can't be null");
+        Preconditions.checkState(!closed, "list is closed");
+
+        if (Objects.isNull(header)) {
+            init(row);
+        }
+
+        WorksheetRow worksheetRow = row instanceof WorksheetRow && ((WorksheetRow) row).getHeader() == header ?
+                (WorksheetRow) row : null;
+
+        for (int i = 0; i < columns.length; i++) {
+            String value = Objects.nonNull(worksheetRow) ? worksheetRow.getValue(i) : row.get(header.getKey(i));
+            columns[i].add(value);
+        }
+
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * 第index行
+     * 每次新建，修改不写回
+     */
+    @Override
+    public Map<String, String> get(int index) {
+        Preconditions.checkElementIndex(index, size);
+        Preconditions.checkState(!closed, "list is closed");
+
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = columns[i].get(index);
+        }
+
+        return WorksheetRow.create(header, values);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 释放堆外内存的引用，删除临时文件
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        columns = null;
+        store.close();
+    }
+
+    /**
+     * 标题行，没有行返回null
+     */
+    public WorksheetHeader getHeader() {
+        return header;
+    }
+
+    /**
+     * 已写临时文件？
+     */
+    public boolean isSpilled() {
+        return store.isSpilled();
+    }
+
+    /**
+     * 已分配的直接内存，字节
+     */
+    public long getDirectBytes() {
+        return store.getDirectBytes();
+    }
+
+    /**
+     * 已映射的临时文件，字节
+     */
+    public long getSpilledBytes() {
+        return store.getSpilledBytes();
+    }
+
+    public int getDictionaryLimit() {
+        return dictionaryLimit;
+    }
+
+    private void init(Map<String, String> row) {
+        header = WorksheetHeader.of(row);
+
+        columns = new Column[header.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new Column();
+        }
+    }
+
+    /**
+     * 列
+     * 编码：0 ? null；k ? 值表的第k - 1个
+     */
+    private final class Column {
+        /**
+         * 行 => 编码
+         */
+        private final PageStore.Pages codes = new PageStore.Pages(store);
+
+        /**
+         * 值 => 编码，堆内，超过上限后为null
+         */
+        private Map<String, Integer> dictionary = new HashMap<>();
+
+        /**
+         * 字典的值表，编码 - 1 => 值
+         */
+        private List<String> values = new ArrayList<>();
+
+        /**
+         * 堆外值表，编码 - 1 => 起始字节
+         */
+        private PageStore.Pages offsets;
+
+        /**
+         * 堆外值表，UTF-8
+         */
+        private PageStore.Pages bytes;
+
+        /**
+         * 堆外值表的个数
+         */
+        private int count;
+
+        void add(String value) {
+            if (Objects.isNull(value)) {
+                codes.addInt(0);
+                return;
+            }
+
+            if (Objects.nonNull(dictionary)) {
+                Integer code = dictionary.get(value);
+                if (Objects.nonNull(code)) {
+                    codes.addInt(code);
+                    return;
+                }
+
+                if (values.size() < dictionaryLimit) {
+                    values.add(value);
+                    dictionary.put(value, values.size());
+                    codes.addInt(values.size());
+                    return;
+                }
+
+                spill();
+            }
+
+            codes.addInt(append(value));
+        }
+
+        String get(int row) {
+            int code = codes.getInt(row);
+            if (code == 0) {
+                return null;
+            }
+
+            if (Objects.nonNull(values)) {
+                return values.get(code - 1);
+            }
+
+            long start = offsets.getLong(code - 1);
+            long end = code < count ? offsets.getLong(code) : bytes.size();
+            return bytes.getString(start, (int) (end - start));
+        }
+
+        /**
+         * 字典转为堆外值表，按编码顺序，已有编码不变
+         */
+        private void spill() {
+            offsets = new PageStore.Pages(store);
+            bytes = new PageStore.Pages(store);
+
+            for (String value : values) {
+                append(value);
+            }
+
+            dictionary = null;
+            values = null;
+        }
+
+        /**
+         * 追加到堆外值表
+         *
+         * @return 编码
+         */
+        private int append(String value) {
+            offsets.addLong(bytes.size());
+            bytes.addString(value);
+            return ++count;
+        }
+
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.github.changebooks.worksheet;
+
+import java.io.IOException;
+
+/**
+ * 行解析失败，按ErrorPolicy终止读
+ *
+ * @author changebooks
+ */
+public class RowParseException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 失败的行
+     */
+    private final RowError error;
+
+    public RowParseException(String message, RowError error) {
+        super(message + ", rowIndex: " + error.getRowIndex(), error.getCause());
+
+        this.error = error;
+    }
+
+    public RowError getError() {
+        return error;
+    }
+
+}
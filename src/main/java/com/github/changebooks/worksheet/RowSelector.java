@@ -0,0 +1,266 @@
+package com.github.changebooks.worksheet;
+
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.enums.CellDataTypeEnum;
+import com.alibaba.excel.metadata.data.ReadCellData;
+import com.google.common.base.Preconditions;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 行选择，每次读创建一个
+ * 按读的选项，判断数据行是否回调、是否停止读
+ * 行过滤在创建数据行之前，只读过滤条件的列
+ *
+ * @author changebooks
+ */
+final class RowSelector {
+    /**
+     * 行过滤条件
+     */
+    private final RowFilter[] filters;
+
+    /**
+     * 过滤条件的列号，标题行回调后才有
+     */
+    private final int[] columns;
+
+    /**
+     * 跳过行索引 <= skip的行
+     */
+    private long skip;
+
+    /**
+     * 最后一个读的行索引
+     */
+    private final long last;
+
+    /**
+     * 最多回调的行数
+     */
+    private final int limit;
+
+    /**
+     * 已回调的行数
+     */
+    private int count;
+
+    /**
+     * 检查点间隔，0 ? 不产生
+     */
+    private final int checkpointInterval;
+
+    /**
+     * 上一个检查点之前的行索引
+     */
+    private int checkpointRow;
+
+    /**
+     * 字段视图，复用
+     */
+    private final RowFilter.CharRange range = new RowFilter.CharRange();
+
+    static RowSelector create(ReadOptions options) {
+        Preconditions.checkNotNull(options, "options can't be null");
+
+        int skip = options.getSkip();
+        return new RowSelector(options, skip, options.getTake() > 0 ? (long) skip + options.getTake() : Long.MAX_VALUE);
+    }
+
+    /**
+     * 指定行索引范围[fromRow, toRow]，忽略选项的skip、take
+     */
+    static RowSelector create(ReadOptions options, int fromRow, int toRow) {
+        Preconditions.checkNotNull(options, "options can't be null");
+        Preconditions.checkArgument(fromRow > 0, "fromRow must be positive");
+        Preconditions.checkArgument(toRow >= fromRow, "toRow can't be less than fromRow");
+
+        return new RowSelector(options, fromRow - 1, toRow);
+    }
+
+    private RowSelector(ReadOptions options, long skip, long last) {
+        List<RowFilter> list = options.getFilters();
+
+        this.filters = list.toArray(new RowFilter[0]);
+        this.columns = new int[filters.length];
+        this.skip = skip;
+        this.last = last;
+        this.limit = options.getLimit() > 0 ? options.getLimit() : Integer.MAX_VALUE;
+        this.checkpointInterval = options.getCheckpointInterval();
+    }
+
+    /**
+     * 从检查点继续读
+     * 跳过rowIndex之前的行，下一个检查点从rowIndex开始计
+     */
+    void resumeAt(int rowIndex) {
+        skip = Math.max(skip, rowIndex - 1);
+        checkpointRow = rowIndex - 1;
+    }
+
+    /**
+     * 按全部列的标题行，确定过滤条件的列号
+     * 过滤条件的列可以不在投影列中
+     */
+    void resolve(WorksheetHeader header) {
+        for (int i = 0; i < filters.length; i++) {
+            columns[i] = filters[i].resolve(header);
+        }
+    }
+
+    /**
+     * 过滤条件的最大列号
+     * 没有过滤条件，返回-1
+     */
+    int getMaxColumn() {
+        int result = -1;
+
+        for (int column : columns) {
+            result = Math.max(result, column);
+        }
+
+        return result;
+    }
+
+    /**
+     * 行索引在读的范围内？
+     */
+    boolean contains(int rowIndex) {
+        return rowIndex > skip && rowIndex <= last;
+    }
+
+    /**
+     * 读完了？
+     * 已到最后一个读的行索引，或回调行数已达上限
+     */
+    boolean isDone(int rowIndex) {
+        return rowIndex >= last || count >= limit;
+    }
+
+    /**
+     * 回调了一行
+     */
+    void accept() {
+        count++;
+    }
+
+    /**
+     * 产生检查点？
+     * 行索引跨过interval的整数倍；xls、xlsx可能跳过空行
+     */
+    boolean isCheckpoint(int rowIndex) {
+        if (checkpointInterval == 0 || rowIndex / checkpointInterval <= checkpointRow / checkpointInterval) {
+            return false;
+        }
+
+        checkpointRow = rowIndex;
+        return true;
+    }
+
+    /**
+     * csv记录匹配？
+     * 无引号或引号内没有转义，按字符区间判断，不创建String
+     */
+    boolean test(CsvRecord record) {
+        for (int i = 0; i < filters.length; i++) {
+            if (!filters[i].test(field(record, columns[i]))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * 数组匹配？
+     * 解析失败的行，不过滤
+     */
+    boolean test(String[] values) {
+        if (Objects.isNull(values)) {
+            return true;
+        }
+
+        for (int i = 0; i < filters.length; i++) {
+            int column = columns[i];
+            if (!filters[i].test(column < values.length ? values[column] : null)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * easyexcel原始单元格匹配？
+     * 数值区间直接比较数值单元格，其余按easyexcel的String转换
+     */
+    boolean test(Map<Integer, ReadCellData<?>> cellMap, AnalysisContext context) throws Exception {
+        if (Objects.isNull(cellMap)) {
+            return true;
+        }
+
+        for (int i = 0; i < filters.length; i++) {
+            RowFilter filter = filters[i];
+            ReadCellData<?> cell = cellMap.get(columns[i]);
+
+            boolean matched;
+            if (filter.isNumeric() && Objects.nonNull(cell) &&
+                    cell.getType() == CellDataTypeEnum.NUMBER && Objects.nonNull(cell.getNumberValue())) {
+                matched = filter.test(cell.getNumberValue().doubleValue());
+            } else {
+                matched = filter.test(TypedConverter.asString(cell, context));
+            }
+
+            if (!matched) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * xlsx原始单元格匹配？
+     * 只转换过滤列；数值区间直接比较数值单元格
+     */
+    boolean test(XlsxRow row) {
+        for (int i = 0; i < filters.length; i++) {
+            RowFilter filter = filters[i];
+            ReadCellData<?> cell = row.getCell(columns[i]);
+
+            boolean matched;
+            if (filter.isNumeric() && Objects.nonNull(cell) &&
+                    cell.getType() == CellDataTypeEnum.NUMBER && Objects.nonNull(cell.getNumberValue())) {
+                matched = filter.test(cell.getNumberValue().doubleValue());
+            } else {
+                matched = filter.test(row.asString(cell));
+            }
+
+            if (!matched) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * 字段 -> 字符序列
+     * 没有该字段，返回null
+     */
+    private CharSequence field(CsvRecord record, int index) {
+        if (index >= record.size()) {
+            return null;
+        }
+
+        int start = record.getValueOffset(index);
+        if (start < 0) {
+            return record.get(index);
+        }
+
+        return range.set(record.getBuffer(), start, start + record.getValueLength(index));
+    }
+
+}
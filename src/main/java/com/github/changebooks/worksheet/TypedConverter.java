@@ -0,0 +1,445 @@
+package com.github.changebooks.worksheet;
+
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.converters.Converter;
+import com.alibaba.excel.converters.ConverterKeyBuild;
+import com.alibaba.excel.converters.ReadConverterContext;
+import com.alibaba.excel.enums.CellDataTypeEnum;
+import com.alibaba.excel.metadata.data.DataFormatData;
+import com.alibaba.excel.metadata.data.ReadCellData;
+import com.alibaba.excel.util.DateUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.CharBuffer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+
+/**
+ * 单元格 -> TypedRow
+ * csv字段直接从字符缓冲区解析，不创建String；引号内有转义的引号，才创建String
+ *
+ * @author changebooks
+ */
+final class TypedConverter {
+    /**
+     * excel日期，1900年系统的第0天
+     */
+    private static final LocalDate EXCEL_EPOCH_1900 = LocalDate.of(1899, 12, 30);
+
+    /**
+     * excel日期，1904年系统的第0天
+     */
+    private static final LocalDate EXCEL_EPOCH_1904 = LocalDate.of(1904, 1, 1);
+
+    /**
+     * 10的幂，double精确表示
+     */
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
+    private TypedConverter() {
+    }
+
+    /**
+     * csv字段 -> row[position]
+     * 空字段，空值
+     */
+    static void convert(TypedRow row, int position, CsvRecord record, int index) {
+        int start = record.getValueOffset(index);
+        if (start < 0) {
+            // 转义的引号、\r，或引号不在首尾
+            char[] chars = record.get(index).toCharArray();
+            convert(row, position, chars, 0, chars.length);
+            return;
+        }
+
+        convert(row, position, record.getBuffer(), start, start + record.getValueLength(index));
+    }
+
+    /**
+     * 字符[start, end) -> row[position]
+     * 除STRING外，去掉首尾空白
+     */
+    static void convert(TypedRow row, int position, char[] buffer, int start, int end) {
+        ReadSchema schema = row.getSchema();
+        ColumnType type = schema.getType(position);
+
+        if (type == ColumnType.STRING) {
+            if (end > start) {
+                row.setObject(position, new String(buffer, start, end - start));
+            }
+
+            return;
+        }
+
+        while (start < end && buffer[start] <= ' ') {
+            start++;
+        }
+
+        while (end > start && buffer[end - 1] <= ' ') {
+            end--;
+        }
+
+        if (start == end) {
+            return;
+        }
+
+        switch (type) {
+            case INT:
+                long value = parseLong(buffer, start, end);
+                if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                    throw new NumberFormatException("int overflow: " + new String(buffer, start, end - start));
+                }
+
+                row.setLong(position, value);
+                break;
+            case LONG:
+                row.setLong(position, parseLong(buffer, start, end));
+                break;
+            case DOUBLE:
+                row.setDouble(position, parseDouble(buffer, start, end));
+                break;
+            case DECIMAL:
+                row.setObject(position, new BigDecimal(buffer, start, end - start));
+                break;
+            case BOOLEAN:
+                row.setLong(position, parseBoolean(buffer, start, end) ? 1 : 0);
+                break;
+            case LOCAL_DATE:
+                row.setObject(position, parseDate(buffer, start, end, schema.getFormatter(position)));
+                break;
+            default:
+                throw new IllegalArgumentException("unsupported type: " + type);
+        }
+    }
+
+    /**
+     * excel单元格 -> row[position]
+     * 数值单元格直接取BigDecimal，不经过字符串
+     * 日期列：日期格式的数值是日期序号；其它数值按数字解析，如：20240115
+     */
+    static void convert(TypedRow row, int position, ReadCellData<?> cell, AnalysisContext context) throws Exception {
+        if (Objects.isNull(cell)) {
+            return;
+        }
+
+        CellDataTypeEnum cellType = cell.getType();
+        if (Objects.isNull(cellType) || cellType == CellDataTypeEnum.EMPTY || cellType == CellDataTypeEnum.ERROR) {
+            return;
+        }
+
+        ColumnType type = row.getSchema().getType(position);
+
+        if (type == ColumnType.STRING) {
+            String value = asString(cell, context);
+            if (Objects.nonNull(value)) {
+                row.setObject(position, value);
+            }
+
+            return;
+        }
+
+        if (cellType == CellDataTypeEnum.NUMBER && Objects.nonNull(cell.getNumberValue())) {
+            BigDecimal number = cell.getNumberValue();
+
+            switch (type) {
+                case INT:
+                    row.setLong(position, number.intValueExact());
+                    return;
+                case LONG:
+                    row.setLong(position, number.longValueExact());
+                    return;
+                case DOUBLE:
+                    row.setDouble(position, number.doubleValue());
+                    return;
+                case DECIMAL:
+                    row.setObject(position, number);
+                    return;
+                case BOOLEAN:
+                    row.setLong(position, number.signum() != 0 ? 1 : 0);
+                    return;
+                case LOCAL_DATE:
+                    if (isDateFormat(cell.getDataFormatData())) {
+                        row.setObject(position, toDate(number, context));
+                    } else {
+                        char[] chars = number.toPlainString().toCharArray();
+                        row.setObject(position, parseDate(chars, 0, chars.length, row.getSchema().getFormatter(position)));
+                    }
+
+                    return;
+                default:
+                    throw new IllegalArgumentException("unsupported type: " + type);
+            }
+        }
+
+        if (cellType == CellDataTypeEnum.BOOLEAN && Objects.nonNull(cell.getBooleanValue())) {
+            boolean value = cell.getBooleanValue();
+
+            if (type == ColumnType.BOOLEAN) {
+                row.setLong(position, value ? 1 : 0);
+                return;
+            }
+
+            throw new IllegalArgumentException("boolean cell can't convert to " + type);
+        }
+
+        String value = cell.getStringValue();
+        if (Objects.nonNull(value)) {
+            char[] chars = value.toCharArray();
+            convert(row, position, chars, 0, chars.length);
+        }
+    }
+
+    /**
+     * 整数，允许小数部分全为0，如：12.00
+     */
+    static long parseLong(char[] buffer, int start, int end) {
+        if (start >= end) {
+            throw numberFormat(buffer, start, end);
+        }
+
+        int i = start;
+        boolean negative = false;
+
+        char first = buffer[i];
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        if (i == end) {
+            throw numberFormat(buffer, start, end);
+        }
+
+        long result = 0;
+        int digits = 0;
+
+        for (; i < end; i++) {
+            char c = buffer[i];
+            if (c >= '0' && c <= '9') {
+                if (++digits > 18) {
+                    // 可能溢出
+                    return Long.parseLong(new String(buffer, start, end - start));
+                }
+
+                result = result * 10 + (c - '0');
+                continue;
+            }
+
+            if (c == '.' && digits > 0) {
+                for (int j = i + 1; j < end; j++) {
+                    if (buffer[j] != '0') {
+                        throw numberFormat(buffer, start, end);
+                    }
+                }
+
+                break;
+            }
+
+            throw numberFormat(buffer, start, end);
+        }
+
+        if (digits == 0) {
+            throw numberFormat(buffer, start, end);
+        }
+
+        return negative ? -result : result;
+    }
+
+    /**
+     * 浮点数
+     * 不超过15位有效数字、没有指数，尾数和10的幂都能精确表示，相除的结果与Double.parseDouble相同；否则Double.parseDouble
+     */
+    static double parseDouble(char[] buffer, int start, int end) {
+        if (start >= end) {
+            throw numberFormat(buffer, start, end);
+        }
+
+        int i = start;
+        boolean negative = false;
+
+        char first = buffer[i];
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        boolean any = false;
+
+        for (; i < end; i++) {
+            char c = buffer[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                any = true;
+                if (mantissa > 0) {
+                    digits++;
+                }
+
+                if (point) {
+                    scale++;
+                }
+
+                if (digits > 15 || scale >= POW10.length) {
+                    return Double.parseDouble(new String(buffer, start, end - start));
+                }
+
+                continue;
+            }
+
+            if (c == '.' && !point) {
+                point = true;
+                continue;
+            }
+
+            // 指数、NaN、Infinity等
+            return Double.parseDouble(new String(buffer, start, end - start));
+        }
+
+        if (!any) {
+            throw numberFormat(buffer, start, end);
+        }
+
+        double result = mantissa / POW10[scale];
+        return negative ? -result : result;
+    }
+
+    /**
+     * true、false、1、0、yes、no、y、n、是、否，不区分大小写
+     */
+    static boolean parseBoolean(char[] buffer, int start, int end) {
+        int len = end - start;
+
+        if (len == 1) {
+            char c = Character.toLowerCase(buffer[start]);
+            if (c == '1' || c == 'y' || c == 't' || c == '是') {
+                return true;
+            }
+
+            if (c == '0' || c == 'n' || c == 'f' || c == '否') {
+                return false;
+            }
+        } else if (regionMatches(buffer, start, end, "true") || regionMatches(buffer, start, end, "yes")) {
+            return true;
+        } else if (regionMatches(buffer, start, end, "false") || regionMatches(buffer, start, end, "no")) {
+            return false;
+        }
+
+        throw new IllegalArgumentException("not a boolean: " + new String(buffer, start, len));
+    }
+
+    /**
+     * 日期
+     * formatter = null ? yyyy-MM-dd、yyyy/MM/dd，之后可以有时间；yyyyMMdd
+     */
+    static LocalDate parseDate(char[] buffer, int start, int end, DateTimeFormatter formatter) {
+        int len = end - start;
+
+        if (Objects.nonNull(formatter)) {
+            return LocalDate.parse(CharBuffer.wrap(buffer, start, len), formatter);
+        }
+
+        if (len >= 10 && (len == 10 || buffer[start + 10] == ' ' || buffer[start + 10] == 'T')) {
+            char sep = buffer[start + 4];
+            if ((sep == '-' || sep == '/') && buffer[start + 7] == sep) {
+                int year = digits(buffer, start, start + 4);
+                int month = digits(buffer, start + 5, start + 7);
+                int day = digits(buffer, start + 8, start + 10);
+                if (year >= 0 && month >= 0 && day >= 0) {
+                    return LocalDate.of(year, month, day);
+                }
+            }
+        }
+
+        if (len == 8) {
+            int year = digits(buffer, start, start + 4);
+            int month = digits(buffer, start + 4, start + 6);
+            int day = digits(buffer, start + 6, start + 8);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+
+        return LocalDate.parse(CharBuffer.wrap(buffer, start, len));
+    }
+
+    /**
+     * 单元格格式是日期？
+     */
+    private static boolean isDateFormat(DataFormatData format) {
+        return Objects.nonNull(format) && DateUtils.isADateFormat(format.getIndex(), format.getFormat());
+    }
+
+    /**
+     * excel日期序号 -> 日期
+     */
+    private static LocalDate toDate(BigDecimal number, AnalysisContext context) {
+        Boolean use1904 = Objects.isNull(context) ? null :
+                context.readWorkbookHolder().getGlobalConfiguration().getUse1904windowing();
+
+        long days = number.setScale(0, RoundingMode.FLOOR).longValueExact();
+        return (Boolean.TRUE.equals(use1904) ? EXCEL_EPOCH_1904 : EXCEL_EPOCH_1900).plusDays(days);
+    }
+
+    /**
+     * 单元格 -> String
+     * 与easyexcel默认监听的结果相同，按单元格格式
+     */
+    static String asString(ReadCellData<?> cell, AnalysisContext context) throws Exception {
+        if (Objects.isNull(cell) || cell.getType() == CellDataTypeEnum.EMPTY) {
+            return null;
+        }
+
+        Converter<?> converter = context.readSheetHolder().converterMap().
+                get(ConverterKeyBuild.buildKey(String.class, cell.getType()));
+        if (Objects.isNull(converter)) {
+            return cell.getStringValue();
+        }
+
+        return (String) converter.convertToJavaData(new ReadConverterContext<>(cell, null, context));
+    }
+
+    /**
+     * [start, end)全为数字 -> 整数；否则-1
+     */
+    private static int digits(char[] buffer, int start, int end) {
+        int result = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = buffer[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            result = result * 10 + (c - '0');
+        }
+
+        return result;
+    }
+
+    private static boolean regionMatches(char[] buffer, int start, int end, String value) {
+        if (end - start != value.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.toLowerCase(buffer[start + i]) != value.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static NumberFormatException numberFormat(char[] buffer, int start, int end) {
+        return new NumberFormatException("For input string: \"" + new String(buffer, start, end - start) + "\"");
+    }
+
+}
@@ -0,0 +1,248 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * 按列定义转换的数据行
+ * int、long、double、boolean保存为基本类型，不装箱
+ * 由读取方复用，只在回调期间有效；回调之后继续持有，先copy()
+ *
+ * @author changebooks
+ */
+public final class TypedRow {
+    /**
+     * 列定义
+     */
+    private final ReadSchema schema;
+
+    /**
+     * int、long、boolean（1、0）
+     */
+    private final long[] longs;
+
+    /**
+     * double
+     */
+    private final double[] doubles;
+
+    /**
+     * String、BigDecimal、LocalDate
+     */
+    private final Object[] objects;
+
+    /**
+     * 空值？
+     */
+    private final boolean[] nulls;
+
+    TypedRow(ReadSchema schema) {
+        int size = schema.size();
+
+        this.schema = schema;
+        this.longs = new long[size];
+        this.doubles = new double[size];
+        this.objects = new Object[size];
+        this.nulls = new boolean[size];
+    }
+
+    /**
+     * 列数
+     */
+    public int size() {
+        return schema.size();
+    }
+
+    public ReadSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * 空值？单元格为空或转换失败
+     */
+    public boolean isNull(int position) {
+        return nulls[position];
+    }
+
+    public boolean isNull(String name) {
+        return isNull(positionOf(name));
+    }
+
+    /**
+     * INT
+     * 空值，返回0
+     */
+    public int getInt(int position) {
+        checkType(position, ColumnType.INT == schema.getType(position));
+
+        return (int) longs[position];
+    }
+
+    public int getInt(String name) {
+        return getInt(positionOf(name));
+    }
+
+    /**
+     * INT、LONG
+     * 空值，返回0
+     */
+    public long getLong(int position) {
+        ColumnType type = schema.getType(position);
+        checkType(position, type == ColumnType.LONG || type == ColumnType.INT);
+
+        return longs[position];
+    }
+
+    public long getLong(String name) {
+        return getLong(positionOf(name));
+    }
+
+    /**
+     * DOUBLE、INT、LONG
+     * 空值，返回0
+     */
+    public double getDouble(int position) {
+        ColumnType type = schema.getType(position);
+        checkType(position, type == ColumnType.DOUBLE || type == ColumnType.INT || type == ColumnType.LONG);
+
+        return type == ColumnType.DOUBLE ? doubles[position] : longs[position];
+    }
+
+    public double getDouble(String name) {
+        return getDouble(positionOf(name));
+    }
+
+    /**
+     * BOOLEAN
+     * 空值，返回false
+     */
+    public boolean getBoolean(int position) {
+        checkType(position, ColumnType.BOOLEAN == schema.getType(position));
+
+        return longs[position] != 0;
+    }
+
+    public boolean getBoolean(String name) {
+        return getBoolean(positionOf(name));
+    }
+
+    /**
+     * DECIMAL
+     * 空值，返回null
+     */
+    public BigDecimal getDecimal(int position) {
+        checkType(position, ColumnType.DECIMAL == schema.getType(position));
+
+        return (BigDecimal) objects[position];
+    }
+
+    public BigDecimal getDecimal(String name) {
+        return getDecimal(positionOf(name));
+    }
+
+    /**
+     * LOCAL_DATE
+     * 空值，返回null
+     */
+    public LocalDate getDate(int position) {
+        checkType(position, ColumnType.LOCAL_DATE == schema.getType(position));
+
+        return (LocalDate) objects[position];
+    }
+
+    public LocalDate getDate(String name) {
+        return getDate(positionOf(name));
+    }
+
+    /**
+     * 任意类型，转为字符串
+     * 空值，返回null
+     */
+    public String getString(int position) {
+        if (nulls[position]) {
+            return null;
+        }
+
+        switch (schema.getType(position)) {
+            case INT:
+            case LONG:
+                return Long.toString(longs[position]);
+            case DOUBLE:
+                return Double.toString(doubles[position]);
+            case BOOLEAN:
+                return Boolean.toString(longs[position] != 0);
+            default:
+                return String.valueOf(objects[position]);
+        }
+    }
+
+    public String getString(String name) {
+        return getString(positionOf(name));
+    }
+
+    /**
+     * 复制，回调之后继续持有
+     */
+    public TypedRow copy() {
+        TypedRow result = new TypedRow(schema);
+
+        System.arraycopy(longs, 0, result.longs, 0, longs.length);
+        System.arraycopy(doubles, 0, result.doubles, 0, doubles.length);
+        System.arraycopy(objects, 0, result.objects, 0, objects.length);
+        System.arraycopy(nulls, 0, result.nulls, 0, nulls.length);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        String[] values = new String[size()];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getString(i);
+        }
+
+        return Arrays.toString(values);
+    }
+
+    /**
+     * 清空，开始新行
+     */
+    void reset() {
+        Arrays.fill(longs, 0L);
+        Arrays.fill(doubles, 0D);
+        Arrays.fill(objects, null);
+        Arrays.fill(nulls, true);
+    }
+
+    void setLong(int position, long value) {
+        longs[position] = value;
+        nulls[position] = false;
+    }
+
+    void setDouble(int position, double value) {
+        doubles[position] = value;
+        nulls[position] = false;
+    }
+
+    void setObject(int position, Object value) {
+        objects[position] = value;
+        nulls[position] = false;
+    }
+
+    private int positionOf(String name) {
+        int result = schema.indexOf(name);
+        Preconditions.checkArgument(result >= 0, "column not found, name: " + name);
+
+        return result;
+    }
+
+    private void checkType(int position, boolean matched) {
+        if (!matched) {
+            throw new IllegalStateException("column type mismatch, position: " + position + ", type: " + schema.getType(position));
+        }
+    }
+
+}
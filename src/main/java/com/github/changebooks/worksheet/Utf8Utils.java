@@ -3,9 +3,15 @@ package com.github.changebooks.worksheet;
 import com.google.common.base.Preconditions;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Utf-8 编码
+ * 按RFC 3629校验：拒绝超长编码、代理区（U+D800..U+DFFF）、大于U+10FFFF、5/6字节首字节
+ * 状态机查表校验多字节；ASCII每次跳过8字节
  *
  * @author changebooks
  */
@@ -20,6 +26,72 @@ public final class Utf8Utils {
      */
     public static final int BYTE_SIZE = Byte.SIZE;
 
+    /**
+     * 流式校验的缓冲区大小，字节
+     */
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 状态：完整的字符之后
+     */
+    static final int ACCEPT = 0;
+
+    /**
+     * 状态：非法
+     */
+    static final int REJECT = 1;
+
+    /**
+     * 每字节的最高位
+     */
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /**
+     * 字符类别数
+     */
+    private static final int CLASS_SIZE = 12;
+
+    /**
+     * 字节 -> 字符类别
+     * 0 - 00..7F
+     * 1 - 80..8F
+     * 2 - 90..9F
+     * 3 - A0..BF
+     * 4 - C0、C1、F5..FF，非法
+     * 5 - C2..DF
+     * 6 - E0
+     * 7 - E1..EC、EE、EF
+     * 8 - ED
+     * 9 - F0
+     * 10 - F1..F3
+     * 11 - F4
+     */
+    private static final byte[] CLASSES = newClasses();
+
+    /**
+     * [状态 * CLASS_SIZE + 字符类别] -> 下一状态
+     * 0 - 完整，1 - 非法
+     * 2 - 还差1个 80..BF
+     * 3 - 还差2个 80..BF
+     * 4 - 还差3个 80..BF
+     * 5 - E0之后，下一个 A0..BF，拒绝超长编码
+     * 6 - ED之后，下一个 80..9F，拒绝代理区
+     * 7 - F0之后，下一个 90..BF，拒绝超长编码
+     * 8 - F4之后，下一个 80..8F，拒绝大于U+10FFFF
+     */
+    private static final byte[] TRANSITIONS = {
+            // 00  80  90  A0  非法 C2  E0  E1  ED  F0  F1  F4
+            0, 1, 1, 1, 1, 2, 5, 3, 6, 7, 4, 8,
+            1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+            1, 0, 0, 0, 1, 1, 1, 1, 1, 1, 1, 1,
+            1, 2, 2, 2, 1, 1, 1, 1, 1, 1, 1, 1,
+            1, 3, 3, 3, 1, 1, 1, 1, 1, 1, 1, 1,
+            1, 1, 1, 2, 1, 1, 1, 1, 1, 1, 1, 1,
+            1, 2, 2, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+            1, 1, 3, 3, 1, 1, 1, 1, 1, 1, 1, 1,
+            1, 3, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+    };
+
     /**
      * 多字节
      */
@@ -97,6 +169,7 @@ public final class Utf8Utils {
 
     /**
      * file is utf-8 ?
+     * 空文件，返回false
      */
     public boolean check(File file) throws IOException {
         Preconditions.checkNotNull(file, "file can't be null");
@@ -149,29 +222,88 @@ public final class Utf8Utils {
 
     /**
      * file is utf-8 ?
+     * checkSize = 0 ? 校验全部文件，流式读，不载入内存；末尾截断的字符非法
+     * 空文件，返回false；之前抛出IllegalArgumentException
      */
     public static boolean checkBody(File file, int checkSize) throws IOException {
         Preconditions.checkNotNull(file, "file can't be null");
         Preconditions.checkArgument(checkSize >= 0, "checkSize must be non-negative");
 
-        try (InputStream stream = new FileInputStream(file)) {
-            return checkBody(stream, checkSize);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return check(channel, checkSize);
         }
     }
 
     /**
      * stream is utf-8 ?
+     * checkSize > 0 ? 只校验前checkSize字节，在checkSize处截断的字符视为合法
+     * 空流，返回false
      */
     public static boolean checkBody(InputStream stream, int checkSize) throws IOException {
         Preconditions.checkNotNull(stream, "stream can't be null");
         Preconditions.checkArgument(checkSize >= 0, "checkSize must be non-negative");
 
-        byte[] data = read(stream, checkSize);
-        return check(data);
+        byte[] buffer = new byte[checkSize > 0 ? Math.min(checkSize, BUFFER_SIZE) : BUFFER_SIZE];
+        int state = ACCEPT;
+        long total = 0;
+
+        while (checkSize == 0 || total < checkSize) {
+            int len = checkSize > 0 ? (int) Math.min(buffer.length, checkSize - total) : buffer.length;
+            int n = stream.read(buffer, 0, len);
+            if (n < 0) {
+                return total > 0 && state == ACCEPT;
+            }
+
+            state = validate(state, ByteBuffer.wrap(buffer), 0, n);
+            if (state == REJECT) {
+                return false;
+            }
+
+            total += n;
+        }
+
+        return true;
+    }
+
+    /**
+     * channel is utf-8 ?
+     * 从当前位置流式读
+     * checkSize > 0 ? 只校验前checkSize字节，在checkSize处截断的字符视为合法
+     * 没有可读的字节，返回false
+     */
+    public static boolean check(ReadableByteChannel channel, int checkSize) throws IOException {
+        Preconditions.checkNotNull(channel, "channel can't be null");
+        Preconditions.checkArgument(checkSize >= 0, "checkSize must be non-negative");
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(checkSize > 0 ? Math.min(checkSize, BUFFER_SIZE) : BUFFER_SIZE);
+        int state = ACCEPT;
+        long total = 0;
+
+        while (checkSize == 0 || total < checkSize) {
+            buffer.clear();
+            if (checkSize > 0) {
+                buffer.limit((int) Math.min(buffer.capacity(), checkSize - total));
+            }
+
+            int n = channel.read(buffer);
+            if (n < 0) {
+                return total > 0 && state == ACCEPT;
+            }
+
+            state = validate(state, buffer, 0, n);
+            if (state == REJECT) {
+                return false;
+            }
+
+            total += n;
+        }
+
+        return true;
     }
 
     /**
      * byte[] is utf-8 ?
+     * 末尾截断的字符，非法
      */
     public static boolean check(byte[] data) {
         Preconditions.checkNotNull(data, "data can't be null");
@@ -179,31 +311,52 @@ public final class Utf8Utils {
         int len = data.length;
         Preconditions.checkArgument(len > 0, "data.len must be positive");
 
-        for (int i = 0; i < len; i++) {
-            byte value = data[i];
-            if (isSingle(value)) {
-                continue;
-            }
+        return validate(ACCEPT, ByteBuffer.wrap(data), 0, len) == ACCEPT;
+    }
 
-            // Multi byte's size
-            int size = MultiByte.size(value) - 1;
+    /**
+     * byte[] is utf-8 ?
+     * data是前缀，末尾截断的字符视为合法
+     */
+    public static boolean checkPrefix(byte[] data) {
+        Preconditions.checkNotNull(data, "data can't be null");
 
-            // 110xxxxx - size = 1, e.g. 110xxxxx 10xxxxxx
-            // 1110xxxx - size = 2, e.g. 110xxxxx 10xxxxxx 10xxxxxx
-            if (size < 1) {
-                return false;
+        int len = data.length;
+        Preconditions.checkArgument(len > 0, "data.len must be positive");
+
+        return validate(ACCEPT, ByteBuffer.wrap(data), 0, len) != REJECT;
+    }
+
+    /**
+     * 校验[from, to)，从state继续
+     * 分段校验时，上一段的返回值传给下一段
+     *
+     * @return ACCEPT ? 完整；REJECT ? 非法；其它 ? 末尾截断
+     */
+    static int validate(int state, ByteBuffer buffer, int from, int to) {
+        int i = from;
+
+        while (i < to) {
+            if (state == ACCEPT) {
+                // ASCII，每次8字节
+                while (i + Long.BYTES <= to && (buffer.getLong(i) & HIGH_BITS) == 0) {
+                    i += Long.BYTES;
+                }
+
+                if (i >= to) {
+                    break;
+                }
             }
 
-            // skip first
-            int index = i + 1;
-            if (!MultiByte.checkSlice(data, index, size)) {
-                return false;
+            state = TRANSITIONS[state * CLASS_SIZE + CLASSES[buffer.get(i) & 0xFF]];
+            if (state == REJECT) {
+                return REJECT;
             }
 
-            i += size;
+            i++;
         }
 
-        return true;
+        return state;
     }
 
     /**
@@ -267,4 +420,43 @@ public final class Utf8Utils {
         }
     }
 
+    private static byte[] newClasses() {
+        byte[] result = new byte[256];
+
+        for (int i = 0; i < 256; i++) {
+            byte c;
+            if (i < 0x80) {
+                c = 0;
+            } else if (i < 0x90) {
+                c = 1;
+            } else if (i < 0xA0) {
+                c = 2;
+            } else if (i < 0xC0) {
+                c = 3;
+            } else if (i < 0xC2) {
+                c = 4;
+            } else if (i < 0xE0) {
+                c = 5;
+            } else if (i == 0xE0) {
+                c = 6;
+            } else if (i == 0xED) {
+                c = 8;
+            } else if (i < 0xF0) {
+                c = 7;
+            } else if (i == 0xF0) {
+                c = 9;
+            } else if (i < 0xF4) {
+                c = 10;
+            } else if (i == 0xF4) {
+                c = 11;
+            } else {
+                c = 4;
+            }
+
+            result[i] = c;
+        }
+
+        return result;
+    }
+
 }
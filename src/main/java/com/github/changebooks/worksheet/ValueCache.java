@@ -0,0 +1,225 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 值缓存，每次读创建一个，不是线程安全的
+ * 按位置分列，每列容量有限；命中返回已有的String，重复的值只保留一个实例
+ * 每个值探测PROBES个槽，都满了淘汰命中次数最少的，其余槽的次数减半，久未命中的值逐渐淘汰
+ * 字符区间直接查找，命中不创建String
+ *
+ * @author changebooks
+ */
+final class ValueCache {
+    /**
+     * 每个值探测的槽数
+     */
+    private static final int PROBES = 8;
+
+    /**
+     * 命中次数上限
+     */
+    private static final int MAX_HITS = 255;
+
+    /**
+     * 超过该长度的值不缓存，很少重复
+     */
+    static final int MAX_LENGTH = 64;
+
+    /**
+     * 每列的最大槽数
+     */
+    private static final int MAX_CAPACITY = 1 << 20;
+
+    /**
+     * 每列的槽数，2的幂，不小于容量的2倍，0 ? 不缓存
+     */
+    private final int capacity;
+
+    /**
+     * position => 列，用到才创建
+     */
+    private Column[] columns = new Column[0];
+
+    /**
+     * 字符区间，复用
+     */
+    private final RowFilter.CharRange range = new RowFilter.CharRange();
+
+    static ValueCache create(ReadOptions options) {
+        Preconditions.checkNotNull(options, "options can't be null");
+
+        return new ValueCache(options.getInternCapacity());
+    }
+
+    private ValueCache(int capacity) {
+        Preconditions.checkArgument(capacity >= 0, "capacity must be non-negative");
+
+        this.capacity = capacity == 0 ? 0 : Integer.highestOneBit(Math.max(Math.min(capacity, MAX_CAPACITY) * 2 - 1, PROBES - 1)) << 1;
+    }
+
+    /**
+     * 缓存？
+     */
+    boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * 值 -> 缓存的值
+     * 未命中，缓存并返回value
+     *
+     * @param position 列的位置
+     */
+    String intern(int position, String value) {
+        if (capacity == 0 || Objects.isNull(value) || value.length() > MAX_LENGTH) {
+            return value;
+        }
+
+        Column column = column(position);
+        int hash = value.hashCode();
+
+        String result = column.get(hash, value);
+        if (Objects.isNull(result)) {
+            column.put(hash, value);
+            result = value;
+        }
+
+        return result;
+    }
+
+    /**
+     * 字符区间[start, end) -> 缓存的值
+     * 命中不创建String
+     *
+     * @param position 列的位置
+     */
+    String intern(int position, char[] buffer, int start, int end) {
+        int len = end - start;
+        if (capacity == 0 || len > MAX_LENGTH) {
+            return new String(buffer, start, len);
+        }
+
+        // 与String.hashCode相同
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+
+        Column column = column(position);
+
+        String result = column.get(hash, range.set(buffer, start, end));
+        if (Objects.isNull(result)) {
+            result = new String(buffer, start, len);
+            column.put(hash, result);
+        }
+
+        return result;
+    }
+
+    private Column column(int position) {
+        if (position >= columns.length) {
+            columns = Arrays.copyOf(columns, Math.max(position + 1, columns.length * 2));
+        }
+
+        Column result = columns[position];
+        if (Objects.isNull(result)) {
+            result = new Column(capacity);
+            columns[position] = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * 一列的槽，开放寻址
+     */
+    private static final class Column {
+
+        private final String[] values;
+
+        private final int[] hashes;
+
+        /**
+         * 命中次数
+         */
+        private final int[] hits;
+
+        private final int mask;
+
+        Column(int capacity) {
+            this.values = new String[capacity];
+            this.hashes = new int[capacity];
+            this.hits = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        /**
+         * @return 未命中，返回null
+         */
+        String get(int hash, CharSequence key) {
+            int base = spread(hash);
+
+            for (int p = 0; p < PROBES; p++) {
+                int slot = (base + p) & mask;
+                String value = values[slot];
+
+                if (Objects.nonNull(value) && hashes[slot] == hash && value.contentEquals(key)) {
+                    if (hits[slot] < MAX_HITS) {
+                        hits[slot]++;
+                    }
+
+                    return value;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * 放入空槽，没有空槽淘汰命中次数最少的
+         */
+        void put(int hash, String value) {
+            int base = spread(hash);
+            int victim = -1;
+
+            for (int p = 0; p < PROBES; p++) {
+                int slot = (base + p) & mask;
+
+                if (Objects.isNull(values[slot])) {
+                    victim = slot;
+                    break;
+                }
+
+                if (victim < 0 || hits[slot] < hits[victim]) {
+                    victim = slot;
+                }
+            }
+
+            // 老化，其余槽的次数减半
+            for (int p = 0; p < PROBES; p++) {
+                int slot = (base + p) & mask;
+                if (slot != victim) {
+                    hits[slot] >>>= 1;
+                }
+            }
+
+            values[victim] = value;
+            hashes[victim] = hash;
+            hits[victim] = 1;
+        }
+
+        /**
+         * 打散hash，相近的值如"A1"、"A2"的hash相邻，不落在同一组槽
+         */
+        private static int spread(int hash) {
+            int h = hash * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.util.*;
+
+/**
+ * 标题行
+ * 不可变，同一文件的所有数据行共享
+ *
+ * @author changebooks
+ */
+public final class WorksheetHeader {
+    /**
+     * position => keyName，按columnIndex升序
+     */
+    private final String[] keys;
+
+    /**
+     * position => columnIndex
+     */
+    private final int[] columns;
+
+    /**
+     * keyName => position
+     */
+    private final Map<String, Integer> positions;
+
+    /**
+     * {columnIndex => keyName} -> 标题行
+     */
+    public static WorksheetHeader create(Map<Integer, String> keys) {
+        Preconditions.checkNotNull(keys, "keys can't be null");
+
+        int size = keys.size();
+        String[] keyArray = new String[size];
+        int[] columnArray = new int[size];
+        Map<String, Integer> positionMap = new HashMap<>(size * 4 / 3 + 1);
+
+        int position = 0;
+        for (Map.Entry<Integer, String> entry : new TreeMap<>(keys).entrySet()) {
+            Integer columnIndex = entry.getKey();
+            String key = entry.getValue();
+            Preconditions.checkNotNull(columnIndex, "columnIndex can't be null");
+            Preconditions.checkNotNull(key, "key can't be null");
+            Preconditions.checkArgument(!positionMap.containsKey(key),
+                    String.format("duplicated's key: %s, columnIndex: %d", key, columnIndex));
+
+            keyArray[position] = key;
+            columnArray[position] = columnIndex;
+            positionMap.put(key, position);
+            position++;
+        }
+
+        return new WorksheetHeader(keyArray, columnArray, Collections.unmodifiableMap(positionMap));
+    }
+
+    /**
+     * [keyName] -> 标题行，列号即顺序
+     * null跳过
+     */
+    static WorksheetHeader of(Collection<String> keys) {
+        Preconditions.checkNotNull(keys, "keys can't be null");
+
+        Map<Integer, String> result = new HashMap<>(keys.size() * 4 / 3 + 1);
+        for (String key : keys) {
+            if (Objects.nonNull(key)) {
+                result.put(result.size(), key);
+            }
+        }
+
+        return create(result);
+    }
+
+    /**
+     * 数据行 -> 标题行
+     * WorksheetRow取共享的标题行，其余按key的迭代顺序
+     */
+    static WorksheetHeader of(Map<String, String> row) {
+        Preconditions.checkNotNull(row, "row can't be null");
+
+        return row instanceof WorksheetRow ? ((WorksheetRow) row).getHeader() : of(row.keySet());
+    }
+
+    private WorksheetHeader(String[] keys, int[] columns, Map<String, Integer> positions) {
+        this.keys = keys;
+        this.columns = columns;
+        this.positions = positions;
+    }
+
+    /**
+     * 标题数
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * position -> keyName
+     */
+    public String getKey(int position) {
+        return keys[position];
+    }
+
+    /**
+     * position -> columnIndex
+     */
+    public int getColumn(int position) {
+        return columns[position];
+    }
+
+    /**
+     * keyName -> position
+     * 不存在，返回-1
+     */
+    public int indexOf(Object key) {
+        Integer position = positions.get(key);
+        return Objects.isNull(position) ? -1 : position;
+    }
+
+    /**
+     * 最大的columnIndex
+     * 空标题行，返回-1
+     */
+    public int getMaxColumn() {
+        return columns.length > 0 ? columns[columns.length - 1] : -1;
+    }
+
+    /**
+     * {columnIndex => keyName}
+     */
+    public Map<Integer, String> asMap() {
+        Map<Integer, String> result = new LinkedHashMap<>(keys.length * 4 / 3 + 1);
+
+        for (int i = 0; i < keys.length; i++) {
+            result.put(columns[i], keys[i]);
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(keys);
+    }
+
+}
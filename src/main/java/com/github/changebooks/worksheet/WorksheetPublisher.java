@@ -0,0 +1,221 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * 按需发布，背压
+ * 实现Reactive Streams的Publisher：onSubscribe -> onNext* -> (onError | onComplete)
+ * 每次subscribe从头读一遍；需求为0，解析线程在下一行等待，不缓冲
+ * cancel即StopException，解析在下一行停止，不再回调；request(n <= 0)，终止并回调onError(IllegalArgumentException)
+ * 回调在解析线程，串行；onNext期间不持有需求的锁，其它线程request、cancel不等待
+ *
+ * @param <T> 行或页
+ * @author changebooks
+ */
+public final class WorksheetPublisher<T> implements Publisher<T> {
+    /**
+     * 发布的任务，逐项交给emitter
+     */
+    interface Source<T> {
+        /**
+         * 在解析线程执行
+         *
+         * @throws StopException 已取消
+         */
+        void run(Consumer<T> emitter) throws IOException;
+
+    }
+
+    /**
+     * 默认，每次订阅一个后台线程
+     */
+    static final Executor DEFAULT_EXECUTOR = command -> {
+        Thread thread = new Thread(command, "worksheet-publisher");
+        thread.setDaemon(true);
+        thread.start();
+    };
+
+    /**
+     * 发布的任务
+     */
+    private final Source<T> source;
+
+    /**
+     * 执行解析
+     */
+    private final Executor executor;
+
+    static <T> WorksheetPublisher<T> create(Source<T> source, Executor executor) {
+        Preconditions.checkNotNull(source, "source can't be null");
+        Preconditions.checkNotNull(executor, "executor can't be null");
+
+        return new WorksheetPublisher<>(source, executor);
+    }
+
+    private WorksheetPublisher(Source<T> source, Executor executor) {
+        this.source = source;
+        this.executor = executor;
+    }
+
+    /**
+     * 订阅，从头读
+     */
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        Preconditions.checkNotNull(subscriber, "subscriber can't be null");
+
+        Emission<T> emission = new Emission<>(subscriber);
+        subscriber.onSubscribe(emission);
+
+        try {
+            executor.execute(() -> emission.run(source));
+        } catch (RejectedExecutionException e) {
+            emission.terminate(e);
+        }
+    }
+
+    /**
+     * 一次订阅
+     */
+    private static final class Emission<T> implements Subscription {
+
+        /**
+         * 需求、状态，不跨回调持有
+         */
+        private final Object lock = new Object();
+
+        /**
+         * 串行回调，异步分发的页在多个线程
+         * 先signalLock后lock，request、cancel只取lock
+         */
+        private final Object signalLock = new Object();
+
+        private final Subscriber<? super T> subscriber;
+
+        /**
+         * 未满足的需求
+         */
+        private long demand;
+
+        /**
+         * 已取消或已终止？
+         */
+        private boolean cancelled;
+
+        /**
+         * request(n <= 0)
+         */
+        private IllegalArgumentException invalid;
+
+        Emission(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (lock) {
+                if (n <= 0) {
+                    if (Objects.isNull(invalid)) {
+                        invalid = new IllegalArgumentException("n must be positive, n: " + n);
+                    }
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+
+                lock.notifyAll();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (lock) {
+                cancelled = true;
+                lock.notifyAll();
+            }
+        }
+
+        /**
+         * 解析线程
+         */
+        void run(Source<T> source) {
+            Throwable error = null;
+
+            try {
+                source.run(this::emit);
+            } catch (StopException e) {
+                // 已取消
+            } catch (Throwable e) {
+                error = e;
+            }
+
+            terminate(error);
+        }
+
+        /**
+         * 等到有需求，发布一项
+         * 异步分发的页在多个线程，按signalLock串行；onNext在lock外，其中可再request
+         *
+         * @throws StopException 已取消、request(n <= 0)
+         */
+        private void emit(T item) {
+            synchronized (signalLock) {
+                synchronized (lock) {
+                    while (demand == 0 && !cancelled && Objects.isNull(invalid)) {
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            cancelled = true;
+                        }
+                    }
+
+                    if (cancelled || Objects.nonNull(invalid)) {
+                        throw new StopException();
+                    }
+
+                    demand--;
+                }
+
+                subscriber.onNext(item);
+            }
+        }
+
+        /**
+         * 回调onError或onComplete，只一次
+         * 已取消，不回调
+         */
+        private void terminate(Throwable error) {
+            synchronized (signalLock) {
+                IllegalArgumentException invalidRequest;
+
+                synchronized (lock) {
+                    if (cancelled) {
+                        return;
+                    }
+
+                    cancelled = true;
+                    invalidRequest = invalid;
+                }
+
+                if (Objects.nonNull(invalidRequest)) {
+                    subscriber.onError(invalidRequest);
+                } else if (Objects.nonNull(error)) {
+                    subscriber.onError(error);
+                } else {
+                    subscriber.onComplete();
+                }
+            }
+        }
+
+    }
+
+}
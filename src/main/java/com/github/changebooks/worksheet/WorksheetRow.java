@@ -0,0 +1,232 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.util.*;
+
+/**
+ * 数据行，key => value
+ * 共享标题行，每行只保存值数组
+ * 修改已有标题的值，直接写入数组；新增、删除标题，转为LinkedHashMap
+ *
+ * @author changebooks
+ */
+public final class WorksheetRow extends AbstractMap<String, String> {
+    /**
+     * 标题行
+     */
+    private final WorksheetHeader header;
+
+    /**
+     * position => value
+     */
+    private final String[] values;
+
+    /**
+     * 新增、删除标题后的数据，keyName => value
+     */
+    private Map<String, String> delegate;
+
+    /**
+     * 条目集合
+     */
+    private Set<Entry<String, String>> entrySet;
+
+    public static WorksheetRow create(WorksheetHeader header, String[] values) {
+        Preconditions.checkNotNull(header, "header can't be null");
+        Preconditions.checkNotNull(values, "values can't be null");
+        Preconditions.checkArgument(values.length == header.size(),
+                String.format("values.len must be header.size, values.len: %d, header.size: %d",
+                        values.length, header.size()));
+
+        return new WorksheetRow(header, values);
+    }
+
+    private WorksheetRow(WorksheetHeader header, String[] values) {
+        this.header = header;
+        this.values = values;
+    }
+
+    @Override
+    public int size() {
+        return Objects.isNull(delegate) ? values.length : delegate.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return Objects.isNull(delegate) ? header.indexOf(key) >= 0 : delegate.containsKey(key);
+    }
+
+    @Override
+    public String get(Object key) {
+        if (Objects.nonNull(delegate)) {
+            return delegate.get(key);
+        }
+
+        int position = header.indexOf(key);
+        return position < 0 ? null : values[position];
+    }
+
+    @Override
+    public String put(String key, String value) {
+        if (Objects.isNull(delegate)) {
+            int position = header.indexOf(key);
+            if (position >= 0) {
+                String old = values[position];
+                values[position] = value;
+                return old;
+            }
+        }
+
+        return materialize().put(key, value);
+    }
+
+    @Override
+    public String remove(Object key) {
+        if (Objects.isNull(delegate) && header.indexOf(key) < 0) {
+            return null;
+        }
+
+        return materialize().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        materialize().clear();
+    }
+
+    /**
+     * 转为LinkedHashMap前后，返回同一个集合，迭代时按当前的数据
+     */
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        if (Objects.isNull(entrySet)) {
+            entrySet = new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return Objects.isNull(delegate) ? new EntryIterator() : delegate.entrySet().iterator();
+                }
+
+                @Override
+                public int size() {
+                    return WorksheetRow.this.size();
+                }
+            };
+        }
+
+        return entrySet;
+    }
+
+    /**
+     * position -> value
+     * 新增、删除标题后，按标题名读取
+     */
+    public String getValue(int position) {
+        return Objects.isNull(delegate) ? values[position] : delegate.get(header.getKey(position));
+    }
+
+    public WorksheetHeader getHeader() {
+        return header;
+    }
+
+    /**
+     * 新增、删除标题，转为LinkedHashMap
+     */
+    private Map<String, String> materialize() {
+        if (Objects.isNull(delegate)) {
+            Map<String, String> result = new LinkedHashMap<>(values.length * 4 / 3 + 1);
+
+            for (int i = 0; i < values.length; i++) {
+                result.put(header.getKey(i), values[i]);
+            }
+
+            delegate = result;
+        }
+
+        return delegate;
+    }
+
+    /**
+     * 按标题顺序遍历
+     * remove()转为LinkedHashMap再删除，之后的条目按标题名读写
+     */
+    private final class EntryIterator implements Iterator<Entry<String, String>> {
+
+        private int position;
+
+        /**
+         * 上次next()的位置，-1 ? 没有可删除的
+         */
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return position < values.length;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (position >= values.length) {
+                throw new NoSuchElementException();
+            }
+
+            final int current = position++;
+            last = current;
+
+            return new Entry<String, String>() {
+                @Override
+                public String getKey() {
+                    return header.getKey(current);
+                }
+
+                @Override
+                public String getValue() {
+                    return Objects.isNull(delegate) ? values[current] : delegate.get(getKey());
+                }
+
+                @Override
+                public String setValue(String value) {
+                    if (Objects.nonNull(delegate)) {
+                        return delegate.put(getKey(), value);
+                    }
+
+                    String old = values[current];
+                    values[current] = value;
+                    return old;
+                }
+
+                @Override
+                public boolean equals(Object o) {
+                    if (!(o instanceof Entry)) {
+                        return false;
+                    }
+
+                    Entry<?, ?> e = (Entry<?, ?>) o;
+                    return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+                }
+
+                @Override
+                public int hashCode() {
+                    return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+                }
+
+                @Override
+                public String toString() {
+                    return getKey() + "=" + getValue();
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+
+            materialize().remove(header.getKey(last));
+            last = -1;
+        }
+
+    }
+
+}
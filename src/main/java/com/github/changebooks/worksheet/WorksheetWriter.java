@@ -0,0 +1,255 @@
+package com.github.changebooks.worksheet;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.support.ExcelTypeEnum;
+import com.alibaba.excel.write.metadata.WriteSheet;
+import com.google.common.base.Preconditions;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 写csv、xlsx，按扩展名
+ * 标题行只确定一次：指定的标题，或第一行的key
+ * csv：CsvEncoder写文件通道；xlsx：easyexcel流式写，每BATCH_SIZE行写一批
+ * 内存固定，与行数无关
+ *
+ * @author changebooks
+ */
+final class WorksheetWriter implements Closeable {
+    /**
+     * xlsx每批行数
+     */
+    static final int BATCH_SIZE = 1000;
+
+    /**
+     * xlsx工作表名
+     */
+    private static final String SHEET_NAME = "Sheet1";
+
+    private final File file;
+
+    private final Charset charset;
+
+    /**
+     * xlsx ? csv
+     */
+    private final boolean xlsx;
+
+    /**
+     * 标题行，指定或第一行确定
+     */
+    private WorksheetHeader header;
+
+    private CsvEncoder csv;
+
+    private ExcelWriter excel;
+
+    private WriteSheet sheet;
+
+    /**
+     * xlsx待写的行
+     */
+    private List<List<String>> batch;
+
+    /**
+     * 已写的数据行数
+     */
+    private long count;
+
+    private boolean closed;
+
+    /**
+     * @param charset csv编码，xlsx忽略
+     * @param keys    标题，null ? 取第一行的key
+     * @throws IllegalArgumentException 不是csv、xlsx
+     */
+    static WorksheetWriter create(File file, Charset charset, List<String> keys) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+        Preconditions.checkNotNull(charset, "charset can't be null");
+
+        String extension = WorksheetType.getExtension(file.getName());
+        boolean xlsx = WorksheetType.EXTENSION_XLSX.equalsIgnoreCase(extension);
+        Preconditions.checkArgument(xlsx || WorksheetType.EXTENSION_CSV.equalsIgnoreCase(extension),
+                "file must be csv or xlsx, file: " + file);
+
+        WorksheetWriter result = new WorksheetWriter(file, charset, xlsx);
+        if (Objects.nonNull(keys)) {
+            result.open(WorksheetHeader.of(keys));
+        }
+
+        return result;
+    }
+
+    private WorksheetWriter(File file, Charset charset, boolean xlsx) {
+        this.file = file;
+        this.charset = charset;
+        this.xlsx = xlsx;
+    }
+
+    /**
+     * 写一行
+     * 只写标题行的key，没有的写空
+     */
+    void write(Map<String, String> row) throws IOException {
+        Preconditions.checkNotNull(row, "row can't be null");
+        Preconditions.checkState(!closed, "writer is closed");
+
+        if (Objects.isNull(header)) {
+            open(WorksheetHeader.of(row));
+        }
+
+        String[] values = values(header, row);
+        if (xlsx) {
+            batch.add(Arrays.asList(values));
+            if (batch.size() >= BATCH_SIZE) {
+                writeBatch();
+            }
+        } else {
+            csv.writeRecord(values);
+        }
+
+        count++;
+    }
+
+    /**
+     * 写一页，xlsx一批写入
+     */
+    void write(List<? extends Map<String, String>> rows) throws IOException {
+        Preconditions.checkNotNull(rows, "rows can't be null");
+
+        for (Map<String, String> row : rows) {
+            write(row);
+        }
+
+        if (xlsx) {
+            writeBatch();
+        }
+    }
+
+    /**
+     * 已写的行交给文件
+     */
+    void flush() throws IOException {
+        if (Objects.isNull(header)) {
+            return;
+        }
+
+        if (xlsx) {
+            writeBatch();
+        } else {
+            csv.flush();
+        }
+    }
+
+    WorksheetHeader getHeader() {
+        return header;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * 写完并关闭
+     * 没有行，也没有指定标题，写空文件
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        if (Objects.isNull(header)) {
+            open(WorksheetHeader.create(Collections.emptyMap()));
+        }
+
+        closed = true;
+
+        if (xlsx) {
+            try {
+                writeBatch();
+            } finally {
+                excel.finish();
+            }
+        } else {
+            csv.close();
+        }
+    }
+
+    /**
+     * 确定标题行，打开文件
+     */
+    private void open(WorksheetHeader header) throws IOException {
+        this.header = header;
+
+        if (xlsx) {
+            List<List<String>> head = new ArrayList<>(header.size());
+            for (int i = 0, size = header.size(); i < size; i++) {
+                head.add(Collections.singletonList(header.getKey(i)));
+            }
+
+            excel = EasyExcel.write(file).excelType(ExcelTypeEnum.XLSX).head(head).build();
+            sheet = EasyExcel.writerSheet(0, SHEET_NAME).build();
+            batch = new ArrayList<>(BATCH_SIZE);
+
+            // 没有数据行，也写标题行
+            excel.write(Collections.emptyList(), sheet);
+            return;
+        }
+
+        csv = new CsvEncoder(FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), charset);
+
+        if (header.size() > 0) {
+            String[] keys = new String[header.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = header.getKey(i);
+            }
+
+            csv.writeRecord(keys);
+        }
+    }
+
+    private void writeBatch() {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        excel.write(batch, sheet);
+        batch.clear();
+    }
+
+    /**
+     * 数据行 -> 按标题行的值
+     * 同一标题行的WorksheetRow，按位置取
+     */
+    static String[] values(WorksheetHeader header, Map<String, String> row) {
+        String[] result = new String[header.size()];
+
+        if (row instanceof WorksheetRow && ((WorksheetRow) row).getHeader() == header) {
+            WorksheetRow worksheetRow = (WorksheetRow) row;
+            for (int i = 0; i < result.length; i++) {
+                result[i] = worksheetRow.getValue(i);
+            }
+        } else {
+            for (int i = 0; i < result.length; i++) {
+                result[i] = row.get(header.getKey(i));
+            }
+        }
+
+        return result;
+    }
+
+}
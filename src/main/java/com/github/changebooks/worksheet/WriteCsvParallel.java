@@ -0,0 +1,343 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * 并行写csv
+ * 调用线程取值，按行数切块；ForkJoinPool并行格式化、编码每块为字节；调用线程按顺序聚集写文件通道
+ * 与WriteLine写的csv逐字节相同；编码须兼容ASCII，如：UTF-8、GBK、GB18030
+ * 最多缓存并行度 * 2块；用完须close
+ * 也是ReadLine的监听，读的行直接写出
+ *
+ * @author changebooks
+ */
+public final class WriteCsvParallel implements ReadLine.Listener, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteCsvParallel.class);
+
+    /**
+     * 默认块大小，行数
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 10000;
+
+    private final FileChannel channel;
+
+    private final Charset charset;
+
+    /**
+     * 线程池
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * 块大小，行数
+     */
+    private final int chunkSize;
+
+    /**
+     * 编码中的块，按顺序
+     */
+    private final Deque<Future<ByteBuffer>> window = new ArrayDeque<>();
+
+    /**
+     * 最多编码中的块数
+     */
+    private final int windowSize;
+
+    /**
+     * 标题行，指定或第一行确定
+     */
+    private WorksheetHeader header;
+
+    /**
+     * 待编码的行
+     */
+    private List<String[]> chunk;
+
+    /**
+     * 已写的数据行数
+     */
+    private long count;
+
+    private boolean closed;
+
+    public static WriteCsvParallel create(File file) throws IOException {
+        return create(file, null);
+    }
+
+    public static WriteCsvParallel create(File file, List<String> keys) throws IOException {
+        return create(file, StandardCharsets.UTF_8, keys);
+    }
+
+    public static WriteCsvParallel create(File file, Charset charset, List<String> keys) throws IOException {
+        return create(file, charset, keys, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param keys      标题，null ? 取第一行的key
+     * @param chunkSize 块大小，行数
+     * @throws IllegalArgumentException 不是csv，编码不兼容ASCII
+     */
+    public static WriteCsvParallel create(File file, Charset charset, List<String> keys,
+                                          ForkJoinPool pool, int chunkSize) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+        Preconditions.checkNotNull(charset, "charset can't be null");
+        Preconditions.checkNotNull(pool, "pool can't be null");
+        Preconditions.checkArgument(chunkSize > 0, "chunkSize must be positive");
+        Preconditions.checkArgument(WorksheetType.EXTENSION_CSV.equalsIgnoreCase(WorksheetType.getExtension(file.getName())),
+                "file must be csv, file: " + file);
+        Preconditions.checkArgument(CsvScanner.isAsciiCompatible(charset), "charset must be ascii compatible, charset: " + charset);
+
+        FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+        WriteCsvParallel result = new WriteCsvParallel(channel, charset, pool, chunkSize);
+        if (Objects.nonNull(keys)) {
+            result.open(WorksheetHeader.of(keys));
+        }
+
+        return result;
+    }
+
+    private WriteCsvParallel(FileChannel channel, Charset charset, ForkJoinPool pool, int chunkSize) {
+        this.channel = channel;
+        this.charset = charset;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.windowSize = Math.max(1, pool.getParallelism() * 2);
+    }
+
+    /**
+     * 写一行
+     * 只写标题行的key，没有的写空；调用线程取值，之后可修改row
+     */
+    public void write(Map<String, String> row) throws IOException {
+        Preconditions.checkNotNull(row, "row can't be null");
+        Preconditions.checkState(!closed, "writer is closed");
+
+        if (Objects.isNull(header)) {
+            open(WorksheetHeader.of(row));
+        }
+
+        chunk.add(WorksheetWriter.values(header, row));
+        count++;
+
+        if (chunk.size() >= chunkSize) {
+            submit();
+        }
+    }
+
+    /**
+     * 写一页
+     */
+    public void writePage(List<? extends Map<String, String>> rows) throws IOException {
+        Preconditions.checkNotNull(rows, "rows can't be null");
+
+        for (Map<String, String> row : rows) {
+            write(row);
+        }
+    }
+
+    /**
+     * 读的行，写出
+     *
+     * @throws UncheckedIOException 写失败
+     */
+    @Override
+    public void invoke(Integer rowIndex, Map<String, String> data) {
+        if (Objects.isNull(data)) {
+            LOGGER.error("read null, skip rowIndex: " + rowIndex);
+            return;
+        }
+
+        try {
+            write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onComplete(Integer rowIndex) {
+    }
+
+    /**
+     * 已写的行编码完，交给文件
+     */
+    public void flush() throws IOException {
+        if (Objects.isNull(header)) {
+            return;
+        }
+
+        submit();
+        drain(true);
+    }
+
+    /**
+     * 标题行，未确定返回null
+     */
+    public WorksheetHeader getHeader() {
+        return header;
+    }
+
+    /**
+     * 已写的数据行数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * 写完并关闭
+     * 没有行，也没有指定标题，写空文件
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        try {
+            if (Objects.nonNull(header)) {
+                submit();
+                drain(true);
+            }
+        } finally {
+            cancel();
+            channel.close();
+        }
+    }
+
+    /**
+     * 确定标题行，标题行为第一块
+     */
+    private void open(WorksheetHeader header) {
+        this.header = header;
+        this.chunk = new ArrayList<>(chunkSize);
+
+        if (header.size() > 0) {
+            String[] keys = new String[header.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = header.getKey(i);
+            }
+
+            chunk.add(keys);
+        }
+    }
+
+    /**
+     * 待编码的行交给线程池，窗口满则先写
+     */
+    private void submit() throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<String[]> records = chunk;
+        chunk = new ArrayList<>(chunkSize);
+
+        window.add(pool.submit(() -> encode(records, charset)));
+        drain(false);
+    }
+
+    /**
+     * 按顺序，聚集写已编码完的块
+     *
+     * @param all true ? 写完所有块；false ? 只写已编码完的，窗口满则等第一块
+     */
+    private void drain(boolean all) throws IOException {
+        while (!window.isEmpty()) {
+            if (!all && window.size() < windowSize && !window.peek().isDone()) {
+                return;
+            }
+
+            List<ByteBuffer> ready = new ArrayList<>();
+            ready.add(get(window.poll()));
+            while (!window.isEmpty() && window.peek().isDone()) {
+                ready.add(get(window.poll()));
+            }
+
+            write(ready.toArray(new ByteBuffer[0]));
+        }
+    }
+
+    private void write(ByteBuffer[] buffers) throws IOException {
+        ByteBuffer last = buffers[buffers.length - 1];
+        do {
+            channel.write(buffers);
+        } while (last.hasRemaining());
+    }
+
+    private void cancel() {
+        for (Future<?> future : window) {
+            future.cancel(false);
+        }
+
+        window.clear();
+    }
+
+    /**
+     * 格式化、编码一块，在工作线程
+     * 编码器每块新建；兼容ASCII的编码无状态，记录在块内完整，与连续编码相同
+     */
+    private static ByteBuffer encode(List<String[]> records, Charset charset) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (CsvEncoder encoder = new CsvEncoder(Channels.newChannel(out), charset)) {
+            for (String[] record : records) {
+                encoder.writeRecord(record);
+            }
+        }
+
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException(cause);
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.github.changebooks.worksheet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 逐行写
+ * 写csv和xlsx，按扩展名；csv默认UTF-8
+ * 标题行只确定一次：指定的标题，或第一行的key；之后每行只写这些key
+ * 内存固定，与行数无关；用完须close
+ * 也是ReadLine的监听，读的行直接写出
+ *
+ * <pre>
+ * <dependency>
+ *     <groupId>com.alibaba</groupId>
+ *     <artifactId>easyexcel</artifactId>
+ * </dependency>
+ * </pre>
+ *
+ * @author changebooks
+ */
+public final class WriteLine implements ReadLine.Listener, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteLine.class);
+
+    private final WorksheetWriter writer;
+
+    public static WriteLine create(File file) throws IOException {
+        return create(file, null);
+    }
+
+    public static WriteLine create(File file, List<String> keys) throws IOException {
+        return create(file, StandardCharsets.UTF_8, keys);
+    }
+
+    /**
+     * @param charset csv编码，xlsx忽略
+     * @param keys    标题，null ? 取第一行的key
+     * @throws IllegalArgumentException 不是csv、xlsx
+     */
+    public static WriteLine create(File file, Charset charset, List<String> keys) throws IOException {
+        return new WriteLine(WorksheetWriter.create(file, charset, keys));
+    }
+
+    private WriteLine(WorksheetWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * 写一行
+     */
+    public void write(Map<String, String> row) throws IOException {
+        writer.write(row);
+    }
+
+    /**
+     * 读的行，写出
+     *
+     * @throws UncheckedIOException 写失败
+     */
+    @Override
+    public void invoke(Integer rowIndex, Map<String, String> data) {
+        if (Objects.isNull(data)) {
+            LOGGER.error("read null, skip rowIndex: " + rowIndex);
+            return;
+        }
+
+        try {
+            writer.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onComplete(Integer rowIndex) {
+    }
+
+    /**
+     * 已写的行交给文件
+     */
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * 标题行，第一行之前为null
+     */
+    public WorksheetHeader getHeader() {
+        return writer.getHeader();
+    }
+
+    /**
+     * 已写的数据行数
+     */
+    public long getCount() {
+        return writer.getCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分页写
+ * 写csv和xlsx，按扩展名；csv默认UTF-8
+ * 逐行写的行攒满一页，一批写出；整页写，直接一批写出
+ * 也是ReadPage的监听，读的页直接写出
+ *
+ * <pre>
+ * <dependency>
+ *     <groupId>com.alibaba</groupId>
+ *     <artifactId>easyexcel</artifactId>
+ * </dependency>
+ * </pre>
+ *
+ * @author changebooks
+ */
+public final class WritePage implements ReadPage.Listener, Closeable {
+    /**
+     * 每页行数
+     */
+    private final int pageSize;
+
+    private final WorksheetWriter writer;
+
+    /**
+     * 逐行写的行，未满一页
+     */
+    private final List<Map<String, String>> buffer;
+
+    public static WritePage create(int pageSize, File file) throws IOException {
+        return create(pageSize, file, null);
+    }
+
+    public static WritePage create(int pageSize, File file, List<String> keys) throws IOException {
+        return create(pageSize, file, StandardCharsets.UTF_8, keys);
+    }
+
+    /**
+     * @param charset csv编码，xlsx忽略
+     * @param keys    标题，null ? 取第一行的key
+     * @throws IllegalArgumentException 不是csv、xlsx
+     */
+    public static WritePage create(int pageSize, File file, Charset charset, List<String> keys) throws IOException {
+        Preconditions.checkArgument(pageSize > 0, "pageSize must be positive");
+
+        return new WritePage(pageSize, WorksheetWriter.create(file, charset, keys));
+    }
+
+    private WritePage(int pageSize, WorksheetWriter writer) {
+        this.pageSize = pageSize;
+        this.writer = writer;
+        this.buffer = new ArrayList<>(pageSize);
+    }
+
+    /**
+     * 写一行，满一页写出
+     */
+    public void write(Map<String, String> row) throws IOException {
+        Preconditions.checkNotNull(row, "row can't be null");
+
+        buffer.add(row);
+        if (buffer.size() >= pageSize) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * 写一页，先写出未满一页的行
+     */
+    public void writePage(List<? extends Map<String, String>> page) throws IOException {
+        Preconditions.checkNotNull(page, "page can't be null");
+
+        flushBuffer();
+        writer.write(page);
+    }
+
+    /**
+     * 读的页，写出
+     * 池化的页，回调返回前已写完，不用retain
+     *
+     * @throws UncheckedIOException 写失败
+     */
+    @Override
+    public void invoke(Integer rowIndex, List<Map<String, String>> data) {
+        try {
+            writePage(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 已写的行交给文件，包括未满一页的
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        writer.flush();
+    }
+
+    /**
+     * 标题行，第一行之前为null
+     */
+    public WorksheetHeader getHeader() {
+        return writer.getHeader();
+    }
+
+    /**
+     * 已写的数据行数，不包括未满一页的
+     */
+    public long getCount() {
+        return writer.getCount();
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        writer.write(buffer);
+        buffer.clear();
+    }
+
+}
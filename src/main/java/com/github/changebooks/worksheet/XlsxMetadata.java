@@ -0,0 +1,425 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.base.Preconditions;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * xlsx元数据
+ * 只读zip中的workbook.xml和工作表xml，不解析单元格
+ * 行数、列数取工作表的 dimension ref；没有或只有一个单元格，流式统计 row
+ * 行数为最后一行的行号，中间的空行也计入，不是非空行数
+ *
+ * @author changebooks
+ */
+public final class XlsxMetadata {
+    /**
+     * 工作簿
+     */
+    private static final String WORKBOOK = "xl/workbook.xml";
+
+    /**
+     * 工作簿的关系
+     */
+    private static final String WORKBOOK_RELS = "xl/_rels/workbook.xml.rels";
+
+    /**
+     * 相对路径的根目录
+     */
+    private static final String BASE_DIR = "xl/";
+
+    /**
+     * xml解析器，禁用DTD和外部实体
+     */
+    private static final XMLInputFactory XML_FACTORY = newXmlFactory();
+
+    /**
+     * 工作表
+     */
+    public static final class Sheet {
+        /**
+         * 工作表索引，从0开始
+         */
+        private final int sheetNo;
+
+        /**
+         * 工作表名
+         */
+        private final String sheetName;
+
+        /**
+         * zip中的路径
+         */
+        private final String path;
+
+        /**
+         * 行数，包括标题，即最后一行的行号，含空行
+         */
+        private final int rowSize;
+
+        /**
+         * 列数，即最后一列的列号
+         */
+        private final int columnSize;
+
+        private Sheet(int sheetNo, String sheetName, String path, int rowSize, int columnSize) {
+            this.sheetNo = sheetNo;
+            this.sheetName = sheetName;
+            this.path = path;
+            this.rowSize = rowSize;
+            this.columnSize = columnSize;
+        }
+
+        public int getSheetNo() {
+            return sheetNo;
+        }
+
+        public String getSheetName() {
+            return sheetName;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public int getRowSize() {
+            return rowSize;
+        }
+
+        public int getColumnSize() {
+            return columnSize;
+        }
+
+        @Override
+        public String toString() {
+            return "Sheet{sheetNo=" + sheetNo + ", sheetName=" + sheetName +
+                    ", rowSize=" + rowSize + ", columnSize=" + columnSize + "}";
+        }
+
+    }
+
+    private XlsxMetadata() {
+    }
+
+    /**
+     * 全部工作表，按工作簿中的顺序
+     */
+    public static List<Sheet> read(File file) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+
+        try (ZipFile zip = new ZipFile(file)) {
+            return read(zip);
+        }
+    }
+
+    /**
+     * 全部工作表，按工作簿中的顺序
+     */
+    public static List<Sheet> read(ZipFile zip) throws IOException {
+        Preconditions.checkNotNull(zip, "zip can't be null");
+
+        List<String[]> paths = readPaths(zip);
+        List<Sheet> result = new ArrayList<>(paths.size());
+
+        for (int i = 0, size = paths.size(); i < size; i++) {
+            String[] path = paths.get(i);
+            int[] dimension = readDimension(zip, path[1]);
+            result.add(new Sheet(i, path[0], path[1], dimension[0], dimension[1]));
+        }
+
+        return result;
+    }
+
+    /**
+     * 一个工作表，只读该工作表的xml
+     * sheetName不为空，按名称；否则按索引，null为0
+     *
+     * @return 不存在，返回null
+     */
+    public static Sheet read(File file, Integer sheetNo, String sheetName) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+
+        try (ZipFile zip = new ZipFile(file)) {
+            return read(zip, sheetNo, sheetName);
+        }
+    }
+
+    /**
+     * 一个工作表，只读该工作表的xml
+     * sheetName不为空，按名称；否则按索引，null为0
+     *
+     * @return 不存在，返回null
+     */
+    public static Sheet read(ZipFile zip, Integer sheetNo, String sheetName) throws IOException {
+        Preconditions.checkNotNull(zip, "zip can't be null");
+
+        List<String[]> paths = readPaths(zip);
+        int no = Objects.isNull(sheetNo) ? 0 : sheetNo;
+
+        for (int i = 0, size = paths.size(); i < size; i++) {
+            String[] path = paths.get(i);
+            if (Objects.nonNull(sheetName) ? sheetName.equals(path[0]) : no == i) {
+                int[] dimension = readDimension(zip, path[1]);
+                return new Sheet(i, path[0], path[1], dimension[0], dimension[1]);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 全部工作表 -> [[sheetName, zip中的路径]]，按工作簿中的顺序
+     * 不读工作表xml
+     */
+    static List<String[]> readPaths(ZipFile zip) throws IOException {
+        List<String[]> sheets = readWorkbook(zip);
+        Map<String, String> targets = readRelationships(zip);
+
+        List<String[]> result = new ArrayList<>(sheets.size());
+
+        for (String[] sheet : sheets) {
+            String target = targets.get(sheet[1]);
+            Preconditions.checkNotNull(target, "sheet's target can't be null, sheetName: " + sheet[0]);
+
+            result.add(new String[]{sheet[0], resolve(target)});
+        }
+
+        return result;
+    }
+
+    /**
+     * 1904日期系统？
+     * workbook.xml的 workbookPr date1904
+     */
+    static boolean isDate1904(ZipFile zip) throws IOException {
+        boolean[] result = new boolean[1];
+
+        parse(zip, WORKBOOK, reader -> {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "workbookPr".equals(reader.getLocalName())) {
+                    String date1904 = attribute(reader, "date1904");
+                    result[0] = "1".equals(date1904) || "true".equalsIgnoreCase(date1904);
+                    return;
+                }
+            }
+        });
+
+        return result[0];
+    }
+
+    /**
+     * 按索引或名称查找工作表
+     * sheetName不为空，按名称；否则按索引
+     *
+     * @return 不存在，返回null
+     */
+    public static Sheet find(List<Sheet> sheets, Integer sheetNo, String sheetName) {
+        Preconditions.checkNotNull(sheets, "sheets can't be null");
+
+        for (Sheet sheet : sheets) {
+            if (Objects.nonNull(sheetName) ? sheetName.equals(sheet.getSheetName()) :
+                    Objects.equals(Objects.isNull(sheetNo) ? 0 : sheetNo, sheet.getSheetNo())) {
+                return sheet;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * workbook.xml -> [[sheetName, relationshipId]]
+     */
+    private static List<String[]> readWorkbook(ZipFile zip) throws IOException {
+        List<String[]> result = new ArrayList<>();
+
+        parse(zip, WORKBOOK, reader -> {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "sheet".equals(reader.getLocalName())) {
+                    result.add(new String[]{attribute(reader, "name"), attribute(reader, "id")});
+                }
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * workbook.xml.rels -> {relationshipId => target}
+     */
+    private static Map<String, String> readRelationships(ZipFile zip) throws IOException {
+        Map<String, String> result = new HashMap<>();
+
+        parse(zip, WORKBOOK_RELS, reader -> {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "Relationship".equals(reader.getLocalName())) {
+                    result.put(attribute(reader, "Id"), attribute(reader, "Target"));
+                }
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * 工作表 -> [行数, 列数]
+     */
+    private static int[] readDimension(ZipFile zip, String path) throws IOException {
+        int[] result = new int[2];
+
+        parse(zip, path, reader -> {
+            int rowNum = 0;
+
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+
+                String name = reader.getLocalName();
+
+                if ("dimension".equals(name)) {
+                    String ref = attribute(reader, "ref");
+                    int index = Objects.isNull(ref) ? -1 : ref.indexOf(':');
+                    if (index > 0) {
+                        result[0] = rowOf(ref.substring(index + 1));
+                        result[1] = columnOf(ref.substring(index + 1));
+                        return;
+                    }
+
+                    continue;
+                }
+
+                if ("row".equals(name)) {
+                    String r = attribute(reader, "r");
+                    rowNum = Objects.isNull(r) ? rowNum + 1 : Integer.parseInt(r);
+                    result[0] = Math.max(result[0], rowNum);
+
+                    // spans="1:11"
+                    String spans = attribute(reader, "spans");
+                    int index = Objects.isNull(spans) ? -1 : spans.indexOf(':');
+                    if (index > 0) {
+                        result[1] = Math.max(result[1], Integer.parseInt(spans.substring(index + 1)));
+                    }
+
+                    continue;
+                }
+
+                if ("c".equals(name)) {
+                    String r = attribute(reader, "r");
+                    if (Objects.nonNull(r)) {
+                        result[1] = Math.max(result[1], columnOf(r));
+                    }
+                }
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * 单元格引用 -> 行号，如：K100 -> 100
+     */
+    static int rowOf(String ref) {
+        int result = 0;
+
+        for (int i = 0, len = ref.length(); i < len; i++) {
+            char c = ref.charAt(i);
+            if (c >= '0' && c <= '9') {
+                result = result * 10 + (c - '0');
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 单元格引用 -> 列号，如：K100 -> 11
+     */
+    static int columnOf(String ref) {
+        int result = 0;
+
+        for (int i = 0, len = ref.length(); i < len; i++) {
+            char c = ref.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                result = result * 26 + (c - 'A' + 1);
+            } else if (c >= 'a' && c <= 'z') {
+                result = result * 26 + (c - 'a' + 1);
+            } else {
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 关系的Target -> zip中的路径
+     * 绝对路径：/xl/worksheets/sheet1.xml
+     * 相对路径：worksheets/sheet1.xml
+     */
+    private static String resolve(String target) {
+        return target.startsWith("/") ? target.substring(1) : BASE_DIR + target;
+    }
+
+    /**
+     * 属性值，按本地名匹配，忽略命名空间
+     */
+    static String attribute(XMLStreamReader reader, String localName) {
+        for (int i = 0, count = reader.getAttributeCount(); i < count; i++) {
+            if (localName.equals(reader.getAttributeLocalName(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 流式解析zip中的xml
+     */
+    static void parse(ZipFile zip, String path, XmlHandler handler) throws IOException {
+        ZipEntry entry = zip.getEntry(path);
+        Preconditions.checkArgument(Objects.nonNull(entry), "entry not found: " + path);
+
+        try (InputStream stream = zip.getInputStream(entry)) {
+            XMLStreamReader reader;
+            synchronized (XML_FACTORY) {
+                // 多个工作表并行解析，工厂不保证线程安全
+                reader = XML_FACTORY.createXMLStreamReader(stream);
+            }
+
+            try {
+                handler.handle(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("parse failed, path: " + path, e);
+        }
+    }
+
+    private static XMLInputFactory newXmlFactory() {
+        XMLInputFactory result = XMLInputFactory.newInstance();
+        result.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        result.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return result;
+    }
+
+    /**
+     * xml处理
+     */
+    interface XmlHandler {
+
+        void handle(XMLStreamReader reader) throws XMLStreamException;
+
+    }
+
+}
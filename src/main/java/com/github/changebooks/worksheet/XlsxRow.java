@@ -0,0 +1,126 @@
+package com.github.changebooks.worksheet;
+
+import com.alibaba.excel.enums.CellDataTypeEnum;
+import com.alibaba.excel.metadata.data.ReadCellData;
+
+import java.util.Arrays;
+
+/**
+ * xlsx的一行，原始单元格
+ * 只保存类型、文本和样式，按列号取值时才转换；每个工作表复用一个，回调后失效
+ *
+ * @author changebooks
+ */
+final class XlsxRow {
+    /**
+     * 工作簿，转换单元格
+     */
+    private final XlsxWorkbook workbook;
+
+    /**
+     * 行索引，从0开始
+     */
+    private int rowIndex;
+
+    /**
+     * 最大列号 + 1，0 ? 没有单元格
+     */
+    private int size;
+
+    /**
+     * 列号 -> 类型，null ? 没有该单元格
+     */
+    private CellDataTypeEnum[] types = new CellDataTypeEnum[16];
+
+    /**
+     * 列号 -> 原始文本，共享字符串为序号
+     */
+    private String[] texts = new String[16];
+
+    /**
+     * 列号 -> 样式序号
+     */
+    private int[] styles = new int[16];
+
+    XlsxRow(XlsxWorkbook workbook) {
+        this.workbook = workbook;
+    }
+
+    /**
+     * 开始新的一行
+     */
+    void reset(int rowIndex) {
+        Arrays.fill(types, 0, size, null);
+        Arrays.fill(texts, 0, size, null);
+
+        this.rowIndex = rowIndex;
+        this.size = 0;
+    }
+
+    /**
+     * 设置单元格
+     */
+    void set(int column, CellDataTypeEnum type, String text, int style) {
+        if (column < 0) {
+            return;
+        }
+
+        if (column >= types.length) {
+            int capacity = Math.max(column + 1, types.length << 1);
+            types = Arrays.copyOf(types, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+            styles = Arrays.copyOf(styles, capacity);
+        }
+
+        types[column] = type;
+        texts[column] = text;
+        styles[column] = style;
+        size = Math.max(size, column + 1);
+    }
+
+    int getRowIndex() {
+        return rowIndex;
+    }
+
+    /**
+     * 最大列号 + 1
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 没有单元格？
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 列号 -> 单元格
+     * 没有该单元格，返回null
+     */
+    ReadCellData<?> getCell(int column) {
+        if (column < 0 || column >= size || types[column] == null) {
+            return null;
+        }
+
+        return workbook.toCell(types[column], texts[column], styles[column]);
+    }
+
+    /**
+     * 列号 -> String
+     * 与easyexcel默认监听的结果相同
+     */
+    String getString(int column) {
+        return asString(getCell(column));
+    }
+
+    /**
+     * 单元格 -> String
+     */
+    String asString(ReadCellData<?> cell) {
+        return workbook.asString(cell, rowIndex);
+    }
+
+}
@@ -0,0 +1,423 @@
+package com.github.changebooks.worksheet;
+
+import com.alibaba.excel.constant.BuiltinFormats;
+import com.alibaba.excel.converters.Converter;
+import com.alibaba.excel.converters.ConverterKeyBuild;
+import com.alibaba.excel.converters.DefaultConverterLoader;
+import com.alibaba.excel.enums.CellDataTypeEnum;
+import com.alibaba.excel.exception.ExcelAnalysisException;
+import com.alibaba.excel.metadata.GlobalConfiguration;
+import com.alibaba.excel.metadata.data.DataFormatData;
+import com.alibaba.excel.metadata.data.ReadCellData;
+import com.alibaba.excel.util.BooleanUtils;
+import com.google.common.base.Preconditions;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.zip.ZipFile;
+
+/**
+ * xlsx工作簿，StAX流式解析
+ * 只打开一次，共享字符串表、单元格格式只解析一次，多个工作表可并行解析
+ * 单元格 -> String与easyexcel默认监听相同：按单元格格式，去首尾空格
+ *
+ * @author changebooks
+ */
+final class XlsxWorkbook implements Closeable {
+    /**
+     * 共享字符串表
+     */
+    private static final String SHARED_STRINGS = "xl/sharedStrings.xml";
+
+    /**
+     * 样式表
+     */
+    private static final String STYLES = "xl/styles.xml";
+
+    /**
+     * easyexcel的默认转换器
+     */
+    private static final Map<String, Converter<?>> CONVERTERS = DefaultConverterLoader.loadDefaultReadConverter();
+
+    /**
+     * 监听行
+     */
+    interface Handler {
+        /**
+         * 回调监听
+         * 终止解析-StopException
+         *
+         * @param row 复用，回调后失效
+         */
+        void invoke(XlsxRow row);
+
+    }
+
+    private final ZipFile zip;
+
+    /**
+     * [[sheetName, zip中的路径]]，按工作簿中的顺序
+     */
+    private final List<String[]> sheets;
+
+    /**
+     * 共享字符串，序号 -> 字符串
+     */
+    private final String[] sharedStrings;
+
+    /**
+     * 样式序号 -> 单元格格式
+     */
+    private final DataFormatData[] formats;
+
+    /**
+     * 转换配置，与easyexcel默认相同
+     */
+    private final GlobalConfiguration configuration;
+
+    private XlsxWorkbook(ZipFile zip, List<String[]> sheets, String[] sharedStrings,
+                         DataFormatData[] formats, GlobalConfiguration configuration) {
+        this.zip = zip;
+        this.sheets = sheets;
+        this.sharedStrings = sharedStrings;
+        this.formats = formats;
+        this.configuration = configuration;
+    }
+
+    /**
+     * 打开工作簿
+     * 读工作表列表、共享字符串表和样式表
+     */
+    static XlsxWorkbook open(File file) throws IOException {
+        Preconditions.checkNotNull(file, "file can't be null");
+
+        ZipFile zip = new ZipFile(file);
+        try {
+            GlobalConfiguration configuration = new GlobalConfiguration();
+            configuration.setAutoTrim(true);
+            configuration.setUse1904windowing(XlsxMetadata.isDate1904(zip));
+            configuration.setLocale(Locale.getDefault());
+            configuration.setUseScientificFormat(false);
+
+            return new XlsxWorkbook(zip, XlsxMetadata.readPaths(zip), readSharedStrings(zip),
+                    readFormats(zip, configuration.getLocale()), configuration);
+        } catch (IOException | RuntimeException e) {
+            zip.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 工作表数
+     */
+    int size() {
+        return sheets.size();
+    }
+
+    /**
+     * 工作表索引 -> 工作表名
+     */
+    String getSheetName(int sheetNo) {
+        return sheets.get(sheetNo)[0];
+    }
+
+    /**
+     * 流式解析一个工作表
+     * 可在多个线程同时解析不同的工作表
+     */
+    void read(int sheetNo, Handler handler) throws IOException {
+        Preconditions.checkElementIndex(sheetNo, sheets.size(), "sheetNo");
+        Preconditions.checkNotNull(handler, "handler can't be null");
+
+        XlsxRow row = new XlsxRow(this);
+        XlsxMetadata.parse(zip, sheets.get(sheetNo)[1], reader -> parseSheet(reader, row, handler));
+    }
+
+    /**
+     * 原始单元格 -> easyexcel单元格
+     * 与easyexcel的CellTagHandler相同
+     */
+    ReadCellData<?> toCell(CellDataTypeEnum type, String text, int style) {
+        ReadCellData<?> cell;
+
+        switch (type) {
+            case STRING:
+                cell = new ReadCellData<>(CellDataTypeEnum.STRING);
+                cell.setStringValue(text.isEmpty() ? null : sharedString(text));
+                break;
+            case DIRECT_STRING:
+                cell = new ReadCellData<>(CellDataTypeEnum.STRING);
+                cell.setStringValue(text);
+                break;
+            case ERROR:
+                cell = new ReadCellData<>(CellDataTypeEnum.ERROR);
+                cell.setStringValue(text);
+                break;
+            case BOOLEAN:
+                if (text.isEmpty()) {
+                    cell = new ReadCellData<>(CellDataTypeEnum.EMPTY);
+                } else {
+                    cell = new ReadCellData<>(CellDataTypeEnum.BOOLEAN);
+                    cell.setBooleanValue(BooleanUtils.valueOf(text));
+                }
+                break;
+            default:
+                if (text.isEmpty()) {
+                    cell = new ReadCellData<>(CellDataTypeEnum.EMPTY);
+                } else {
+                    cell = new ReadCellData<>(CellDataTypeEnum.NUMBER);
+                    cell.setNumberValue(BigDecimal.valueOf(Double.parseDouble(text)));
+                }
+                break;
+        }
+
+        if (Objects.nonNull(cell.getStringValue()) && Boolean.TRUE.equals(configuration.getAutoTrim())) {
+            cell.setStringValue(cell.getStringValue().trim());
+        }
+
+        cell.checkEmpty();
+        cell.setDataFormatData(style >= 0 && style < formats.length ? formats[style] : null);
+        return cell;
+    }
+
+    /**
+     * 单元格 -> String
+     * 与TypedConverter.asString相同，不需要easyexcel的上下文
+     *
+     * @throws ExcelAnalysisException 转换失败
+     */
+    String asString(ReadCellData<?> cell, int rowIndex) {
+        if (Objects.isNull(cell) || cell.getType() == CellDataTypeEnum.EMPTY) {
+            return null;
+        }
+
+        Converter<?> converter = CONVERTERS.get(ConverterKeyBuild.buildKey(String.class, cell.getType()));
+        if (Objects.isNull(converter)) {
+            return cell.getStringValue();
+        }
+
+        try {
+            return (String) converter.convertToJavaData(cell, null, configuration);
+        } catch (Exception e) {
+            throw new ExcelAnalysisException("convert failed, rowIndex: " + rowIndex, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+
+    private String sharedString(String text) {
+        int index = Integer.parseInt(text);
+        Preconditions.checkElementIndex(index, sharedStrings.length, "sharedString");
+
+        return sharedStrings[index];
+    }
+
+    /**
+     * 工作表xml -> 行
+     * 只取 c 的 v，或 is 的 t；sheetData结束即返回
+     */
+    private static void parseSheet(XMLStreamReader reader, XlsxRow row, Handler handler) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int rowIndex = -1;
+        int column = -1;
+        CellDataTypeEnum type = CellDataTypeEnum.EMPTY;
+        int style = 0;
+        boolean inRow = false;
+        boolean inValue = false;
+        int phonetic = 0;
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT: {
+                    String name = reader.getLocalName();
+
+                    if ("row".equals(name)) {
+                        String r = XlsxMetadata.attribute(reader, "r");
+                        rowIndex = Objects.isNull(r) ? rowIndex + 1 : Integer.parseInt(r) - 1;
+                        column = -1;
+                        inRow = true;
+                        row.reset(rowIndex);
+                    } else if ("c".equals(name)) {
+                        String r = XlsxMetadata.attribute(reader, "r");
+                        column = Objects.isNull(r) ? column + 1 : XlsxMetadata.columnOf(r) - 1;
+
+                        CellDataTypeEnum t = CellDataTypeEnum.buildFromCellType(XlsxMetadata.attribute(reader, "t"));
+                        type = Objects.isNull(t) ? CellDataTypeEnum.EMPTY : t;
+
+                        String s = XlsxMetadata.attribute(reader, "s");
+                        style = Objects.isNull(s) || s.isEmpty() ? 0 : Integer.parseInt(s);
+                        text.setLength(0);
+                    } else if ("v".equals(name) || "t".equals(name)) {
+                        inValue = true;
+                    } else if ("rPh".equals(name)) {
+                        // 注音，不取
+                        phonetic++;
+                    }
+                    break;
+                }
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (inValue && phonetic == 0) {
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT: {
+                    String name = reader.getLocalName();
+
+                    if ("v".equals(name) || "t".equals(name)) {
+                        inValue = false;
+                    } else if ("rPh".equals(name)) {
+                        phonetic--;
+                    } else if ("c".equals(name)) {
+                        if (inRow) {
+                            row.set(column, type, text.toString(), style);
+                        }
+                    } else if ("row".equals(name)) {
+                        inRow = false;
+                        handler.invoke(row);
+                    } else if ("sheetData".equals(name)) {
+                        return;
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * sharedStrings.xml -> 共享字符串
+     * 同一 si 的 t 拼接，注音 rPh 不取；没有 t，为null
+     */
+    private static String[] readSharedStrings(ZipFile zip) throws IOException {
+        if (Objects.isNull(zip.getEntry(SHARED_STRINGS))) {
+            return new String[0];
+        }
+
+        List<String> result = new ArrayList<>();
+
+        XlsxMetadata.parse(zip, SHARED_STRINGS, reader -> {
+            StringBuilder text = null;
+            boolean inText = false;
+            int phonetic = 0;
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT: {
+                        String name = reader.getLocalName();
+
+                        if ("si".equals(name)) {
+                            text = null;
+                        } else if ("t".equals(name)) {
+                            inText = phonetic == 0;
+                            if (inText && Objects.isNull(text)) {
+                                text = new StringBuilder();
+                            }
+                        } else if ("rPh".equals(name)) {
+                            phonetic++;
+                        }
+                        break;
+                    }
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (inText) {
+                            text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT: {
+                        String name = reader.getLocalName();
+
+                        if ("t".equals(name)) {
+                            inText = false;
+                        } else if ("rPh".equals(name)) {
+                            phonetic--;
+                        } else if ("si".equals(name)) {
+                            result.add(Objects.isNull(text) ? null : text.toString());
+                        }
+                        break;
+                    }
+                    default:
+                        break;
+                }
+            }
+        });
+
+        return result.toArray(new String[0]);
+    }
+
+    /**
+     * styles.xml -> 样式序号 -> 单元格格式
+     * cellXfs 的 numFmtId，自定义格式取 numFmts，内置格式按locale取easyexcel的内置格式
+     */
+    private static DataFormatData[] readFormats(ZipFile zip, Locale locale) throws IOException {
+        if (Objects.isNull(zip.getEntry(STYLES))) {
+            return new DataFormatData[]{format((short) 0, null, locale)};
+        }
+
+        Map<Integer, String> customs = new HashMap<>();
+        List<Integer> ids = new ArrayList<>();
+
+        XlsxMetadata.parse(zip, STYLES, reader -> {
+            boolean inCellXfs = false;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+
+                if (event == XMLStreamConstants.END_ELEMENT && "cellXfs".equals(reader.getLocalName())) {
+                    inCellXfs = false;
+                    continue;
+                }
+
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+
+                String name = reader.getLocalName();
+
+                if ("numFmt".equals(name)) {
+                    String id = XlsxMetadata.attribute(reader, "numFmtId");
+                    if (Objects.nonNull(id)) {
+                        customs.put(Integer.parseInt(id), XlsxMetadata.attribute(reader, "formatCode"));
+                    }
+                } else if ("cellXfs".equals(name)) {
+                    inCellXfs = true;
+                } else if (inCellXfs && "xf".equals(name)) {
+                    String id = XlsxMetadata.attribute(reader, "numFmtId");
+                    ids.add(Objects.isNull(id) ? 0 : Integer.parseInt(id));
+                }
+            }
+        });
+
+        if (ids.isEmpty()) {
+            ids.add(0);
+        }
+
+        DataFormatData[] result = new DataFormatData[ids.size()];
+        for (int i = 0; i < result.length; i++) {
+            int id = ids.get(i);
+            result[i] = format((short) id, customs.get(id), locale);
+        }
+
+        return result;
+    }
+
+    private static DataFormatData format(short index, String custom, Locale locale) {
+        DataFormatData result = new DataFormatData();
+        result.setIndex(index);
+        result.setFormat(BuiltinFormats.getBuiltinFormat(index, custom, locale));
+        return result;
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.github.changebooks.worksheet;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * 识别编码
+ *
+ * @author changebooks
+ */
+public class CharsetDetectorTest {
+
+    private static final String TEXT = "编号,名称,备注\n1,中文,ok\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * BOM识别，跳过BOM
+     */
+    @Test
+    public void testBom() throws Exception {
+        assertDetect(concat(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, TEXT.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, 3, TEXT.getBytes(StandardCharsets.UTF_8));
+        assertDetect(concat(new byte[]{(byte) 0xFF, (byte) 0xFE}, TEXT.getBytes(StandardCharsets.UTF_16LE)),
+                StandardCharsets.UTF_16LE, 2, TEXT.getBytes(StandardCharsets.UTF_16LE));
+        assertDetect(concat(new byte[]{(byte) 0xFE, (byte) 0xFF}, TEXT.getBytes(StandardCharsets.UTF_16BE)),
+                StandardCharsets.UTF_16BE, 2, TEXT.getBytes(StandardCharsets.UTF_16BE));
+    }
+
+    @Test
+    public void testWithoutBom() throws Exception {
+        byte[] ascii = "id,name\n1,a\n".getBytes(StandardCharsets.US_ASCII);
+        assertDetect(ascii, StandardCharsets.UTF_8, 0, ascii);
+
+        byte[] utf8 = TEXT.getBytes(StandardCharsets.UTF_8);
+        assertDetect(utf8, StandardCharsets.UTF_8, 0, utf8);
+
+        byte[] gbk = TEXT.getBytes(CharsetDetector.GBK);
+        assertDetect(gbk, CharsetDetector.GBK, 0, gbk);
+
+        // U+20000，GB18030四字节
+        byte[] gb18030 = (TEXT + "𠀀\n").getBytes(CharsetDetector.GB18030);
+        assertDetect(gb18030, CharsetDetector.GB18030, 0, gb18030);
+    }
+
+    /**
+     * 读到sniffSize截断的字符，视为合法；读完截断的，不是UTF-8
+     */
+    @Test
+    public void testTruncated() throws Exception {
+        byte[] utf8 = "中文中文".getBytes(StandardCharsets.UTF_8);
+
+        for (int sniffSize = 1; sniffSize < utf8.length; sniffSize++) {
+            CharsetDetector.Result result = CharsetDetector.detect(new ByteArrayInputStream(utf8), sniffSize, null);
+            assertEquals(String.valueOf(sniffSize), StandardCharsets.UTF_8, result.getCharset());
+            assertArrayEquals(utf8, ByteStreams.toByteArray(result.getStream()));
+        }
+
+        byte[] truncated = Arrays.copyOf(utf8, utf8.length - 1);
+        assertNotEquals(StandardCharsets.UTF_8, CharsetDetector.detect(new ByteArrayInputStream(truncated), 1024, null).getCharset());
+    }
+
+    /**
+     * 不能识别，返回fallback
+     */
+    @Test
+    public void testFallback() throws Exception {
+        byte[] invalid = {'a', (byte) 0x80, (byte) 0xFF, 'b'};
+        Charset fallback = StandardCharsets.ISO_8859_1;
+
+        assertDetect(invalid, fallback, fallback, 0, invalid);
+        assertEquals(Charset.defaultCharset(), CharsetDetector.detect(new ByteArrayInputStream(invalid)).getCharset());
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertDetect(new byte[0], StandardCharsets.UTF_8, 0, new byte[0]);
+        assertDetect(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, StandardCharsets.UTF_8, 3, new byte[0]);
+    }
+
+    @Test
+    public void testFile() throws Exception {
+        File file = folder.newFile("gbk.csv");
+        Files.write(file.toPath(), TEXT.getBytes(CharsetDetector.GBK));
+
+        assertEquals(CharsetDetector.GBK, CharsetDetector.detect(file));
+    }
+
+    /**
+     * 超过sniffSize，只按前sniffSize字节识别，之后的字节原样可读
+     */
+    @Test
+    public void testSniffSize() throws Exception {
+        byte[] head = "id,name\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] data = concat(head, TEXT.getBytes(CharsetDetector.GBK));
+
+        assertDetect(data, null, StandardCharsets.UTF_8, 0, data, head.length);
+        assertDetect(data, null, CharsetDetector.GBK, 0, data, data.length);
+    }
+
+    private static void assertDetect(byte[] data, Charset expected, int bomSize, byte[] rest) throws IOException {
+        assertDetect(data, null, expected, bomSize, rest);
+    }
+
+    private static void assertDetect(byte[] data, Charset fallback, Charset expected, int bomSize, byte[] rest) throws IOException {
+        assertDetect(data, fallback, expected, bomSize, rest, CharsetDetector.DEFAULT_SNIFF_SIZE);
+    }
+
+    private static void assertDetect(byte[] data, Charset fallback, Charset expected, int bomSize, byte[] rest, int sniffSize) throws IOException {
+        CharsetDetector.Result result = CharsetDetector.detect(new ByteArrayInputStream(data), sniffSize, fallback);
+
+        assertEquals(expected, result.getCharset());
+        assertEquals(bomSize, result.getBomSize());
+        assertArrayEquals(rest, ByteStreams.toByteArray(result.getStream()));
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+}
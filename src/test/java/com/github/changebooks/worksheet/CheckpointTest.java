@@ -0,0 +1,128 @@
+package com.github.changebooks.worksheet;
+
+import com.alibaba.excel.EasyExcel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * 检查点、从检查点继续读
+ *
+ * @author changebooks
+ */
+public class CheckpointTest {
+
+    private static final int ROWS = 1000;
+
+    private static final int INTERVAL = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testToken() {
+        Checkpoint csv = Checkpoint.csv(101, 4096L);
+        assertEquals(csv, Checkpoint.parse(csv.toToken()));
+        assertTrue(Checkpoint.parse(csv.toToken()).isCsv());
+
+        Checkpoint sheet = Checkpoint.sheet(2, 51);
+        assertEquals(sheet, Checkpoint.parse(sheet.toToken()));
+        assertFalse(Checkpoint.parse(sheet.toToken()).isCsv());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseError() {
+        Checkpoint.parse("bad");
+    }
+
+    @Test
+    public void testResumeCsv() throws Exception {
+        File file = folder.newFile("resume.csv");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("\uFEFFid,name,note\r\n");
+            for (int i = 1; i <= ROWS; i++) {
+                String note = i % 9 == 0 ? "\"two\r\nlines\"" : "备注" + i;
+                writer.write(i + ",name" + i + "," + note + "\r\n");
+            }
+        }
+
+        for (ReadCsv.Engine engine : ReadCsv.Engine.values()) {
+            ReadOptions options = ReadOptions.builder().checkpoint(INTERVAL).build();
+
+            Recorder all = new Recorder();
+            ReadCsv.readLine(file, null, engine, options, all);
+            assertEquals(ROWS + 1, all.rows.size());
+            assertEquals(ROWS / INTERVAL, all.checkpoints.size());
+
+            for (Checkpoint checkpoint : all.checkpoints) {
+                Checkpoint parsed = Checkpoint.parse(checkpoint.toToken());
+
+                Recorder resumed = new Recorder();
+                ReadCsv.resumeLine(file, null, engine, ReadOptions.DEFAULT, parsed, resumed);
+
+                assertEquals(engine + " " + checkpoint, all.rows.subList(parsed.getRowIndex() - 1, all.rows.size()), resumed.rows);
+            }
+        }
+    }
+
+    @Test
+    public void testResumeXlsx() throws Exception {
+        File file = new File(folder.getRoot(), "resume.xlsx");
+        try (WriteLine writer = WriteLine.create(file, Arrays.asList("id", "name"))) {
+            for (int i = 1; i <= ROWS; i++) {
+                Map<String, String> row = new LinkedHashMap<>();
+                row.put("id", String.valueOf(i));
+                row.put("name", "name" + i);
+                writer.write(row);
+            }
+        }
+
+        ReadOptions options = ReadOptions.builder().checkpoint(INTERVAL).build();
+
+        Recorder all = new Recorder();
+        ReadLine.read(file, EasyExcel.readSheet(0).build(), options, all);
+        assertEquals(ROWS + 1, all.rows.size());
+        assertFalse(all.checkpoints.isEmpty());
+
+        Checkpoint checkpoint = Checkpoint.parse(all.checkpoints.get(all.checkpoints.size() / 2).toToken());
+        assertFalse(checkpoint.isCsv());
+
+        Recorder resumed = new Recorder();
+        ReadLine.resume(file, ReadOptions.DEFAULT, checkpoint, resumed);
+
+        assertEquals(all.rows.subList(checkpoint.getRowIndex() - 1, all.rows.size()), resumed.rows);
+    }
+
+    /**
+     * 记录数据行、检查点
+     */
+    private static final class Recorder implements ReadLine.Listener {
+
+        final List<String> rows = new ArrayList<>();
+
+        final List<Checkpoint> checkpoints = new ArrayList<>();
+
+        @Override
+        public void invoke(Integer rowIndex, Map<String, String> data) {
+            rows.add(rowIndex + "=" + data);
+        }
+
+        @Override
+        public void onComplete(Integer rowIndex) {
+            rows.add("complete " + rowIndex);
+        }
+
+        @Override
+        public void onCheckpoint(Checkpoint checkpoint) {
+            checkpoints.add(checkpoint);
+        }
+
+    }
+
+}
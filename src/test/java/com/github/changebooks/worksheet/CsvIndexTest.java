@@ -0,0 +1,127 @@
+package com.github.changebooks.worksheet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 行索引旁路文件、按行索引读
+ *
+ * @author changebooks
+ */
+public class CsvIndexTest {
+
+    private static final int ROWS = 2500;
+
+    private static final int INTERVAL = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testBuild() throws Exception {
+        File file = write();
+
+        CsvIndex index = CsvIndex.build(file, INTERVAL);
+
+        assertEquals(ROWS + 1, index.getRowSize());
+        assertEquals((ROWS + 1 + INTERVAL - 1) / INTERVAL, index.size());
+        assertEquals(0, index.getOffset(0));
+        assertTrue(index.isValid(file));
+        assertEquals(3, index.floor(350));
+        assertEquals(index.size() - 1, index.floor(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testOpen() throws Exception {
+        File file = write();
+
+        CsvIndex built = CsvIndex.open(file, INTERVAL);
+        File sidecar = CsvIndex.sidecarOf(file);
+        assertTrue(sidecar.isFile());
+
+        CsvIndex loaded = CsvIndex.load(sidecar);
+        assertEquals(built.getRowSize(), loaded.getRowSize());
+        assertEquals(built.size(), loaded.size());
+        for (int k = 0; k < built.size(); k++) {
+            assertEquals(built.getOffset(k), loaded.getOffset(k));
+        }
+
+        // 间隔不同，重新扫描
+        assertEquals(50, CsvIndex.open(file, 50).getInterval());
+    }
+
+    @Test
+    public void testReadRange() throws Exception {
+        File file = write();
+        CsvIndex index = CsvIndex.build(file, INTERVAL);
+
+        List<String> all = new ArrayList<>();
+        ReadCsv.readLine(file, StandardCharsets.UTF_8, collect(all));
+
+        int[][] ranges = {{1, 1}, {1, 5}, {99, 101}, {100, 100}, {777, 1234}, {ROWS - 3, ROWS}, {ROWS - 3, ROWS + 10}};
+        for (int[] range : ranges) {
+            List<String> actual = new ArrayList<>();
+            ReadCsv.readRange(file, StandardCharsets.UTF_8, index, range[0], range[1], collect(actual));
+
+            List<String> expected = new ArrayList<>();
+            for (int rowIndex = range[0]; rowIndex <= Math.min(range[1], ROWS); rowIndex++) {
+                expected.add(all.get(rowIndex - 1));
+            }
+            expected.add("complete " + Math.min(range[1], ROWS));
+
+            assertEquals(range[0] + "-" + range[1], expected, actual);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStale() throws Exception {
+        File file = write();
+        CsvIndex index = CsvIndex.build(file, INTERVAL);
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            writer.write("x,y,z\n");
+        }
+
+        ReadCsv.readRange(file, StandardCharsets.UTF_8, index, 1, 2, collect(new ArrayList<>()));
+    }
+
+    /**
+     * 每7行一个引号内换行，记录边界不等于物理行
+     */
+    private File write() throws IOException {
+        File file = folder.newFile("index.csv");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("id,name,note\n");
+            for (int i = 1; i <= ROWS; i++) {
+                String note = i % 7 == 0 ? "\"multi\nline, " + i + "\"" : "n" + i;
+                writer.write(i + ",名字" + i + "," + note + "\n");
+            }
+        }
+
+        return file;
+    }
+
+    private static ReadLine.Listener collect(List<String> result) {
+        return new ReadLine.Listener() {
+            @Override
+            public void invoke(Integer rowIndex, Map<String, String> data) {
+                result.add(rowIndex + "=" + data);
+            }
+
+            @Override
+            public void onComplete(Integer rowIndex) {
+                result.add("complete " + rowIndex);
+            }
+        };
+    }
+
+}
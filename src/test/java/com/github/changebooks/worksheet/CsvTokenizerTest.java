@@ -0,0 +1,122 @@
+package com.github.changebooks.worksheet;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 内置分词器与opencsv结果相同
+ *
+ * @author changebooks
+ */
+public class CsvTokenizerTest {
+
+    /**
+     * 引号、转义引号、引号内换行、空字段、CRLF、末行无换行
+     */
+    private static final String CSV = "id,name,note\r\n" +
+            "1,\"a,b\",plain\r\n" +
+            "2,\"say \"\"hi\"\"\",\"line1\r\nline2\"\r\n" +
+            "3,,\n" +
+            "4,中文,\"\"\n" +
+            "5,last,\"x\ny\"";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecords() throws Exception {
+        List<List<String>> expected = new ArrayList<>();
+        try (CSVReader reader = new CSVReaderBuilder(new StringReader(CSV)).withCSVParser(ReadCsv.newParser()).build()) {
+            String[] line;
+            while ((line = reader.readNext()) != null) {
+                expected.add(Arrays.asList(line));
+            }
+        }
+
+        // 小缓冲，记录跨越缓冲区
+        for (int bufferSize : new int[]{1, 3, 7, 8 * 1024}) {
+            List<List<String>> actual = new ArrayList<>();
+            CsvTokenizer tokenizer = CsvTokenizer.create(new StringReader(CSV), bufferSize);
+            while (tokenizer.next()) {
+                assertFalse(tokenizer.getRecord().isMalformed());
+                actual.add(Arrays.asList(tokenizer.getRecord().toArray()));
+            }
+
+            assertEquals("bufferSize: " + bufferSize, expected, actual);
+        }
+
+        assertEquals(6, expected.size());
+        // opencsv按行读，引号内的换行为\n
+        assertEquals(Arrays.asList("2", "say \"hi\"", "line1\nline2"), expected.get(2));
+    }
+
+    @Test
+    public void testReadLine() throws Exception {
+        File file = write("\uFEFF" + CSV);
+
+        List<String> opencsv = readLine(file, ReadCsv.Engine.OPENCSV, ReadOptions.DEFAULT);
+        List<String> tokenizer = readLine(file, ReadCsv.Engine.TOKENIZER, ReadOptions.DEFAULT);
+
+        assertEquals(opencsv, tokenizer);
+        assertEquals("1={id=1, name=a,b, note=plain}", opencsv.get(0));
+        assertEquals("complete 5", opencsv.get(opencsv.size() - 1));
+    }
+
+    @Test
+    public void testProjectAndFilter() throws Exception {
+        File file = write(CSV);
+
+        ReadOptions options = ReadOptions.builder().
+                columns("note", "id").
+                filter(RowFilter.in("id", "2", "4", "5")).
+                build();
+
+        List<String> opencsv = readLine(file, ReadCsv.Engine.OPENCSV, options);
+        List<String> tokenizer = readLine(file, ReadCsv.Engine.TOKENIZER, options);
+
+        assertEquals(opencsv, tokenizer);
+        assertEquals(4, opencsv.size());
+    }
+
+    private File write(String content) throws IOException {
+        File file = folder.newFile("test.csv");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+
+        return file;
+    }
+
+    /**
+     * 识别编码，跳过BOM
+     */
+    static List<String> readLine(File file, ReadCsv.Engine engine, ReadOptions options) throws IOException {
+        List<String> result = new ArrayList<>();
+        ReadCsv.readLine(file, null, engine, options, new ReadLine.Listener() {
+            @Override
+            public void invoke(Integer rowIndex, Map<String, String> data) {
+                result.add(rowIndex + "=" + data);
+            }
+
+            @Override
+            public void onComplete(Integer rowIndex) {
+                result.add("complete " + rowIndex);
+            }
+        });
+
+        return result;
+    }
+
+}
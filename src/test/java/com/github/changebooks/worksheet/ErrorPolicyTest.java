@@ -0,0 +1,279 @@
+package com.github.changebooks.worksheet;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvMalformedLineException;
+import com.opencsv.exceptions.CsvValidationException;
+import com.opencsv.validators.RowValidator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 解析失败策略
+ *
+ * @author changebooks
+ */
+public class ErrorPolicyTest {
+
+    /**
+     * 第2、4、5行校验失败
+     */
+    private static final String INVALID = "k,v\n1,a\nbad,b\n3,c\nbad,d\nbad,e\n6,f\n";
+
+    /**
+     * 第2行引号未闭合，之后的内容都在这条记录中
+     */
+    private static final String MALFORMED = "k,v\n1,a\n2,\"b\n3,c\n4,d\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSkip() throws Exception {
+        List<ErrorPolicy.Session> sessions = new ArrayList<>();
+
+        List<String> rows = readLine(INVALID, ErrorPolicy.skip().listen(sessions::add));
+
+        assertEquals("[1, 3, 6, complete 6]", rows.toString());
+        assertEquals(1, sessions.size());
+        assertEquals(3, sessions.get(0).getCount());
+        assertTrue(sessions.get(0).getErrors().isEmpty());
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        List<ErrorPolicy.Session> sessions = new ArrayList<>();
+
+        try {
+            readLine(INVALID, ErrorPolicy.failFast().listen(sessions::add));
+            fail();
+        } catch (RowParseException e) {
+            assertEquals(2, e.getError().getRowIndex());
+            assertEquals("bad,b", e.getError().getRaw());
+            assertTrue(e.getCause() instanceof CsvValidationException);
+        }
+
+        // 失败也回调
+        assertEquals(1, sessions.size());
+        assertEquals(1, sessions.get(0).getCount());
+    }
+
+    @Test
+    public void testCollect() throws Exception {
+        List<ErrorPolicy.Session> sessions = new ArrayList<>();
+
+        List<String> rows = readLine(INVALID, ErrorPolicy.collect(2).listen(sessions::add));
+
+        assertEquals("[1, 3, 6, complete 6]", rows.toString());
+        assertEquals(3, sessions.get(0).getCount());
+        assertEquals(2, sessions.get(0).getErrors().size());
+        assertEquals(2, sessions.get(0).getErrors().get(0).getRowIndex());
+        assertEquals("bad,d", sessions.get(0).getErrors().get(1).getRaw());
+    }
+
+    @Test
+    public void testQuarantine() throws Exception {
+        List<RowError> quarantined = new ArrayList<>();
+
+        try {
+            readLine(INVALID, ErrorPolicy.quarantine(quarantined::add, 2));
+            fail();
+        } catch (RowParseException e) {
+            assertEquals(5, e.getError().getRowIndex());
+        }
+
+        assertEquals(2, quarantined.size());
+        assertEquals(4, quarantined.get(1).getRowIndex());
+    }
+
+    @Test(expected = RowParseException.class)
+    public void testHeader() throws Exception {
+        readLine("bad,v\n1,a\n", ErrorPolicy.skip());
+    }
+
+    /**
+     * 策略共享，每次读单独计数
+     */
+    @Test
+    public void testSession() throws Exception {
+        List<RowError> quarantined = new ArrayList<>();
+        List<Long> counts = new ArrayList<>();
+        ErrorPolicy policy = ErrorPolicy.quarantine(quarantined::add, 1).
+                allowUnterminated().
+                listen(session -> counts.add(session.getCount()));
+
+        File file = write("k,v\n1,a\n2,\"b\n");
+        ReadOptions options = ReadOptions.builder().onError(policy).build();
+
+        for (int i = 0; i < 3; i++) {
+            for (ReadCsv.Engine engine : ReadCsv.Engine.values()) {
+                CsvTokenizerTest.readLine(file, engine, options);
+            }
+        }
+
+        assertEquals(6, quarantined.size());
+        assertEquals("[1, 1, 1, 1, 1, 1]", counts.toString());
+    }
+
+    /**
+     * 之后的内容都在这条记录中，默认跳过也终止，不回调完成
+     */
+    @Test
+    public void testMalformed() throws Exception {
+        File file = write(MALFORMED);
+
+        for (ReadCsv.Engine engine : ReadCsv.Engine.values()) {
+            List<String> rows = new ArrayList<>();
+            try {
+                ReadCsv.readLine(file, null, engine, ReadOptions.DEFAULT, new ReadLine.Listener() {
+                    @Override
+                    public void invoke(Integer rowIndex, Map<String, String> data) {
+                        rows.add(rowIndex + "=" + data);
+                    }
+
+                    @Override
+                    public void onComplete(Integer rowIndex) {
+                        rows.add("complete " + rowIndex);
+                    }
+                });
+                fail(engine.name());
+            } catch (RowParseException e) {
+                assertEquals(2, e.getError().getRowIndex());
+                assertTrue(e.getCause() instanceof CsvMalformedLineException);
+            }
+
+            assertEquals(engine.name(), "[1={k=1, v=a}]", rows.toString());
+        }
+    }
+
+    @Test
+    public void testAllowUnterminated() throws Exception {
+        File file = write(MALFORMED);
+
+        for (ReadCsv.Engine engine : ReadCsv.Engine.values()) {
+            List<ErrorPolicy.Session> sessions = new ArrayList<>();
+            ErrorPolicy policy = ErrorPolicy.collect(10).allowUnterminated().listen(sessions::add);
+            ReadOptions options = ReadOptions.builder().onError(policy).build();
+
+            List<String> rows = CsvTokenizerTest.readLine(file, engine, options);
+
+            assertEquals(engine.name(), "[1={k=1, v=a}, complete 1]", rows.toString());
+            assertEquals(1, sessions.size());
+
+            RowError error = sessions.get(0).getErrors().get(0);
+            assertEquals(2, error.getRowIndex());
+            assertTrue(error.getRaw().contains("4,d"));
+            assertTrue(error.getCause() instanceof CsvMalformedLineException);
+        }
+    }
+
+    @Test
+    public void testMalformedFailFast() throws Exception {
+        File file = write(MALFORMED);
+        ReadOptions options = ReadOptions.builder().onError(ErrorPolicy.failFast()).build();
+
+        for (ReadCsv.Engine engine : ReadCsv.Engine.values()) {
+            try {
+                CsvTokenizerTest.readLine(file, engine, options);
+                fail(engine.name());
+            } catch (RowParseException e) {
+                assertEquals(2, e.getError().getRowIndex());
+            }
+
+            List<String> rows = new ArrayList<>();
+            try (RowIterator iterator = ReadCsv.iterator(file, StandardCharsets.UTF_8, engine, options)) {
+                while (iterator.hasNext()) {
+                    rows.add(String.valueOf(iterator.next()));
+                }
+
+                fail(engine.name());
+            } catch (UncheckedIOException e) {
+                assertTrue(e.getCause() instanceof RowParseException);
+            }
+
+            assertEquals("[{k=1, v=a}]", rows.toString());
+        }
+    }
+
+    @Test
+    public void testSerializable() throws Exception {
+        RowError error = new RowError(2, "bad,b", new CsvValidationException("bad row"));
+        RowParseException expected = new RowParseException("parse failed", error);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(expected);
+        }
+
+        RowParseException actual;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            actual = (RowParseException) in.readObject();
+        }
+
+        assertEquals(expected.getMessage(), actual.getMessage());
+        assertEquals(2, actual.getError().getRowIndex());
+        assertEquals("bad,b", actual.getError().getRaw());
+    }
+
+    /**
+     * 第一列为bad的行，校验失败
+     */
+    private static List<String> readLine(String csv, ErrorPolicy policy) throws IOException {
+        RowValidator validator = new RowValidator() {
+            @Override
+            public boolean isValid(String[] row) {
+                return !"bad".equals(row[0]);
+            }
+
+            @Override
+            public void validate(String[] row) throws CsvValidationException {
+                if (!isValid(row)) {
+                    throw new CsvValidationException("bad row");
+                }
+            }
+        };
+
+        CSVReader reader = new CSVReaderBuilder(new StringReader(csv)).
+                withCSVParser(ReadCsv.newParser()).
+                withRowValidator(validator).
+                build();
+
+        List<String> result = new ArrayList<>();
+        ReadCsv.readLine(reader, policy, new ReadCsv.Listener() {
+            @Override
+            public void invokeKey(Map<Integer, String> keyMap) {
+            }
+
+            @Override
+            public void invokeValue(int rowIndex, Map<Integer, String> valueMap) {
+                result.add(String.valueOf(rowIndex));
+            }
+
+            @Override
+            public void onComplete(int rowIndex) {
+                result.add("complete " + rowIndex);
+            }
+        });
+
+        return result;
+    }
+
+    private File write(String content) throws IOException {
+        File file = folder.newFile("error.csv");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+
+        return file;
+    }
+
+}
@@ -0,0 +1,394 @@
+package com.github.changebooks.worksheet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * 异步分发页、页池
+ *
+ * @author changebooks
+ */
+public class PageDispatcherTest {
+
+    private static final int ROWS = 2000;
+
+    private static final int PAGE_SIZE = 10;
+
+    private static final long TIMEOUT = 10;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * ordered = true，只有1个消费线程，按提交顺序回调
+     */
+    @Test
+    public void testOrdered() throws Exception {
+        PageDispatcher dispatcher = PageDispatcher.create(4, 2, true);
+        assertEquals(1, dispatcher.getConsumers());
+
+        List<Integer> rowIndexes = new CopyOnWriteArrayList<>();
+        Random random = new Random(1);
+
+        PageDispatcher.Session session = dispatcher.open((rowIndex, data) -> {
+            sleep(random.nextInt(2));
+            rowIndexes.add(rowIndex);
+        });
+
+        for (int i = 0; i < 100; i++) {
+            session.submit(i, page(i));
+        }
+
+        session.close();
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), rowIndexes.get(i));
+        }
+    }
+
+    /**
+     * 读csv，异步分发的页与同步相同；ordered = false，每页回调一次
+     */
+    @Test
+    public void testReadCsv() throws Exception {
+        File file = write();
+
+        List<String> expected = new ArrayList<>();
+        ReadCsv.create(PAGE_SIZE, ReadCsv.Engine.TOKENIZER).readPage(file, StandardCharsets.UTF_8,
+                (rowIndex, data) -> expected.add(rowIndex + "=" + data));
+
+        List<String> ordered = new CopyOnWriteArrayList<>();
+        ReadCsv.create(PAGE_SIZE, ReadCsv.Engine.TOKENIZER, PageDispatcher.create(4, 2, true), PagePool.create(3)).
+                readPage(file, StandardCharsets.UTF_8, (rowIndex, data) -> ordered.add(rowIndex + "=" + data));
+        assertEquals(expected, ordered);
+
+        Map<Integer, String> unordered = new ConcurrentSkipListMap<>();
+        ReadCsv.create(PAGE_SIZE, ReadCsv.Engine.TOKENIZER, PageDispatcher.create(4, 2), PagePool.create(6)).
+                readPage(file, StandardCharsets.UTF_8, (rowIndex, data) -> assertNull(unordered.put(rowIndex, rowIndex + "=" + data)));
+        assertEquals(expected, new ArrayList<>(unordered.values()));
+    }
+
+    /**
+     * 队列满，submit阻塞，直到消费线程取走
+     */
+    @Test
+    public void testBackPressure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger submitted = new AtomicInteger();
+
+        PageDispatcher.Session session = PageDispatcher.create(1, 2).open((rowIndex, data) -> await(release));
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                session.submit(i, page(i));
+                submitted.incrementAndGet();
+            }
+        });
+        producer.start();
+
+        // 1页在回调，2页在队列，第4页阻塞
+        sleep(300);
+        assertEquals(3, submitted.get());
+        assertTrue(producer.isAlive());
+
+        release.countDown();
+        producer.join(TimeUnit.SECONDS.toMillis(TIMEOUT));
+        assertEquals(10, submitted.get());
+
+        session.close();
+    }
+
+    /**
+     * 全部在用，acquire阻塞，直到有页归还；中断抛StopException
+     */
+    @Test
+    public void testPoolExhausted() throws Exception {
+        PagePool pool = PagePool.create(2);
+
+        Page first = pool.acquire();
+        Page second = pool.acquire();
+        assertEquals(2, pool.getInUse());
+
+        AtomicReference<Page> third = new AtomicReference<>();
+        Thread thread = new Thread(() -> third.set(pool.acquire()));
+        thread.start();
+
+        sleep(200);
+        assertTrue(thread.isAlive());
+        assertNull(third.get());
+
+        first.add(row(1));
+        first.release();
+        thread.join(TimeUnit.SECONDS.toMillis(TIMEOUT));
+
+        // 归还的页已清空，复用
+        assertSame(first, third.get());
+        assertTrue(third.get().isEmpty());
+        assertEquals(1, third.get().refCnt());
+        assertEquals(2, pool.getInUse());
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread interrupted = new Thread(() -> {
+            try {
+                pool.acquire();
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        });
+        interrupted.start();
+        sleep(100);
+        interrupted.interrupt();
+        interrupted.join(TimeUnit.SECONDS.toMillis(TIMEOUT));
+
+        assertTrue(error.get() instanceof StopException);
+
+        second.release();
+        third.get().release();
+        assertEquals(0, pool.getInUse());
+    }
+
+    /**
+     * retain之后，release到引用数为0才归还；多release抛异常
+     */
+    @Test
+    public void testRefCnt() {
+        PagePool pool = PagePool.create(1);
+
+        Page page = pool.acquire();
+        page.add(row(1));
+        assertSame(page, Page.retain(page));
+        assertEquals(2, page.refCnt());
+
+        page.release();
+        assertEquals(1, pool.getInUse());
+        assertEquals(1, page.size());
+
+        page.release();
+        assertEquals(0, pool.getInUse());
+        assertTrue(page.isEmpty());
+
+        try {
+            page.release();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(0, page.refCnt());
+        }
+
+        try {
+            page.retain();
+            fail();
+        } catch (IllegalStateException e) {
+            // 期望
+        }
+
+        assertFalse(Page.release(new ArrayList<>()));
+    }
+
+    /**
+     * 页池的页，回调之后继续持有，直到release
+     */
+    @Test
+    public void testRetainInListener() throws Exception {
+        File file = write();
+        PagePool pool = PagePool.create(4);
+        List<Page> retained = new CopyOnWriteArrayList<>();
+
+        ReadCsv.create(PAGE_SIZE, ReadCsv.Engine.TOKENIZER, PageDispatcher.create(2, 2), pool).
+                readPage(file, StandardCharsets.UTF_8, (rowIndex, data) -> {
+                    if (retained.isEmpty()) {
+                        retained.add(Page.retain(data));
+                    }
+                });
+
+        assertEquals(1, pool.getInUse());
+        assertEquals(PAGE_SIZE, retained.get(0).size());
+
+        retained.get(0).release();
+        assertEquals(0, pool.getInUse());
+    }
+
+    /**
+     * 消费线程抛出StopException：submit抛StopException，之后的页不回调并归还池，close不抛出
+     */
+    @Test
+    public void testStop() throws Exception {
+        PagePool pool = PagePool.create(4);
+        AtomicInteger invoked = new AtomicInteger();
+        List<Checkpoint> checkpoints = new CopyOnWriteArrayList<>();
+
+        PageDispatcher.Session session = PageDispatcher.create(2, 2).open(new ReadPage.Listener() {
+            @Override
+            public void invoke(Integer rowIndex, List<Map<String, String>> data) {
+                if (invoked.incrementAndGet() == 5) {
+                    throw new StopException();
+                }
+            }
+
+            @Override
+            public void onCheckpoint(Checkpoint checkpoint) {
+                checkpoints.add(checkpoint);
+            }
+        });
+
+        int submitted = 0;
+        try {
+            for (int i = 0; i < 1000; i++) {
+                Page page = pool.acquire();
+                page.add(row(i));
+                session.submit(i, page);
+                submitted++;
+            }
+
+            fail();
+        } catch (StopException e) {
+            assertTrue(session.isStopped());
+        }
+
+        assertTrue(submitted < 1000);
+
+        session.checkpoint(Checkpoint.csv(submitted, 0));
+        session.close();
+
+        assertTrue(invoked.get() < submitted);
+        assertTrue(checkpoints.isEmpty());
+        assertEquals(0, pool.getInUse());
+    }
+
+    /**
+     * 消费线程抛出异常，close重新抛出
+     */
+    @Test
+    public void testFailure() {
+        IllegalStateException expected = new IllegalStateException("broken");
+
+        PageDispatcher.Session session = PageDispatcher.create(2, 2).open((rowIndex, data) -> {
+            if (rowIndex == 3) {
+                throw expected;
+            }
+        });
+
+        try {
+            for (int i = 0; i < 100; i++) {
+                session.submit(i, page(i));
+            }
+        } catch (StopException e) {
+            // 已终止
+        }
+
+        try {
+            session.close();
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(expected, e);
+        }
+    }
+
+    /**
+     * 检查点等之前提交的页都回调返回；没有未完成的页，直接在调用线程回调
+     */
+    @Test
+    public void testCheckpointWatermark() throws Exception {
+        Set<Integer> completed = ConcurrentHashMap.newKeySet();
+        List<String> violations = new CopyOnWriteArrayList<>();
+        List<Checkpoint> checkpoints = new CopyOnWriteArrayList<>();
+        Random random = new Random(7);
+
+        PageDispatcher.Session session = PageDispatcher.create(4, 4).open(new ReadPage.Listener() {
+            @Override
+            public void invoke(Integer rowIndex, List<Map<String, String>> data) {
+                // 先提交的页，更晚返回
+                sleep(rowIndex % 4 == 0 ? 5 : random.nextInt(2));
+                completed.add(rowIndex);
+            }
+
+            @Override
+            public void onCheckpoint(Checkpoint checkpoint) {
+                for (int i = 0; i < checkpoint.getRowIndex(); i++) {
+                    if (!completed.contains(i)) {
+                        violations.add(checkpoint.getRowIndex() + " before " + i);
+                    }
+                }
+
+                checkpoints.add(checkpoint);
+            }
+        });
+
+        Thread caller = Thread.currentThread();
+        AtomicReference<Thread> callback = new AtomicReference<>();
+        PageDispatcher.Session idle = PageDispatcher.create(2, 2).open(new ReadPage.Listener() {
+            @Override
+            public void invoke(Integer rowIndex, List<Map<String, String>> data) {
+            }
+
+            @Override
+            public void onCheckpoint(Checkpoint checkpoint) {
+                callback.set(Thread.currentThread());
+            }
+        });
+        idle.checkpoint(Checkpoint.csv(1, 0));
+        assertSame(caller, callback.get());
+        idle.close();
+
+        for (int i = 0; i < 200; i++) {
+            session.submit(i, page(i));
+            if (i % 10 == 9) {
+                session.checkpoint(Checkpoint.csv(i + 1, i));
+            }
+        }
+
+        session.close();
+
+        assertTrue(violations.toString(), violations.isEmpty());
+        assertEquals(20, checkpoints.size());
+        for (int i = 0; i < checkpoints.size(); i++) {
+            assertEquals((i + 1) * 10, checkpoints.get(i).getRowIndex());
+        }
+    }
+
+    private File write() throws IOException {
+        File file = folder.newFile("pages.csv");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("id,name\n");
+            for (int i = 1; i <= ROWS; i++) {
+                writer.write(i + ",名字" + i + "\n");
+            }
+        }
+
+        return file;
+    }
+
+    private static List<Map<String, String>> page(int i) {
+        return new ArrayList<>(Collections.singletonList(row(i)));
+    }
+
+    private static Map<String, String> row(int i) {
+        return Collections.singletonMap("id", String.valueOf(i));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(TIMEOUT, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
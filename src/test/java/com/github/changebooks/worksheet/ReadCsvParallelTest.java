@@ -0,0 +1,175 @@
+package com.github.changebooks.worksheet;
+
+import com.opencsv.exceptions.CsvMalformedLineException;
+import org.junit.AfterClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 并行读csv与ReadCsv结果相同
+ *
+ * @author changebooks
+ */
+public class ReadCsvParallelTest {
+
+    private static final int ROWS = 3000;
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @AfterClass
+    public static void shutdown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void testSameRows() throws Exception {
+        File utf8 = write("utf8.csv", StandardCharsets.UTF_8, true, "");
+        File gbk = write("gbk.csv", CharsetDetector.GBK, false, "");
+
+        for (File file : new File[]{utf8, gbk}) {
+            List<String> expected = CsvTokenizerTest.readLine(file, ReadCsv.Engine.OPENCSV, ReadOptions.DEFAULT);
+            Charset charset = file == utf8 ? StandardCharsets.UTF_8 : CharsetDetector.GBK;
+
+            for (int chunkSize : new int[]{64, 4096, ReadCsvParallel.DEFAULT_CHUNK_SIZE}) {
+                for (boolean ordered : new boolean[]{true, false}) {
+                    ReadCsvParallel reader = ReadCsvParallel.create(POOL, chunkSize, ordered);
+                    String message = file.getName() + " " + chunkSize + " " + ordered;
+
+                    // 识别编码，指定编码
+                    assertEquals(message, expected, readLine(reader, file, null, ErrorPolicy.DEFAULT));
+                    assertEquals(message, expected, readLine(reader, file, charset, ErrorPolicy.DEFAULT));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBomOnly() throws Exception {
+        File file = folder.newFile("bom.csv");
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+        }
+
+        assertEquals(Collections.singletonList("complete -1"),
+                readLine(ReadCsvParallel.create(POOL, 64, true), file, null, ErrorPolicy.DEFAULT));
+    }
+
+    @Test
+    public void testUnterminated() throws Exception {
+        File file = write("malformed.csv", StandardCharsets.UTF_8, true, "x,\"open\n1,2\n");
+
+        for (boolean ordered : new boolean[]{true, false}) {
+            ReadCsvParallel reader = ReadCsvParallel.create(POOL, 256, ordered);
+
+            try {
+                readLine(reader, file, null, ErrorPolicy.DEFAULT);
+                fail();
+            } catch (RowParseException e) {
+                assertEquals(ROWS + 1, e.getError().getRowIndex());
+                assertTrue(e.getCause() instanceof CsvMalformedLineException);
+            }
+
+            List<RowError> errors = new ArrayList<>();
+            ErrorPolicy policy = ErrorPolicy.quarantine(errors::add, 1).allowUnterminated();
+
+            List<String> rows = readLine(reader, file, null, policy);
+            assertEquals(ROWS + 1, rows.size());
+            assertEquals("complete " + ROWS, rows.get(ROWS));
+            assertEquals(1, errors.size());
+        }
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        File file = write("stop.csv", StandardCharsets.UTF_8, false, "");
+
+        for (boolean ordered : new boolean[]{true, false}) {
+            AtomicInteger count = new AtomicInteger();
+            AtomicInteger completed = new AtomicInteger();
+
+            ReadCsvParallel.create(POOL, 256, ordered).readLine(file, null, new ReadLine.Listener() {
+                @Override
+                public void invoke(Integer rowIndex, Map<String, String> data) {
+                    if (count.incrementAndGet() >= 100) {
+                        throw new StopException();
+                    }
+                }
+
+                @Override
+                public void onComplete(Integer rowIndex) {
+                    completed.incrementAndGet();
+                }
+            });
+
+            assertEquals(0, completed.get());
+            if (ordered) {
+                assertEquals(100, count.get());
+            } else {
+                assertTrue(count.get() < ROWS);
+            }
+        }
+    }
+
+    /**
+     * 每11行一个引号内换行，每7行一个引号内分隔符
+     */
+    private File write(String name, Charset charset, boolean bom, String tail) throws IOException {
+        File file = folder.newFile(name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            if (bom) {
+                out.write(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+            }
+
+            Writer writer = new OutputStreamWriter(out, charset);
+            writer.write("id,name,note\n");
+            for (int i = 1; i <= ROWS; i++) {
+                String note = i % 11 == 0 ? "\"多\n行" + i + "\"" : i % 7 == 0 ? "\"a,b\"" : "备注" + i;
+                writer.write(i + ",名字" + i + "," + note + "\n");
+            }
+
+            writer.write(tail);
+            writer.flush();
+        }
+
+        return file;
+    }
+
+    /**
+     * 按行索引排序，与ReadCsv的结果格式相同
+     */
+    private static List<String> readLine(ReadCsvParallel reader, File file, Charset charset, ErrorPolicy policy) throws IOException {
+        Map<Integer, String> rows = new ConcurrentSkipListMap<>();
+        List<String> completed = new ArrayList<>();
+
+        reader.readLine(file, charset, policy, new ReadLine.Listener() {
+            @Override
+            public void invoke(Integer rowIndex, Map<String, String> data) {
+                assertNull(rows.put(rowIndex, rowIndex + "=" + data));
+            }
+
+            @Override
+            public void onComplete(Integer rowIndex) {
+                completed.add("complete " + rowIndex);
+            }
+        });
+
+        List<String> result = new ArrayList<>(rows.values());
+        result.addAll(completed);
+        return result;
+    }
+
+}
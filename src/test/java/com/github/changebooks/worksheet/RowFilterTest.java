@@ -0,0 +1,346 @@
+package com.github.changebooks.worksheet;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.read.metadata.ReadSheet;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * 行过滤、行范围
+ *
+ * @author changebooks
+ */
+public class RowFilterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testOperators() {
+        RowFilter eq = RowFilter.eq("k", "ab");
+        assertTrue(eq.test("ab"));
+        assertFalse(eq.test("abc"));
+        assertFalse(eq.test(null));
+        assertTrue(RowFilter.eq(0, "").test(null));
+
+        RowFilter in = RowFilter.in("k", "c", "a", "b", "中");
+        for (String value : new String[]{"a", "b", "c", "中"}) {
+            assertTrue(value, in.test(value));
+        }
+
+        for (String value : new String[]{"", "d", "A", "ab", "中文"}) {
+            assertFalse(value, in.test(value));
+        }
+
+        assertFalse(RowFilter.in(1).test("a"));
+
+        RowFilter prefix = RowFilter.prefix("k", "20");
+        assertTrue(prefix.test("20"));
+        assertTrue(prefix.test("2024"));
+        assertFalse(prefix.test("2"));
+        assertFalse(prefix.test("120"));
+        assertTrue(RowFilter.prefix("k", "").test(null));
+
+        RowFilter range = RowFilter.range("k", "2024-01-01", "2024-01-31");
+        assertTrue(range.test("2024-01-01"));
+        assertTrue(range.test("2024-01-15 08:00"));
+        assertTrue(range.test("2024-01-31"));
+        assertFalse(range.test("2024-01-31 00:00"));
+        assertFalse(range.test("2023-12-31"));
+        assertFalse(range.test(""));
+
+        assertTrue(RowFilter.range("k", null, "b").test(""));
+        assertFalse(RowFilter.range("k", null, "b").test("c"));
+        assertTrue(RowFilter.range("k", "b", null).test("zzz"));
+        assertTrue(RowFilter.range("k", (String) null, null).test(null));
+
+        RowFilter number = RowFilter.range("k", 10, 100);
+        assertTrue(number.isNumeric());
+        assertTrue(number.test("10"));
+        assertTrue(number.test(" 100.0 "));
+        assertTrue(number.test("5e1"));
+        assertTrue(number.test(50.5));
+        assertFalse(number.test("9.99"));
+        assertFalse(number.test("100.01"));
+        assertFalse(number.test("abc"));
+        assertFalse(number.test("  "));
+        assertFalse(number.test(null));
+        assertFalse(number.test("NaN"));
+
+        assertTrue(RowFilter.range("k", Double.NEGATIVE_INFINITY, 0).test("-1e300"));
+        assertFalse(range.isNumeric());
+    }
+
+    @Test
+    public void testArguments() {
+        Runnable[] invalid = {
+                () -> RowFilter.eq((String) null, "a"),
+                () -> RowFilter.eq(-1, "a"),
+                () -> RowFilter.in("k", "a", null),
+                () -> RowFilter.range("k", 2, 1),
+                () -> RowFilter.range("k", Double.NaN, 1),
+        };
+
+        for (Runnable runnable : invalid) {
+            try {
+                runnable.run();
+                fail();
+            } catch (NullPointerException | IllegalArgumentException e) {
+                // 期望
+            }
+        }
+
+        WorksheetHeader header = WorksheetHeader.create(headMap("id", "name"));
+        assertEquals(1, RowFilter.eq("name", "a").resolve(header));
+        assertEquals(5, RowFilter.eq(5, "a").resolve(null));
+
+        try {
+            RowFilter.eq("none", "a").resolve(header);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // 期望
+        }
+    }
+
+    /**
+     * 字符区间与String结果相同
+     */
+    @Test
+    public void testCharRange() {
+        String[] values = {"", " ", "a", "ab", "abc", "b", "中", "中文", "2024-01-15", "10", " 10 ", "10.5", "-3",
+                "+7", "1e2", "1E-2", ".5", "5.", "1d", "0x10p0", "NaN", "-Infinity", "1,000", "12345678901234567890", "1.2.3"};
+
+        List<RowFilter> filters = Arrays.asList(
+                RowFilter.eq("k", "ab"),
+                RowFilter.eq("k", ""),
+                RowFilter.in("k", "a", "中", "10"),
+                RowFilter.prefix("k", "a"),
+                RowFilter.prefix("k", "中"),
+                RowFilter.range("k", "a", "b"),
+                RowFilter.range("k", "1", null),
+                RowFilter.range("k", 0, 100),
+                RowFilter.range("k", -5, 5),
+                RowFilter.range("k", Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+
+        RowFilter.CharRange range = new RowFilter.CharRange();
+        for (String value : values) {
+            char[] buffer = ("xx" + value + "yy").toCharArray();
+            range.set(buffer, 2, 2 + value.length());
+            assertEquals(value, range.toString());
+
+            for (RowFilter filter : filters) {
+                assertEquals(filter + " " + value, filter.test(value), filter.test(range));
+            }
+        }
+    }
+
+    /**
+     * 两种引擎结果相同；引号内有转义的字段按String判断
+     */
+    @Test
+    public void testCsv() throws Exception {
+        File file = write("filter.csv", "id,type,amount,note\n" +
+                "1,a,10,x\n" +
+                "2,b,200,\"y,1\"\n" +
+                "3,\"a\",\"50\",z\n" +
+                "4,\"a\"\"b\",30,\n" +
+                "5,a,abc,w\n" +
+                "6,a, 99 ,v\n" +
+                "7,c\n");
+
+        assertFiltered(file, "[1, 3, 6]", RowFilter.eq("type", "a"), RowFilter.range("amount", 0, 100));
+        assertFiltered(file, "[4]", RowFilter.eq(1, "a\"b"));
+        assertFiltered(file, "[2, 7]", RowFilter.in("type", "c", "b"));
+        assertFiltered(file, "[2]", RowFilter.prefix("note", "y,"));
+        assertFiltered(file, "[4, 7]", RowFilter.eq("note", ""));
+        assertFiltered(file, "[1, 2, 3]", RowFilter.range("id", "1", "3"));
+    }
+
+    /**
+     * 数值区间直接比较数值单元格，不受单元格格式影响；文本单元格按字符串解析
+     */
+    @Test
+    public void testXlsxNumber() throws Exception {
+        File file = new File(folder.getRoot(), "filter.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = new FileOutputStream(file)) {
+            CellStyle thousands = workbook.createCellStyle();
+            thousands.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("#,##0.00"));
+
+            Sheet sheet = workbook.createSheet("data");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("id");
+            header.createCell(1).setCellValue("amount");
+
+            Object[] amounts = {1500.0, 999.5, "1200", "abc", 2000.0, null, 1000.0};
+            for (int i = 0; i < amounts.length; i++) {
+                Row row = sheet.createRow(i + 1);
+                row.createCell(0).setCellValue(i + 1);
+
+                Object amount = amounts[i];
+                if (amount instanceof Double) {
+                    row.createCell(1).setCellValue((Double) amount);
+                    row.getCell(1).setCellStyle(thousands);
+                } else if (amount instanceof String) {
+                    row.createCell(1).setCellValue((String) amount);
+                }
+            }
+
+            workbook.write(out);
+        }
+
+        ReadOptions options = ReadOptions.builder().filter(RowFilter.range("amount", 1000, 2000)).build();
+        String expected = "[1, 3, 5, 7]";
+
+        List<String> rows = new ArrayList<>();
+        ReadLine.read(file, EasyExcel.readSheet(0).build(), options, new ReadLine.Listener() {
+            @Override
+            public void invoke(Integer rowIndex, Map<String, String> data) {
+                rows.add(data.get("id"));
+            }
+
+            @Override
+            public void onComplete(Integer rowIndex) {
+            }
+        });
+        assertEquals(expected, rows.toString());
+
+        // 按格式转换的字符串，1,500.00
+        List<String> amounts = new ArrayList<>();
+        ReadLine.read(file, EasyExcel.readSheet(0).build(), ReadOptions.builder().filter(RowFilter.eq("id", "1")).build(),
+                new ReadLine.Listener() {
+                    @Override
+                    public void invoke(Integer rowIndex, Map<String, String> data) {
+                        amounts.add(data.get("amount"));
+                    }
+
+                    @Override
+                    public void onComplete(Integer rowIndex) {
+                    }
+                });
+        assertEquals("[1,500.00]", amounts.toString());
+
+        List<String> workbookRows = Collections.synchronizedList(new ArrayList<>());
+        ReadWorkbook.create(ForkJoinPool.commonPool(), options).read(file, new ReadWorkbook.Listener() {
+            @Override
+            public void invoke(ReadSheet sheet, Integer rowIndex, Map<String, String> data) {
+                workbookRows.add(data.get("id"));
+            }
+
+            @Override
+            public void onComplete(ReadSheet sheet, Integer rowIndex) {
+            }
+        });
+        assertEquals(expected, workbookRows.toString());
+    }
+
+    @Test
+    public void testDone() {
+        RowSelector take = RowSelector.create(ReadOptions.builder().skip(2).take(3).build());
+        assertFalse(take.contains(2));
+        assertTrue(take.contains(3));
+        assertTrue(take.contains(5));
+        assertFalse(take.contains(6));
+        assertFalse(take.isDone(4));
+        assertTrue(take.isDone(5));
+
+        RowSelector limit = RowSelector.create(ReadOptions.builder().limit(2).build());
+        assertFalse(limit.isDone(100));
+        limit.accept();
+        assertFalse(limit.isDone(100));
+        limit.accept();
+        assertTrue(limit.isDone(1));
+
+        RowSelector between = RowSelector.create(ReadOptions.builder().skip(100).take(100).build(), 3, 4);
+        assertFalse(between.contains(2));
+        assertTrue(between.contains(3));
+        assertTrue(between.isDone(4));
+
+        RowSelector all = RowSelector.create(ReadOptions.DEFAULT);
+        assertFalse(all.isDone(Integer.MAX_VALUE - 1));
+    }
+
+    /**
+     * 读够即停止，之后引号未闭合的内容不再解析
+     */
+    @Test
+    public void testStopEarly() throws Exception {
+        File file = write("stop.csv", "id,type\n1,a\n2,b\n3,a\n4,a\n5,\"broken\n6,a\n");
+
+        assertFiltered(file, ReadOptions.builder().take(3).build(), "[1, 2, 3, complete 3]");
+        assertFiltered(file, ReadOptions.builder().skip(1).take(2).build(), "[2, 3, complete 3]");
+        assertFiltered(file, ReadOptions.builder().filter(RowFilter.eq("type", "a")).limit(2).build(), "[1, 3, complete 3]");
+        assertFiltered(file, ReadOptions.builder().filter(RowFilter.eq("type", "a")).take(4).build(), "[1, 3, 4, complete 4]");
+
+        for (ReadCsv.Engine engine : ReadCsv.Engine.values()) {
+            try {
+                CsvTokenizerTest.readLine(file, engine, ReadOptions.builder().take(5).build());
+                fail(engine.name());
+            } catch (RowParseException e) {
+                assertEquals(5, e.getError().getRowIndex());
+            }
+        }
+    }
+
+    private void assertFiltered(File file, String expected, RowFilter... filters) throws IOException {
+        List<String> ids = new ArrayList<>();
+        ReadOptions options = ReadOptions.builder().filter(filters).build();
+
+        for (ReadCsv.Engine engine : ReadCsv.Engine.values()) {
+            ids.clear();
+            ReadCsv.readLine(file, null, engine, options, new ReadLine.Listener() {
+                @Override
+                public void invoke(Integer rowIndex, Map<String, String> data) {
+                    ids.add(data.get("id"));
+                }
+
+                @Override
+                public void onComplete(Integer rowIndex) {
+                }
+            });
+
+            assertEquals(engine + " " + Arrays.toString(filters), expected, ids.toString());
+        }
+    }
+
+    private static void assertFiltered(File file, ReadOptions options, String expected) throws IOException {
+        for (ReadCsv.Engine engine : ReadCsv.Engine.values()) {
+            List<String> rows = new ArrayList<>();
+            for (String row : CsvTokenizerTest.readLine(file, engine, options)) {
+                rows.add(row.startsWith("complete") ? row : row.substring(0, row.indexOf('=')));
+            }
+
+            assertEquals(engine + " " + options, expected, rows.toString());
+        }
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = folder.newFile(name);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+
+        return file;
+    }
+
+    private static Map<Integer, String> headMap(String... names) {
+        Map<Integer, String> result = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            result.put(i, names[i]);
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.github.changebooks.worksheet;
+
+import com.alibaba.excel.EasyExcel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * 逐行拉取，迭代器、流
+ *
+ * @author changebooks
+ */
+public class RowIteratorTest {
+
+    private static final int ROWS = 2000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * csv在调用线程解析，结果与read相同
+     */
+    @Test
+    public void testCsv() throws Exception {
+        File utf8 = writeCsv("utf8.csv", StandardCharsets.UTF_8, true);
+        File gbk = writeCsv("gbk.csv", CharsetDetector.GBK, false);
+
+        for (File file : new File[]{utf8, gbk}) {
+            for (ReadCsv.Engine engine : ReadCsv.Engine.values()) {
+                ReadOptions options = ReadOptions.builder().engine(engine).build();
+
+                List<String> expected = read(file, options);
+                List<String> actual = new ArrayList<>();
+
+                try (RowIterator iterator = ReadLine.iterator(file, null, options)) {
+                    while (iterator.hasNext()) {
+                        Map<String, String> row = iterator.next();
+                        actual.add(iterator.getRowIndex() + "=" + row);
+                    }
+                }
+
+                assertEquals(file.getName() + " " + engine, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testXlsx() throws Exception {
+        File file = new File(folder.getRoot(), "rows.xlsx");
+        try (WriteLine writer = WriteLine.create(file, Arrays.asList("id", "name"))) {
+            for (int i = 1; i <= ROWS; i++) {
+                Map<String, String> row = new LinkedHashMap<>();
+                row.put("id", String.valueOf(i));
+                row.put("name", "名字" + i);
+                writer.write(row);
+            }
+        }
+
+        List<String> expected = read(file, ReadOptions.DEFAULT);
+
+        List<String> actual = new ArrayList<>();
+        try (RowIterator iterator = ReadLine.iterator(file, EasyExcel.readSheet(0).build(), ReadOptions.DEFAULT)) {
+            while (iterator.hasNext()) {
+                Map<String, String> row = iterator.next();
+                actual.add(iterator.getRowIndex() + "=" + row);
+            }
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testSpliterator() throws Exception {
+        File file = writeCsv("split.csv", StandardCharsets.UTF_8, false);
+
+        try (RowIterator iterator = ReadCsv.iterator(file, StandardCharsets.UTF_8, ReadCsv.Engine.TOKENIZER, ReadOptions.DEFAULT);
+             Stream<Map<String, String>> stream = iterator.stream()) {
+            Spliterator<Map<String, String>> spliterator = stream.spliterator();
+
+            assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+            assertTrue(spliterator.hasCharacteristics(Spliterator.NONNULL));
+            assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+            assertEquals(Long.MAX_VALUE, spliterator.estimateSize());
+
+            // 按批拆分，拆出的在前
+            Spliterator<Map<String, String>> prefix = spliterator.trySplit();
+            assertNotNull(prefix);
+
+            List<String> ids = new ArrayList<>();
+            prefix.forEachRemaining(row -> ids.add(row.get("id")));
+            assertFalse(ids.isEmpty());
+            assertEquals("1", ids.get(0));
+
+            spliterator.forEachRemaining(row -> ids.add(row.get("id")));
+            assertEquals(ROWS, ids.size());
+            assertEquals(String.valueOf(ROWS), ids.get(ROWS - 1));
+        }
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        File file = writeCsv("parallel.csv", StandardCharsets.UTF_8, false);
+
+        List<String> expected;
+        try (Stream<Map<String, String>> stream = ReadCsv.stream(file, StandardCharsets.UTF_8, ReadCsv.Engine.TOKENIZER, ReadOptions.DEFAULT)) {
+            expected = stream.map(Object::toString).collect(Collectors.toList());
+        }
+
+        List<String> actual;
+        try (Stream<Map<String, String>> stream = ReadLine.stream(file, null, ReadOptions.DEFAULT)) {
+            actual = stream.parallel().map(Object::toString).collect(Collectors.toList());
+        }
+
+        assertEquals(ROWS, expected.size());
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * 关闭流即关闭迭代器
+     */
+    @Test
+    public void testClose() throws Exception {
+        File file = writeCsv("close.csv", StandardCharsets.UTF_8, false);
+
+        RowIterator iterator = ReadLine.iterator(file, null, ReadOptions.DEFAULT);
+        try (Stream<Map<String, String>> stream = iterator.stream()) {
+            assertEquals(10, stream.limit(10).count());
+        }
+
+        assertFalse(iterator.hasNext());
+        assertEquals(10, iterator.getRowIndex());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testNoSuchElement() throws Exception {
+        File file = folder.newFile("empty.csv");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("id,name\n");
+        }
+
+        try (RowIterator iterator = ReadLine.iterator(file, null, ReadOptions.DEFAULT)) {
+            assertFalse(iterator.hasNext());
+            assertEquals(-1, iterator.getRowIndex());
+            iterator.next();
+        }
+    }
+
+    /**
+     * 每13行一个引号内换行
+     */
+    private File writeCsv(String name, Charset charset, boolean bom) throws IOException {
+        File file = folder.newFile(name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            if (bom) {
+                out.write(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+            }
+
+            Writer writer = new OutputStreamWriter(out, charset);
+            writer.write("id,name,note\n");
+            for (int i = 1; i <= ROWS; i++) {
+                String note = i % 13 == 0 ? "\"多\n行" + i + "\"" : "备注" + i;
+                writer.write(i + ",名字" + i + "," + note + "\n");
+            }
+
+            writer.flush();
+        }
+
+        return file;
+    }
+
+    private static List<String> read(File file, ReadOptions options) throws IOException {
+        List<String> result = new ArrayList<>();
+        ReadLine.read(file, EasyExcel.readSheet(0).build(), options, new ReadLine.Listener() {
+            @Override
+            public void invoke(Integer rowIndex, Map<String, String> data) {
+                result.add(rowIndex + "=" + data);
+            }
+
+            @Override
+            public void onComplete(Integer rowIndex) {
+            }
+        });
+
+        return result;
+    }
+
+}
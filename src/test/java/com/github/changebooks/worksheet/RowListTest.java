@@ -0,0 +1,165 @@
+package com.github.changebooks.worksheet;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * 紧凑的读结果，页存储
+ *
+ * @author changebooks
+ */
+public class RowListTest {
+
+    private static final int ROWS = 20000;
+
+    /**
+     * 字典、堆外值表，与原数据相同
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        List<Map<String, String>> rows = rows();
+
+        for (int dictionaryLimit : new int[]{0, 16, RowList.DEFAULT_DICTIONARY_LIMIT}) {
+            try (RowList list = RowList.create(RowList.DEFAULT_MEMORY_BUDGET, dictionaryLimit)) {
+                list.addAll(rows);
+
+                assertFalse(list.isSpilled());
+                assertEquals(rows.size(), list.size());
+                assertEquals(String.valueOf(dictionaryLimit), rows, list);
+            }
+        }
+    }
+
+    /**
+     * 超过预算写临时文件，结果相同；close删除临时文件
+     */
+    @Test
+    public void testSpill() throws Exception {
+        List<Map<String, String>> rows = rows();
+
+        for (long memoryBudget : new long[]{0, 256 * 1024}) {
+            RowList list = RowList.create(memoryBudget, 16);
+            try {
+                list.addAll(rows);
+
+                assertTrue(list.isSpilled());
+                assertTrue(list.getDirectBytes() <= memoryBudget);
+                assertTrue(list.getSpilledBytes() > 0);
+                assertEquals(rows, list);
+            } finally {
+                list.close();
+            }
+
+            try {
+                list.get(0);
+                fail();
+            } catch (IllegalStateException e) {
+                // 期望
+            }
+        }
+    }
+
+    @Test
+    public void testSpillFileDeleted() throws Exception {
+        PageStore store = new PageStore(0);
+        PageStore.Pages pages = new PageStore.Pages(store);
+        pages.addString("spill");
+
+        Path file = store.getSpillFile();
+        assertTrue(Files.exists(file));
+
+        store.close();
+        assertFalse(Files.exists(file));
+    }
+
+    /**
+     * 列多行少，每列的编码、值表只占小页，不到整页的1/4
+     */
+    @Test
+    public void testSmallPages() throws Exception {
+        Map<String, String> row = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            row.put("k" + i, "v" + i);
+        }
+
+        try (RowList list = RowList.create(RowList.DEFAULT_MEMORY_BUDGET, 0)) {
+            list.add(row);
+
+            assertEquals(row, list.get(0));
+            assertTrue(list.getDirectBytes() < 100 * 3 * PageStore.PAGE_SIZE / 4);
+        }
+
+        PageStore store = new PageStore(Long.MAX_VALUE);
+        PageStore.Pages pages = new PageStore.Pages(store);
+        pages.addInt(1);
+        assertEquals(1, pages.pageCount());
+        assertEquals(PageStore.PAGE_SIZE, store.getDirectBytes());
+        store.close();
+    }
+
+    /**
+     * 小页、整页的边界，int、long不跨页，字符串可跨页
+     */
+    @Test
+    public void testPages() throws Exception {
+        try (PageStore store = new PageStore(RowList.DEFAULT_MEMORY_BUDGET)) {
+            PageStore.Pages ints = new PageStore.Pages(store);
+            PageStore.Pages longs = new PageStore.Pages(store);
+            PageStore.Pages strings = new PageStore.Pages(store);
+
+            int count = 3 * PageStore.PAGE_SIZE / 4;
+            for (int i = 0; i < count; i++) {
+                ints.addInt(i * 31);
+                longs.addLong(i * 1000000007L);
+            }
+
+            List<Long> positions = new ArrayList<>();
+            List<String> values = new ArrayList<>();
+            for (int i = 0; strings.size() < 3 * PageStore.PAGE_SIZE; i++) {
+                String value = i % 3 == 0 ? "中文" + i : "value-" + i;
+                positions.add(strings.size());
+                values.add(value);
+                strings.addString(value);
+            }
+
+            for (int i = 0; i < count; i++) {
+                assertEquals(i * 31, ints.getInt(i));
+                assertEquals(i * 1000000007L, longs.getLong(i));
+            }
+
+            for (int i = 0; i < values.size(); i++) {
+                long start = positions.get(i);
+                long end = i + 1 < values.size() ? positions.get(i + 1) : strings.size();
+                assertEquals(values.get(i), strings.getString(start, (int) (end - start)));
+            }
+
+            assertEquals(PageStore.SMALL_PAGES + 2, ints.pageCount());
+        }
+    }
+
+    /**
+     * 重复值、不重复的值、空值、中文、超过一页的长值
+     */
+    private static List<Map<String, String>> rows() {
+        char[] chars = new char[PageStore.PAGE_SIZE + 100];
+        Arrays.fill(chars, '长');
+        String longValue = new String(chars);
+
+        List<Map<String, String>> result = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Map<String, String> row = new LinkedHashMap<>();
+            row.put("id", String.valueOf(i));
+            row.put("type", "类型" + (i % 5));
+            row.put("note", i % 7 == 0 ? null : i % 1000 == 1 ? longValue : "备注" + i);
+            result.add(row);
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,240 @@
+package com.github.changebooks.worksheet;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 单元格 -> TypedRow
+ *
+ * @author changebooks
+ */
+public class TypedConverterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testParseLong() {
+        assertEquals(0L, parseLong("0"));
+        assertEquals(-42L, parseLong("-42"));
+        assertEquals(42L, parseLong("+42"));
+        assertEquals(12L, parseLong("12.00"));
+        assertEquals(Long.MAX_VALUE, parseLong(String.valueOf(Long.MAX_VALUE)));
+        assertEquals(Long.MIN_VALUE, parseLong(String.valueOf(Long.MIN_VALUE)));
+
+        for (String bad : new String[]{"", "-", "+", ".5", "12.5", "1a", "1 2", "9223372036854775808"}) {
+            try {
+                parseLong(bad);
+                fail(bad);
+            } catch (NumberFormatException e) {
+                // 期望
+            }
+        }
+    }
+
+    /**
+     * 与Double.parseDouble相同
+     */
+    @Test
+    public void testParseDouble() {
+        String[] values = {"0", "-0.5", "+1.25", "3.14159", ".5", "5.", "123456789012345", "1234567890123456789",
+                "0.1", "0.000000000000000000001", "1e10", "-2.5E-3", "NaN", "Infinity"};
+        for (String value : values) {
+            assertEquals(value, Double.parseDouble(value), parseDouble(value), 0);
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            String value = BigDecimal.valueOf(random.nextLong() % 1000000000000L, random.nextInt(12)).toPlainString();
+            assertEquals(value, Double.doubleToLongBits(Double.parseDouble(value)), Double.doubleToLongBits(parseDouble(value)));
+        }
+
+        for (String bad : new String[]{"", "-", ".", "1.2.3", "abc"}) {
+            try {
+                parseDouble(bad);
+                fail(bad);
+            } catch (NumberFormatException e) {
+                // 期望
+            }
+        }
+    }
+
+    @Test
+    public void testParseDate() {
+        LocalDate expected = LocalDate.of(2024, 1, 15);
+
+        assertEquals(expected, parseDate("2024-01-15", null));
+        assertEquals(expected, parseDate("2024/01/15", null));
+        assertEquals(expected, parseDate("2024-01-15 08:30:00", null));
+        assertEquals(expected, parseDate("2024-01-15T08:30:00", null));
+        assertEquals(expected, parseDate("20240115", null));
+        assertEquals(expected, parseDate("15.01.2024", DateTimeFormatter.ofPattern("dd.MM.yyyy")));
+
+        for (String bad : new String[]{"2024-1-15", "2024.01.15", "45306", "20241315x"}) {
+            try {
+                parseDate(bad, null);
+                fail(bad);
+            } catch (DateTimeParseException e) {
+                // 期望
+            }
+        }
+    }
+
+    /**
+     * 日期格式的数值是日期序号；其它数值按yyyyMMdd，不是日期的，该列为空值
+     */
+    @Test
+    public void testXlsx() throws Exception {
+        File file = new File(folder.getRoot(), "typed.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = new FileOutputStream(file)) {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+
+            Sheet sheet = workbook.createSheet();
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("id");
+            header.createCell(1).setCellValue("date");
+            header.createCell(2).setCellValue("amount");
+            header.createCell(3).setCellValue("flag");
+
+            // 日期序号，2024-01-15
+            Row serial = sheet.createRow(1);
+            serial.createCell(0).setCellValue(1);
+            serial.createCell(1).setCellValue(45306);
+            serial.getCell(1).setCellStyle(dateStyle);
+            serial.createCell(2).setCellValue(12.5);
+            serial.createCell(3).setCellValue(true);
+
+            // 常规格式的数值
+            Row digits = sheet.createRow(2);
+            digits.createCell(0).setCellValue(2);
+            digits.createCell(1).setCellValue(20240115);
+            digits.createCell(2).setCellValue(0.1);
+            digits.createCell(3).setCellValue(0);
+
+            // 常规格式，不是yyyyMMdd
+            Row invalid = sheet.createRow(3);
+            invalid.createCell(0).setCellValue(3);
+            invalid.createCell(1).setCellValue(45306);
+            invalid.createCell(2).setCellValue("7");
+            invalid.createCell(3).setCellValue("是");
+
+            // 文本
+            Row text = sheet.createRow(4);
+            text.createCell(0).setCellValue("4");
+            text.createCell(1).setCellValue("2024/01/15");
+
+            workbook.write(out);
+        }
+
+        ReadSchema schema = ReadSchema.builder().
+                column("id", ColumnType.LONG).
+                column("date", ColumnType.LOCAL_DATE).
+                column("amount", ColumnType.DECIMAL).
+                column("flag", ColumnType.BOOLEAN).
+                build();
+
+        List<TypedRow> rows = read(file, schema);
+        assertEquals(4, rows.size());
+
+        LocalDate expected = LocalDate.of(2024, 1, 15);
+
+        assertEquals(1L, rows.get(0).getLong("id"));
+        assertEquals(expected, rows.get(0).getDate("date"));
+        assertEquals(new BigDecimal("12.5"), rows.get(0).getDecimal("amount"));
+        assertTrue(rows.get(0).getBoolean("flag"));
+
+        assertEquals(expected, rows.get(1).getDate("date"));
+        assertEquals(0, new BigDecimal("0.1").compareTo(rows.get(1).getDecimal("amount")));
+        assertFalse(rows.get(1).getBoolean("flag"));
+
+        assertTrue(rows.get(2).isNull("date"));
+        assertEquals(new BigDecimal("7"), rows.get(2).getDecimal("amount"));
+        assertTrue(rows.get(2).getBoolean("flag"));
+
+        assertEquals(4L, rows.get(3).getLong("id"));
+        assertEquals(expected, rows.get(3).getDate("date"));
+        assertTrue(rows.get(3).isNull("amount"));
+    }
+
+    @Test
+    public void testCsv() throws Exception {
+        File file = folder.newFile("typed.csv");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("id,date,amount,flag\n");
+            writer.write(" 1 ,20240115,\"12.50\",yes\n");
+            writer.write("2,\"2024-01-15\",,N\n");
+            writer.write("x,15/01/2024,abc,maybe\n");
+        }
+
+        ReadSchema schema = ReadSchema.builder().
+                column("id", ColumnType.INT).
+                column("date", ColumnType.LOCAL_DATE).
+                column("amount", ColumnType.DOUBLE).
+                column("flag", ColumnType.BOOLEAN).
+                build();
+
+        List<TypedRow> rows = read(file, schema);
+        assertEquals(3, rows.size());
+
+        assertEquals(1, rows.get(0).getInt("id"));
+        assertEquals(LocalDate.of(2024, 1, 15), rows.get(0).getDate("date"));
+        assertEquals(12.5, rows.get(0).getDouble("amount"), 0);
+        assertTrue(rows.get(0).getBoolean("flag"));
+
+        assertEquals(LocalDate.of(2024, 1, 15), rows.get(1).getDate("date"));
+        assertTrue(rows.get(1).isNull("amount"));
+        assertFalse(rows.get(1).getBoolean("flag"));
+
+        // 转换失败，该列为空值
+        for (String name : new String[]{"id", "date", "amount", "flag"}) {
+            assertTrue(name, rows.get(2).isNull(name));
+        }
+    }
+
+    private static List<TypedRow> read(File file, ReadSchema schema) throws IOException {
+        List<TypedRow> result = new ArrayList<>();
+        ReadTyped.create(schema).read(file, new ReadTyped.Listener() {
+            @Override
+            public void invoke(int rowIndex, TypedRow row) {
+                result.add(row.copy());
+            }
+
+            @Override
+            public void onComplete(int rowIndex) {
+            }
+        });
+
+        return result;
+    }
+
+    private static long parseLong(String value) {
+        return TypedConverter.parseLong(value.toCharArray(), 0, value.length());
+    }
+
+    private static double parseDouble(String value) {
+        return TypedConverter.parseDouble(value.toCharArray(), 0, value.length());
+    }
+
+    private static LocalDate parseDate(String value, DateTimeFormatter formatter) {
+        return TypedConverter.parseDate(value.toCharArray(), 0, value.length(), formatter);
+    }
+
+}
@@ -0,0 +1,259 @@
+package com.github.changebooks.worksheet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * UTF-8校验，RFC 3629
+ *
+ * @author changebooks
+ */
+public class Utf8UtilsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * 每种长度的最小、最大值，代理区前后
+     */
+    @Test
+    public void testBoundaries() {
+        String[] valid = {
+                "00", "7F",
+                "C2 80", "DF BF",
+                "E0 A0 80", "ED 9F BF", "EE 80 80", "EF BF BF",
+                "F0 90 80 80", "F4 8F BF BF",
+        };
+
+        for (String hex : valid) {
+            assertTrue(hex, Utf8Utils.check(bytes(hex)));
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        String[] invalid = {
+                // 超长编码
+                "C0 80", "C1 BF", "E0 80 80", "E0 9F BF", "F0 80 80 80", "F0 8F BF BF",
+                // 代理区
+                "ED A0 80", "ED BF BF",
+                // 大于U+10FFFF
+                "F4 90 80 80", "F5 80 80 80", "F7 BF BF BF",
+                // 5/6字节首字节
+                "F8 88 80 80 80", "FC 84 80 80 80 80", "FE", "FF",
+                // 孤立的后续字节，后续字节不足
+                "80", "BF", "C2 41", "E1 80 41", "F1 80 80 41",
+        };
+
+        for (String hex : invalid) {
+            assertFalse(hex, Utf8Utils.check(bytes(hex)));
+            assertFalse(hex, Utf8Utils.checkPrefix(bytes(hex)));
+        }
+    }
+
+    /**
+     * 与JDK的严格解码结果相同
+     */
+    @Test
+    public void testSameAsDecoder() {
+        Random random = new Random(3629);
+        byte[] pool = bytes("00 41 7F 80 8F 90 9F A0 BF C0 C1 C2 DF E0 E1 EC ED EE EF F0 F1 F3 F4 F5 FF");
+
+        for (int n = 0; n < 200000; n++) {
+            byte[] data = new byte[1 + random.nextInt(12)];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = pool[random.nextInt(pool.length)];
+            }
+
+            assertEquals(Arrays.toString(data), decodable(data), Utf8Utils.check(data));
+        }
+    }
+
+    /**
+     * 分段校验，任意位置切分，结果不变
+     */
+    @Test
+    public void testSplit() {
+        byte[] data = "a中é😀b€".getBytes(StandardCharsets.UTF_8);
+
+        for (int split = 0; split <= data.length; split++) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            int state = Utf8Utils.validate(Utf8Utils.ACCEPT, buffer, 0, split);
+            assertNotEquals(Utf8Utils.REJECT, state);
+            assertEquals(String.valueOf(split), Utf8Utils.ACCEPT, Utf8Utils.validate(state, buffer, split, data.length));
+
+            if (split > 0) {
+                byte[] prefix = Arrays.copyOf(data, split);
+                assertTrue(Utf8Utils.checkPrefix(prefix));
+                assertEquals(state == Utf8Utils.ACCEPT, Utf8Utils.check(prefix));
+            }
+        }
+    }
+
+    /**
+     * ASCII每次跳过8字节，非ASCII在任意对齐位置都能校验到
+     */
+    @Test
+    public void testAsciiFastPath() {
+        for (int size = 1; size <= 40; size++) {
+            byte[] ascii = new byte[size];
+            Arrays.fill(ascii, (byte) 'a');
+            assertTrue(Utf8Utils.check(ascii));
+
+            for (int at = 0; at < size; at++) {
+                byte[] invalid = ascii.clone();
+                invalid[at] = (byte) 0x80;
+                assertFalse(size + " " + at, Utf8Utils.check(invalid));
+
+                // 之后是ASCII，或在末尾截断
+                byte[] lead = ascii.clone();
+                lead[at] = (byte) 0xE4;
+                assertFalse(size + " " + at, Utf8Utils.check(lead));
+                assertEquals(size + " " + at, at == size - 1, Utf8Utils.checkPrefix(lead));
+            }
+
+            // 从from开始，直接缓冲区
+            ByteBuffer direct = ByteBuffer.allocateDirect(size + 3);
+            direct.put(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80}).put(ascii);
+            assertEquals(Utf8Utils.ACCEPT, Utf8Utils.validate(Utf8Utils.ACCEPT, direct, 3, size + 3));
+            assertEquals(Utf8Utils.REJECT, Utf8Utils.validate(Utf8Utils.ACCEPT, direct, 2, size + 3));
+        }
+    }
+
+    /**
+     * 在checkSize处截断的字符视为合法，之后的字节不校验
+     */
+    @Test
+    public void testCheckSize() throws Exception {
+        byte[] data = "ab中".getBytes(StandardCharsets.UTF_8);
+        File file = write("size.csv", concat(data, new byte[]{(byte) 0xFF}));
+
+        for (int checkSize = 1; checkSize <= data.length; checkSize++) {
+            assertTrue(String.valueOf(checkSize), Utf8Utils.checkBody(file, checkSize));
+            assertTrue(String.valueOf(checkSize), new Utf8Utils(checkSize).check(file));
+            assertTrue(String.valueOf(checkSize), Utf8Utils.checkBody(new ByteArrayInputStream(Files.readAllBytes(file.toPath())), checkSize));
+        }
+
+        assertFalse(Utf8Utils.checkBody(file, data.length + 1));
+        assertFalse(Utf8Utils.checkBody(file, 0));
+
+        // checkSize超过文件，末尾截断的字符非法
+        File truncated = write("truncated.csv", Arrays.copyOf(data, data.length - 1));
+        assertFalse(Utf8Utils.checkBody(truncated, 1024));
+        assertFalse(Utf8Utils.checkBody(truncated, 0));
+    }
+
+    /**
+     * 流式校验，字符跨缓冲区
+     */
+    @Test
+    public void testChannel() throws Exception {
+        byte[] chinese = "中".getBytes(StandardCharsets.UTF_8);
+
+        for (int shift = 0; shift < chinese.length; shift++) {
+            byte[] data = new byte[Utf8Utils.BUFFER_SIZE * 2 + 10];
+            Arrays.fill(data, (byte) 'x');
+            System.arraycopy(chinese, 0, data, Utf8Utils.BUFFER_SIZE - shift - 1, chinese.length);
+            System.arraycopy(chinese, 0, data, Utf8Utils.BUFFER_SIZE * 2 - shift - 1, chinese.length);
+
+            File file = write("channel" + shift + ".csv", data);
+            assertTrue(Utf8Utils.checkBody(file, 0));
+
+            data[data.length - 1] = (byte) 0xC0;
+            File invalid = write("invalid" + shift + ".csv", data);
+            assertFalse(Utf8Utils.checkBody(invalid, 0));
+            assertTrue(Utf8Utils.checkBody(invalid, data.length - 1));
+            assertFalse(Utf8Utils.checkBody(new ByteArrayInputStream(data), 0));
+        }
+
+        // 从当前位置读
+        File file = write("position.csv", concat(new byte[]{(byte) 0xFF}, "ok".getBytes(StandardCharsets.US_ASCII)));
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            channel.position(1);
+            assertTrue(Utf8Utils.check(channel, 0));
+        }
+    }
+
+    /**
+     * 空文件，false
+     */
+    @Test
+    public void testEmpty() throws Exception {
+        File file = write("empty.csv", new byte[0]);
+
+        assertFalse(Utf8Utils.checkBody(file, 0));
+        assertFalse(Utf8Utils.checkBody(file, 16));
+        assertFalse(new Utf8Utils().check(file));
+        assertFalse(Utf8Utils.checkBody(new ByteArrayInputStream(new byte[0]), 0));
+
+        try {
+            Utf8Utils.check(new byte[0]);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // 期望
+        }
+    }
+
+    @Test
+    public void testHead() throws Exception {
+        assertTrue(Utf8Utils.checkHead(new ByteArrayInputStream(bytes("EF BB BF 41"))));
+        assertTrue(Utf8Utils.checkHead(new ByteArrayInputStream(bytes("FF FE 41 00"))));
+        assertTrue(Utf8Utils.checkHead(new ByteArrayInputStream(bytes("FE FF 00 41"))));
+        assertFalse(Utf8Utils.checkHead(new ByteArrayInputStream(bytes("41 42 43"))));
+        assertFalse(Utf8Utils.checkHead(new ByteArrayInputStream(bytes("EF BB"))));
+
+        // BOM之后不再校验
+        assertTrue(new Utf8Utils().check(write("bom.csv", bytes("EF BB BF FF"))));
+    }
+
+    private File write(String name, byte[] data) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), data);
+        return file;
+    }
+
+    private static boolean decodable(byte[] data) {
+        try {
+            StandardCharsets.UTF_8.newDecoder().
+                    onMalformedInput(CodingErrorAction.REPORT).
+                    onUnmappableCharacter(CodingErrorAction.REPORT).
+                    decode(ByteBuffer.wrap(data));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+
+    private static byte[] bytes(String hex) {
+        String[] parts = hex.split(" ");
+        byte[] result = new byte[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = (byte) Integer.parseInt(parts[i], 16);
+        }
+
+        return result;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+}
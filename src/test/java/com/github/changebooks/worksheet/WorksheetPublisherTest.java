@@ -0,0 +1,213 @@
+package com.github.changebooks.worksheet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * 按需发布，背压
+ *
+ * @author changebooks
+ */
+public class WorksheetPublisherTest {
+
+    private static final int ROWS = 100;
+
+    private static final long TIMEOUT = 10;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRequestAll() throws Exception {
+        Recorder<Map<String, String>> recorder = new Recorder<>(s -> s.request(Long.MAX_VALUE));
+
+        ReadLine.create(null, ReadOptions.DEFAULT).publisher(write()).subscribe(recorder);
+
+        assertTrue(recorder.done.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(ROWS + 1, recorder.signals.size());
+        assertEquals("{id=1, name=名字1}", recorder.signals.get(0));
+        assertEquals("complete", recorder.signals.get(ROWS));
+    }
+
+    /**
+     * 需求为0，不发布
+     */
+    @Test
+    public void testBackPressure() throws Exception {
+        Recorder<Integer> recorder = new Recorder<>(s -> s.request(3));
+
+        WorksheetPublisher.create(this::range, WorksheetPublisher.DEFAULT_EXECUTOR).subscribe(recorder);
+
+        Thread.sleep(200);
+        assertEquals("[0, 1, 2]", recorder.signals.toString());
+
+        recorder.subscription.request(2);
+        Thread.sleep(200);
+        assertEquals("[0, 1, 2, 3, 4]", recorder.signals.toString());
+
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertTrue(recorder.done.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(ROWS + 1, recorder.signals.size());
+    }
+
+    /**
+     * 在onNext中request，逐项发布
+     */
+    @Test
+    public void testRequestInOnNext() throws Exception {
+        Recorder<Integer> recorder = new Recorder<Integer>(s -> s.request(1)) {
+            @Override
+            public void onNext(Integer item) {
+                super.onNext(item);
+                subscription.request(1);
+            }
+        };
+
+        WorksheetPublisher.create(this::range, WorksheetPublisher.DEFAULT_EXECUTOR).subscribe(recorder);
+
+        assertTrue(recorder.done.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(ROWS + 1, recorder.signals.size());
+    }
+
+    /**
+     * onNext期间，其它线程的request、cancel不等待
+     */
+    @Test
+    public void testNonBlocking() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Recorder<Integer> recorder = new Recorder<Integer>(s -> s.request(1)) {
+            @Override
+            public void onNext(Integer item) {
+                super.onNext(item);
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        WorksheetPublisher.create(this::range, WorksheetPublisher.DEFAULT_EXECUTOR).subscribe(recorder);
+        assertTrue(entered.await(TIMEOUT, TimeUnit.SECONDS));
+
+        Thread other = new Thread(() -> {
+            recorder.subscription.request(5);
+            recorder.subscription.cancel();
+        });
+        other.start();
+        other.join(TimeUnit.SECONDS.toMillis(TIMEOUT));
+        assertFalse(other.isAlive());
+
+        release.countDown();
+        Thread.sleep(200);
+
+        // 已取消，不再发布，不回调完成
+        assertEquals("[0]", recorder.signals.toString());
+    }
+
+    @Test
+    public void testInvalidRequest() throws Exception {
+        Recorder<Integer> recorder = new Recorder<>(s -> s.request(0));
+
+        WorksheetPublisher.create(this::range, WorksheetPublisher.DEFAULT_EXECUTOR).subscribe(recorder);
+
+        assertTrue(recorder.done.await(TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(recorder.error.get() instanceof IllegalArgumentException);
+        assertTrue(recorder.signals.isEmpty());
+    }
+
+    @Test
+    public void testError() throws Exception {
+        Recorder<Integer> recorder = new Recorder<>(s -> s.request(Long.MAX_VALUE));
+
+        WorksheetPublisher.<Integer>create(emitter -> {
+            emitter.accept(1);
+            throw new IOException("broken");
+        }, WorksheetPublisher.DEFAULT_EXECUTOR).subscribe(recorder);
+
+        assertTrue(recorder.done.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals("broken", recorder.error.get().getMessage());
+        assertEquals("[1]", recorder.signals.toString());
+    }
+
+    private void range(Consumer<Integer> emitter) {
+        for (int i = 0; i < ROWS; i++) {
+            emitter.accept(i);
+        }
+    }
+
+    private File write() throws IOException {
+        File file = folder.newFile("publisher.csv");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("id,name\n");
+            for (int i = 1; i <= ROWS; i++) {
+                writer.write(i + ",名字" + i + "\n");
+            }
+        }
+
+        return file;
+    }
+
+    /**
+     * 记录onNext、onComplete
+     */
+    private static class Recorder<T> implements Subscriber<T> {
+
+        final List<String> signals = new CopyOnWriteArrayList<>();
+
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        final CountDownLatch done = new CountDownLatch(1);
+
+        final Consumer<Subscription> onSubscribe;
+
+        volatile Subscription subscription;
+
+        Recorder(Consumer<Subscription> onSubscribe) {
+            this.onSubscribe = onSubscribe;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            onSubscribe.accept(subscription);
+        }
+
+        @Override
+        public void onNext(T item) {
+            signals.add(String.valueOf(item));
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.set(throwable);
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            signals.add("complete");
+            done.countDown();
+        }
+
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.github.changebooks.worksheet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * 并行写csv与WriteLine逐字节相同
+ *
+ * @author changebooks
+ */
+public class WriteCsvParallelTest {
+
+    private static final int ROWS = 1000;
+
+    private static final List<String> KEYS = Arrays.asList("id", "name", "note");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSameBytes() throws Exception {
+        List<Map<String, String>> rows = rows();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Charset charset : new Charset[]{StandardCharsets.UTF_8, Charset.forName("GBK")}) {
+                for (int chunkSize : new int[]{1, 7, 64, WriteCsvParallel.DEFAULT_CHUNK_SIZE}) {
+                    File expected = newCsv("expected-" + charset + "-" + chunkSize);
+                    File actual = newCsv("actual-" + charset + "-" + chunkSize);
+
+                    writeLine(expected, charset, KEYS, rows);
+
+                    try (WriteCsvParallel writer = WriteCsvParallel.create(actual, charset, KEYS, pool, chunkSize)) {
+                        for (Map<String, String> row : rows) {
+                            writer.write(row);
+                        }
+                    }
+
+                    assertArrayEquals(charset + " " + chunkSize, bytes(expected), bytes(actual));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testKeysFromFirstRow() throws Exception {
+        List<Map<String, String>> rows = rows();
+
+        File expected = newCsv("expected");
+        File actual = newCsv("actual");
+
+        writeLine(expected, StandardCharsets.UTF_8, null, rows);
+
+        try (WriteCsvParallel writer = WriteCsvParallel.create(actual, StandardCharsets.UTF_8, null, ForkJoinPool.commonPool(), 16)) {
+            writer.writePage(rows.subList(0, 500));
+            writer.flush();
+            writer.writePage(rows.subList(500, rows.size()));
+
+            assertEquals(ROWS, writer.getCount());
+            assertEquals(KEYS.size(), writer.getHeader().size());
+        }
+
+        assertArrayEquals(bytes(expected), bytes(actual));
+    }
+
+    @Test
+    public void testReadBack() throws Exception {
+        List<Map<String, String>> rows = rows();
+
+        File file = newCsv("back");
+        try (WriteCsvParallel writer = WriteCsvParallel.create(file, StandardCharsets.UTF_8, KEYS, ForkJoinPool.commonPool(), 10)) {
+            writer.writePage(rows);
+        }
+
+        List<Map<String, String>> actual = ReadCsv.readSync(file, StandardCharsets.UTF_8);
+        assertEquals(ROWS, actual.size());
+
+        for (int i = 0; i < ROWS; i++) {
+            for (String key : KEYS) {
+                String value = rows.get(i).get(key);
+                assertEquals(Objects.isNull(value) ? "" : value, actual.get(i).get(key));
+            }
+        }
+    }
+
+    /**
+     * 分隔符、引号、换行、空值、缺少的列、中文
+     */
+    private static List<Map<String, String>> rows() {
+        List<Map<String, String>> result = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i++) {
+            Map<String, String> row = new LinkedHashMap<>();
+            row.put("id", String.valueOf(i));
+            row.put("name", i % 3 == 0 ? "名字," + i : "name" + i);
+
+            switch (i % 5) {
+                case 0:
+                    row.put("note", "say \"hi\"");
+                    break;
+                case 1:
+                    row.put("note", "line1\nline2");
+                    break;
+                case 2:
+                    row.put("note", null);
+                    break;
+                case 3:
+                    // 缺少的列
+                    break;
+                default:
+                    row.put("note", "");
+                    break;
+            }
+
+            result.add(row);
+        }
+
+        return result;
+    }
+
+    private static void writeLine(File file, Charset charset, List<String> keys, List<Map<String, String>> rows) throws IOException {
+        try (WriteLine writer = WriteLine.create(file, charset, keys)) {
+            for (Map<String, String> row : rows) {
+                writer.write(row);
+            }
+        }
+    }
+
+    private File newCsv(String name) {
+        return new File(folder.getRoot(), name + ".csv");
+    }
+
+    private static byte[] bytes(File file) throws IOException {
+        return Files.readAllBytes(file.toPath());
+    }
+
+}